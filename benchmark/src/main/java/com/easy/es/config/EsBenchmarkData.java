@@ -0,0 +1,181 @@
+package com.easy.es.config;
+
+import com.alibaba.fastjson2.JSON;
+import org.elasticsearch.index.query.QueryBuilders;
+import org.elasticsearch.search.sort.SortOrder;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+/**
+ * @author agent
+ * @ClassName EsBenchmarkData
+ * @create 2026年10月17日 18:25
+ * @Description 基准测试数据，使用固定随机种子保证每次运行一致
+ * @Version V1.0
+ */
+public final class EsBenchmarkData {
+
+    public static final String CLUSTER_NAME = "benchmark";
+
+    public static final String INDEX_NAME = "benchmark-index";
+
+    private static final long SEED = 20261019L;
+
+    private EsBenchmarkData() {
+    }
+
+    public static EsIndexInfo indexInfo() {
+        EsIndexInfo esIndexInfo = new EsIndexInfo();
+        esIndexInfo.setClusterName(CLUSTER_NAME);
+        esIndexInfo.setIndexName(INDEX_NAME);
+        return esIndexInfo;
+    }
+
+    /**
+     * 生成count个文档，每个文档包含字符串、数值、列表及嵌套对象字段
+     */
+    public static List<EsSourceData> documents(int count) {
+        Random random = new Random(SEED);
+        List<EsSourceData> list = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            Map<String, Object> data = new HashMap<>();
+            data.put("title", "商品标题-" + i + "-" + Long.toHexString(random.nextLong()));
+            data.put("price", random.nextInt(100000) / 100.0);
+            data.put("stock", random.nextInt(1000));
+            data.put("tags", new String[]{"tag" + random.nextInt(50), "tag" + random.nextInt(50)});
+            Map<String, Object> shop = new HashMap<>();
+            shop.put("id", random.nextInt(10000));
+            shop.put("name", "店铺-" + random.nextInt(10000));
+            data.put("shop", shop);
+            EsSourceData source = new EsSourceData();
+            source.setDocId(String.valueOf(i));
+            source.setData(data);
+            list.add(source);
+        }
+        return list;
+    }
+
+    /**
+     * 将文档预先序列化为JSON字节，模拟上游已持有序列化结果的场景
+     */
+    public static List<EsRawSourceData> rawDocuments(List<EsSourceData> documents) {
+        List<EsRawSourceData> list = new ArrayList<>(documents.size());
+        for (EsSourceData source : documents) {
+            list.add(new EsRawSourceData(source.getDocId(), JSON.toJSONBytes(source.getData())));
+        }
+        return list;
+    }
+
+    /**
+     * 典型的列表页查询：过滤、全文匹配、排序、分页及返回字段
+     */
+    public static EsSearchRequest searchRequest(int size) {
+        EsSearchRequest esSearchRequest = new EsSearchRequest();
+        esSearchRequest.setBoolQueryBuilder(QueryBuilders.boolQuery()
+                .must(QueryBuilders.matchQuery("title", "商品标题"))
+                .filter(QueryBuilders.termQuery("tags", "tag7"))
+                .filter(QueryBuilders.rangeQuery("price").gte(10).lte(500)));
+        esSearchRequest.setFields(new String[]{"title", "price", "shop.name"});
+        esSearchRequest.setFrom(0);
+        esSearchRequest.setSize(size);
+        esSearchRequest.setSortName("price");
+        esSearchRequest.setSortOrder(SortOrder.ASC);
+        return esSearchRequest;
+    }
+
+    /**
+     * 模拟_search响应，包含hits个命中
+     */
+    public static String searchResponse(int hits) {
+        Random random = new Random(SEED);
+        StringBuilder sb = new StringBuilder(256 + hits * 200);
+        sb.append("{\"took\":3,\"timed_out\":false,\"_shards\":{\"total\":1,\"successful\":1,\"skipped\":0,\"failed\":0},")
+                .append("\"hits\":{\"total\":{\"value\":").append(hits).append(",\"relation\":\"eq\"},\"max_score\":null,\"hits\":[");
+        for (int i = 0; i < hits; i++) {
+            if (i > 0) {
+                sb.append(',');
+            }
+            double price = random.nextInt(100000) / 100.0;
+            sb.append("{\"_index\":\"").append(INDEX_NAME).append("\",\"_type\":\"_doc\",\"_id\":\"").append(i)
+                    .append("\",\"_score\":null,\"_source\":{\"title\":\"商品标题-").append(i)
+                    .append("\",\"price\":").append(price)
+                    .append(",\"shop\":{\"name\":\"店铺-").append(random.nextInt(10000)).append("\"}},\"sort\":[")
+                    .append(price).append("]}");
+        }
+        return sb.append("]}}").toString();
+    }
+
+    /**
+     * composite聚合名称
+     */
+    public static final String COMPOSITE_NAME = "by_shop";
+
+    /**
+     * 模拟经filter_path过滤的composite聚合响应，包含buckets个桶，每个桶带avg与stats子聚合
+     */
+    public static String compositeResponse(int buckets) {
+        Random random = new Random(SEED);
+        StringBuilder sb = new StringBuilder(128 + buckets * 160);
+        sb.append("{\"_shards\":{\"failed\":0},\"aggregations\":{\"").append(COMPOSITE_NAME)
+                .append("\":{\"after_key\":{\"shop\":\"店铺-").append(buckets - 1).append("\"},\"buckets\":[");
+        for (int i = 0; i < buckets; i++) {
+            if (i > 0) {
+                sb.append(',');
+            }
+            double price = random.nextInt(100000) / 100.0;
+            sb.append("{\"key\":{\"shop\":\"店铺-").append(i).append("\"},\"doc_count\":").append(random.nextInt(1000) + 1)
+                    .append(",\"avg_price\":{\"value\":").append(price)
+                    .append("},\"price_stats\":{\"count\":3,\"min\":1.0,\"max\":").append(price)
+                    .append(",\"avg\":").append(price / 2).append(",\"sum\":").append(price * 1.5).append("}}");
+        }
+        return sb.append("]}}}").toString();
+    }
+
+    /**
+     * 模拟_analyze响应，包含tokens个分词
+     */
+    public static String analyzeResponse(int tokens) {
+        StringBuilder sb = new StringBuilder(64 + tokens * 96).append("{\"tokens\":[");
+        int offset = 0;
+        for (int i = 0; i < tokens; i++) {
+            if (i > 0) {
+                sb.append(',');
+            }
+            String token = "分词" + i;
+            sb.append("{\"token\":\"").append(token).append("\",\"start_offset\":").append(offset)
+                    .append(",\"end_offset\":").append(offset + token.length())
+                    .append(",\"type\":\"CN_WORD\",\"position\":").append(i).append('}');
+            offset += token.length();
+        }
+        return sb.append("]}").toString();
+    }
+
+    /**
+     * 模拟_bulk响应，包含items个成功的写入结果
+     */
+    public static String bulkResponse(int items) {
+        StringBuilder sb = new StringBuilder(64 + items * 200).append("{\"took\":5,\"errors\":false,\"items\":[");
+        for (int i = 0; i < items; i++) {
+            if (i > 0) {
+                sb.append(',');
+            }
+            sb.append("{\"index\":{\"_index\":\"").append(INDEX_NAME).append("\",\"_type\":\"_doc\",\"_id\":\"").append(i)
+                    .append("\",\"_version\":1,\"result\":\"created\",\"_shards\":{\"total\":1,\"successful\":1,\"failed\":0},")
+                    .append("\"_seq_no\":").append(i).append(",\"_primary_term\":1,\"status\":201}}");
+        }
+        return sb.append("]}").toString();
+    }
+
+    /**
+     * 模拟按ID获取文档的响应
+     */
+    public static String getResponse(String docId) {
+        return "{\"_index\":\"" + INDEX_NAME + "\",\"_type\":\"_doc\",\"_id\":\"" + docId
+                + "\",\"_version\":1,\"_seq_no\":0,\"_primary_term\":1,\"found\":true,"
+                + "\"_source\":{\"title\":\"商品标题-" + docId + "\",\"price\":99.5,\"stock\":10,\"shop\":{\"id\":1,\"name\":\"店铺-1\"}}}";
+    }
+}
@@ -0,0 +1,106 @@
+package com.easy.es.config;
+
+import org.elasticsearch.action.search.SearchResponse;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * @author agent
+ * @ClassName EsClientBenchmark
+ * @create 2026年10月17日 18:25
+ * @Description 端到端基准测试，经由本地模拟服务调用EsRestClient，包含请求构建、HTTP往返与响应解析
+ * @Version V1.0
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class EsClientBenchmark {
+
+    private static final int BULK_DOCS = 500;
+
+    private static final int SEARCH_HITS = 20;
+
+    private static final int ANALYZE_TOKENS = 50;
+
+    private EsStubServer stubServer;
+
+    private EsRestClient esRestClient;
+
+    private EsIndexInfo esIndexInfo;
+
+    private List<EsSourceData> documents;
+
+    private List<EsRawSourceData> rawDocuments;
+
+    private EsSearchRequest esSearchRequest;
+
+    private String analyzeText;
+
+    @Setup(Level.Trial)
+    public void setup() throws IOException {
+        stubServer = new EsStubServer(SEARCH_HITS, ANALYZE_TOKENS);
+        EsClusterConfig esConfig = new EsClusterConfig();
+        esConfig.setClusterName(EsBenchmarkData.CLUSTER_NAME);
+        esConfig.setNodes(stubServer.getNodes());
+        esConfig.setSlowQueryThresholdMillis(-1);
+        EsConfigProperties esConfigProperties = new EsConfigProperties();
+        esConfigProperties.getEsConfigs().add(esConfig);
+        esRestClient = new EsRestClient(esConfigProperties);
+        esRestClient.init();
+
+        esIndexInfo = EsBenchmarkData.indexInfo();
+        documents = EsBenchmarkData.documents(BULK_DOCS);
+        rawDocuments = EsBenchmarkData.rawDocuments(documents);
+        esSearchRequest = EsBenchmarkData.searchRequest(SEARCH_HITS);
+        analyzeText = "基准测试用的一段中文文本，用于分词";
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        esRestClient.close();
+        stubServer.close();
+    }
+
+    @Benchmark
+    public boolean batchInsertDoc() {
+        return esRestClient.batchInsertDoc(esIndexInfo, documents);
+    }
+
+    @Benchmark
+    public boolean batchInsertRawDoc() {
+        return esRestClient.batchInsertRawDoc(esIndexInfo, rawDocuments);
+    }
+
+    @Benchmark
+    public SearchResponse searchWithTermQuery() {
+        return esRestClient.searchWithTermQuery(esIndexInfo, esSearchRequest);
+    }
+
+    @Benchmark
+    public List<String> getAnalyze() throws Exception {
+        return esRestClient.getAnalyze(esIndexInfo, analyzeText);
+    }
+
+    @Benchmark
+    public Map<String, Object> getDocById() {
+        return esRestClient.getDocById(esIndexInfo, "1");
+    }
+}
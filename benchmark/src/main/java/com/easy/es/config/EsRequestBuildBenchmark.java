@@ -0,0 +1,84 @@
+package com.easy.es.config;
+
+import org.elasticsearch.action.bulk.BulkRequest;
+import org.elasticsearch.client.Request;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * @author agent
+ * @ClassName EsRequestBuildBenchmark
+ * @create 2026年10月17日 18:25
+ * @Description 请求构建的基准测试：批量写入请求的构建与序列化（Map文档及原始JSON文档）、查询DSL的构建
+ * @Version V1.0
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class EsRequestBuildBenchmark {
+
+    @Param({"100", "1000"})
+    private int docs;
+
+    private EsRestClient esRestClient;
+
+    private EsIndexInfo esIndexInfo;
+
+    private List<EsSourceData> documents;
+
+    private List<EsRawSourceData> rawDocuments;
+
+    private EsSearchRequest esSearchRequest;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        esRestClient = new EsRestClient(new EsConfigProperties());
+        esIndexInfo = EsBenchmarkData.indexInfo();
+        documents = EsBenchmarkData.documents(docs);
+        rawDocuments = EsBenchmarkData.rawDocuments(documents);
+        esSearchRequest = EsBenchmarkData.searchRequest(20);
+    }
+
+    /**
+     * batchInsertDoc的请求构建，包含文档序列化为JSON
+     */
+    @Benchmark
+    public BulkRequest buildBulkRequest() {
+        BulkRequest bulkRequest = new BulkRequest();
+        esRestClient.buildIndexRequests(esIndexInfo, documents).forEach(bulkRequest::add);
+        return bulkRequest;
+    }
+
+    /**
+     * batchInsertRawDoc的请求构建，文档字节直接作为请求体分段
+     */
+    @Benchmark
+    public Request buildRawBulkRequest() throws IOException {
+        return esRestClient.buildRawBulkRequest(esIndexInfo, rawDocuments);
+    }
+
+    /**
+     * searchWithTermQuery的请求构建，包含查询DSL序列化（与查询缓存键的生成一致）
+     */
+    @Benchmark
+    public String buildSearchSource() {
+        return esRestClient.buildSearchRequest(esIndexInfo, esSearchRequest).source().toString();
+    }
+}
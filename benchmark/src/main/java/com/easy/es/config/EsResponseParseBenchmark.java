@@ -0,0 +1,96 @@
+package com.easy.es.config;
+
+import org.apache.http.entity.ContentType;
+import org.apache.http.nio.entity.NStringEntity;
+import org.elasticsearch.action.search.SearchResponse;
+import org.elasticsearch.common.xcontent.DeprecationHandler;
+import org.elasticsearch.common.xcontent.NamedXContentRegistry;
+import org.elasticsearch.common.xcontent.XContentParser;
+import org.elasticsearch.common.xcontent.XContentType;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * @author agent
+ * @ClassName EsResponseParseBenchmark
+ * @create 2026年10月17日 18:25
+ * @Description 响应解析的基准测试：_search响应、composite聚合分页与_analyze分词结果的解析
+ * @Version V1.0
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class EsResponseParseBenchmark {
+
+    @Param({"20", "500"})
+    private int size;
+
+    private EsRestClient esRestClient;
+
+    private byte[] searchResponse;
+
+    private String analyzeResponse;
+
+    private byte[] compositeResponse;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        esRestClient = new EsRestClient(new EsConfigProperties());
+        searchResponse = EsBenchmarkData.searchResponse(size).getBytes(StandardCharsets.UTF_8);
+        analyzeResponse = EsBenchmarkData.analyzeResponse(size);
+        compositeResponse = EsBenchmarkData.compositeResponse(size).getBytes(StandardCharsets.UTF_8);
+    }
+
+    /**
+     * searchWithTermQuery的响应解析，size为命中数
+     */
+    @Benchmark
+    public SearchResponse parseSearchResponse() throws IOException {
+        try (XContentParser parser = XContentType.JSON.xContent().createParser(NamedXContentRegistry.EMPTY,
+                DeprecationHandler.THROW_UNSUPPORTED_OPERATION, searchResponse)) {
+            return SearchResponse.fromXContent(parser);
+        }
+    }
+
+    /**
+     * searchCompact的响应解析，同样的响应体只提取ID、_source及命中总数
+     */
+    @Benchmark
+    public EsCompactSearchResult parseCompactSearchResponse() {
+        return EsCompactSearchParser.parse(searchResponse);
+    }
+
+    /**
+     * compositeAggregation每页的响应解析，size为桶数
+     */
+    @Benchmark
+    public EsCompositePage parseCompositePage() {
+        return EsCompositeParser.parse(compositeResponse, EsBenchmarkData.COMPOSITE_NAME);
+    }
+
+    /**
+     * getAnalyze的响应解析，size为分词数
+     */
+    @Benchmark
+    public List<String> parseAnalyzeTokens() throws IOException {
+        return esRestClient.parseAnalyzeTokens(new NStringEntity(analyzeResponse, ContentType.APPLICATION_JSON));
+    }
+}
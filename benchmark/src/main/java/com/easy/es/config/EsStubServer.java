@@ -0,0 +1,146 @@
+package com.easy.es.config;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * @author agent
+ * @ClassName EsStubServer
+ * @create 2026年10月17日 18:25
+ * @Description 进程内的ES模拟服务，按路径返回固定响应，用于离线的端到端基准测试
+ * @Version V1.0
+ */
+public class EsStubServer implements Closeable {
+
+    private final HttpServer server;
+
+    private final ExecutorService executor;
+
+    /**
+     * 延迟写出响应，模拟服务端处理耗时，不占用处理线程
+     */
+    private final ScheduledExecutorService delayScheduler;
+
+    private final long responseDelayMillis;
+
+    private final byte[] searchResponse;
+
+    private final byte[] analyzeResponse;
+
+    /**
+     * 按文档数缓存的_bulk响应
+     */
+    private final Map<Integer, byte[]> bulkResponses = new ConcurrentHashMap<>();
+
+    public EsStubServer(int searchHits, int analyzeTokens) throws IOException {
+        this(searchHits, analyzeTokens, 0);
+    }
+
+    /**
+     * @param responseDelayMillis 每个响应的延迟(毫秒)，大于0时模拟服务端耗时
+     */
+    public EsStubServer(int searchHits, int analyzeTokens, long responseDelayMillis) throws IOException {
+        this.responseDelayMillis = responseDelayMillis;
+        this.delayScheduler = responseDelayMillis > 0 ? Executors.newSingleThreadScheduledExecutor() : null;
+        this.searchResponse = EsBenchmarkData.searchResponse(searchHits).getBytes(StandardCharsets.UTF_8);
+        this.analyzeResponse = EsBenchmarkData.analyzeResponse(analyzeTokens).getBytes(StandardCharsets.UTF_8);
+        // 响应头与响应体分两次写出，关闭Nagle算法避免与延迟确认叠加出约40ms的等待
+        System.setProperty("sun.net.httpserver.nodelay", "true");
+        this.server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 0);
+        this.executor = Executors.newFixedThreadPool(Runtime.getRuntime().availableProcessors());
+        this.server.setExecutor(executor);
+        this.server.createContext("/", this::handle);
+        this.server.start();
+    }
+
+    /**
+     * 供EsClusterConfig.nodes使用的地址
+     */
+    public String getNodes() {
+        return "127.0.0.1:" + server.getAddress().getPort();
+    }
+
+    @Override
+    public void close() {
+        server.stop(0);
+        executor.shutdownNow();
+        if (delayScheduler != null) {
+            delayScheduler.shutdownNow();
+        }
+    }
+
+    private void handle(HttpExchange exchange) throws IOException {
+        byte[] body = readAll(exchange.getRequestBody());
+        String path = exchange.getRequestURI().getPath();
+        byte[] response;
+        if (path.endsWith("/_bulk")) {
+            response = bulkResponses.computeIfAbsent(countBulkActions(body),
+                    items -> EsBenchmarkData.bulkResponse(items).getBytes(StandardCharsets.UTF_8));
+        } else if (path.endsWith("/_search")) {
+            response = searchResponse;
+        } else if (path.endsWith("/_analyze")) {
+            response = analyzeResponse;
+        } else if (path.contains("/_doc/")) {
+            response = EsBenchmarkData.getResponse(path.substring(path.lastIndexOf('/') + 1)).getBytes(StandardCharsets.UTF_8);
+        } else {
+            response = "{}".getBytes(StandardCharsets.UTF_8);
+        }
+        if (delayScheduler == null) {
+            respond(exchange, response);
+            return;
+        }
+        delayScheduler.schedule(() -> {
+            try {
+                respond(exchange, response);
+            } catch (IOException e) {
+                exchange.close();
+            }
+        }, responseDelayMillis, TimeUnit.MILLISECONDS);
+    }
+
+    private static void respond(HttpExchange exchange, byte[] response) throws IOException {
+        exchange.getResponseHeaders().add("Content-Type", "application/json; charset=UTF-8");
+        exchange.sendResponseHeaders(200, response.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(response);
+        }
+    }
+
+    /**
+     * 每个index操作占两行：元数据行与文档行
+     */
+    private static int countBulkActions(byte[] body) {
+        int lines = 0;
+        for (byte b : body) {
+            if (b == '\n') {
+                lines++;
+            }
+        }
+        return lines / 2;
+    }
+
+    private static byte[] readAll(InputStream in) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        byte[] buffer = new byte[8192];
+        int n;
+        while ((n = in.read(buffer)) > 0) {
+            out.write(buffer, 0, n);
+        }
+        return out.toByteArray();
+    }
+}
@@ -0,0 +1,134 @@
+package com.easy.es.config;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * @author agent
+ * @ClassName EsVirtualThreadBenchmark
+ * @create 2026年10月17日 19:28
+ * @Description 大量并发同步搜索的吞吐对比：每个搜索一个虚拟线程，或固定大小的平台线程池
+ * 每次调用并发发起concurrency个searchWithTermQuery并等待全部完成，模拟服务响应延迟RESPONSE_DELAY_MILLIS
+ * virtual模式需要JDK 21，在更低版本上该组参数直接失败
+ * @Version V1.0
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class EsVirtualThreadBenchmark {
+
+    private static final int SEARCH_HITS = 1;
+
+    private static final long RESPONSE_DELAY_MILLIS = 10;
+
+    /**
+     * 平台线程池大小，与Tomcat默认的最大工作线程数一致
+     */
+    private static final int PLATFORM_THREADS = 200;
+
+    /**
+     * 连接数及同步调用方的信号量上限
+     */
+    private static final int MAX_CONNECTIONS = 500;
+
+    @Param({"platform", "virtual"})
+    public String threads;
+
+    @Param({"2000"})
+    public int concurrency;
+
+    private EsStubServer stubServer;
+
+    private EsRestClient esRestClient;
+
+    private EsIndexInfo esIndexInfo;
+
+    private EsSearchRequest esSearchRequest;
+
+    private ExecutorService executor;
+
+    @Setup(Level.Trial)
+    public void setup() throws IOException {
+        executor = "virtual".equals(threads) ? newVirtualThreadExecutor() : Executors.newFixedThreadPool(PLATFORM_THREADS);
+        stubServer = new EsStubServer(SEARCH_HITS, 0, RESPONSE_DELAY_MILLIS);
+        EsClusterConfig esConfig = new EsClusterConfig();
+        esConfig.setClusterName(EsBenchmarkData.CLUSTER_NAME);
+        esConfig.setNodes(stubServer.getNodes());
+        esConfig.setSlowQueryThresholdMillis(-1);
+        esConfig.setMaxConnTotal(MAX_CONNECTIONS);
+        esConfig.setMaxConnPerRoute(MAX_CONNECTIONS);
+        esConfig.setMaxBlockingRequests(MAX_CONNECTIONS);
+        EsConfigProperties esConfigProperties = new EsConfigProperties();
+        esConfigProperties.getEsConfigs().add(esConfig);
+        esRestClient = new EsRestClient(esConfigProperties);
+        esRestClient.init();
+
+        esIndexInfo = EsBenchmarkData.indexInfo();
+        esSearchRequest = EsBenchmarkData.searchRequest(SEARCH_HITS);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        executor.shutdownNow();
+        esRestClient.close();
+        stubServer.close();
+    }
+
+    /**
+     * @return 成功返回的搜索数
+     */
+    @Benchmark
+    public int concurrentSearch() throws InterruptedException {
+        CountDownLatch done = new CountDownLatch(concurrency);
+        AtomicInteger succeeded = new AtomicInteger();
+        for (int i = 0; i < concurrency; i++) {
+            executor.execute(() -> {
+                try {
+                    if (esRestClient.searchWithTermQuery(esIndexInfo, esSearchRequest) != null) {
+                        succeeded.incrementAndGet();
+                    }
+                } finally {
+                    done.countDown();
+                }
+            });
+        }
+        done.await();
+        if (succeeded.get() != concurrency) {
+            // 失败的搜索返回很快，计入结果会使吞吐量虚高
+            throw new IllegalStateException("searches failed:" + (concurrency - succeeded.get()) + "/" + concurrency);
+        }
+        return succeeded.get();
+    }
+
+    /**
+     * 通过反射创建，源码仍可按1.8编译
+     */
+    private static ExecutorService newVirtualThreadExecutor() {
+        try {
+            return (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+        } catch (ReflectiveOperationException e) {
+            throw new IllegalStateException("virtual threads require JDK 21+", e);
+        }
+    }
+}
@@ -0,0 +1,154 @@
+package com.easy.es.config;
+
+import org.elasticsearch.action.ActionListener;
+import org.elasticsearch.client.Cancellable;
+import org.elasticsearch.client.Request;
+import org.elasticsearch.client.Response;
+import org.elasticsearch.client.ResponseListener;
+import org.elasticsearch.client.RestClient;
+import org.elasticsearch.common.CheckedFunction;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.function.Function;
+
+/**
+ * @author agent
+ * @ClassName EsActionFuture
+ * @create 2026年10月17日 18:01
+ * @Description 将ES异步回调桥接为CompletableFuture，取消时同时取消在途的HTTP请求
+ * 同步方法也经由本类发出异步请求后等待结果：等待基于LockSupport，虚拟线程在等待期间让出载体线程，
+ * 而客户端自带的同步方法在synchronized中wait，会占住载体线程
+ * @Version V1.0
+ */
+public class EsActionFuture<T> extends CompletableFuture<T> {
+
+    private volatile Cancellable cancellable;
+
+    /**
+     * 执行高级客户端的*Async方法
+     *
+     * @param call   接收回调并返回Cancellable的异步调用
+     * @param mapper 响应转换
+     * @return 异步结果
+     */
+    public static <R, T> EsActionFuture<T> execute(Function<ActionListener<R>, Cancellable> call,
+                                                   CheckedFunction<R, T, Exception> mapper) {
+        EsActionFuture<T> future = new EsActionFuture<>();
+        try {
+            future.setCancellable(call.apply(new ActionListener<R>() {
+                @Override
+                public void onResponse(R response) {
+                    try {
+                        future.complete(mapper.apply(response));
+                    } catch (Exception e) {
+                        future.completeExceptionally(e);
+                    }
+                }
+
+                @Override
+                public void onFailure(Exception e) {
+                    future.completeExceptionally(e);
+                }
+            }));
+        } catch (Exception e) {
+            future.completeExceptionally(e);
+        }
+        return future;
+    }
+
+    /**
+     * 执行高级客户端的*Async方法，直接返回响应
+     *
+     * @param call 接收回调并返回Cancellable的异步调用
+     * @return 异步结果
+     */
+    public static <T> EsActionFuture<T> execute(Function<ActionListener<T>, Cancellable> call) {
+        return execute(call, response -> response);
+    }
+
+    /**
+     * 执行低级客户端的performRequestAsync
+     *
+     * @param restClient 低级客户端
+     * @param request    请求
+     * @param mapper     响应转换
+     * @return 异步结果
+     */
+    public static <T> EsActionFuture<T> performRequest(RestClient restClient, Request request,
+                                                       CheckedFunction<Response, T, Exception> mapper) {
+        EsActionFuture<T> future = new EsActionFuture<>();
+        try {
+            future.setCancellable(restClient.performRequestAsync(request, new ResponseListener() {
+                @Override
+                public void onSuccess(Response response) {
+                    try {
+                        future.complete(mapper.apply(response));
+                    } catch (Exception e) {
+                        future.completeExceptionally(e);
+                    }
+                }
+
+                @Override
+                public void onFailure(Exception e) {
+                    future.completeExceptionally(e);
+                }
+            }));
+        } catch (Exception e) {
+            future.completeExceptionally(e);
+        }
+        return future;
+    }
+
+    /**
+     * 执行低级客户端的performRequestAsync，直接返回响应
+     *
+     * @param restClient 低级客户端
+     * @param request    请求
+     * @return 异步结果
+     */
+    public static EsActionFuture<Response> performRequest(RestClient restClient, Request request) {
+        return performRequest(restClient, request, response -> response);
+    }
+
+    /**
+     * 同步等待异步结果，还原原始异常，等待被中断时取消请求
+     */
+    public static <T> T await(CompletableFuture<T> future) throws IOException {
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            future.cancel(true);
+            throw new InterruptedIOException("request interrupted");
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof IOException) {
+                throw (IOException) cause;
+            }
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            throw new IOException(cause);
+        }
+    }
+
+    private void setCancellable(Cancellable cancellable) {
+        this.cancellable = cancellable;
+        if (isCancelled()) {
+            cancellable.cancel();
+        }
+    }
+
+    @Override
+    public boolean cancel(boolean mayInterruptIfRunning) {
+        boolean cancelled = super.cancel(mayInterruptIfRunning);
+        Cancellable current = cancellable;
+        if (cancelled && current != null) {
+            current.cancel();
+        }
+        return cancelled;
+    }
+}
@@ -0,0 +1,30 @@
+package com.easy.es.config;
+
+import lombok.Data;
+
+import java.io.Serializable;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * @author agent
+ * @ClassName EsAggBucket
+ * @create 2026年10月17日 19:31
+ * @Description composite聚合的单个桶，只包含key、文档数及子聚合结果，不构建Aggregations对象树
+ * @Version V1.0
+ */
+@Data
+public class EsAggBucket implements Serializable {
+
+    /**
+     * composite各source名称到取值的映射
+     */
+    private Map<String, Object> key;
+
+    private long docCount;
+
+    /**
+     * 子聚合名称到结果的映射，单值指标(avg、sum、max、cardinality等)为value，其余为原始JSON对象
+     */
+    private Map<String, Object> metrics = new LinkedHashMap<>();
+}
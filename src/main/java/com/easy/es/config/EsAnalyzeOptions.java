@@ -0,0 +1,53 @@
+package com.easy.es.config;
+
+import lombok.Data;
+
+import java.io.Serializable;
+import java.util.List;
+
+/**
+ * @author agent
+ * @ClassName EsAnalyzeOptions
+ * @create 2026年10月17日 19:12
+ * @Description 分词参数，依次按field、tokenizer、analyzer确定分词方式
+ * @Version V1.0
+ */
+@Data
+public class EsAnalyzeOptions implements Serializable {
+
+    /**
+     * 分词器名称，未指定field及tokenizer时使用
+     */
+    private String analyzer = "ik_smart";
+
+    /**
+     * 临时组合分词时的tokenizer，指定后忽略analyzer
+     */
+    private String tokenizer;
+
+    /**
+     * 临时组合分词时的token filter
+     */
+    private List<String> tokenFilters;
+
+    /**
+     * 临时组合分词时的char filter
+     */
+    private List<String> charFilters;
+
+    /**
+     * 按该字段mapping中的分词器分词，指定后在索引上执行
+     */
+    private String field;
+
+    /**
+     * 是否在索引上执行，可使用索引中自定义的分词器
+     */
+    private boolean indexScoped = false;
+
+    /**
+     * 分词器的position_increment_gap，用于多个文本合并请求时换算每个文本内的位置
+     * 未指定时按ES的默认值：指定tokenizer临时组合时为0，否则为100
+     */
+    private Integer positionIncrementGap;
+}
@@ -0,0 +1,119 @@
+package com.easy.es.config;
+
+import com.alibaba.fastjson2.JSONReader;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * @author agent
+ * @ClassName EsAnalyzeParser
+ * @create 2026年10月17日 19:12
+ * @Description 流式读取_analyze响应，并将多个文本合并分词的结果按文本拆分
+ * @Version V1.0
+ */
+public final class EsAnalyzeParser {
+
+    private EsAnalyzeParser() {
+    }
+
+    public static List<EsAnalyzeToken> parse(byte[] body) {
+        List<EsAnalyzeToken> tokens = new ArrayList<>();
+        try (JSONReader reader = JSONReader.of(body)) {
+            reader.nextIfObjectStart();
+            while (!reader.nextIfObjectEnd()) {
+                if ("tokens".equals(reader.readFieldName())) {
+                    reader.nextIfMatch('[');
+                    while (!reader.nextIfMatch(']')) {
+                        tokens.add(readToken(reader));
+                    }
+                    reader.nextIfMatch(',');
+                } else {
+                    reader.skipValue();
+                }
+            }
+        }
+        return tokens;
+    }
+
+    /**
+     * 按文本拆分分词结果
+     * ES对文本数组依次分词，后一个文本的偏移从前一个文本的结束偏移加1开始，据此确定每个分词所属的文本并换算为文本内的偏移
+     * 后一个文本的位置接在前一个文本的最后位置加positionIncrementGap之后，前一个文本末尾被过滤掉的分词(如停用词)也占用位置，
+     * 与本文本开头被过滤掉的分词无法区分，换算后首个分词的位置不为0时该文本的位置无法确定
+     *
+     * @param tokens               一次请求返回的全部分词
+     * @param texts                请求中的文本，顺序与请求一致
+     * @param positionIncrementGap 分词器的position_increment_gap
+     * @return 与texts一一对应的分词，位置与单独分词一致；位置无法确定的文本对应null，需单独分词；
+     * 偏移与文本长度不符(如char filter改变了文本长度)时返回null
+     */
+    public static List<List<EsAnalyzeToken>> split(List<EsAnalyzeToken> tokens, List<String> texts, int positionIncrementGap) {
+        if (texts.size() == 1) {
+            return Collections.singletonList(tokens);
+        }
+        List<List<EsAnalyzeToken>> result = new ArrayList<>(texts.size());
+        for (int i = 0; i < texts.size(); i++) {
+            result.add(new ArrayList<>());
+        }
+        boolean[] unresolved = new boolean[texts.size()];
+        int group = 0;
+        int base = 0;
+        // 假设文本边界处没有被过滤掉的分词时，ES中上一个位置及当前文本的起始位置，单独分词时起始位置为0
+        int lastPosition = -1;
+        int positionBase = 0;
+        boolean started = false;
+        for (EsAnalyzeToken token : tokens) {
+            while (group + 1 < texts.size() && token.getStartOffset() >= base + texts.get(group).length() + 1) {
+                base += texts.get(group).length() + 1;
+                group++;
+                lastPosition += positionIncrementGap;
+                started = false;
+            }
+            int length = texts.get(group).length();
+            if (token.getStartOffset() < base || token.getEndOffset() > base + length) {
+                return null;
+            }
+            if (!started) {
+                positionBase = lastPosition + 1;
+                started = true;
+                unresolved[group] = group > 0 && token.getPosition() != positionBase;
+            }
+            lastPosition = token.getPosition();
+            token.setStartOffset(token.getStartOffset() - base);
+            token.setEndOffset(token.getEndOffset() - base);
+            token.setPosition(token.getPosition() - positionBase);
+            result.get(group).add(token);
+        }
+        for (int i = 0; i < texts.size(); i++) {
+            if (unresolved[i]) {
+                result.set(i, null);
+            }
+        }
+        return result;
+    }
+
+    private static EsAnalyzeToken readToken(JSONReader reader) {
+        EsAnalyzeToken token = new EsAnalyzeToken();
+        reader.nextIfObjectStart();
+        while (!reader.nextIfObjectEnd()) {
+            String name = reader.readFieldName();
+            if ("token".equals(name)) {
+                token.setToken(reader.readString());
+            } else if ("start_offset".equals(name)) {
+                token.setStartOffset(reader.readInt32Value());
+            } else if ("end_offset".equals(name)) {
+                token.setEndOffset(reader.readInt32Value());
+            } else if ("position".equals(name)) {
+                token.setPosition(reader.readInt32Value());
+            } else if ("type".equals(name)) {
+                token.setType(reader.readString());
+            } else {
+                reader.skipValue();
+            }
+        }
+        reader.nextIfMatch(',');
+        return token;
+    }
+}
@@ -0,0 +1,35 @@
+package com.easy.es.config;
+
+import lombok.Data;
+
+import java.io.Serializable;
+
+/**
+ * @author agent
+ * @ClassName EsAnalyzeToken
+ * @create 2026年10月17日 19:12
+ * @Description 分词结果中的单个分词
+ * @Version V1.0
+ */
+@Data
+public class EsAnalyzeToken implements Serializable {
+
+    private String token;
+
+    /**
+     * 在所属文本中的起始偏移(含)
+     */
+    private int startOffset;
+
+    /**
+     * 在所属文本中的结束偏移(不含)
+     */
+    private int endOffset;
+
+    /**
+     * 分词位置
+     */
+    private int position;
+
+    private String type;
+}
@@ -1,5 +1,8 @@
 package com.easy.es.config;
 
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnClass;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnMissingBean;
 import org.springframework.boot.context.properties.EnableConfigurationProperties;
 import org.springframework.context.annotation.Bean;
@@ -9,11 +12,26 @@ import org.springframework.context.annotation.Configuration;
 @EnableConfigurationProperties(EsConfigProperties.class)
 public class EsAutoConfiguration {
 
-    @Bean
+    @Bean(destroyMethod = "close")
     @ConditionalOnMissingBean
-    public EsRestClient esRestClient(EsConfigProperties properties) {
-        EsRestClient client = new EsRestClient(properties);
+    public EsRestClient esRestClient(EsConfigProperties properties, ObjectProvider<EsClientMetrics> metrics) {
+        EsRestClient client = new EsRestClient(properties, metrics.getIfAvailable(() -> EsClientMetrics.NOOP));
         client.init();
         return client;
     }
-} 
\ No newline at end of file
+
+    /**
+     * 存在Micrometer时将客户端指标注册到MeterRegistry
+     */
+    @Configuration(proxyBeanMethods = false)
+    @ConditionalOnClass(name = "io.micrometer.core.instrument.MeterRegistry")
+    static class EsMetricsConfiguration {
+
+        @Bean
+        @ConditionalOnMissingBean
+        public EsClientMetrics esClientMetrics(ObjectProvider<MeterRegistry> registry) {
+            MeterRegistry meterRegistry = registry.getIfAvailable();
+            return meterRegistry == null ? EsClientMetrics.NOOP : new EsMicrometerMetrics(meterRegistry);
+        }
+    }
+}
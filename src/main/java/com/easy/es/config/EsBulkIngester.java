@@ -0,0 +1,344 @@
+package com.easy.es.config;
+
+import lombok.extern.slf4j.Slf4j;
+import org.apache.commons.lang3.StringUtils;
+import org.elasticsearch.action.ActionListener;
+import org.elasticsearch.action.DocWriteRequest;
+import org.elasticsearch.action.bulk.BulkItemResponse;
+import org.elasticsearch.action.bulk.BulkProcessor;
+import org.elasticsearch.action.bulk.BulkRequest;
+import org.elasticsearch.action.bulk.BulkResponse;
+import org.elasticsearch.action.index.IndexRequest;
+import org.elasticsearch.client.RequestOptions;
+import org.elasticsearch.client.RestHighLevelClient;
+import org.elasticsearch.common.unit.ByteSizeUnit;
+import org.elasticsearch.common.unit.ByteSizeValue;
+import org.elasticsearch.common.unit.TimeValue;
+import org.elasticsearch.common.xcontent.XContentType;
+
+import java.io.Closeable;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+
+/**
+ * @author agent
+ * @ClassName EsBulkIngester
+ * @create 2026年10月17日 17:50
+ * @Description 基于BulkProcessor的异步批量写入管道，按集群创建
+ * @Version V1.0
+ */
+@Slf4j
+public class EsBulkIngester implements Closeable {
+
+    private static final String OPERATION = "bulkAdd";
+
+    /**
+     * 一批中可能包含多个索引的文档，指标不区分索引
+     */
+    private static final String ALL_INDICES = "*";
+
+    private final String clusterName;
+
+    private final BulkProcessor bulkProcessor;
+
+    /**
+     * 缓冲区许可，缓冲中及在途的文档各占用一个许可，写满后写入方阻塞等待
+     */
+    private final Semaphore bufferPermits;
+
+    private final int bufferLimit;
+
+    private final long bufferTimeoutMillis;
+
+    private final AtomicLong successDocs = new AtomicLong();
+
+    private final AtomicLong failedDocs = new AtomicLong();
+
+    private final AtomicLong spooledDocs = new AtomicLong();
+
+    /**
+     * 每批提交完成后对其中每个请求回调，无论成功与否
+     */
+    private final Consumer<DocWriteRequest<?>> writeListener;
+
+    private final EsClientMetrics metrics;
+
+    private final FailedWriteHandler failedWriteHandler;
+
+    /**
+     * 在途批次的开始时间，key为executionId
+     */
+    private final Map<Long, Long> startNanos = new ConcurrentHashMap<>();
+
+    /**
+     * 可重放的失败写入(无响应、429或5xx)的处理，如转入spool
+     */
+    public interface FailedWriteHandler {
+
+        /**
+         * @return 是否已处理，已处理的文档不计入失败数
+         */
+        boolean handle(List<DocWriteRequest<?>> requests);
+    }
+
+    public EsBulkIngester(RestHighLevelClient client, EsClusterConfig esConfig, RequestOptions options) {
+        this(client, esConfig, options, EsClientMetrics.NOOP, request -> {
+        }, new EsConcurrencyLimiter(esConfig.getClusterName(), ALL_INDICES, null, null, EsClientMetrics.NOOP));
+    }
+
+    /**
+     * @param limiter 并发限制，每批提交前从批量写入通道获取许可，未获得许可的批次按失败处理
+     */
+    public EsBulkIngester(RestHighLevelClient client, EsClusterConfig esConfig, RequestOptions options,
+                          EsClientMetrics metrics, Consumer<DocWriteRequest<?>> writeListener,
+                          EsConcurrencyLimiter limiter) {
+        this(client, esConfig, options, metrics, writeListener, limiter, requests -> false);
+    }
+
+    /**
+     * @param failedWriteHandler 退避重试后仍失败且可重放的文档的处理
+     */
+    public EsBulkIngester(RestHighLevelClient client, EsClusterConfig esConfig, RequestOptions options,
+                          EsClientMetrics metrics, Consumer<DocWriteRequest<?>> writeListener,
+                          EsConcurrencyLimiter limiter, FailedWriteHandler failedWriteHandler) {
+        this.clusterName = esConfig.getClusterName();
+        this.metrics = metrics;
+        this.writeListener = writeListener;
+        this.failedWriteHandler = failedWriteHandler;
+        this.bufferLimit = bufferLimit(esConfig);
+        this.bufferPermits = new Semaphore(bufferLimit);
+        this.bufferTimeoutMillis = esConfig.getBulkBufferTimeoutMillis();
+
+        BulkProcessor.Builder builder = BulkProcessor.builder(
+                (request, listener) -> limiter.acquire(EsConcurrencyLimiter.Lane.BULK).whenComplete((permit, failure) -> {
+                    if (failure != null) {
+                        listener.onFailure(failure instanceof Exception ? (Exception) failure : new RuntimeException(failure));
+                        return;
+                    }
+                    long submitNanos = System.nanoTime();
+                    client.bulkAsync(request, options, ActionListener.wrap(response -> {
+                        if (EsConcurrencyLimiter.isRejected(response, null)) {
+                            permit.onRejected();
+                        } else {
+                            permit.onSuccess(System.nanoTime() - submitNanos);
+                        }
+                        listener.onResponse(response);
+                    }, e -> {
+                        if (EsConcurrencyLimiter.isRejected(null, e)) {
+                            permit.onRejected();
+                        } else {
+                            permit.release();
+                        }
+                        listener.onFailure(e);
+                    }));
+                }), new IngestListener());
+        builder.setBulkActions(esConfig.getBulkActions());
+        builder.setBulkSize(new ByteSizeValue(esConfig.getBulkSizeMb(), ByteSizeUnit.MB));
+        builder.setConcurrentRequests(esConfig.getBulkConcurrentRequests());
+        builder.setBackoffPolicy(new EsBulkRetryPolicy(esConfig).toBackoffPolicy());
+        if (esConfig.getBulkFlushIntervalMillis() > 0) {
+            builder.setFlushInterval(TimeValue.timeValueMillis(esConfig.getBulkFlushIntervalMillis()));
+        }
+        this.bulkProcessor = builder.build();
+    }
+
+    /**
+     * 不定时刷新时只有攒满bulkActions才提交，缓冲上限小于bulkActions时缓冲区会一直占满，此时将上限提升到bulkActions
+     */
+    private static int bufferLimit(EsClusterConfig esConfig) {
+        int bufferLimit = esConfig.getBulkBufferLimit();
+        int bulkActions = esConfig.getBulkActions();
+        if (esConfig.getBulkFlushIntervalMillis() <= 0 && bufferLimit < bulkActions) {
+            log.warn("bulkIngester.bufferLimitRaised,clusterName:{},bulkBufferLimit:{},bulkActions:{}",
+                    esConfig.getClusterName(), bufferLimit, bulkActions);
+            return bulkActions;
+        }
+        return bufferLimit;
+    }
+
+    /**
+     * 添加文档到写入缓冲区
+     * 缓冲区未满时立即返回，缓冲区已满时最多等待bulkBufferTimeoutMillis
+     *
+     * @param esIndexInfo  索引信息
+     * @param esSourceData 文档数据
+     * @return 是否成功放入缓冲区
+     */
+    public boolean add(EsIndexInfo esIndexInfo, EsSourceData esSourceData) {
+        return add(esIndexInfo, esSourceData.getDocId(), indexRequest -> indexRequest.source(esSourceData.getData()));
+    }
+
+    /**
+     * 添加已序列化的JSON文档到写入缓冲区，文档字节直接作为_source，不经过Map转换
+     *
+     * @param esIndexInfo   索引信息
+     * @param rawSourceData 文档数据
+     * @return 是否成功放入缓冲区
+     */
+    public boolean add(EsIndexInfo esIndexInfo, EsRawSourceData rawSourceData) {
+        if (rawSourceData.getSource() == null) {
+            return false;
+        }
+        return add(esIndexInfo, rawSourceData.getDocId(),
+                indexRequest -> indexRequest.source(rawSourceData.getSource(), XContentType.JSON));
+    }
+
+    private boolean add(EsIndexInfo esIndexInfo, String docId, Consumer<IndexRequest> source) {
+        if (StringUtils.isBlank(docId)) {
+            return false;
+        }
+        try {
+            if (!bufferPermits.tryAcquire(bufferTimeoutMillis, TimeUnit.MILLISECONDS)) {
+                log.warn("bulkIngester.bufferFull,clusterName:{},indexName:{},docId:{}",
+                        clusterName, esIndexInfo.getIndexName(), docId);
+                return false;
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+
+        try {
+            IndexRequest indexRequest = new IndexRequest(esIndexInfo.getIndexName());
+            indexRequest.id(docId);
+            source.accept(indexRequest);
+            bulkProcessor.add(indexRequest);
+            return true;
+        } catch (Exception e) {
+            bufferPermits.release();
+            log.error("bulkIngester.add.exception:{}", e.getMessage(), e);
+            return false;
+        }
+    }
+
+    /**
+     * 立即提交缓冲区中的文档
+     */
+    public void flush() {
+        bulkProcessor.flush();
+    }
+
+    /**
+     * 缓冲区中及在途的文档数
+     */
+    public int getPendingDocs() {
+        return bufferLimit - bufferPermits.availablePermits();
+    }
+
+    public long getSuccessDocs() {
+        return successDocs.get();
+    }
+
+    public long getFailedDocs() {
+        return failedDocs.get();
+    }
+
+    /**
+     * 失败后交由failedWriteHandler处理(如转入spool)的文档数
+     */
+    public long getSpooledDocs() {
+        return spooledDocs.get();
+    }
+
+    /**
+     * 提交剩余文档并等待在途请求完成
+     */
+    public boolean awaitClose(long timeout, TimeUnit unit) {
+        try {
+            return bulkProcessor.awaitClose(timeout, unit);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+
+    @Override
+    public void close() {
+        bulkProcessor.close();
+    }
+
+    /**
+     * @return 已处理的文档数
+     */
+    private int handleFailed(long executionId, List<DocWriteRequest<?>> requests) {
+        if (requests.isEmpty()) {
+            return 0;
+        }
+        try {
+            if (!failedWriteHandler.handle(requests)) {
+                return 0;
+            }
+        } catch (Exception e) {
+            log.error("bulkIngester.failedWriteHandler.exception:{}", e.getMessage(), e);
+            return 0;
+        }
+        spooledDocs.addAndGet(requests.size());
+        log.warn("bulkIngester.spooled,clusterName:{},executionId:{},docs:{}", clusterName, executionId, requests.size());
+        return requests.size();
+    }
+
+    private long elapsedNanos(long executionId) {
+        Long start = startNanos.remove(executionId);
+        return start == null ? 0 : System.nanoTime() - start;
+    }
+
+    private class IngestListener implements BulkProcessor.Listener {
+
+        @Override
+        public void beforeBulk(long executionId, BulkRequest request) {
+            startNanos.put(executionId, System.nanoTime());
+            metrics.recordBulk(clusterName, ALL_INDICES, request.numberOfActions(), request.estimatedSizeInBytes());
+            if (log.isDebugEnabled()) {
+                log.debug("bulkIngester.beforeBulk,clusterName:{},executionId:{},actions:{},bytes:{}",
+                        clusterName, executionId, request.numberOfActions(), request.estimatedSizeInBytes());
+            }
+        }
+
+        @Override
+        public void afterBulk(long executionId, BulkRequest request, BulkResponse response) {
+            int actions = request.numberOfActions();
+            request.requests().forEach(writeListener);
+            bufferPermits.release(actions);
+            long durationNanos = elapsedNanos(executionId);
+            metrics.recordRequest(OPERATION, clusterName, ALL_INDICES, durationNanos, true);
+            metrics.recordTook(OPERATION, clusterName, ALL_INDICES, response.getTook().millis(), durationNanos);
+            if (response.hasFailures()) {
+                long failed = 0;
+                List<DocWriteRequest<?>> retryable = new ArrayList<>();
+                for (BulkItemResponse item : response.getItems()) {
+                    if (item.isFailed()) {
+                        failed++;
+                        if (EsWriteSpool.isRetryable(item.status().getStatus())) {
+                            retryable.add(request.requests().get(item.getItemId()));
+                        }
+                    }
+                }
+                failedDocs.addAndGet(failed - handleFailed(executionId, retryable));
+                successDocs.addAndGet(actions - failed);
+                log.error("bulkIngester.afterBulk.failures,clusterName:{},executionId:{},message:{}",
+                        clusterName, executionId, response.buildFailureMessage());
+            } else {
+                successDocs.addAndGet(actions);
+            }
+        }
+
+        @Override
+        public void afterBulk(long executionId, BulkRequest request, Throwable failure) {
+            int actions = request.numberOfActions();
+            request.requests().forEach(writeListener);
+            bufferPermits.release(actions);
+            metrics.recordRequest(OPERATION, clusterName, ALL_INDICES, elapsedNanos(executionId), false);
+            int status = failure instanceof Exception ? EsBulkRetryPolicy.failureStatus((Exception) failure) : 0;
+            int handled = EsWriteSpool.isRetryable(status) ? handleFailed(executionId, request.requests()) : 0;
+            failedDocs.addAndGet(actions - handled);
+            log.error("bulkIngester.afterBulk.exception,clusterName:{},executionId:{},actions:{}",
+                    clusterName, executionId, actions, failure);
+        }
+    }
+}
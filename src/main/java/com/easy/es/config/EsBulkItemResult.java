@@ -0,0 +1,56 @@
+package com.easy.es.config;
+
+import lombok.Data;
+
+import java.io.Serializable;
+
+/**
+ * @author agent
+ * @ClassName EsBulkItemResult
+ * @create 2026年10月17日 17:51
+ * @Description 批量写入单个文档的执行结果
+ * @Version V1.0
+ */
+@Data
+public class EsBulkItemResult implements Serializable {
+
+    /**
+     * 文档ID
+     */
+    private String docId;
+
+    /**
+     * 索引名称
+     */
+    private String indexName;
+
+    /**
+     * 操作类型(index/create/update/delete)
+     */
+    private String opType;
+
+    /**
+     * 是否成功
+     */
+    private boolean success;
+
+    /**
+     * 响应状态码
+     */
+    private int status;
+
+    /**
+     * 失败原因
+     */
+    private String failureMessage;
+
+    /**
+     * 提交次数，大于1表示经过重试
+     */
+    private int attempts;
+
+    /**
+     * 是否因集群不可用或拒绝写入而转入本地暂存，稍后重放
+     */
+    private boolean spooled;
+}
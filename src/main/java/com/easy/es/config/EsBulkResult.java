@@ -0,0 +1,48 @@
+package com.easy.es.config;
+
+import lombok.Data;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Collectors;
+
+/**
+ * @author agent
+ * @ClassName EsBulkResult
+ * @create 2026年10月17日 17:51
+ * @Description 批量写入结果，按提交顺序记录每个文档的执行结果
+ * @Version V1.0
+ */
+@Data
+public class EsBulkResult implements Serializable {
+
+    /**
+     * 每个文档的执行结果
+     */
+    private List<EsBulkItemResult> items = new ArrayList<>();
+
+    /**
+     * 重试轮数
+     */
+    private int retries;
+
+    /**
+     * 是否全部成功
+     */
+    public boolean isSuccess() {
+        for (EsBulkItemResult item : items) {
+            if (!item.isSuccess()) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * 获取失败的文档结果
+     */
+    public List<EsBulkItemResult> getFailedItems() {
+        return items.stream().filter(item -> !item.isSuccess()).collect(Collectors.toList());
+    }
+}
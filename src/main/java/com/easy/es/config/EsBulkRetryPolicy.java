@@ -0,0 +1,333 @@
+package com.easy.es.config;
+
+import lombok.extern.slf4j.Slf4j;
+import org.elasticsearch.ElasticsearchStatusException;
+import org.elasticsearch.action.bulk.BackoffPolicy;
+import org.elasticsearch.action.bulk.BulkItemResponse;
+import org.elasticsearch.action.bulk.BulkResponse;
+import org.elasticsearch.client.ResponseException;
+import org.elasticsearch.common.unit.TimeValue;
+import org.elasticsearch.rest.RestStatus;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * @author agent
+ * @ClassName EsBulkRetryPolicy
+ * @create 2026年10月17日 17:51
+ * @Description 批量写入重试策略，只重提被拒绝(429)的文档，指数退避并加随机抖动
+ * @Version V1.0
+ */
+@Slf4j
+public class EsBulkRetryPolicy {
+
+    private static final String REJECTED_EXECUTION = "es_rejected_execution_exception";
+
+    private static final ScheduledExecutorService RETRY_SCHEDULER = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread thread = new Thread(r, "es-bulk-retry");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private final int maxRetries;
+
+    private final long initialBackoffMillis;
+
+    private final long maxBackoffMillis;
+
+    public EsBulkRetryPolicy(int maxRetries, long initialBackoffMillis, long maxBackoffMillis) {
+        this.maxRetries = Math.max(0, maxRetries);
+        this.initialBackoffMillis = Math.max(1, initialBackoffMillis);
+        this.maxBackoffMillis = Math.max(this.initialBackoffMillis, maxBackoffMillis);
+    }
+
+    public EsBulkRetryPolicy(EsClusterConfig esConfig) {
+        this(esConfig.getBulkRetryMaxRetries(), esConfig.getBulkRetryInitialBackoffMillis(),
+                esConfig.getBulkRetryMaxBackoffMillis());
+    }
+
+    /**
+     * 批量提交回调，返回结果中的第i项对应batch中的第i个请求
+     */
+    public interface BulkCall<R> {
+        BulkResponse execute(List<R> batch) throws IOException;
+    }
+
+    /**
+     * 异步批量提交回调
+     */
+    public interface AsyncBulkCall<R> {
+        CompletableFuture<BulkResponse> execute(List<R> batch);
+    }
+
+    /**
+     * 请求对应的结果，填充文档ID、索引名及操作类型，整批请求失败时用于生成每个文档的结果
+     */
+    public interface ItemDescriber<R> {
+        EsBulkItemResult describe(R request);
+    }
+
+    /**
+     * 执行批量提交，失败且可重试的文档在退避后单独重提
+     * 首轮整批失败时抛出异常；重试轮次整批失败时只将未完成的文档标记为失败，之前轮次的结果保留
+     *
+     * @param requests  待提交的请求
+     * @param describer 请求对应的结果
+     * @param call      批量提交回调
+     * @return 按请求顺序排列的执行结果
+     */
+    public <R> EsBulkResult execute(List<R> requests, ItemDescriber<R> describer, BulkCall<R> call) throws IOException {
+        Round<R> round = new Round<>(requests, describer);
+        while (!round.pending.isEmpty()) {
+            List<Integer> retryable;
+            try {
+                retryable = round.collect(call.execute(round.batch()), null);
+            } catch (ElasticsearchStatusException | IOException e) {
+                retryable = round.collect(null, e);
+            }
+            if (retryable.isEmpty()) {
+                break;
+            }
+            long delay = backoffMillis(round.attempt);
+            log.warn("bulkRetry.retryable:{},attempt:{},delayMillis:{}", retryable.size(), round.attempt + 1, delay);
+            try {
+                Thread.sleep(delay);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                break;
+            }
+            round.next(retryable);
+        }
+        return round.result();
+    }
+
+    /**
+     * 异步执行批量提交，重试的退避等待不占用调用线程
+     *
+     * @param requests  待提交的请求
+     * @param describer 请求对应的结果
+     * @param call      异步批量提交回调
+     * @return 按请求顺序排列的执行结果
+     */
+    public <R> CompletableFuture<EsBulkResult> executeAsync(List<R> requests, ItemDescriber<R> describer,
+                                                           AsyncBulkCall<R> call) {
+        CompletableFuture<EsBulkResult> future = new CompletableFuture<>();
+        Round<R> round = new Round<>(requests, describer);
+        if (round.pending.isEmpty()) {
+            future.complete(round.result());
+        } else {
+            submitAsync(round, call, future);
+        }
+        return future;
+    }
+
+    private <R> void submitAsync(Round<R> round, AsyncBulkCall<R> call, CompletableFuture<EsBulkResult> future) {
+        call.execute(round.batch()).whenComplete((response, failure) -> {
+            List<Integer> retryable;
+            try {
+                Throwable cause = failure instanceof CompletionException ? failure.getCause() : failure;
+                if (cause == null) {
+                    retryable = round.collect(response, null);
+                } else if (cause instanceof Exception) {
+                    retryable = round.collect(null, (Exception) cause);
+                } else {
+                    future.completeExceptionally(cause);
+                    return;
+                }
+            } catch (Exception e) {
+                future.completeExceptionally(e);
+                return;
+            }
+            if (retryable.isEmpty()) {
+                future.complete(round.result());
+                return;
+            }
+            long delay = backoffMillis(round.attempt);
+            log.warn("bulkRetry.retryable:{},attempt:{},delayMillis:{}", retryable.size(), round.attempt + 1, delay);
+            round.next(retryable);
+            RETRY_SCHEDULER.schedule(() -> submitAsync(round, call, future), delay, TimeUnit.MILLISECONDS);
+        });
+    }
+
+    /**
+     * 一次批量执行的重试状态
+     */
+    private class Round<R> {
+
+        private final List<R> requests;
+
+        private final ItemDescriber<R> describer;
+
+        private final EsBulkItemResult[] results;
+
+        private List<Integer> pending;
+
+        private int attempt;
+
+        Round(List<R> requests, ItemDescriber<R> describer) {
+            this.requests = requests;
+            this.describer = describer;
+            this.results = new EsBulkItemResult[requests.size()];
+            this.pending = new ArrayList<>(requests.size());
+            for (int i = 0; i < requests.size(); i++) {
+                pending.add(i);
+            }
+        }
+
+        List<R> batch() {
+            List<R> batch = new ArrayList<>(pending.size());
+            for (Integer index : pending) {
+                batch.add(requests.get(index));
+            }
+            return batch;
+        }
+
+        /**
+         * 记录本轮结果，返回需要重试的请求下标
+         */
+        List<Integer> collect(BulkResponse response, Exception failure) throws IOException {
+            boolean canRetry = attempt < maxRetries;
+            List<Integer> retryable = new ArrayList<>();
+            if (failure != null) {
+                int status = failureStatus(failure);
+                boolean rejected = status == RestStatus.TOO_MANY_REQUESTS.getStatus();
+                if (attempt == 0 && !(canRetry && rejected)) {
+                    // 首轮还没有写入成功的文档，整批失败交由调用方处理
+                    if (failure instanceof IOException) {
+                        throw (IOException) failure;
+                    }
+                    if (failure instanceof RuntimeException) {
+                        throw (RuntimeException) failure;
+                    }
+                    throw new IOException(failure);
+                }
+                // 之前轮次已写入的文档保留其结果，只标记本轮提交的文档
+                for (Integer index : pending) {
+                    results[index] = toFailedResult(describer.describe(requests.get(index)), failure, status, attempt + 1);
+                }
+                if (canRetry && rejected) {
+                    retryable.addAll(pending);
+                }
+                return retryable;
+            }
+            BulkItemResponse[] items = response.getItems();
+            for (int i = 0; i < items.length; i++) {
+                int index = pending.get(i);
+                results[index] = toItemResult(items[i], attempt + 1);
+                if (canRetry && items[i].isFailed() && isRetryable(items[i].getFailure())) {
+                    retryable.add(index);
+                }
+            }
+            return retryable;
+        }
+
+        void next(List<Integer> retryable) {
+            pending = retryable;
+            attempt++;
+        }
+
+        EsBulkResult result() {
+            EsBulkResult result = new EsBulkResult();
+            result.setItems(new ArrayList<>(Arrays.asList(results)));
+            result.setRetries(attempt);
+            return result;
+        }
+    }
+
+    /**
+     * 第attempt次重试前的等待时间，取指数退避上限的一半加上随机抖动
+     */
+    public long backoffMillis(int attempt) {
+        long cap = initialBackoffMillis << Math.min(attempt, 30);
+        if (cap <= 0 || cap > maxBackoffMillis) {
+            cap = maxBackoffMillis;
+        }
+        long half = cap / 2;
+        return half + ThreadLocalRandom.current().nextLong(cap - half + 1);
+    }
+
+    /**
+     * 转换为BulkProcessor使用的退避策略
+     */
+    public BackoffPolicy toBackoffPolicy() {
+        return new BackoffPolicy() {
+            @Override
+            public Iterator<TimeValue> iterator() {
+                return new Iterator<TimeValue>() {
+                    private int attempt;
+
+                    @Override
+                    public boolean hasNext() {
+                        return attempt < maxRetries;
+                    }
+
+                    @Override
+                    public TimeValue next() {
+                        if (!hasNext()) {
+                            throw new NoSuchElementException("Only up to " + maxRetries + " elements");
+                        }
+                        return TimeValue.timeValueMillis(backoffMillis(attempt++));
+                    }
+                };
+            }
+        };
+    }
+
+    /**
+     * 是否为可重试的失败：线程池满(429)或拒绝执行
+     */
+    public static boolean isRetryable(BulkItemResponse.Failure failure) {
+        if (failure == null) {
+            return false;
+        }
+        if (failure.getStatus() == RestStatus.TOO_MANY_REQUESTS) {
+            return true;
+        }
+        String message = failure.getMessage();
+        return message != null && message.contains(REJECTED_EXECUTION);
+    }
+
+    /**
+     * 异常对应的响应状态码，未收到响应时为0
+     */
+    public static int failureStatus(Exception e) {
+        if (e instanceof ElasticsearchStatusException) {
+            return ((ElasticsearchStatusException) e).status().getStatus();
+        }
+        if (e instanceof ResponseException) {
+            return ((ResponseException) e).getResponse().getStatusLine().getStatusCode();
+        }
+        return 0;
+    }
+
+    private static EsBulkItemResult toFailedResult(EsBulkItemResult itemResult, Exception e, int status, int attempts) {
+        itemResult.setSuccess(false);
+        itemResult.setStatus(status);
+        itemResult.setFailureMessage(e.getMessage());
+        itemResult.setAttempts(attempts);
+        return itemResult;
+    }
+
+    private static EsBulkItemResult toItemResult(BulkItemResponse item, int attempts) {
+        EsBulkItemResult itemResult = new EsBulkItemResult();
+        itemResult.setDocId(item.getId());
+        itemResult.setIndexName(item.getIndex());
+        itemResult.setOpType(item.getOpType().getLowercase());
+        itemResult.setSuccess(!item.isFailed());
+        itemResult.setStatus(item.status().getStatus());
+        itemResult.setFailureMessage(item.getFailureMessage());
+        itemResult.setAttempts(attempts);
+        return itemResult;
+    }
+}
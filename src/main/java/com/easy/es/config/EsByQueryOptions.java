@@ -0,0 +1,46 @@
+package com.easy.es.config;
+
+import lombok.Data;
+
+import java.io.Serializable;
+
+/**
+ * @author agent
+ * @ClassName EsByQueryOptions
+ * @create 2026年10月17日 18:56
+ * @Description 后台任务方式执行按查询更新、删除的参数
+ * @Version V1.0
+ */
+@Data
+public class EsByQueryOptions implements Serializable {
+
+    /**
+     * 由ES按分片数自动决定切片数
+     */
+    public static final int AUTO_SLICES = 0;
+
+    /**
+     * 每批滚动读取并处理的文档数
+     */
+    private int batchSize = 1000;
+
+    /**
+     * 切片数，多个切片并行处理，AUTO_SLICES表示自动
+     */
+    private int slices = 1;
+
+    /**
+     * 每秒处理的文档数上限，小于等于0时不限制，执行中可通过rethrottleTask调整
+     */
+    private float requestsPerSecond = -1;
+
+    /**
+     * 遇到版本冲突时是否中止，默认跳过冲突文档继续执行并计入versionConflicts
+     */
+    private boolean abortOnVersionConflict = false;
+
+    /**
+     * 完成后是否刷新索引
+     */
+    private boolean refresh = false;
+}
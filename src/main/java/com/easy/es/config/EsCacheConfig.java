@@ -0,0 +1,31 @@
+package com.easy.es.config;
+
+import lombok.Data;
+
+import java.io.Serializable;
+
+/**
+ * @author agent
+ * @ClassName EsCacheConfig
+ * @create 2026年10月17日 18:14
+ * @Description 本地缓存配置
+ * @Version V1.0
+ */
+@Data
+public class EsCacheConfig implements Serializable {
+
+    /**
+     * 淘汰策略
+     */
+    private EsLocalCache.EvictionPolicy policy = EsLocalCache.EvictionPolicy.LRU;
+
+    /**
+     * 最大缓存条数
+     */
+    private long maxSize = 10000;
+
+    /**
+     * 写入后的过期时间(毫秒)
+     */
+    private long ttlMillis = 60000;
+}
@@ -0,0 +1,49 @@
+package com.easy.es.config;
+
+import lombok.Data;
+
+import java.io.Serializable;
+
+/**
+ * @author agent
+ * @ClassName EsCacheStats
+ * @create 2026年10月17日 18:14
+ * @Description 本地缓存统计
+ * @Version V1.0
+ */
+@Data
+public class EsCacheStats implements Serializable {
+
+    /**
+     * 命中次数
+     */
+    private long hitCount;
+
+    /**
+     * 未命中次数，包含已过期
+     */
+    private long missCount;
+
+    /**
+     * 因容量淘汰的条数
+     */
+    private long evictionCount;
+
+    /**
+     * 当前条数
+     */
+    private long size;
+
+    /**
+     * 当前总权重
+     */
+    private long weight;
+
+    /**
+     * 命中率
+     */
+    public double getHitRate() {
+        long requests = hitCount + missCount;
+        return requests == 0 ? 0 : (double) hitCount / requests;
+    }
+}
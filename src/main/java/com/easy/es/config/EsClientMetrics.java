@@ -0,0 +1,100 @@
+package com.easy.es.config;
+
+import org.apache.http.impl.nio.conn.PoolingNHttpClientConnectionManager;
+
+import java.util.function.Supplier;
+
+/**
+ * @author agent
+ * @ClassName EsClientMetrics
+ * @create 2026年10月17日 18:20
+ * @Description 客户端指标采集接口，默认不采集，引入Micrometer时由自动配置提供实现
+ * @Version V1.0
+ */
+public interface EsClientMetrics {
+
+    /**
+     * 不采集任何指标
+     */
+    EsClientMetrics NOOP = new EsClientMetrics() {
+    };
+
+    /**
+     * 记录一次请求的客户端耗时
+     *
+     * @param operation     操作名称
+     * @param clusterName   集群名称
+     * @param indexName     索引名称
+     * @param durationNanos 客户端观察到的耗时(纳秒)
+     * @param success       是否成功
+     */
+    default void recordRequest(String operation, String clusterName, String indexName, long durationNanos, boolean success) {
+    }
+
+    /**
+     * 记录服务端took与客户端耗时，两者之差为网络、排队及序列化开销
+     *
+     * @param operation     操作名称
+     * @param clusterName   集群名称
+     * @param indexName     索引名称
+     * @param tookMillis    服务端返回的took(毫秒)
+     * @param durationNanos 客户端观察到的耗时(纳秒)
+     */
+    default void recordTook(String operation, String clusterName, String indexName, long tookMillis, long durationNanos) {
+    }
+
+    /**
+     * 记录一次批量写入的文档数与字节数
+     */
+    default void recordBulk(String clusterName, String indexName, int items, long bytes) {
+    }
+
+    /**
+     * 记录批量写入的重试轮数
+     */
+    default void recordBulkRetries(String clusterName, String indexName, int retries) {
+    }
+
+    /**
+     * 注册集群连接池，用于采集连接使用情况及在途请求数
+     */
+    default void bindConnectionPool(String clusterName, PoolingNHttpClientConnectionManager connectionManager) {
+    }
+
+    /**
+     * 注册本地缓存，用于采集命中率
+     *
+     * @param cacheName   缓存名称
+     * @param clusterName 集群名称
+     * @param indexName   索引名称，集群级缓存为空字符串
+     * @param stats       统计信息
+     */
+    default void bindCache(String cacheName, String clusterName, String indexName, Supplier<EsCacheStats> stats) {
+    }
+
+    /**
+     * 注册并发限制通道，用于采集并发上限、在途数、排队数及拒绝次数
+     *
+     * @param clusterName 集群名称
+     * @param indexName   索引名称，集群级限制为*
+     * @param lane        通道名称 interactive/bulk
+     * @param stats       统计信息
+     */
+    default void bindLimiter(String clusterName, String indexName, String lane, Supplier<EsLimiterStats> stats) {
+    }
+
+    /**
+     * 记录一次请求因超过并发上限而排队的等待时长
+     */
+    default void recordLimiterWait(String clusterName, String indexName, String lane, long waitNanos) {
+    }
+
+    /**
+     * 注册集群的写入本地暂存，用于采集待重放数及重放速率
+     *
+     * @param clusterName 集群名称
+     * @param stats       统计信息
+     */
+    default void bindSpool(String clusterName, Supplier<EsSpoolStats> stats) {
+    }
+}
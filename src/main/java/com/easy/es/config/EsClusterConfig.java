@@ -3,6 +3,9 @@ package com.easy.es.config;
 import lombok.Data;
 
 import java.io.Serializable;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
 
 /**
  * @author 王青玄
@@ -23,4 +26,235 @@ public class EsClusterConfig implements Serializable {
      * 集群节点地址
      */
     private String nodes;
-} 
\ No newline at end of file
+
+    /**
+     * 连接池最大连接数
+     */
+    private int maxConnTotal = 30;
+
+    /**
+     * 连接池每个节点最大连接数
+     */
+    private int maxConnPerRoute = 10;
+
+    /**
+     * 建立连接超时时间(毫秒)
+     */
+    private int connectTimeoutMillis = 1000;
+
+    /**
+     * 读取响应超时时间(毫秒)
+     */
+    private int socketTimeoutMillis = 30000;
+
+    /**
+     * 从连接池获取连接超时时间(毫秒)，-1表示不限制
+     */
+    private int connectionRequestTimeoutMillis = -1;
+
+    /**
+     * IO线程数，小于等于0时使用CPU核数
+     */
+    private int ioThreadCount = 0;
+
+    /**
+     * 同步方法同时等待响应的最大调用方数，超出的调用方在信号量上排队，小于等于0表示不限制
+     * 使用虚拟线程调用同步方法时建议不超过maxConnTotal，排队的调用方不占用连接池
+     */
+    private int maxBlockingRequests = 0;
+
+    /**
+     * 同步方法排队的最长等待时间(毫秒)，超时以429失败
+     */
+    private long blockingAcquireTimeoutMillis = 30000;
+
+    /**
+     * 长连接保持时间(毫秒)，服务端返回Keep-Alive时取两者较小值，小于等于0表示不限制
+     */
+    private long keepAliveMillis = -1;
+
+    /**
+     * 是否对请求体做gzip压缩
+     */
+    private boolean compressionEnabled = false;
+
+    /**
+     * 请求体达到该字节数才压缩
+     */
+    private int compressionMinBytes = 1024;
+
+    /**
+     * 异步批量写入：单批最大文档数
+     */
+    private int bulkActions = 1000;
+
+    /**
+     * 异步批量写入：单批最大字节数(MB)
+     */
+    private long bulkSizeMb = 5;
+
+    /**
+     * 异步批量写入：定时刷新间隔(毫秒)，小于等于0时不定时刷新
+     */
+    private long bulkFlushIntervalMillis = 1000;
+
+    /**
+     * 异步批量写入：同时在途的批量请求数，0表示同步提交
+     */
+    private int bulkConcurrentRequests = 1;
+
+    /**
+     * 异步批量写入：缓冲中及在途的最大文档数，不定时刷新时不小于bulkActions
+     */
+    private int bulkBufferLimit = 10000;
+
+    /**
+     * 异步批量写入：缓冲区满时写入方最长等待时间(毫秒)
+     */
+    private long bulkBufferTimeoutMillis = 5000;
+
+    /**
+     * 异步批量写入：关闭时等待剩余文档提交的最长时间(毫秒)
+     */
+    private long bulkCloseTimeoutMillis = 30000;
+
+    /**
+     * 批量写入：被拒绝(429)文档的最大重试次数
+     */
+    private int bulkRetryMaxRetries = 3;
+
+    /**
+     * 批量写入：首次重试的退避时间(毫秒)，之后按指数增长
+     */
+    private long bulkRetryInitialBackoffMillis = 100;
+
+    /**
+     * 批量写入：单次重试的最大退避时间(毫秒)
+     */
+    private long bulkRetryMaxBackoffMillis = 5000;
+
+    /**
+     * 批量获取：单次_mget请求的最大文档数，超出时拆分为多次请求
+     */
+    private int mgetChunkSize = 1000;
+
+    /**
+     * 是否将并发的单次搜索合并为_msearch发送
+     */
+    private boolean msearchBatchEnabled = false;
+
+    /**
+     * 搜索合并的时间窗口(毫秒)
+     */
+    private long msearchBatchWindowMillis = 5;
+
+    /**
+     * 单次_msearch合并的最大搜索数，攒满后立即发送
+     */
+    private int msearchMaxBatchSize = 32;
+
+    /**
+     * 文档本地缓存，key为索引名称，未配置的索引不缓存
+     */
+    private Map<String, EsCacheConfig> docCaches = new HashMap<>();
+
+    /**
+     * 分词结果本地缓存，为空时不缓存
+     */
+    private EsCacheConfig analyzeCache;
+
+    /**
+     * 批量分词时单次_analyze请求包含的最大文本数，超出时拆分为多个请求并发发送
+     */
+    private int analyzeBatchSize = 100;
+
+    /**
+     * 搜索结果缓存，key为索引名称，未配置的索引不缓存
+     */
+    private Map<String, EsSearchCacheConfig> searchCaches = new HashMap<>();
+
+    /**
+     * 慢请求阈值(毫秒)，耗时超过时打印WARN日志，小于0时关闭
+     */
+    private long slowQueryThresholdMillis = 1000;
+
+    /**
+     * 是否通过_nodes接口定期发现集群节点，发现结果替换nodes中配置的节点
+     */
+    private boolean sniffEnabled = false;
+
+    /**
+     * 节点发现间隔(毫秒)
+     */
+    private int sniffIntervalMillis = 300000;
+
+    /**
+     * 节点请求失败后的下一次节点发现延迟(毫秒)
+     */
+    private int sniffAfterFailureDelayMillis = 60000;
+
+    /**
+     * 是否按节点延迟与错误选择请求节点，开启后跳过专用主节点、暂停路由到出错节点、优先延迟低的节点
+     */
+    private boolean nodeSelectorEnabled = false;
+
+    /**
+     * 节点平均延迟超过最快节点的倍数时不参与选择
+     */
+    private double nodeLatencyTolerance = 2.0;
+
+    /**
+     * 节点出错或超时后暂停路由的时长(毫秒)，连续失败时翻倍
+     */
+    private long nodeFailureCooldownMillis = 30000;
+
+    /**
+     * 后台节点健康检查间隔(毫秒)，0关闭，需开启nodeSelectorEnabled
+     */
+    private long nodeHealthCheckIntervalMillis = 0;
+
+    /**
+     * 单次节点健康检查的超时时间(毫秒)
+     */
+    private long nodeHealthCheckTimeoutMillis = 1000;
+
+    /**
+     * 读副本集群，key为索引名称，value为按优先级排列的集群名称，读请求失败时依次转向副本集群
+     */
+    private Map<String, List<String>> readReplicas = new HashMap<>();
+
+    /**
+     * 是否对配置了读副本的索引发送对冲请求
+     */
+    private boolean hedgeEnabled = false;
+
+    /**
+     * 对冲等待时间取主集群延迟的该分位数
+     */
+    private double hedgePercentile = 0.95;
+
+    /**
+     * 对冲等待时间下限(毫秒)
+     */
+    private long hedgeMinDelayMillis = 5;
+
+    /**
+     * 交互请求(查询及单文档读写)的自适应并发限制，为空时不限制
+     */
+    private EsLimiterConfig interactiveLimiter;
+
+    /**
+     * 批量写入及按查询更新、删除的自适应并发限制，为空时不限制
+     */
+    private EsLimiterConfig bulkLimiter;
+
+    /**
+     * 是否按索引分别限制并发，否则同一集群的所有索引共享并发上限
+     */
+    private boolean limiterPerIndex = false;
+
+    /**
+     * 写入本地暂存，集群不可用或拒绝写入时落盘并在恢复后重放，为空时不暂存
+     */
+    private EsSpoolConfig spool;
+}
@@ -0,0 +1,45 @@
+package com.easy.es.config;
+
+import lombok.Data;
+
+import java.io.Serializable;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * @author agent
+ * @ClassName EsCompactHit
+ * @create 2026年10月17日 19:01
+ * @Description 精简搜索结果中的单条命中，只包含请求的元素
+ * @Version V1.0
+ */
+@Data
+public class EsCompactHit implements Serializable {
+
+    private String id;
+
+    /**
+     * 相关度得分，按字段排序且未要求打分时为空
+     */
+    private Float score;
+
+    /**
+     * 按fields/excludeFields过滤后的_source，fetchSource为false时为空
+     */
+    private Map<String, Object> source;
+
+    /**
+     * docValueFields请求的字段值
+     */
+    private Map<String, List<Object>> fields;
+
+    /**
+     * 高亮片段
+     */
+    private Map<String, List<String>> highlight;
+
+    /**
+     * 排序值
+     */
+    private List<Object> sortValues;
+}
@@ -0,0 +1,154 @@
+package com.easy.es.config;
+
+import com.alibaba.fastjson2.JSONReader;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * @author agent
+ * @ClassName EsCompactSearchParser
+ * @create 2026年10月17日 19:01
+ * @Description 流式读取_search响应，只提取ID、_source、docvalue字段、高亮、排序值及命中总数，其余内容跳过
+ * @Version V1.0
+ */
+public final class EsCompactSearchParser {
+
+    /**
+     * 请求时使用的filter_path，服务端只返回这些元素
+     */
+    public static final String FILTER_PATH = "took,timed_out,_shards.failed,hits.total,hits.hits._id,hits.hits._score,"
+            + "hits.hits._source,hits.hits.fields,hits.hits.highlight,hits.hits.sort";
+
+    private EsCompactSearchParser() {
+    }
+
+    public static EsCompactSearchResult parse(byte[] body) {
+        EsCompactSearchResult result = new EsCompactSearchResult();
+        try (JSONReader reader = JSONReader.of(body)) {
+            reader.nextIfObjectStart();
+            while (!reader.nextIfObjectEnd()) {
+                String name = reader.readFieldName();
+                if ("took".equals(name)) {
+                    result.setTook(reader.readInt64Value());
+                } else if ("timed_out".equals(name)) {
+                    result.setTimedOut(reader.readBoolValue());
+                } else if ("_shards".equals(name)) {
+                    result.setFailedShards(readFailedShards(reader));
+                } else if ("hits".equals(name)) {
+                    readHits(reader, result);
+                } else {
+                    reader.skipValue();
+                }
+            }
+        }
+        return result;
+    }
+
+    private static int readFailedShards(JSONReader reader) {
+        int failed = 0;
+        reader.nextIfObjectStart();
+        while (!reader.nextIfObjectEnd()) {
+            if ("failed".equals(reader.readFieldName())) {
+                failed = (int) reader.readInt64Value();
+            } else {
+                reader.skipValue();
+            }
+        }
+        skipComma(reader);
+        return failed;
+    }
+
+    private static void readHits(JSONReader reader, EsCompactSearchResult result) {
+        reader.nextIfObjectStart();
+        while (!reader.nextIfObjectEnd()) {
+            String name = reader.readFieldName();
+            if ("total".equals(name)) {
+                readTotal(reader, result);
+            } else if ("hits".equals(name)) {
+                reader.nextIfMatch('[');
+                while (!reader.nextIfMatch(']')) {
+                    result.getHits().add(readHit(reader));
+                }
+                skipComma(reader);
+            } else {
+                reader.skipValue();
+            }
+        }
+        skipComma(reader);
+    }
+
+    /**
+     * 7.x为{"value":N,"relation":"eq"}，rest_total_hits_as_int时为数字
+     */
+    private static void readTotal(JSONReader reader, EsCompactSearchResult result) {
+        if (reader.isNumber()) {
+            result.setTotal(reader.readInt64Value());
+            result.setTotalRelation("eq");
+            return;
+        }
+        reader.nextIfObjectStart();
+        while (!reader.nextIfObjectEnd()) {
+            String name = reader.readFieldName();
+            if ("value".equals(name)) {
+                result.setTotal(reader.readInt64Value());
+            } else if ("relation".equals(name)) {
+                result.setTotalRelation(reader.readString());
+            } else {
+                reader.skipValue();
+            }
+        }
+        skipComma(reader);
+    }
+
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    private static EsCompactHit readHit(JSONReader reader) {
+        EsCompactHit hit = new EsCompactHit();
+        reader.nextIfObjectStart();
+        while (!reader.nextIfObjectEnd()) {
+            String name = reader.readFieldName();
+            if ("_id".equals(name)) {
+                hit.setId(reader.readString());
+            } else if ("_score".equals(name)) {
+                if (!reader.nextIfNull()) {
+                    hit.setScore(reader.readFloatValue());
+                }
+            } else if ("_source".equals(name)) {
+                hit.setSource(reader.readObject());
+            } else if ("fields".equals(name)) {
+                hit.setFields(readArrays(reader));
+            } else if ("highlight".equals(name)) {
+                hit.setHighlight((Map) readArrays(reader));
+            } else if ("sort".equals(name)) {
+                hit.setSortValues(reader.readArray());
+            } else {
+                reader.skipValue();
+            }
+        }
+        skipComma(reader);
+        return hit;
+    }
+
+    /**
+     * 读取字段名到数组的映射，fields与highlight均为此结构
+     */
+    @SuppressWarnings("unchecked")
+    private static Map<String, List<Object>> readArrays(JSONReader reader) {
+        Map<String, List<Object>> values = new LinkedHashMap<>();
+        reader.nextIfObjectStart();
+        while (!reader.nextIfObjectEnd()) {
+            String name = reader.readFieldName();
+            values.put(name, reader.readArray());
+        }
+        skipComma(reader);
+        return values;
+    }
+
+    /**
+     * 逐个读取的对象或数组结束后跳过其后的逗号，fastjson2只在读取完整值及skipValue时自动跳过
+     */
+    private static void skipComma(JSONReader reader) {
+        reader.nextIfMatch(',');
+    }
+}
@@ -0,0 +1,42 @@
+package com.easy.es.config;
+
+import lombok.Data;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * @author agent
+ * @ClassName EsCompactSearchResult
+ * @create 2026年10月17日 19:01
+ * @Description 精简搜索结果，不构建SearchResponse对象树
+ * @Version V1.0
+ */
+@Data
+public class EsCompactSearchResult implements Serializable {
+
+    /**
+     * 服务端耗时(毫秒)
+     */
+    private long took;
+
+    private boolean timedOut;
+
+    /**
+     * 执行失败的分片数，大于0时结果不完整
+     */
+    private int failedShards;
+
+    /**
+     * 命中总数，不统计时为-1
+     */
+    private long total = -1;
+
+    /**
+     * eq表示total为精确值，gte表示超过trackTotalHitsUpTo后的下限
+     */
+    private String totalRelation;
+
+    private List<EsCompactHit> hits = new ArrayList<>();
+}
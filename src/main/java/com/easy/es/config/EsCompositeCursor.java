@@ -0,0 +1,141 @@
+package com.easy.es.config;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.function.Function;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * @author agent
+ * @ClassName EsCompositeCursor
+ * @create 2026年10月17日 19:31
+ * @Description composite聚合的桶游标，按after_key逐页请求，消费当前页时预取下一页，最多同时持有两页桶
+ * @Version V1.0
+ */
+public class EsCompositeCursor implements Iterator<EsAggBucket>, Closeable {
+
+    /**
+     * 按after_key请求一页，参数为空时请求第一页
+     */
+    private final Function<Map<String, Object>, CompletableFuture<EsCompositePage>> fetcher;
+
+    private List<EsAggBucket> page = Collections.emptyList();
+
+    private int position;
+
+    private CompletableFuture<EsCompositePage> prefetch;
+
+    private long fetched;
+
+    private boolean exhausted;
+
+    private boolean closed;
+
+    /**
+     * @param firstPage 已取回的第一页
+     * @param fetcher   按after_key请求后续页
+     */
+    public EsCompositeCursor(EsCompositePage firstPage,
+                             Function<Map<String, Object>, CompletableFuture<EsCompositePage>> fetcher) {
+        this.fetcher = fetcher;
+        accept(firstPage);
+    }
+
+    /**
+     * 已取回的桶数
+     */
+    public long getFetchedBuckets() {
+        return fetched;
+    }
+
+    @Override
+    public boolean hasNext() {
+        while (!closed && position >= page.size()) {
+            if (exhausted) {
+                return false;
+            }
+            accept(awaitPrefetch());
+        }
+        return !closed;
+    }
+
+    @Override
+    public EsAggBucket next() {
+        if (!hasNext()) {
+            throw new NoSuchElementException();
+        }
+        EsAggBucket bucket = page.get(position);
+        page.set(position++, null);
+        return bucket;
+    }
+
+    /**
+     * 转换为Stream，Stream关闭时关闭游标
+     */
+    public Stream<EsAggBucket> stream() {
+        return StreamSupport.stream(Spliterators.spliteratorUnknownSize(this,
+                Spliterator.ORDERED | Spliterator.NONNULL), false).onClose(this::close);
+    }
+
+    @Override
+    public void close() {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        page = Collections.emptyList();
+        if (prefetch != null && !prefetch.isDone()) {
+            prefetch.cancel(true);
+        }
+        prefetch = null;
+    }
+
+    private void accept(EsCompositePage response) {
+        if (response.getFailedShards() > 0) {
+            close();
+            throw new IllegalStateException("composite aggregation incomplete,failedShards:" + response.getFailedShards());
+        }
+        page = response.getBuckets();
+        position = 0;
+        fetched += page.size();
+
+        // 聚合中的bucket_selector等可能使一页少于size个桶，只有空页或没有after_key时才结束
+        if (page.isEmpty() || response.getAfterKey() == null) {
+            exhausted = true;
+            prefetch = null;
+        } else {
+            prefetch = fetcher.apply(response.getAfterKey());
+        }
+    }
+
+    private EsCompositePage awaitPrefetch() {
+        try {
+            return prefetch.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            close();
+            throw new IllegalStateException("composite aggregation interrupted", e);
+        } catch (ExecutionException e) {
+            close();
+            Throwable cause = e.getCause();
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            if (cause instanceof IOException) {
+                throw new UncheckedIOException((IOException) cause);
+            }
+            throw new IllegalStateException(cause);
+        }
+    }
+}
@@ -0,0 +1,31 @@
+package com.easy.es.config;
+
+import lombok.Data;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * @author agent
+ * @ClassName EsCompositePage
+ * @create 2026年10月17日 19:31
+ * @Description composite聚合的一页桶及下一页的after_key
+ * @Version V1.0
+ */
+@Data
+public class EsCompositePage implements Serializable {
+
+    /**
+     * 执行失败的分片数，大于0时桶不完整
+     */
+    private int failedShards;
+
+    /**
+     * 最后一个桶的key，作为下一页的after，没有桶时为空
+     */
+    private Map<String, Object> afterKey;
+
+    private List<EsAggBucket> buckets = new ArrayList<>();
+}
@@ -0,0 +1,127 @@
+package com.easy.es.config;
+
+import com.alibaba.fastjson2.JSONReader;
+
+import java.util.Map;
+
+/**
+ * @author agent
+ * @ClassName EsCompositeParser
+ * @create 2026年10月17日 19:31
+ * @Description 流式读取composite聚合的_search响应，逐个桶解析为EsAggBucket，其余内容跳过
+ * @Version V1.0
+ */
+public final class EsCompositeParser {
+
+    private EsCompositeParser() {
+    }
+
+    /**
+     * 请求时使用的filter_path，服务端只返回分片失败数、after_key及桶
+     *
+     * @param name composite聚合名称
+     */
+    public static String filterPath(String name) {
+        String prefix = "aggregations." + name;
+        return "_shards.failed," + prefix + ".after_key," + prefix + ".buckets";
+    }
+
+    public static EsCompositePage parse(byte[] body, String name) {
+        EsCompositePage page = new EsCompositePage();
+        try (JSONReader reader = JSONReader.of(body)) {
+            reader.nextIfObjectStart();
+            while (!reader.nextIfObjectEnd()) {
+                String field = reader.readFieldName();
+                if ("_shards".equals(field)) {
+                    page.setFailedShards(readFailedShards(reader));
+                } else if ("aggregations".equals(field)) {
+                    readAggregations(reader, name, page);
+                } else {
+                    reader.skipValue();
+                }
+            }
+        }
+        return page;
+    }
+
+    private static int readFailedShards(JSONReader reader) {
+        int failed = 0;
+        reader.nextIfObjectStart();
+        while (!reader.nextIfObjectEnd()) {
+            if ("failed".equals(reader.readFieldName())) {
+                failed = (int) reader.readInt64Value();
+            } else {
+                reader.skipValue();
+            }
+        }
+        skipComma(reader);
+        return failed;
+    }
+
+    private static void readAggregations(JSONReader reader, String name, EsCompositePage page) {
+        reader.nextIfObjectStart();
+        while (!reader.nextIfObjectEnd()) {
+            if (name.equals(reader.readFieldName())) {
+                readComposite(reader, page);
+            } else {
+                reader.skipValue();
+            }
+        }
+        skipComma(reader);
+    }
+
+    private static void readComposite(JSONReader reader, EsCompositePage page) {
+        reader.nextIfObjectStart();
+        while (!reader.nextIfObjectEnd()) {
+            String field = reader.readFieldName();
+            if ("after_key".equals(field)) {
+                page.setAfterKey(reader.readObject());
+            } else if ("buckets".equals(field)) {
+                reader.nextIfMatch('[');
+                while (!reader.nextIfMatch(']')) {
+                    page.getBuckets().add(readBucket(reader));
+                }
+                skipComma(reader);
+            } else {
+                reader.skipValue();
+            }
+        }
+        skipComma(reader);
+    }
+
+    private static EsAggBucket readBucket(JSONReader reader) {
+        EsAggBucket bucket = new EsAggBucket();
+        reader.nextIfObjectStart();
+        while (!reader.nextIfObjectEnd()) {
+            String field = reader.readFieldName();
+            if ("key".equals(field)) {
+                bucket.setKey(reader.readObject());
+            } else if ("doc_count".equals(field)) {
+                bucket.setDocCount(reader.readInt64Value());
+            } else if (reader.isObject()) {
+                bucket.getMetrics().put(field, metricValue(reader.readObject()));
+            } else {
+                reader.skipValue();
+            }
+        }
+        skipComma(reader);
+        return bucket;
+    }
+
+    /**
+     * 单值指标只保留value，没有匹配文档时value为null
+     */
+    private static Object metricValue(Map<String, Object> metric) {
+        if (metric.containsKey("value") && !metric.containsKey("buckets")) {
+            return metric.get("value");
+        }
+        return metric;
+    }
+
+    /**
+     * 逐个读取的对象或数组结束后跳过其后的逗号，fastjson2只在读取完整值及skipValue时自动跳过
+     */
+    private static void skipComma(JSONReader reader) {
+        reader.nextIfMatch(',');
+    }
+}
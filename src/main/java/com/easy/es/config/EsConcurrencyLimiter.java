@@ -0,0 +1,438 @@
+package com.easy.es.config;
+
+import lombok.extern.slf4j.Slf4j;
+import org.elasticsearch.ElasticsearchStatusException;
+import org.elasticsearch.action.bulk.BulkItemResponse;
+import org.elasticsearch.action.bulk.BulkResponse;
+import org.elasticsearch.client.ResponseException;
+import org.elasticsearch.index.reindex.BulkByScrollResponse;
+import org.elasticsearch.rest.RestStatus;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * @author agent
+ * @ClassName EsConcurrencyLimiter
+ * @create 2026年10月17日 18:50
+ * @Description 按集群(或索引)的自适应并发限制，交互请求与批量写入分道，上限按延迟及429拒绝以AIMD调整
+ * @Version V1.0
+ */
+@Slf4j
+public class EsConcurrencyLimiter {
+
+    private static final ScheduledExecutorService TIMEOUT_SCHEDULER = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread thread = new Thread(r, "es-limiter-timeout");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    /**
+     * 两次缩小上限的最小间隔取近期平均延迟，即每个往返最多缩小一次，间隔限制在该范围内
+     */
+    private static final long MIN_BACKOFF_INTERVAL_NANOS = TimeUnit.MILLISECONDS.toNanos(10);
+
+    private static final long MAX_BACKOFF_INTERVAL_NANOS = TimeUnit.SECONDS.toNanos(1);
+
+    /**
+     * 平均延迟的指数加权系数
+     */
+    private static final double LATENCY_ALPHA = 0.2;
+
+    /**
+     * 被拒绝(429)时上限的缩小比例
+     */
+    private static final double REJECTED_BACKOFF_RATIO = 0.5;
+
+    /**
+     * 不限制并发时使用的许可
+     */
+    public static final Permit NOOP_PERMIT = new Permit() {
+        @Override
+        public void onSuccess(long latencyNanos) {
+        }
+
+        @Override
+        public void onRejected() {
+        }
+
+        @Override
+        public void release() {
+        }
+    };
+
+    private static final CompletableFuture<Permit> UNLIMITED = CompletableFuture.completedFuture(NOOP_PERMIT);
+
+    /**
+     * 请求通道
+     */
+    public enum Lane {
+        /**
+         * 交互请求：查询及单文档读写
+         */
+        INTERACTIVE,
+        /**
+         * 批量写入及按查询更新、删除
+         */
+        BULK
+    }
+
+    /**
+     * 一次请求占用的并发许可，请求结束时调用其中一个方法归还，重复调用无效
+     */
+    public interface Permit {
+
+        /**
+         * 请求成功
+         *
+         * @param latencyNanos 请求耗时(纳秒)，小于0时不作为延迟样本
+         */
+        void onSuccess(long latencyNanos);
+
+        /**
+         * 请求被服务端拒绝(429)
+         */
+        void onRejected();
+
+        /**
+         * 请求因其他原因失败或被取消，只归还许可
+         */
+        void release();
+    }
+
+    private final String clusterName;
+
+    private final String indexName;
+
+    private final EsClientMetrics metrics;
+
+    private final LaneLimiter interactive;
+
+    private final LaneLimiter bulk;
+
+    /**
+     * @param clusterName       集群名称
+     * @param indexName         索引名称，集群级限制为*
+     * @param interactiveConfig 交互请求通道配置，为空时不限制
+     * @param bulkConfig        批量写入通道配置，为空时不限制
+     * @param metrics           指标采集
+     */
+    public EsConcurrencyLimiter(String clusterName, String indexName, EsLimiterConfig interactiveConfig,
+                                EsLimiterConfig bulkConfig, EsClientMetrics metrics) {
+        this.clusterName = clusterName;
+        this.indexName = indexName;
+        this.metrics = metrics;
+        this.bulk = bulkConfig == null ? null : new LaneLimiter(Lane.BULK, bulkConfig, null);
+        // 交互请求拥塞时批量写入同时缩小上限，为交互请求让出服务端资源
+        this.interactive = interactiveConfig == null ? null : new LaneLimiter(Lane.INTERACTIVE, interactiveConfig, bulk);
+        for (Lane lane : Lane.values()) {
+            LaneLimiter limiter = lane(lane);
+            if (limiter != null) {
+                metrics.bindLimiter(clusterName, indexName, limiter.laneName, limiter::stats);
+            }
+        }
+    }
+
+    /**
+     * 获取许可，未超过并发上限时立即完成，否则排队等待
+     * 排队已满或等待超时时以429状态的ElasticsearchStatusException结束，与服务端拒绝一致，可被批量写入重试及读副本故障转移处理
+     */
+    public CompletableFuture<Permit> acquire(Lane lane) {
+        LaneLimiter limiter = lane(lane);
+        return limiter == null ? UNLIMITED : limiter.acquire();
+    }
+
+    /**
+     * 通道的统计信息，通道不限制并发时返回null
+     */
+    public EsLimiterStats stats(Lane lane) {
+        LaneLimiter limiter = lane(lane);
+        return limiter == null ? null : limiter.stats();
+    }
+
+    /**
+     * 请求结果是否表示服务端拒绝(429)，包括批量写入中部分文档被拒绝
+     */
+    public static boolean isRejected(Object result, Throwable failure) {
+        if (failure != null) {
+            Throwable cause = EsReadRouter.unwrap(failure);
+            if (cause instanceof ElasticsearchStatusException) {
+                return ((ElasticsearchStatusException) cause).status() == RestStatus.TOO_MANY_REQUESTS;
+            }
+            if (cause instanceof ResponseException) {
+                return ((ResponseException) cause).getResponse().getStatusLine().getStatusCode()
+                        == RestStatus.TOO_MANY_REQUESTS.getStatus();
+            }
+            return false;
+        }
+        if (result instanceof BulkResponse) {
+            return Arrays.stream(((BulkResponse) result).getItems())
+                    .anyMatch(item -> item.isFailed() && item.status() == RestStatus.TOO_MANY_REQUESTS);
+        }
+        if (result instanceof BulkByScrollResponse) {
+            BulkByScrollResponse response = (BulkByScrollResponse) result;
+            return response.getBulkFailures().stream().map(BulkItemResponse.Failure::getStatus)
+                    .anyMatch(RestStatus.TOO_MANY_REQUESTS::equals)
+                    || response.getSearchFailures().stream()
+                    .anyMatch(searchFailure -> searchFailure.getStatus() == RestStatus.TOO_MANY_REQUESTS);
+        }
+        return false;
+    }
+
+    private LaneLimiter lane(Lane lane) {
+        return lane == Lane.BULK ? bulk : interactive;
+    }
+
+    private static ElasticsearchStatusException rejection(String laneName, String reason) {
+        return new ElasticsearchStatusException("concurrency limit exceeded,lane:{},reason:{}",
+                RestStatus.TOO_MANY_REQUESTS, laneName, reason);
+    }
+
+    /**
+     * 排队中的请求
+     */
+    private static class Waiter {
+
+        private final CompletableFuture<Permit> future = new CompletableFuture<>();
+
+        private final long enqueueNanos = System.nanoTime();
+
+        private volatile ScheduledFuture<?> timeout;
+    }
+
+    /**
+     * 单个通道的并发上限、在途数及排队请求
+     */
+    private class LaneLimiter {
+
+        private final String laneName;
+
+        private final EsLimiterConfig config;
+
+        /**
+         * 本通道拥塞时需同时缩小上限的通道
+         */
+        private final LaneLimiter yieldLane;
+
+        private final long latencyThresholdNanos;
+
+        private final ReentrantLock lock = new ReentrantLock();
+
+        private final ArrayDeque<Waiter> waiters = new ArrayDeque<>();
+
+        private double limit;
+
+        private int inFlight;
+
+        private long averageLatencyNanos;
+
+        private long lastBackoffNanos;
+
+        private long rejectedCount;
+
+        private long backoffCount;
+
+        LaneLimiter(Lane lane, EsLimiterConfig config, LaneLimiter yieldLane) {
+            this.laneName = lane.name().toLowerCase();
+            this.config = config;
+            this.yieldLane = yieldLane;
+            this.latencyThresholdNanos = TimeUnit.MILLISECONDS.toNanos(config.getLatencyThresholdMillis());
+            this.limit = Math.min(config.getMaxLimit(), Math.max(config.getMinLimit(), config.getInitialLimit()));
+        }
+
+        CompletableFuture<Permit> acquire() {
+            Waiter waiter;
+            lock.lock();
+            try {
+                if (waiters.isEmpty() && inFlight < (int) limit) {
+                    inFlight++;
+                    return CompletableFuture.completedFuture(new LanePermit());
+                }
+                if (waiters.size() >= config.getMaxQueueSize()) {
+                    rejectedCount++;
+                    CompletableFuture<Permit> future = new CompletableFuture<>();
+                    future.completeExceptionally(rejection(laneName, "queue full"));
+                    return future;
+                }
+                waiter = new Waiter();
+                waiters.add(waiter);
+            } finally {
+                lock.unlock();
+            }
+            waiter.timeout = TIMEOUT_SCHEDULER.schedule(() -> expire(waiter), config.getMaxWaitMillis(), TimeUnit.MILLISECONDS);
+            waiter.future.whenComplete((permit, failure) -> {
+                if (waiter.future.isCancelled()) {
+                    remove(waiter);
+                }
+            });
+            return waiter.future;
+        }
+
+        private void expire(Waiter waiter) {
+            if (!remove(waiter)) {
+                return;
+            }
+            lock.lock();
+            try {
+                rejectedCount++;
+            } finally {
+                lock.unlock();
+            }
+            if (log.isDebugEnabled()) {
+                log.debug("concurrencyLimiter.waitTimeout,clusterName:{},indexName:{},lane:{}", clusterName, indexName, laneName);
+            }
+            waiter.future.completeExceptionally(rejection(laneName, "wait timeout"));
+        }
+
+        private boolean remove(Waiter waiter) {
+            lock.lock();
+            try {
+                return waiters.remove(waiter);
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        /**
+         * 归还许可并按结果调整上限：未超过延迟阈值时每个往返约加1，超过阈值按backoffRatio缩小，被拒绝时减半
+         * 在途数不足上限一半时不增加，避免空闲时上限无限增长
+         */
+        private void release(long latencyNanos, boolean rejected) {
+            List<Waiter> granted;
+            double backoffRatio = -1;
+            lock.lock();
+            try {
+                int inFlightBefore = inFlight--;
+                if (rejected) {
+                    backoffRatio = REJECTED_BACKOFF_RATIO;
+                } else if (latencyNanos >= 0) {
+                    averageLatencyNanos = averageLatencyNanos == 0 ? latencyNanos
+                            : (long) (averageLatencyNanos + LATENCY_ALPHA * (latencyNanos - averageLatencyNanos));
+                    if (latencyNanos > latencyThresholdNanos) {
+                        backoffRatio = config.getBackoffRatio();
+                    } else if (inFlightBefore * 2 >= limit) {
+                        limit = Math.min(config.getMaxLimit(), limit + 1 / limit);
+                    }
+                }
+                if (backoffRatio > 0 && !backoff(backoffRatio)) {
+                    backoffRatio = -1;
+                }
+                granted = grant();
+            } finally {
+                lock.unlock();
+            }
+            complete(granted);
+            if (backoffRatio > 0 && yieldLane != null) {
+                yieldLane.yieldTo(backoffRatio);
+            }
+        }
+
+        private void yieldTo(double ratio) {
+            lock.lock();
+            try {
+                backoff(ratio);
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        /**
+         * 缩小上限，距上次缩小不足一个平均往返时忽略，避免同一批在途请求的拥塞信号被重复计算
+         */
+        private boolean backoff(double ratio) {
+            long now = System.nanoTime();
+            long interval = Math.min(MAX_BACKOFF_INTERVAL_NANOS, Math.max(MIN_BACKOFF_INTERVAL_NANOS, averageLatencyNanos));
+            if (backoffCount > 0 && now - lastBackoffNanos < interval) {
+                return false;
+            }
+            double previous = limit;
+            limit = Math.max(config.getMinLimit(), limit * ratio);
+            lastBackoffNanos = now;
+            backoffCount++;
+            if (log.isDebugEnabled()) {
+                log.debug("concurrencyLimiter.backoff,clusterName:{},indexName:{},lane:{},limit:{}->{}",
+                        clusterName, indexName, laneName, (int) previous, (int) limit);
+            }
+            return true;
+        }
+
+        private List<Waiter> grant() {
+            List<Waiter> granted = null;
+            while (!waiters.isEmpty() && inFlight < (int) limit) {
+                if (granted == null) {
+                    granted = new ArrayList<>();
+                }
+                granted.add(waiters.poll());
+                inFlight++;
+            }
+            return granted;
+        }
+
+        private void complete(List<Waiter> granted) {
+            if (granted == null) {
+                return;
+            }
+            for (Waiter waiter : granted) {
+                ScheduledFuture<?> timeout = waiter.timeout;
+                if (timeout != null) {
+                    timeout.cancel(false);
+                }
+                metrics.recordLimiterWait(clusterName, indexName, laneName, System.nanoTime() - waiter.enqueueNanos);
+                LanePermit permit = new LanePermit();
+                if (!waiter.future.complete(permit)) {
+                    permit.release();
+                }
+            }
+        }
+
+        EsLimiterStats stats() {
+            EsLimiterStats stats = new EsLimiterStats();
+            lock.lock();
+            try {
+                stats.setLimit((int) limit);
+                stats.setInFlight(inFlight);
+                stats.setQueued(waiters.size());
+                stats.setRejectedCount(rejectedCount);
+                stats.setBackoffCount(backoffCount);
+            } finally {
+                lock.unlock();
+            }
+            return stats;
+        }
+
+        private class LanePermit implements Permit {
+
+            private final AtomicBoolean released = new AtomicBoolean();
+
+            @Override
+            public void onSuccess(long latencyNanos) {
+                if (released.compareAndSet(false, true)) {
+                    LaneLimiter.this.release(latencyNanos, false);
+                }
+            }
+
+            @Override
+            public void onRejected() {
+                if (released.compareAndSet(false, true)) {
+                    LaneLimiter.this.release(-1, true);
+                }
+            }
+
+            @Override
+            public void release() {
+                if (released.compareAndSet(false, true)) {
+                    LaneLimiter.this.release(-1, false);
+                }
+            }
+        }
+    }
+}
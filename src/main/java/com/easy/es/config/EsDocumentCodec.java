@@ -0,0 +1,78 @@
+package com.easy.es.config;
+
+import com.alibaba.fastjson2.JSONFactory;
+import com.alibaba.fastjson2.JSONReader;
+import com.alibaba.fastjson2.JSONWriter;
+import com.alibaba.fastjson2.reader.ObjectReader;
+import com.alibaba.fastjson2.writer.ObjectWriter;
+import org.apache.lucene.util.BytesRef;
+import org.elasticsearch.common.bytes.BytesReference;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * @author agent
+ * @ClassName EsDocumentCodec
+ * @create 2026年10月17日 18:04
+ * @Description 文档类型编解码器，按类缓存fastjson2生成的读写器，直接在_source字节与对象之间转换
+ * @Version V1.0
+ */
+public final class EsDocumentCodec<T> {
+
+    private static final ConcurrentMap<Class<?>, EsDocumentCodec<?>> CODECS = new ConcurrentHashMap<>();
+
+    private final Class<T> clazz;
+
+    private final ObjectReader<T> reader;
+
+    private final ObjectWriter<T> writer;
+
+    @SuppressWarnings("unchecked")
+    private EsDocumentCodec(Class<T> clazz) {
+        this.clazz = clazz;
+        this.reader = JSONFactory.getDefaultObjectReaderProvider().getObjectReader(clazz);
+        this.writer = JSONFactory.getDefaultObjectWriterProvider().getObjectWriter(clazz);
+    }
+
+    /**
+     * 获取类型对应的编解码器，首次使用时创建
+     */
+    @SuppressWarnings("unchecked")
+    public static <T> EsDocumentCodec<T> of(Class<T> clazz) {
+        return (EsDocumentCodec<T>) CODECS.computeIfAbsent(clazz, EsDocumentCodec::new);
+    }
+
+    /**
+     * 将_source字节解码为对象
+     *
+     * @param source _source字节，为空时返回null
+     * @return 文档对象
+     */
+    public T decode(BytesReference source) {
+        if (source == null || source.length() == 0) {
+            return null;
+        }
+        BytesRef bytesRef = source.toBytesRef();
+        return decode(bytesRef.bytes, bytesRef.offset, bytesRef.length);
+    }
+
+    /**
+     * 将JSON字节解码为对象
+     */
+    public T decode(byte[] bytes, int offset, int length) {
+        try (JSONReader jsonReader = JSONReader.of(bytes, offset, length)) {
+            return reader.readObject(jsonReader, clazz, null, 0);
+        }
+    }
+
+    /**
+     * 将对象编码为JSON字节
+     */
+    public byte[] encode(T doc) {
+        try (JSONWriter jsonWriter = JSONWriter.ofUTF8()) {
+            writer.write(jsonWriter, doc, null, clazz, 0);
+            return jsonWriter.getBytes();
+        }
+    }
+}
@@ -0,0 +1,200 @@
+package com.easy.es.config;
+
+import org.apache.http.HttpEntity;
+import org.apache.http.HttpEntityEnclosingRequest;
+import org.apache.http.HttpException;
+import org.apache.http.HttpHeaders;
+import org.apache.http.HttpHost;
+import org.apache.http.HttpRequest;
+import org.apache.http.auth.AuthScheme;
+import org.apache.http.concurrent.FutureCallback;
+import org.apache.http.entity.ByteArrayEntity;
+import org.apache.http.impl.client.TargetAuthenticationStrategy;
+import org.apache.http.impl.nio.client.CloseableHttpAsyncClient;
+import org.apache.http.impl.nio.client.HttpAsyncClientBuilder;
+import org.apache.http.nio.ContentEncoder;
+import org.apache.http.nio.IOControl;
+import org.apache.http.nio.entity.EntityAsyncContentProducer;
+import org.apache.http.nio.protocol.HttpAsyncRequestProducer;
+import org.apache.http.nio.protocol.HttpAsyncResponseConsumer;
+import org.apache.http.protocol.HttpContext;
+
+import javax.net.ssl.SSLContext;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.security.NoSuchAlgorithmException;
+import java.util.concurrent.Future;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * @author agent
+ * @ClassName EsGzipHttpAsyncClient
+ * @create 2026年10月17日 17:53
+ * @Description 对请求体做gzip压缩的HTTP客户端包装
+ * @Version V1.0
+ */
+public class EsGzipHttpAsyncClient extends CloseableHttpAsyncClient {
+
+    private static final String GZIP = "gzip";
+
+    private final CloseableHttpAsyncClient delegate;
+
+    private final int minBytes;
+
+    public EsGzipHttpAsyncClient(CloseableHttpAsyncClient delegate, int minBytes) {
+        this.delegate = delegate;
+        this.minBytes = minBytes;
+    }
+
+    @Override
+    public boolean isRunning() {
+        return delegate.isRunning();
+    }
+
+    @Override
+    public void start() {
+        delegate.start();
+    }
+
+    @Override
+    public void close() throws IOException {
+        delegate.close();
+    }
+
+    @Override
+    public <T> Future<T> execute(HttpAsyncRequestProducer requestProducer,
+                                 HttpAsyncResponseConsumer<T> responseConsumer,
+                                 HttpContext context,
+                                 FutureCallback<T> callback) {
+        return delegate.execute(new GzipRequestProducer(requestProducer), responseConsumer, context, callback);
+    }
+
+    /**
+     * 构建压缩客户端，预置与RestClientBuilder相同的默认SSLContext及认证策略
+     */
+    public static class Builder extends HttpAsyncClientBuilder {
+
+        private final int minBytes;
+
+        public Builder(int minBytes) {
+            this.minBytes = minBytes;
+            try {
+                setSSLContext(SSLContext.getDefault());
+            } catch (NoSuchAlgorithmException e) {
+                throw new IllegalStateException("could not create the default ssl context", e);
+            }
+            setTargetAuthenticationStrategy(new PersistentCredentialsAuthenticationStrategy());
+        }
+
+        @Override
+        public CloseableHttpAsyncClient build() {
+            return new EsGzipHttpAsyncClient(super.build(), minBytes);
+        }
+    }
+
+    /**
+     * 认证失败时不清除缓存的凭据，与RestClient默认的认证策略一致，避免节点短暂返回401后后续请求不再携带凭据
+     */
+    private static class PersistentCredentialsAuthenticationStrategy extends TargetAuthenticationStrategy {
+
+        @Override
+        public void authFailed(HttpHost host, AuthScheme authScheme, HttpContext context) {
+            // 保留凭据缓存
+        }
+    }
+
+    /**
+     * 生成请求时压缩请求体，请求体内容由压缩后的实体产生
+     * RestClient换节点重试时复用同一请求对象，已带Content-Encoding的请求不再重复压缩
+     */
+    private class GzipRequestProducer implements HttpAsyncRequestProducer {
+
+        private final HttpAsyncRequestProducer delegate;
+
+        private HttpEntity compressed;
+
+        private EntityAsyncContentProducer contentProducer;
+
+        GzipRequestProducer(HttpAsyncRequestProducer delegate) {
+            this.delegate = delegate;
+        }
+
+        @Override
+        public HttpHost getTarget() {
+            return delegate.getTarget();
+        }
+
+        @Override
+        public HttpRequest generateRequest() throws IOException, HttpException {
+            HttpRequest request = delegate.generateRequest();
+            if (compressed == null && request instanceof HttpEntityEnclosingRequest
+                    && !request.containsHeader(HttpHeaders.CONTENT_ENCODING)) {
+                HttpEntity entity = ((HttpEntityEnclosingRequest) request).getEntity();
+                if (entity != null && (entity.getContentLength() < 0 || entity.getContentLength() >= minBytes)) {
+                    compressed = compress(entity);
+                    ((HttpEntityEnclosingRequest) request).setEntity(compressed);
+                    request.setHeader(HttpHeaders.CONTENT_ENCODING, GZIP);
+                }
+            }
+            if (compressed != null) {
+                closeContentProducer();
+                contentProducer = new EntityAsyncContentProducer(compressed);
+            }
+            return request;
+        }
+
+        @Override
+        public void produceContent(ContentEncoder encoder, IOControl ioControl) throws IOException {
+            if (contentProducer != null) {
+                contentProducer.produceContent(encoder, ioControl);
+            } else {
+                delegate.produceContent(encoder, ioControl);
+            }
+        }
+
+        @Override
+        public void requestCompleted(HttpContext context) {
+            delegate.requestCompleted(context);
+        }
+
+        @Override
+        public void failed(Exception ex) {
+            delegate.failed(ex);
+        }
+
+        @Override
+        public boolean isRepeatable() {
+            return delegate.isRepeatable();
+        }
+
+        @Override
+        public void resetRequest() throws IOException {
+            closeContentProducer();
+            delegate.resetRequest();
+        }
+
+        @Override
+        public void close() throws IOException {
+            closeContentProducer();
+            delegate.close();
+        }
+
+        private void closeContentProducer() throws IOException {
+            if (contentProducer != null) {
+                contentProducer.close();
+                contentProducer = null;
+            }
+        }
+
+        private HttpEntity compress(HttpEntity entity) throws IOException {
+            ByteArrayOutputStream out = new ByteArrayOutputStream(512);
+            try (GZIPOutputStream gzip = new GZIPOutputStream(out)) {
+                entity.writeTo(gzip);
+            }
+            ByteArrayEntity result = new ByteArrayEntity(out.toByteArray());
+            result.setContentType(entity.getContentType());
+            result.setContentEncoding(GZIP);
+            return result;
+        }
+    }
+}
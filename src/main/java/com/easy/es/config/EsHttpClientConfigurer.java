@@ -0,0 +1,109 @@
+package com.easy.es.config;
+
+import org.apache.http.HeaderElement;
+import org.apache.http.HeaderElementIterator;
+import org.apache.http.client.config.RequestConfig;
+import org.apache.http.conn.ConnectionKeepAliveStrategy;
+import org.apache.http.impl.nio.client.HttpAsyncClientBuilder;
+import org.apache.http.impl.nio.conn.PoolingNHttpClientConnectionManager;
+import org.apache.http.impl.nio.reactor.DefaultConnectingIOReactor;
+import org.apache.http.impl.nio.reactor.IOReactorConfig;
+import org.apache.http.message.BasicHeaderElementIterator;
+import org.apache.http.nio.reactor.IOReactorException;
+import org.apache.http.protocol.HTTP;
+import org.elasticsearch.client.RestClientBuilder;
+
+/**
+ * @author agent
+ * @ClassName EsHttpClientConfigurer
+ * @create 2026年10月17日 17:53
+ * @Description 按集群配置HTTP连接池、超时、IO线程数、长连接保持、请求压缩及节点延迟统计
+ * @Version V1.0
+ */
+public class EsHttpClientConfigurer implements RestClientBuilder.HttpClientConfigCallback,
+        RestClientBuilder.RequestConfigCallback {
+
+    private final EsClusterConfig esConfig;
+
+    private final PoolingNHttpClientConnectionManager connectionManager;
+
+    /**
+     * 节点统计，为空时不记录节点延迟
+     */
+    private final EsNodeTracker nodeTracker;
+
+    public EsHttpClientConfigurer(EsClusterConfig esConfig) throws IOReactorException {
+        this(esConfig, null);
+    }
+
+    public EsHttpClientConfigurer(EsClusterConfig esConfig, EsNodeTracker nodeTracker) throws IOReactorException {
+        this.esConfig = esConfig;
+        this.nodeTracker = nodeTracker;
+        IOReactorConfig.Builder ioReactorConfig = IOReactorConfig.custom()
+                .setConnectTimeout(esConfig.getConnectTimeoutMillis())
+                .setSoTimeout(esConfig.getSocketTimeoutMillis())
+                .setSoKeepAlive(true)
+                .setTcpNoDelay(true);
+        if (esConfig.getIoThreadCount() > 0) {
+            ioReactorConfig.setIoThreadCount(esConfig.getIoThreadCount());
+        }
+        this.connectionManager = new PoolingNHttpClientConnectionManager(
+                new DefaultConnectingIOReactor(ioReactorConfig.build()));
+        this.connectionManager.setMaxTotal(esConfig.getMaxConnTotal());
+        this.connectionManager.setDefaultMaxPerRoute(esConfig.getMaxConnPerRoute());
+    }
+
+    @Override
+    public RequestConfig.Builder customizeRequestConfig(RequestConfig.Builder requestConfigBuilder) {
+        return requestConfigBuilder
+                .setConnectTimeout(esConfig.getConnectTimeoutMillis())
+                .setSocketTimeout(esConfig.getSocketTimeoutMillis())
+                .setConnectionRequestTimeout(esConfig.getConnectionRequestTimeoutMillis());
+    }
+
+    @Override
+    public HttpAsyncClientBuilder customizeHttpClient(HttpAsyncClientBuilder httpClientBuilder) {
+        if (esConfig.isCompressionEnabled()) {
+            // 压缩需要包装最终构建的客户端，RestClient传入的默认请求配置在此重新设置，SSLContext及认证策略由Builder预置
+            httpClientBuilder = new EsGzipHttpAsyncClient.Builder(esConfig.getCompressionMinBytes())
+                    .setDefaultRequestConfig(customizeRequestConfig(RequestConfig.custom()).build());
+        }
+        if (nodeTracker != null) {
+            httpClientBuilder
+                    .addInterceptorLast(nodeTracker.requestInterceptor())
+                    .addInterceptorLast(nodeTracker.responseInterceptor());
+        }
+        return httpClientBuilder
+                .setConnectionManager(connectionManager)
+                .setKeepAliveStrategy(keepAliveStrategy());
+    }
+
+    /**
+     * 获取连接池
+     */
+    public PoolingNHttpClientConnectionManager getConnectionManager() {
+        return connectionManager;
+    }
+
+    /**
+     * 优先使用服务端Keep-Alive响应头中的timeout，未返回时使用keepAliveMillis
+     */
+    private ConnectionKeepAliveStrategy keepAliveStrategy() {
+        long keepAliveMillis = esConfig.getKeepAliveMillis();
+        return (response, context) -> {
+            HeaderElementIterator it = new BasicHeaderElementIterator(response.headerIterator(HTTP.CONN_KEEP_ALIVE));
+            while (it.hasNext()) {
+                HeaderElement element = it.nextElement();
+                if ("timeout".equalsIgnoreCase(element.getName()) && element.getValue() != null) {
+                    try {
+                        long serverMillis = Long.parseLong(element.getValue()) * 1000;
+                        return keepAliveMillis > 0 ? Math.min(serverMillis, keepAliveMillis) : serverMillis;
+                    } catch (NumberFormatException ignored) {
+                        // 非法的timeout按未返回处理
+                    }
+                }
+            }
+            return keepAliveMillis;
+        };
+    }
+}
@@ -0,0 +1,62 @@
+package com.easy.es.config;
+
+import lombok.Data;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * @author agent
+ * @ClassName EsIndexRebuild
+ * @create 2026年10月17日 19:21
+ * @Description 一次索引重建的状态，由beginRebuild创建，导入完成后交给completeRebuild或abortRebuild
+ * @Version V1.0
+ */
+@Data
+public class EsIndexRebuild implements Serializable {
+
+    private String clusterName;
+
+    /**
+     * 读写使用的别名
+     */
+    private String alias;
+
+    /**
+     * 新建的带版本号的索引，导入时写入该索引
+     */
+    private String indexName;
+
+    /**
+     * 开始重建时别名指向的索引
+     */
+    private List<String> previousIndices = new ArrayList<>();
+
+    /**
+     * 导入完成后恢复的刷新间隔，为空时恢复为默认值
+     */
+    private String refreshInterval;
+
+    /**
+     * 导入完成后恢复的副本数，为空时恢复为默认值
+     */
+    private String numberOfReplicas;
+
+    private EsRebuildOptions options;
+
+    /**
+     * 别名是否已切换到新索引，切换后不能再放弃重建
+     */
+    private boolean swapped;
+
+    /**
+     * 导入时使用的索引信息
+     */
+    public EsIndexInfo toIndexInfo() {
+        EsIndexInfo esIndexInfo = new EsIndexInfo();
+        esIndexInfo.setClusterName(clusterName);
+        esIndexInfo.setIndexName(indexName);
+        return esIndexInfo;
+    }
+}
@@ -0,0 +1,51 @@
+package com.easy.es.config;
+
+import lombok.Data;
+
+import java.io.Serializable;
+
+/**
+ * @author agent
+ * @ClassName EsLimiterConfig
+ * @create 2026年10月17日 18:50
+ * @Description 自适应并发限制配置，在途请求数上限按AIMD调整
+ * @Version V1.0
+ */
+@Data
+public class EsLimiterConfig implements Serializable {
+
+    /**
+     * 初始并发上限
+     */
+    private int initialLimit = 10;
+
+    /**
+     * 并发上限的下限
+     */
+    private int minLimit = 1;
+
+    /**
+     * 并发上限的上限
+     */
+    private int maxLimit = 100;
+
+    /**
+     * 延迟阈值(毫秒)，请求耗时超过时视为拥塞并按backoffRatio缩小上限
+     */
+    private long latencyThresholdMillis = 1000;
+
+    /**
+     * 延迟超过阈值时上限的缩小比例，被拒绝(429)时固定减半
+     */
+    private double backoffRatio = 0.9;
+
+    /**
+     * 超过并发上限时最多排队的请求数，排满后直接拒绝
+     */
+    private int maxQueueSize = 1000;
+
+    /**
+     * 排队最长等待时间(毫秒)，超时后拒绝
+     */
+    private long maxWaitMillis = 1000;
+}
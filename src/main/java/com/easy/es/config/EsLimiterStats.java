@@ -0,0 +1,41 @@
+package com.easy.es.config;
+
+import lombok.Data;
+
+import java.io.Serializable;
+
+/**
+ * @author agent
+ * @ClassName EsLimiterStats
+ * @create 2026年10月17日 18:50
+ * @Description 并发限制统计信息
+ * @Version V1.0
+ */
+@Data
+public class EsLimiterStats implements Serializable {
+
+    /**
+     * 当前并发上限
+     */
+    private int limit;
+
+    /**
+     * 在途请求数
+     */
+    private int inFlight;
+
+    /**
+     * 排队中的请求数
+     */
+    private int queued;
+
+    /**
+     * 因排队已满或等待超时被拒绝的请求数
+     */
+    private long rejectedCount;
+
+    /**
+     * 因拥塞缩小上限的次数
+     */
+    private long backoffCount;
+}
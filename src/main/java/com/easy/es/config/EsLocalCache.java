@@ -0,0 +1,280 @@
+package com.easy.es.config;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.ToLongFunction;
+
+/**
+ * @author agent
+ * @ClassName EsLocalCache
+ * @create 2026年10月17日 18:14
+ * @Description 进程内缓存，按权重限制容量，支持TTL及LRU/LFU淘汰
+ * @Version V1.0
+ */
+public class EsLocalCache<K, V> {
+
+    /**
+     * 淘汰策略
+     */
+    public enum EvictionPolicy {
+        /**
+         * 最近最少使用
+         */
+        LRU,
+        /**
+         * 最不经常使用，访问次数相同时淘汰较早的
+         */
+        LFU
+    }
+
+    private final ReentrantLock lock = new ReentrantLock();
+
+    private final EvictionPolicy policy;
+
+    private final long maxWeight;
+
+    private final long ttlNanos;
+
+    private final ToLongFunction<V> weigher;
+
+    /**
+     * LRU时按访问顺序排列
+     */
+    private final LinkedHashMap<K, Entry<V>> entries;
+
+    /**
+     * LFU时按访问次数分桶，桶内按进入顺序排列
+     */
+    private final TreeMap<Long, LinkedHashSet<K>> frequencies = new TreeMap<>();
+
+    private long weight;
+
+    private long generation;
+
+    private long nextSweepNanos;
+
+    private long hitCount;
+
+    private long missCount;
+
+    private long evictionCount;
+
+    public EsLocalCache(EvictionPolicy policy, long maxWeight, long ttlMillis, ToLongFunction<V> weigher) {
+        this.policy = policy == null ? EvictionPolicy.LRU : policy;
+        this.maxWeight = Math.max(1, maxWeight);
+        this.ttlNanos = TimeUnit.MILLISECONDS.toNanos(Math.max(1, ttlMillis));
+        this.weigher = weigher;
+        this.entries = new LinkedHashMap<>(16, 0.75f, this.policy == EvictionPolicy.LRU);
+        this.nextSweepNanos = System.nanoTime() + ttlNanos;
+    }
+
+    public EsLocalCache(EsCacheConfig cacheConfig) {
+        this(cacheConfig.getPolicy(), cacheConfig.getMaxSize(), cacheConfig.getTtlMillis(), value -> 1);
+    }
+
+    /**
+     * 获取缓存值，不存在或已过期时返回null
+     */
+    public V get(K key) {
+        lock.lock();
+        try {
+            Entry<V> entry = entries.get(key);
+            if (entry == null) {
+                missCount++;
+                return null;
+            }
+            if (entry.expireAtNanos - System.nanoTime() <= 0) {
+                remove(key);
+                missCount++;
+                return null;
+            }
+            touch(key, entry);
+            hitCount++;
+            return entry.value;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * 当前失效代数，每次失效操作后递增
+     * 加载前记录，加载后通过{@link #putIfCurrent}写入，避免加载期间发生的写操作被旧值覆盖
+     */
+    public long generation() {
+        lock.lock();
+        try {
+            return generation;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public void put(K key, V value) {
+        lock.lock();
+        try {
+            doPut(key, value);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * 自generation之后未发生失效时写入
+     *
+     * @return 是否写入
+     */
+    public boolean putIfCurrent(K key, V value, long generation) {
+        lock.lock();
+        try {
+            if (this.generation != generation) {
+                return false;
+            }
+            return doPut(key, value);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public void invalidate(K key) {
+        lock.lock();
+        try {
+            generation++;
+            remove(key);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public void invalidateAll() {
+        lock.lock();
+        try {
+            generation++;
+            if (entries.isEmpty()) {
+                return;
+            }
+            entries.clear();
+            frequencies.clear();
+            weight = 0;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public EsCacheStats stats() {
+        lock.lock();
+        try {
+            EsCacheStats stats = new EsCacheStats();
+            stats.setHitCount(hitCount);
+            stats.setMissCount(missCount);
+            stats.setEvictionCount(evictionCount);
+            stats.setSize(entries.size());
+            stats.setWeight(weight);
+            return stats;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private boolean doPut(K key, V value) {
+        if (value == null) {
+            return false;
+        }
+        long valueWeight = Math.max(0, weigher.applyAsLong(value));
+        if (valueWeight > maxWeight) {
+            remove(key);
+            return false;
+        }
+        long now = System.nanoTime();
+        remove(key);
+        if (weight + valueWeight > maxWeight && now - nextSweepNanos >= 0) {
+            sweepExpired(now);
+            nextSweepNanos = now + ttlNanos;
+        }
+        // 先淘汰已有条目再放入，LFU下新条目不会因访问次数最低而被立即淘汰
+        while (weight + valueWeight > maxWeight && !entries.isEmpty()) {
+            remove(victim());
+            evictionCount++;
+        }
+        Entry<V> entry = new Entry<>(value, valueWeight, now + ttlNanos);
+        entries.put(key, entry);
+        weight += valueWeight;
+        if (policy == EvictionPolicy.LFU) {
+            frequencies.computeIfAbsent(entry.frequency, f -> new LinkedHashSet<>()).add(key);
+        }
+        return true;
+    }
+
+    private void touch(K key, Entry<V> entry) {
+        if (policy != EvictionPolicy.LFU) {
+            return;
+        }
+        removeFrequency(key, entry.frequency);
+        entry.frequency++;
+        frequencies.computeIfAbsent(entry.frequency, f -> new LinkedHashSet<>()).add(key);
+    }
+
+    private K victim() {
+        if (policy == EvictionPolicy.LFU) {
+            return frequencies.firstEntry().getValue().iterator().next();
+        }
+        return entries.keySet().iterator().next();
+    }
+
+    private void remove(K key) {
+        Entry<V> entry = entries.remove(key);
+        if (entry == null) {
+            return;
+        }
+        weight -= entry.weight;
+        if (policy == EvictionPolicy.LFU) {
+            removeFrequency(key, entry.frequency);
+        }
+    }
+
+    private void removeFrequency(K key, long frequency) {
+        LinkedHashSet<K> keys = frequencies.get(frequency);
+        if (keys != null && keys.remove(key) && keys.isEmpty()) {
+            frequencies.remove(frequency);
+        }
+    }
+
+    /**
+     * 清理已过期但未再被访问的条目，避免其长期占用容量
+     */
+    private void sweepExpired(long now) {
+        Iterator<Map.Entry<K, Entry<V>>> iterator = entries.entrySet().iterator();
+        while (iterator.hasNext()) {
+            Map.Entry<K, Entry<V>> next = iterator.next();
+            Entry<V> entry = next.getValue();
+            if (entry.expireAtNanos - now <= 0) {
+                iterator.remove();
+                weight -= entry.weight;
+                if (policy == EvictionPolicy.LFU) {
+                    removeFrequency(next.getKey(), entry.frequency);
+                }
+            }
+        }
+    }
+
+    private static class Entry<V> {
+
+        private final V value;
+
+        private final long weight;
+
+        private final long expireAtNanos;
+
+        private long frequency = 1;
+
+        Entry(V value, long weight, long expireAtNanos) {
+            this.value = value;
+            this.weight = weight;
+            this.expireAtNanos = expireAtNanos;
+        }
+    }
+}
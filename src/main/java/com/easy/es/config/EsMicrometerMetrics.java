@@ -0,0 +1,194 @@
+package com.easy.es.config;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.Timer;
+import org.apache.http.impl.nio.conn.PoolingNHttpClientConnectionManager;
+import org.apache.http.pool.PoolStats;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+/**
+ * @author agent
+ * @ClassName EsMicrometerMetrics
+ * @create 2026年10月17日 18:20
+ * @Description 基于Micrometer的客户端指标实现
+ * @Version V1.0
+ */
+public class EsMicrometerMetrics implements EsClientMetrics {
+
+    private final MeterRegistry registry;
+
+    /**
+     * 按名称及标签缓存的指标，避免每次请求重新构建
+     */
+    private final Map<String, Timer> timers = new ConcurrentHashMap<>();
+
+    private final Map<String, DistributionSummary> summaries = new ConcurrentHashMap<>();
+
+    private final Map<String, Counter> counters = new ConcurrentHashMap<>();
+
+    /**
+     * Micrometer对函数型指标的状态对象只持有弱引用，这里保持强引用
+     */
+    private final Map<String, Supplier<EsCacheStats>> boundCaches = new ConcurrentHashMap<>();
+
+    private final Map<String, Supplier<EsLimiterStats>> boundLimiters = new ConcurrentHashMap<>();
+
+    private final Map<String, Supplier<EsSpoolStats>> boundSpools = new ConcurrentHashMap<>();
+
+    public EsMicrometerMetrics(MeterRegistry registry) {
+        this.registry = registry;
+    }
+
+    @Override
+    public void recordRequest(String operation, String clusterName, String indexName, long durationNanos, boolean success) {
+        String outcome = success ? "success" : "error";
+        timers.computeIfAbsent(key("requests", operation, clusterName, indexName, outcome), key ->
+                Timer.builder("es.client.requests")
+                        .description("客户端观察到的请求耗时")
+                        .tags(tags(operation, clusterName, indexName).and("outcome", outcome))
+                        .publishPercentileHistogram()
+                        .register(registry))
+                .record(durationNanos, TimeUnit.NANOSECONDS);
+    }
+
+    @Override
+    public void recordTook(String operation, String clusterName, String indexName, long tookMillis, long durationNanos) {
+        timers.computeIfAbsent(key("took", operation, clusterName, indexName), key ->
+                Timer.builder("es.client.took")
+                        .description("服务端返回的took")
+                        .tags(tags(operation, clusterName, indexName))
+                        .publishPercentileHistogram()
+                        .register(registry))
+                .record(tookMillis, TimeUnit.MILLISECONDS);
+        long overheadNanos = Math.max(0, durationNanos - TimeUnit.MILLISECONDS.toNanos(tookMillis));
+        timers.computeIfAbsent(key("overhead", operation, clusterName, indexName), key ->
+                Timer.builder("es.client.overhead")
+                        .description("客户端耗时与服务端took之差")
+                        .tags(tags(operation, clusterName, indexName))
+                        .publishPercentileHistogram()
+                        .register(registry))
+                .record(overheadNanos, TimeUnit.NANOSECONDS);
+    }
+
+    @Override
+    public void recordBulk(String clusterName, String indexName, int items, long bytes) {
+        summary("es.client.bulk.items", "items", "单次批量写入的文档数", clusterName, indexName).record(items);
+        summary("es.client.bulk.bytes", "bytes", "单次批量写入的估算字节数", clusterName, indexName).record(bytes);
+    }
+
+    @Override
+    public void recordBulkRetries(String clusterName, String indexName, int retries) {
+        counters.computeIfAbsent(key("bulkRetries", clusterName, indexName), key ->
+                Counter.builder("es.client.bulk.retries")
+                        .description("批量写入因拒绝而重试的轮数")
+                        .tags(Tags.of("cluster", clusterName, "index", indexName))
+                        .register(registry))
+                .increment(retries);
+    }
+
+    @Override
+    public void bindConnectionPool(String clusterName, PoolingNHttpClientConnectionManager connectionManager) {
+        poolGauge("es.client.pool.leased", "使用中的连接数", clusterName, connectionManager, PoolStats::getLeased);
+        poolGauge("es.client.pool.pending", "等待连接的请求数", clusterName, connectionManager, PoolStats::getPending);
+        poolGauge("es.client.pool.available", "空闲连接数", clusterName, connectionManager, PoolStats::getAvailable);
+        poolGauge("es.client.pool.max", "最大连接数", clusterName, connectionManager, PoolStats::getMax);
+        poolGauge("es.client.requests.active", "在途请求数", clusterName, connectionManager,
+                stats -> stats.getLeased() + stats.getPending());
+    }
+
+    @Override
+    public void bindCache(String cacheName, String clusterName, String indexName, Supplier<EsCacheStats> stats) {
+        boundCaches.put(key(cacheName, clusterName, indexName), stats);
+        Tags tags = Tags.of("cache", cacheName, "cluster", clusterName, "index", indexName);
+        FunctionCounter.builder("es.client.cache.hits", stats, s -> s.get().getHitCount())
+                .tags(tags).register(registry);
+        FunctionCounter.builder("es.client.cache.misses", stats, s -> s.get().getMissCount())
+                .tags(tags).register(registry);
+        FunctionCounter.builder("es.client.cache.evictions", stats, s -> s.get().getEvictionCount())
+                .tags(tags).register(registry);
+        Gauge.builder("es.client.cache.size", stats, s -> s.get().getSize())
+                .tags(tags).register(registry);
+    }
+
+    @Override
+    public void bindLimiter(String clusterName, String indexName, String lane, Supplier<EsLimiterStats> stats) {
+        boundLimiters.put(key(lane, clusterName, indexName), stats);
+        Tags tags = Tags.of("lane", lane, "cluster", clusterName, "index", indexName);
+        Gauge.builder("es.client.limiter.limit", stats, s -> s.get().getLimit())
+                .description("当前并发上限").tags(tags).register(registry);
+        Gauge.builder("es.client.limiter.inflight", stats, s -> s.get().getInFlight())
+                .description("在途请求数").tags(tags).register(registry);
+        Gauge.builder("es.client.limiter.queued", stats, s -> s.get().getQueued())
+                .description("排队中的请求数").tags(tags).register(registry);
+        FunctionCounter.builder("es.client.limiter.rejected", stats, s -> s.get().getRejectedCount())
+                .description("排队已满或等待超时被拒绝的请求数").tags(tags).register(registry);
+        FunctionCounter.builder("es.client.limiter.backoffs", stats, s -> s.get().getBackoffCount())
+                .description("因拥塞缩小并发上限的次数").tags(tags).register(registry);
+    }
+
+    @Override
+    public void bindSpool(String clusterName, Supplier<EsSpoolStats> stats) {
+        boundSpools.put(clusterName, stats);
+        Tags tags = Tags.of("cluster", clusterName);
+        Gauge.builder("es.client.spool.pending", stats, s -> s.get().getPendingRecords())
+                .description("本地暂存中待重放的文档数").tags(tags).register(registry);
+        Gauge.builder("es.client.spool.pending.bytes", stats, s -> s.get().getPendingBytes())
+                .description("本地暂存中待重放的字节数").tags(tags).register(registry);
+        Gauge.builder("es.client.spool.disk.bytes", stats, s -> s.get().getDiskBytes())
+                .description("本地暂存分段文件占用的字节数").tags(tags).register(registry);
+        FunctionCounter.builder("es.client.spool.appended", stats, s -> s.get().getAppendedCount())
+                .description("暂存的文档数").tags(tags).register(registry);
+        FunctionCounter.builder("es.client.spool.drained", stats, s -> s.get().getDrainedCount())
+                .description("重放成功的文档数").tags(tags).register(registry);
+        FunctionCounter.builder("es.client.spool.dropped", stats, s -> s.get().getDroppedCount())
+                .description("重放时因请求错误丢弃的文档数").tags(tags).register(registry);
+        FunctionCounter.builder("es.client.spool.rejected", stats, s -> s.get().getRejectedCount())
+                .description("磁盘占用达到上限未能暂存的文档数").tags(tags).register(registry);
+    }
+
+    @Override
+    public void recordLimiterWait(String clusterName, String indexName, String lane, long waitNanos) {
+        timers.computeIfAbsent(key("limiterWait", lane, clusterName, indexName), key ->
+                Timer.builder("es.client.limiter.wait")
+                        .description("超过并发上限的请求排队等待时长")
+                        .tags(Tags.of("lane", lane, "cluster", clusterName, "index", indexName))
+                        .publishPercentileHistogram()
+                        .register(registry))
+                .record(waitNanos, TimeUnit.NANOSECONDS);
+    }
+
+    private DistributionSummary summary(String name, String baseUnit, String description, String clusterName, String indexName) {
+        return summaries.computeIfAbsent(key(name, clusterName, indexName), key ->
+                DistributionSummary.builder(name)
+                        .baseUnit(baseUnit)
+                        .description(description)
+                        .tags(Tags.of("cluster", clusterName, "index", indexName))
+                        .register(registry));
+    }
+
+    private void poolGauge(String name, String description, String clusterName,
+                           PoolingNHttpClientConnectionManager connectionManager, Function<PoolStats, Integer> value) {
+        Gauge.builder(name, connectionManager, manager -> value.apply(manager.getTotalStats()))
+                .description(description)
+                .tag("cluster", clusterName)
+                .register(registry);
+    }
+
+    private static Tags tags(String operation, String clusterName, String indexName) {
+        return Tags.of("operation", operation, "cluster", clusterName, "index", indexName);
+    }
+
+    private static String key(String... parts) {
+        return String.join("|", parts);
+    }
+}
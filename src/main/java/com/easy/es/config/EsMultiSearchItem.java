@@ -0,0 +1,30 @@
+package com.easy.es.config;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.io.Serializable;
+
+/**
+ * @author agent
+ * @ClassName EsMultiSearchItem
+ * @create 2026年10月17日 18:08
+ * @Description 批量搜索中的一项，索引信息与搜索请求
+ * @Version V1.0
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class EsMultiSearchItem implements Serializable {
+
+    /**
+     * 索引信息
+     */
+    private EsIndexInfo esIndexInfo;
+
+    /**
+     * 搜索请求参数
+     */
+    private EsSearchRequest esSearchRequest;
+}
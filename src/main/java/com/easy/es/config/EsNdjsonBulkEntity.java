@@ -0,0 +1,154 @@
+package com.easy.es.config;
+
+import com.alibaba.fastjson2.JSON;
+import org.apache.http.entity.AbstractHttpEntity;
+import org.apache.http.entity.ContentType;
+import org.apache.http.nio.ContentEncoder;
+import org.apache.http.nio.IOControl;
+import org.apache.http.nio.entity.HttpAsyncContentProducer;
+import org.apache.lucene.util.BytesRef;
+import org.apache.lucene.util.BytesRefIterator;
+import org.elasticsearch.common.bytes.BytesArray;
+import org.elasticsearch.common.bytes.BytesReference;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.SequenceInputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * @author agent
+ * @ClassName EsNdjsonBulkEntity
+ * @create 2026年10月17日 18:29
+ * @Description _bulk请求体，由元数据行与原始文档分段组成，发送时逐段写出而不拼接成完整的字节数组
+ * @Version V1.0
+ */
+public class EsNdjsonBulkEntity extends AbstractHttpEntity implements HttpAsyncContentProducer {
+
+    private static final ContentType NDJSON = ContentType.create("application/x-ndjson");
+
+    private static final byte[] NEW_LINE = {'\n'};
+
+    /**
+     * 请求体分段，均为堆内buffer，发送时使用duplicate，不改变分段本身的position
+     */
+    private final List<ByteBuffer> segments;
+
+    private final long contentLength;
+
+    private int segmentIndex;
+
+    private ByteBuffer current;
+
+    /**
+     * @param docs 文档列表，索引名由请求路径指定，元数据行只包含_id
+     */
+    public EsNdjsonBulkEntity(List<EsRawSourceData> docs) throws IOException {
+        this.segments = new ArrayList<>(docs.size() * 3);
+        long length = 0;
+        for (EsRawSourceData doc : docs) {
+            length += add(actionLine(doc.getDocId()));
+            BytesRefIterator iterator = singleLine(doc.getSource()).iterator();
+            BytesRef ref;
+            while ((ref = iterator.next()) != null) {
+                if (ref.length > 0) {
+                    length += add(ByteBuffer.wrap(ref.bytes, ref.offset, ref.length));
+                }
+            }
+            length += add(ByteBuffer.wrap(NEW_LINE));
+        }
+        this.contentLength = length;
+        setContentType(NDJSON.toString());
+    }
+
+    private int add(ByteBuffer segment) {
+        segments.add(segment);
+        return segment.remaining();
+    }
+
+    private static ByteBuffer actionLine(String docId) {
+        return ByteBuffer.wrap(("{\"index\":{\"_id\":" + JSON.toJSONString(docId) + "}}\n").getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * NDJSON要求文档占一行，JSON中合法的换行只能出现在字符串之外，替换为空格不改变语义也不改变长度
+     * 只有包含换行的文档才复制
+     */
+    private static BytesReference singleLine(BytesReference source) {
+        if (source.indexOf((byte) '\n', 0) < 0 && source.indexOf((byte) '\r', 0) < 0) {
+            return source;
+        }
+        BytesRef ref = source.toBytesRef();
+        byte[] bytes = Arrays.copyOfRange(ref.bytes, ref.offset, ref.offset + ref.length);
+        for (int i = 0; i < bytes.length; i++) {
+            if (bytes[i] == '\n' || bytes[i] == '\r') {
+                bytes[i] = ' ';
+            }
+        }
+        return new BytesArray(bytes);
+    }
+
+    @Override
+    public boolean isRepeatable() {
+        return true;
+    }
+
+    @Override
+    public long getContentLength() {
+        return contentLength;
+    }
+
+    @Override
+    public InputStream getContent() {
+        List<InputStream> streams = new ArrayList<>(segments.size());
+        for (ByteBuffer segment : segments) {
+            streams.add(new ByteArrayInputStream(segment.array(), segment.arrayOffset() + segment.position(), segment.remaining()));
+        }
+        return new SequenceInputStream(Collections.enumeration(streams));
+    }
+
+    @Override
+    public void writeTo(OutputStream outStream) throws IOException {
+        for (ByteBuffer segment : segments) {
+            outStream.write(segment.array(), segment.arrayOffset() + segment.position(), segment.remaining());
+        }
+        outStream.flush();
+    }
+
+    @Override
+    public boolean isStreaming() {
+        return false;
+    }
+
+    @Override
+    public void produceContent(ContentEncoder encoder, IOControl ioControl) throws IOException {
+        while (segmentIndex < segments.size()) {
+            if (current == null) {
+                current = segments.get(segmentIndex).duplicate();
+            }
+            encoder.write(current);
+            if (current.hasRemaining()) {
+                return;
+            }
+            current = null;
+            segmentIndex++;
+        }
+        encoder.complete();
+    }
+
+    /**
+     * 重置发送位置，RestClient换节点重试时会重新发送
+     */
+    @Override
+    public void close() {
+        segmentIndex = 0;
+        current = null;
+    }
+}
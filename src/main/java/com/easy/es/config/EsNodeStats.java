@@ -0,0 +1,46 @@
+package com.easy.es.config;
+
+import lombok.Data;
+
+import java.io.Serializable;
+
+/**
+ * @author agent
+ * @ClassName EsNodeStats
+ * @create 2026年10月17日 18:37
+ * @Description 节点的延迟与健康统计
+ * @Version V1.0
+ */
+@Data
+public class EsNodeStats implements Serializable {
+
+    /**
+     * 节点地址
+     */
+    private String host;
+
+    /**
+     * 平均延迟(毫秒)，按指数加权移动平均计算，无样本时为-1
+     */
+    private double latencyMillis = -1;
+
+    /**
+     * 收到响应的请求数
+     */
+    private long responseCount;
+
+    /**
+     * 出错或超时的请求数
+     */
+    private long failureCount;
+
+    /**
+     * 连续失败次数，收到响应后清零
+     */
+    private int consecutiveFailures;
+
+    /**
+     * 当前是否参与节点选择
+     */
+    private boolean available;
+}
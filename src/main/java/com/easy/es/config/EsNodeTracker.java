@@ -0,0 +1,378 @@
+package com.easy.es.config;
+
+import lombok.extern.slf4j.Slf4j;
+import org.apache.http.HttpHost;
+import org.apache.http.HttpRequestInterceptor;
+import org.apache.http.HttpResponseInterceptor;
+import org.apache.http.protocol.HttpCoreContext;
+import org.elasticsearch.client.Cancellable;
+import org.elasticsearch.client.Node;
+import org.elasticsearch.client.NodeSelector;
+import org.elasticsearch.client.Request;
+import org.elasticsearch.client.Response;
+import org.elasticsearch.client.ResponseException;
+import org.elasticsearch.client.ResponseListener;
+import org.elasticsearch.client.RestClient;
+
+import java.io.Closeable;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Predicate;
+
+/**
+ * @author agent
+ * @ClassName EsNodeTracker
+ * @create 2026年10月17日 18:37
+ * @Description 按集群统计各节点的延迟与错误，作为NodeSelector优先选择延迟低的节点并暂停路由到出错节点
+ * @Version V1.0
+ */
+@Slf4j
+public class EsNodeTracker implements NodeSelector, Closeable {
+
+    private static final String START_NANOS = "es.node.startNanos";
+
+    /**
+     * 延迟移动平均中新样本的权重
+     */
+    private static final double ALPHA = 0.3;
+
+    /**
+     * 延迟样本的有效期，超过后视为无样本，使被排除的节点有机会重新参与选择
+     */
+    private static final long STALE_NANOS = TimeUnit.SECONDS.toNanos(30);
+
+    /**
+     * 判断延迟差异时的最小容差，避免本机或同机房的亚毫秒抖动导致节点被排除
+     */
+    private static final long MIN_SLACK_NANOS = TimeUnit.MILLISECONDS.toNanos(1);
+
+    /**
+     * 连续失败时暂停时长最多翻倍的次数
+     */
+    private static final int MAX_COOLDOWN_SHIFT = 5;
+
+    /**
+     * 健康检查请求指定的目标节点，在调用线程上选择节点时生效
+     */
+    private static final ThreadLocal<HttpHost> PINNED_HOST = new ThreadLocal<>();
+
+    private final String clusterName;
+
+    private final double latencyTolerance;
+
+    private final long cooldownNanos;
+
+    private final long healthCheckTimeoutMillis;
+
+    private final Map<HttpHost, NodeState> states = new ConcurrentHashMap<>();
+
+    private ScheduledExecutorService healthChecker;
+
+    private volatile RestClient restClient;
+
+    public EsNodeTracker(EsClusterConfig esConfig) {
+        this.clusterName = esConfig.getClusterName();
+        this.latencyTolerance = Math.max(1.0, esConfig.getNodeLatencyTolerance());
+        this.cooldownNanos = TimeUnit.MILLISECONDS.toNanos(Math.max(0, esConfig.getNodeFailureCooldownMillis()));
+        this.healthCheckTimeoutMillis = Math.max(1, esConfig.getNodeHealthCheckTimeoutMillis());
+    }
+
+    /**
+     * 绑定客户端，健康检查间隔大于0时启动后台健康检查
+     */
+    public void start(RestClient restClient, long healthCheckIntervalMillis) {
+        this.restClient = restClient;
+        if (healthCheckIntervalMillis > 0) {
+            healthChecker = Executors.newSingleThreadScheduledExecutor(r -> {
+                Thread thread = new Thread(r, "es-node-health-" + clusterName);
+                thread.setDaemon(true);
+                return thread;
+            });
+            healthChecker.scheduleWithFixedDelay(this::checkHealth, healthCheckIntervalMillis,
+                    healthCheckIntervalMillis, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    /**
+     * 请求发出前记录开始时间
+     */
+    public HttpRequestInterceptor requestInterceptor() {
+        return (request, context) -> context.setAttribute(START_NANOS, System.nanoTime());
+    }
+
+    /**
+     * 收到响应头时记录延迟，502/503/504由RestClient判定为节点失败并回调onFailure
+     */
+    public HttpResponseInterceptor responseInterceptor() {
+        return (response, context) -> {
+            Object startNanos = context.getAttribute(START_NANOS);
+            HttpHost host = HttpCoreContext.adapt(context).getTargetHost();
+            if (startNanos == null || host == null) {
+                return;
+            }
+            int status = response.getStatusLine().getStatusCode();
+            onResponse(host, System.nanoTime() - (Long) startNanos, status < 502 || status > 504);
+        };
+    }
+
+    /**
+     * 记录一次响应
+     *
+     * @param host         节点地址
+     * @param latencyNanos 延迟
+     * @param healthy      是否为正常响应
+     */
+    public void onResponse(HttpHost host, long latencyNanos, boolean healthy) {
+        NodeState state = state(host);
+        state.responses.incrementAndGet();
+        state.recordLatency(latencyNanos);
+        if (healthy) {
+            int failures = state.consecutiveFailures.getAndSet(0);
+            state.unavailableUntilNanos = 0;
+            if (failures > 0) {
+                log.info("nodeTracker.recovered,clusterName:{},host:{},consecutiveFailures:{}", clusterName, host, failures);
+            }
+        }
+    }
+
+    /**
+     * 记录一次失败(连接失败、超时或502/503/504)，在冷却时间内不再选择该节点
+     */
+    public void onFailure(HttpHost host) {
+        NodeState state = state(host);
+        state.failures.incrementAndGet();
+        int failures = state.consecutiveFailures.incrementAndGet();
+        long cooldown = cooldownNanos << Math.min(failures - 1, MAX_COOLDOWN_SHIFT);
+        state.unavailableUntilNanos = System.nanoTime() + cooldown;
+        // 只在节点从正常转为失败时打印WARN，健康检查持续失败时不重复打印
+        if (failures == 1) {
+            log.warn("nodeTracker.failure,clusterName:{},host:{},cooldownMillis:{}",
+                    clusterName, host, TimeUnit.NANOSECONDS.toMillis(cooldown));
+        } else if (log.isDebugEnabled()) {
+            log.debug("nodeTracker.failure,clusterName:{},host:{},consecutiveFailures:{},cooldownMillis:{}",
+                    clusterName, host, failures, TimeUnit.NANOSECONDS.toMillis(cooldown));
+        }
+    }
+
+    /**
+     * 依次排除专用主节点、冷却中的节点及延迟明显偏高的节点，前两步至少保留一个节点
+     * RestClient在选择后才轮换节点顺序，只能通过保留的节点集合影响路由，延迟筛选至少保留两个节点用于故障转移
+     */
+    @Override
+    public void select(Iterable<Node> nodes) {
+        HttpHost pinned = PINNED_HOST.get();
+        if (pinned != null) {
+            for (Iterator<Node> it = nodes.iterator(); it.hasNext(); ) {
+                if (!pinned.equals(it.next().getHost())) {
+                    it.remove();
+                }
+            }
+            return;
+        }
+        removeIf(nodes, EsNodeTracker::isDedicatedMaster);
+        long now = System.nanoTime();
+        removeIf(nodes, node -> isCoolingDown(node, now));
+
+        List<Long> latencies = new ArrayList<>();
+        int unknown = 0;
+        for (Node node : nodes) {
+            long latency = freshLatency(node, now);
+            if (latency >= 0) {
+                latencies.add(latency);
+            } else {
+                unknown++;
+            }
+        }
+        if (latencies.isEmpty()) {
+            return;
+        }
+        Collections.sort(latencies);
+        long best = latencies.get(0);
+        long limit = Math.max((long) (best * latencyTolerance), best + MIN_SLACK_NANOS);
+        if (unknown == 0 && latencies.size() >= 2) {
+            limit = Math.max(limit, latencies.get(1));
+        }
+        long threshold = limit;
+        removeIf(nodes, node -> freshLatency(node, now) > threshold);
+    }
+
+    /**
+     * 各节点的统计，按当前客户端节点列表返回
+     */
+    public List<EsNodeStats> stats() {
+        List<HttpHost> hosts = new ArrayList<>();
+        RestClient client = restClient;
+        if (client != null) {
+            for (Node node : client.getNodes()) {
+                hosts.add(node.getHost());
+            }
+        } else {
+            hosts.addAll(states.keySet());
+        }
+        long now = System.nanoTime();
+        List<EsNodeStats> list = new ArrayList<>(hosts.size());
+        for (HttpHost host : hosts) {
+            NodeState state = states.get(host);
+            EsNodeStats stats = new EsNodeStats();
+            stats.setHost(host.toHostString());
+            stats.setAvailable(state == null || !state.isUnavailable(now));
+            if (state != null) {
+                long latency = state.latencyNanos.get();
+                stats.setLatencyMillis(latency < 0 ? -1 : latency / 1e6);
+                stats.setResponseCount(state.responses.get());
+                stats.setFailureCount(state.failures.get());
+                stats.setConsecutiveFailures(state.consecutiveFailures.get());
+            }
+            list.add(stats);
+        }
+        return list;
+    }
+
+    @Override
+    public void close() {
+        if (healthChecker != null) {
+            healthChecker.shutdownNow();
+        }
+    }
+
+    @Override
+    public String toString() {
+        return "EsNodeTracker[" + clusterName + "]";
+    }
+
+    /**
+     * 向每个节点发送一次HEAD /，冷却中的节点收到正常响应后立即恢复
+     */
+    private void checkHealth() {
+        RestClient client = restClient;
+        if (client == null) {
+            return;
+        }
+        for (Node node : client.getNodes()) {
+            HttpHost host = node.getHost();
+            AtomicBoolean done = new AtomicBoolean();
+            Cancellable cancellable;
+            PINNED_HOST.set(host);
+            try {
+                cancellable = client.performRequestAsync(new Request("HEAD", "/"), new ResponseListener() {
+                    @Override
+                    public void onSuccess(Response response) {
+                        done.set(true);
+                    }
+
+                    @Override
+                    public void onFailure(Exception e) {
+                        // 连接失败由RestClient回调onFailure，有响应的错误状态由响应拦截器记录
+                        if (done.compareAndSet(false, true) && !(e instanceof ResponseException) && log.isDebugEnabled()) {
+                            log.debug("nodeTracker.healthCheck.exception,clusterName:{},host:{},message:{}",
+                                    clusterName, host, e.getMessage());
+                        }
+                    }
+                });
+            } catch (Exception e) {
+                log.warn("nodeTracker.healthCheck.exception,clusterName:{},host:{},message:{}", clusterName, host, e.getMessage());
+                continue;
+            } finally {
+                PINNED_HOST.remove();
+            }
+            healthChecker.schedule(() -> {
+                if (done.compareAndSet(false, true)) {
+                    cancellable.cancel();
+                    onFailure(host);
+                }
+            }, healthCheckTimeoutMillis, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    private NodeState state(HttpHost host) {
+        return states.computeIfAbsent(host, key -> new NodeState());
+    }
+
+    private boolean isCoolingDown(Node node, long now) {
+        NodeState state = states.get(node.getHost());
+        return state != null && state.isUnavailable(now);
+    }
+
+    /**
+     * 有效期内的平均延迟，无样本或已过期时返回-1
+     */
+    private long freshLatency(Node node, long now) {
+        NodeState state = states.get(node.getHost());
+        if (state == null || now - state.lastSampleNanos > STALE_NANOS) {
+            return -1;
+        }
+        return state.latencyNanos.get();
+    }
+
+    /**
+     * 节点角色由节点发现填充，手工配置的节点没有角色信息
+     */
+    private static boolean isDedicatedMaster(Node node) {
+        Node.Roles roles = node.getRoles();
+        return roles != null && roles.isMasterEligible() && !roles.isData() && !roles.isIngest();
+    }
+
+    /**
+     * 移除满足条件的节点，条件命中全部节点时不移除
+     */
+    private static void removeIf(Iterable<Node> nodes, Predicate<Node> predicate) {
+        boolean keepAny = false;
+        for (Node node : nodes) {
+            if (!predicate.test(node)) {
+                keepAny = true;
+                break;
+            }
+        }
+        if (!keepAny) {
+            return;
+        }
+        for (Iterator<Node> it = nodes.iterator(); it.hasNext(); ) {
+            if (predicate.test(it.next())) {
+                it.remove();
+            }
+        }
+    }
+
+    private static class NodeState {
+
+        private final AtomicLong latencyNanos = new AtomicLong(-1);
+
+        private final AtomicLong responses = new AtomicLong();
+
+        private final AtomicLong failures = new AtomicLong();
+
+        private final AtomicInteger consecutiveFailures = new AtomicInteger();
+
+        private volatile long lastSampleNanos;
+
+        /**
+         * 冷却结束时间，0表示未在冷却
+         */
+        private volatile long unavailableUntilNanos;
+
+        boolean isUnavailable(long now) {
+            long until = unavailableUntilNanos;
+            return until != 0 && until - now > 0;
+        }
+
+        void recordLatency(long sampleNanos) {
+            long current;
+            long next;
+            do {
+                current = latencyNanos.get();
+                next = current < 0 ? sampleNanos : (long) (current + ALPHA * (sampleNanos - current));
+            } while (!latencyNanos.compareAndSet(current, next));
+            lastSampleNanos = System.nanoTime();
+        }
+    }
+}
@@ -0,0 +1,43 @@
+package com.easy.es.config;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.elasticsearch.common.bytes.BytesArray;
+import org.elasticsearch.common.bytes.BytesReference;
+
+import java.nio.ByteBuffer;
+
+/**
+ * @author agent
+ * @ClassName EsRawSourceData
+ * @create 2026年10月17日 18:29
+ * @Description 已序列化为JSON的文档数据，写入时直接拼入请求体，不经过Map转换
+ * @Version V1.0
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class EsRawSourceData {
+
+    /**
+     * 文档ID
+     */
+    private String docId;
+
+    /**
+     * UTF-8编码的JSON文档
+     */
+    private BytesReference source;
+
+    public EsRawSourceData(String docId, byte[] source) {
+        this(docId, new BytesArray(source));
+    }
+
+    /**
+     * 引用buffer中position到limit之间的内容，不复制也不改变buffer的position
+     */
+    public EsRawSourceData(String docId, ByteBuffer source) {
+        this(docId, BytesReference.fromByteBuffers(new ByteBuffer[]{source.slice()}));
+    }
+}
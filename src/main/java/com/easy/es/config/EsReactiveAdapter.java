@@ -0,0 +1,53 @@
+package com.easy.es.config;
+
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+/**
+ * @author agent
+ * @ClassName EsReactiveAdapter
+ * @create 2026年10月17日 18:01
+ * @Description 将EsRestClient的异步方法适配为Reactor的Mono/Flux，需引入reactor-core
+ * @Version V1.0
+ */
+public final class EsReactiveAdapter {
+
+    private EsReactiveAdapter() {
+    }
+
+    /**
+     * 转换为Mono，订阅时才发起请求，取消订阅时取消在途请求
+     *
+     * <pre>
+     * EsReactiveAdapter.toMono(() -> esRestClient.getDocByIdAsync(esIndexInfo, docId))
+     * </pre>
+     *
+     * @param call 异步调用
+     * @return Mono
+     */
+    public static <T> Mono<T> toMono(Supplier<? extends CompletableFuture<T>> call) {
+        return Mono.defer(() -> {
+            CompletableFuture<T> future = call.get();
+            return Mono.fromFuture(future).doOnCancel(() -> future.cancel(true));
+        });
+    }
+
+    /**
+     * 并发执行一批异步调用，按输入顺序输出结果
+     *
+     * @param inputs      输入
+     * @param call        每个输入对应的异步调用
+     * @param concurrency 最大在途请求数
+     * @return Flux
+     */
+    public static <I, T> Flux<T> fanOut(Iterable<I> inputs,
+                                        Function<I, ? extends CompletableFuture<T>> call,
+                                        int concurrency) {
+        return Flux.fromIterable(inputs)
+                .flatMapSequential(input -> toMono(() -> call.apply(input)), concurrency);
+    }
+}
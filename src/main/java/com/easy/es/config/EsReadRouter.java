@@ -0,0 +1,293 @@
+package com.easy.es.config;
+
+import lombok.extern.slf4j.Slf4j;
+import org.elasticsearch.ElasticsearchStatusException;
+import org.elasticsearch.client.ResponseException;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Supplier;
+
+/**
+ * @author agent
+ * @ClassName EsReadRouter
+ * @create 2026年10月17日 18:44
+ * @Description 读请求在主集群与副本集群间的故障转移及对冲请求，按各集群的延迟分位数确定对冲等待时间
+ * @Version V1.0
+ */
+@Slf4j
+public class EsReadRouter {
+
+    private static final ScheduledExecutorService HEDGE_SCHEDULER = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread thread = new Thread(r, "es-read-hedge");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    /**
+     * 每个集群、索引与操作保留的最近延迟样本数
+     */
+    private static final int WINDOW_SIZE = 512;
+
+    /**
+     * 计算分位数所需的最少样本数，不足时不发送对冲请求
+     */
+    private static final int MIN_SAMPLES = 20;
+
+    /**
+     * 分位数缓存的刷新间隔(样本数)
+     */
+    private static final int RECOMPUTE_INTERVAL = 32;
+
+    private final Map<String, LatencyWindow> windows = new ConcurrentHashMap<>();
+
+    /**
+     * 一次读请求的候选目标
+     */
+    public interface Attempt<T> {
+
+        /**
+         * 延迟统计的key
+         */
+        String key();
+
+        CompletableFuture<T> execute();
+    }
+
+    public static <T> Attempt<T> attempt(String key, Supplier<CompletableFuture<T>> call) {
+        return new Attempt<T>() {
+            @Override
+            public String key() {
+                return key;
+            }
+
+            @Override
+            public CompletableFuture<T> execute() {
+                return call.get();
+            }
+        };
+    }
+
+    /**
+     * 先请求第一个目标，失败且可重试时依次请求后续目标
+     * hedgeDelayMillis大于等于0时，若当前请求在该时间内未完成，则同时请求下一个目标，取最先成功的结果并取消其余请求
+     *
+     * @param attempts         按优先级排列的目标
+     * @param hedgeDelayMillis 对冲等待时间，小于0时不对冲
+     * @return 最先成功的结果，全部失败时以最后一个异常结束
+     */
+    public <T> CompletableFuture<T> execute(List<Attempt<T>> attempts, long hedgeDelayMillis) {
+        return new RoutedRead<>(attempts, hedgeDelayMillis).start();
+    }
+
+    /**
+     * 指定key在给定分位数上的延迟(毫秒)，样本不足时返回-1
+     */
+    public long percentileMillis(String key, double percentile) {
+        LatencyWindow window = windows.get(key);
+        return window == null ? -1 : window.percentileMillis(percentile);
+    }
+
+    /**
+     * 是否应转向下一个目标：连接失败、超时、429及5xx可转移，请求本身错误(4xx)不转移
+     */
+    public static boolean isFailoverable(Throwable failure) {
+        Throwable cause = unwrap(failure);
+        if (cause instanceof CancellationException) {
+            return false;
+        }
+        int status = -1;
+        if (cause instanceof ElasticsearchStatusException) {
+            status = ((ElasticsearchStatusException) cause).status().getStatus();
+        } else if (cause instanceof ResponseException) {
+            status = ((ResponseException) cause).getResponse().getStatusLine().getStatusCode();
+        }
+        return status < 0 || status == 429 || status >= 500;
+    }
+
+    static Throwable unwrap(Throwable failure) {
+        Throwable cause = failure;
+        while ((cause instanceof CompletionException || cause instanceof ExecutionException) && cause.getCause() != null) {
+            cause = cause.getCause();
+        }
+        return cause;
+    }
+
+    private void recordLatency(String key, long nanos) {
+        windows.computeIfAbsent(key, k -> new LatencyWindow()).record(nanos);
+    }
+
+    /**
+     * 一次读请求的执行状态
+     */
+    private class RoutedRead<T> {
+
+        private final List<Attempt<T>> attempts;
+
+        private final long hedgeDelayMillis;
+
+        private final CompletableFuture<T> result = new CompletableFuture<>();
+
+        private final List<CompletableFuture<T>> started = new ArrayList<>();
+
+        private final ReentrantLock lock = new ReentrantLock();
+
+        private final AtomicInteger inFlight = new AtomicInteger();
+
+        private int next;
+
+        RoutedRead(List<Attempt<T>> attempts, long hedgeDelayMillis) {
+            this.attempts = attempts;
+            this.hedgeDelayMillis = hedgeDelayMillis;
+        }
+
+        CompletableFuture<T> start() {
+            result.whenComplete((value, failure) -> cancelStarted());
+            launchNext();
+            return result;
+        }
+
+        /**
+         * 请求下一个目标，没有更多目标或已有结果时返回false
+         */
+        private boolean launchNext() {
+            Attempt<T> attempt;
+            lock.lock();
+            try {
+                if (result.isDone() || next >= attempts.size()) {
+                    return false;
+                }
+                attempt = attempts.get(next++);
+                inFlight.incrementAndGet();
+            } finally {
+                lock.unlock();
+            }
+            long startNanos = System.nanoTime();
+            CompletableFuture<T> future;
+            try {
+                future = attempt.execute();
+            } catch (RuntimeException e) {
+                future = new CompletableFuture<>();
+                future.completeExceptionally(e);
+            }
+            lock.lock();
+            try {
+                started.add(future);
+            } finally {
+                lock.unlock();
+            }
+            future.whenComplete((value, failure) -> {
+                if (failure == null) {
+                    recordLatency(attempt.key(), System.nanoTime() - startNanos);
+                    result.complete(value);
+                } else {
+                    onFailure(attempt, failure);
+                }
+            });
+            if (hedgeDelayMillis >= 0 && !result.isDone()) {
+                HEDGE_SCHEDULER.schedule(this::hedge, hedgeDelayMillis, TimeUnit.MILLISECONDS);
+            }
+            return true;
+        }
+
+        private void hedge() {
+            if (!result.isDone() && launchNext() && log.isDebugEnabled()) {
+                log.debug("readRouter.hedge,delayMillis:{},attempt:{}", hedgeDelayMillis, next);
+            }
+        }
+
+        private void onFailure(Attempt<T> attempt, Throwable failure) {
+            if (result.isDone()) {
+                inFlight.decrementAndGet();
+                return;
+            }
+            boolean failover = isFailoverable(failure);
+            if (failover) {
+                log.warn("readRouter.failover,key:{},message:{}", attempt.key(), unwrap(failure).getMessage());
+            }
+            boolean launched = failover && launchNext();
+            if (inFlight.decrementAndGet() == 0 && !launched) {
+                result.completeExceptionally(unwrap(failure));
+            }
+        }
+
+        private void cancelStarted() {
+            List<CompletableFuture<T>> futures;
+            lock.lock();
+            try {
+                futures = new ArrayList<>(started);
+            } finally {
+                lock.unlock();
+            }
+            for (CompletableFuture<T> future : futures) {
+                if (!future.isDone()) {
+                    future.cancel(true);
+                }
+            }
+        }
+    }
+
+    /**
+     * 最近延迟样本的环形缓冲，分位数按间隔重新计算
+     */
+    private static class LatencyWindow {
+
+        private final long[] samples = new long[WINDOW_SIZE];
+
+        private final ReentrantLock lock = new ReentrantLock();
+
+        private int count;
+
+        private int position;
+
+        private int sinceCompute = RECOMPUTE_INTERVAL;
+
+        private double cachedPercentile = -1;
+
+        private long cachedMillis = -1;
+
+        void record(long nanos) {
+            lock.lock();
+            try {
+                samples[position] = nanos;
+                position = (position + 1) % WINDOW_SIZE;
+                count = Math.min(count + 1, WINDOW_SIZE);
+                sinceCompute++;
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        long percentileMillis(double percentile) {
+            lock.lock();
+            try {
+                if (count < MIN_SAMPLES) {
+                    return -1;
+                }
+                if (sinceCompute >= RECOMPUTE_INTERVAL || percentile != cachedPercentile) {
+                    long[] sorted = Arrays.copyOf(samples, count);
+                    Arrays.sort(sorted);
+                    int index = (int) Math.min(count - 1, Math.max(0, Math.ceil(percentile * count) - 1));
+                    cachedMillis = TimeUnit.NANOSECONDS.toMillis(sorted[index]);
+                    cachedPercentile = percentile;
+                    sinceCompute = 0;
+                }
+                return cachedMillis;
+            } finally {
+                lock.unlock();
+            }
+        }
+    }
+}
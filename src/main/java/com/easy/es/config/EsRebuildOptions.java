@@ -0,0 +1,52 @@
+package com.easy.es.config;
+
+import lombok.Data;
+
+import java.io.Serializable;
+
+/**
+ * @author agent
+ * @ClassName EsRebuildOptions
+ * @create 2026年10月17日 19:21
+ * @Description 通过新索引加别名切换重建索引的参数
+ * @Version V1.0
+ */
+@Data
+public class EsRebuildOptions implements Serializable {
+
+    /**
+     * 新索引的创建请求体(settings、mappings)，为空时复制别名当前指向索引的设置及映射，
+     * 别名不存在时以空请求体创建，由匹配的索引模板决定设置及映射
+     */
+    private String indexBody;
+
+    /**
+     * 导入期间的刷新间隔，-1表示不刷新
+     */
+    private String bulkRefreshInterval = "-1";
+
+    /**
+     * 导入期间的副本数，导入完成后恢复为创建请求中的副本数
+     */
+    private int bulkReplicas = 0;
+
+    /**
+     * 导入完成后合并到的段数，小于等于0时不合并
+     */
+    private int forceMergeSegments = 1;
+
+    /**
+     * 等待段合并完成的最长时间(毫秒)，超时后不再等待，合并在服务端继续执行
+     */
+    private long forceMergeTimeoutMillis = 1800000;
+
+    /**
+     * 恢复副本后等待索引变为green的最长时间(毫秒)，超时后仍切换别名
+     */
+    private long greenTimeoutMillis = 600000;
+
+    /**
+     * 切换别名后是否删除原索引
+     */
+    private boolean deleteOldIndex = true;
+}
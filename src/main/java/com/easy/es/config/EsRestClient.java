@@ -1,42 +1,89 @@
 package com.easy.es.config;
 
-import com.alibaba.fastjson2.JSON;
 import com.alibaba.fastjson2.JSONArray;
 import com.alibaba.fastjson2.JSONObject;
+import com.alibaba.fastjson2.JSONWriter;
 import lombok.extern.slf4j.Slf4j;
 import org.apache.commons.lang3.StringUtils;
+import org.apache.http.HttpEntity;
 import org.apache.http.HttpHost;
 import org.apache.http.util.EntityUtils;
-import org.elasticsearch.action.bulk.BulkItemResponse;
+import org.elasticsearch.ElasticsearchStatusException;
+import org.elasticsearch.action.ActionListener;
+import org.elasticsearch.action.DocWriteRequest;
 import org.elasticsearch.action.bulk.BulkRequest;
 import org.elasticsearch.action.bulk.BulkResponse;
 import org.elasticsearch.action.delete.DeleteRequest;
 import org.elasticsearch.action.delete.DeleteResponse;
 import org.elasticsearch.action.get.GetRequest;
 import org.elasticsearch.action.get.GetResponse;
+import org.elasticsearch.action.get.MultiGetItemResponse;
+import org.elasticsearch.action.get.MultiGetRequest;
+import org.elasticsearch.action.get.MultiGetResponse;
 import org.elasticsearch.action.index.IndexRequest;
+import org.elasticsearch.action.index.IndexResponse;
+import org.elasticsearch.action.search.MultiSearchRequest;
+import org.elasticsearch.action.search.MultiSearchResponse;
 import org.elasticsearch.action.search.SearchRequest;
 import org.elasticsearch.action.search.SearchResponse;
 import org.elasticsearch.action.search.SearchType;
 import org.elasticsearch.action.update.UpdateRequest;
+import org.elasticsearch.action.update.UpdateResponse;
 import org.elasticsearch.client.*;
+import org.elasticsearch.client.sniff.SniffOnFailureListener;
+import org.elasticsearch.client.sniff.Sniffer;
+import org.elasticsearch.common.CheckedFunction;
+import org.elasticsearch.common.bytes.BytesReference;
 import org.elasticsearch.common.unit.TimeValue;
+import org.elasticsearch.common.Strings;
+import org.elasticsearch.common.xcontent.DeprecationHandler;
+import org.elasticsearch.common.xcontent.NamedXContentRegistry;
+import org.elasticsearch.common.xcontent.XContentBuilder;
+import org.elasticsearch.common.xcontent.XContentFactory;
+import org.elasticsearch.common.xcontent.XContentHelper;
+import org.elasticsearch.common.xcontent.XContentParser;
+import org.elasticsearch.common.xcontent.XContentType;
+import org.elasticsearch.common.xcontent.support.XContentMapValues;
 import org.elasticsearch.index.query.BoolQueryBuilder;
 import org.elasticsearch.index.query.QueryBuilder;
 import org.elasticsearch.index.query.QueryBuilders;
 import org.elasticsearch.index.reindex.BulkByScrollResponse;
 import org.elasticsearch.index.reindex.DeleteByQueryRequest;
 import org.elasticsearch.index.reindex.UpdateByQueryRequest;
+import org.elasticsearch.rest.RestStatus;
 import org.elasticsearch.script.Script;
 import org.elasticsearch.search.Scroll;
+import org.elasticsearch.search.SearchHit;
+import org.elasticsearch.search.aggregations.bucket.composite.CompositeAggregationBuilder;
 import org.elasticsearch.search.builder.SearchSourceBuilder;
 import org.elasticsearch.search.fetch.subphase.FetchSourceContext;
+import org.elasticsearch.search.sort.FieldSortBuilder;
 import org.elasticsearch.search.sort.ScoreSortBuilder;
+import org.elasticsearch.search.sort.SortBuilder;
 import org.elasticsearch.search.sort.SortOrder;
 import org.springframework.util.NumberUtils;
 
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.net.SocketTimeoutException;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
 import java.util.*;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.function.Predicate;
+import java.util.function.Supplier;
 
 /**
  * @author 王青玄
@@ -50,8 +97,64 @@ import java.util.*;
 public class EsRestClient {
 
     private static Map<String, RestHighLevelClient> clientMap = new HashMap<>();
+    private final Map<String, EsClusterConfig> configMap = new ConcurrentHashMap<>();
+    private final Map<String, EsBulkIngester> ingesterMap = new ConcurrentHashMap<>();
+    private final Map<String, Sniffer> snifferMap = new ConcurrentHashMap<>();
+    private final Map<String, EsNodeTracker> nodeTrackerMap = new ConcurrentHashMap<>();
+    private final Map<String, EsSearchBatcher> batcherMap = new ConcurrentHashMap<>();
+    private final Map<String, EsLocalCache<String, BytesReference>> docCacheMap = new ConcurrentHashMap<>();
+    private final Map<String, EsLocalCache<String, List<String>>> analyzeCacheMap = new ConcurrentHashMap<>();
+    private final Map<String, EsSearchCache> searchCacheMap = new ConcurrentHashMap<>();
+    private final Map<String, EsConcurrencyLimiter> limiterMap = new ConcurrentHashMap<>();
+    private final Map<String, EsWriteSpool> spoolMap = new ConcurrentHashMap<>();
+    private final Map<String, Semaphore> blockingPermitMap = new ConcurrentHashMap<>();
+    private final EsReadRouter readRouter = new EsReadRouter();
     private final EsConfigProperties esConfigProperties;
+    private final EsClientMetrics metrics;
+    private volatile boolean closed;
     private static final RequestOptions COMMON_OPTIONS;
+    private static final int DEFAULT_SCROLL_SIZE = 1000;
+    private static final String ALL_INDICES = "*";
+    private static final String UPDATE_BY_QUERY = "update_by_query";
+    private static final String DELETE_BY_QUERY = "delete_by_query";
+    private static final long MIN_TASK_POLL_INTERVAL_MILLIS = 100;
+
+    /**
+     * 轮询任务进度时允许的连续失败次数
+     */
+    private static final int MAX_TASK_POLL_ERRORS = 3;
+
+    /**
+     * 重建索引时需去掉的由ES生成的索引设置
+     */
+    private static final List<String> GENERATED_INDEX_SETTINGS = Arrays.asList("uuid", "creation_date", "provided_name", "version");
+
+    /**
+     * 重建索引时新索引名称的版本后缀
+     */
+    private static final DateTimeFormatter REBUILD_VERSION_FORMAT = DateTimeFormatter.ofPattern("yyyyMMddHHmmssSSS");
+
+    /**
+     * 等待段合并或索引变为green时的轮询间隔
+     */
+    private static final long REBUILD_POLL_INTERVAL_MILLIS = 5000;
+
+    private static final ScheduledExecutorService TASK_POLL_SCHEDULER = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread thread = new Thread(r, "es-task-poll");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    /**
+     * 使用批量写入并发通道的操作，其余操作使用交互请求通道
+     */
+    private static final Set<String> BULK_OPERATIONS = new HashSet<>(Arrays.asList(
+            "batchInsertDoc", "batchUpdateDoc", "batchInsertRawDoc", "updateByQuery", "delete", "spoolReplay", "completeRebuild"));
+
+    /**
+     * 耗时取决于命中文档数的操作，只以429作为并发限制的拥塞信号，耗时不作为延迟样本
+     */
+    private static final Set<String> UNSAMPLED_OPERATIONS = new HashSet<>(Arrays.asList("updateByQuery", "delete", "completeRebuild"));
 
     static {
         RequestOptions.Builder builder = RequestOptions.DEFAULT.toBuilder();
@@ -59,7 +162,12 @@ public class EsRestClient {
     }
 
     public EsRestClient(EsConfigProperties esConfigProperties) {
+        this(esConfigProperties, EsClientMetrics.NOOP);
+    }
+
+    public EsRestClient(EsConfigProperties esConfigProperties, EsClientMetrics metrics) {
         this.esConfigProperties = esConfigProperties;
+        this.metrics = metrics;
     }
 
     /**
@@ -74,6 +182,47 @@ public class EsRestClient {
             if (restHighLevelClient == null)
                 log.error("config.name:{},node:{}.initError", esConfig.getClusterName(), esConfig.getNodes());
             clientMap.put(esConfig.getClusterName(), restHighLevelClient);
+            configMap.put(esConfig.getClusterName(), esConfig);
+            if (esConfig.getMaxBlockingRequests() > 0) {
+                blockingPermitMap.put(esConfig.getClusterName(), new Semaphore(esConfig.getMaxBlockingRequests(), true));
+            }
+            if (restHighLevelClient != null && esConfig.getSpool() != null) {
+                initSpool(esConfig);
+            }
+        }
+    }
+
+    /**
+     * 关闭ES客户端
+     * 先提交异步批量写入缓冲区中的剩余文档，再释放连接
+     */
+    public void close() {
+        closed = true;
+        for (Map.Entry<String, EsBulkIngester> entry : ingesterMap.entrySet()) {
+            long timeout = configMap.get(entry.getKey()).getBulkCloseTimeoutMillis();
+            if (!entry.getValue().awaitClose(timeout, TimeUnit.MILLISECONDS)) {
+                log.warn("close.bulkIngester.timeout,clusterName:{},pending:{}", entry.getKey(), entry.getValue().getPendingDocs());
+            }
+        }
+        ingesterMap.clear();
+        spoolMap.values().forEach(EsWriteSpool::close);
+        spoolMap.clear();
+        batcherMap.values().forEach(EsSearchBatcher::close);
+        batcherMap.clear();
+        snifferMap.values().forEach(Sniffer::close);
+        snifferMap.clear();
+        nodeTrackerMap.values().forEach(EsNodeTracker::close);
+        nodeTrackerMap.clear();
+        for (String clusterName : configMap.keySet()) {
+            RestHighLevelClient client = clientMap.remove(clusterName);
+            if (client == null) {
+                continue;
+            }
+            try {
+                client.close();
+            } catch (IOException e) {
+                log.error("close.exception:{}", e.getMessage(), e);
+            }
         }
     }
 
@@ -91,14 +240,213 @@ public class EsRestClient {
         httpHostList.toArray(httpHosts);
 
         RestClientBuilder builder = RestClient.builder(httpHosts);
+        EsNodeTracker nodeTracker = esConfig.isNodeSelectorEnabled() ? new EsNodeTracker(esConfig) : null;
+        SniffOnFailureListener sniffOnFailureListener = esConfig.isSniffEnabled() ? new SniffOnFailureListener() : null;
+        try {
+            EsHttpClientConfigurer configurer = new EsHttpClientConfigurer(esConfig, nodeTracker);
+            builder.setRequestConfigCallback(configurer);
+            builder.setHttpClientConfigCallback(configurer);
+            metrics.bindConnectionPool(esConfig.getClusterName(), configurer.getConnectionManager());
+        } catch (IOException e) {
+            log.error("initRestClient.exception:{}", e.getMessage(), e);
+            return null;
+        }
+        if (nodeTracker != null) {
+            builder.setNodeSelector(nodeTracker);
+        }
+        if (nodeTracker != null || sniffOnFailureListener != null) {
+            builder.setFailureListener(new RestClient.FailureListener() {
+                @Override
+                public void onFailure(Node node) {
+                    if (nodeTracker != null) {
+                        nodeTracker.onFailure(node.getHost());
+                    }
+                    if (sniffOnFailureListener != null) {
+                        sniffOnFailureListener.onFailure(node);
+                    }
+                }
+            });
+        }
         RestHighLevelClient restHighLevelClient = new RestHighLevelClient(builder);
+        if (nodeTracker != null) {
+            nodeTracker.start(restHighLevelClient.getLowLevelClient(), esConfig.getNodeHealthCheckIntervalMillis());
+            nodeTrackerMap.put(esConfig.getClusterName(), nodeTracker);
+        }
+        if (sniffOnFailureListener != null) {
+            Sniffer sniffer = Sniffer.builder(restHighLevelClient.getLowLevelClient())
+                    .setSniffIntervalMillis(esConfig.getSniffIntervalMillis())
+                    .setSniffAfterFailureDelayMillis(esConfig.getSniffAfterFailureDelayMillis())
+                    .build();
+            sniffOnFailureListener.setSniffer(sniffer);
+            snifferMap.put(esConfig.getClusterName(), sniffer);
+        }
         return restHighLevelClient;
     }
 
+    /**
+     * 获取集群各节点的延迟与健康统计，未开启nodeSelectorEnabled时返回空列表
+     *
+     * @param clusterName 集群名称
+     * @return 节点统计
+     */
+    public List<EsNodeStats> getNodeStats(String clusterName) {
+        EsNodeTracker nodeTracker = nodeTrackerMap.get(clusterName);
+        return nodeTracker == null ? new ArrayList<>() : nodeTracker.stats();
+    }
+
+    /**
+     * 获取索引所在并发通道的当前上限、在途数、排队数及拒绝次数，通道未配置并发限制时返回null
+     *
+     * @param esIndexInfo 索引信息，未开启limiterPerIndex时返回集群级统计
+     * @param lane        请求通道
+     * @return 并发限制统计
+     */
+    public EsLimiterStats getLimiterStats(EsIndexInfo esIndexInfo, EsConcurrencyLimiter.Lane lane) {
+        return getLimiter(esIndexInfo.getClusterName(), esIndexInfo.getIndexName()).stats(lane);
+    }
+
+    /**
+     * 获取集群写入本地暂存的待重放数、磁盘占用及重放统计，未配置spool时返回null
+     *
+     * @param clusterName 集群名称
+     * @return 暂存统计
+     */
+    public EsSpoolStats getSpoolStats(String clusterName) {
+        EsWriteSpool spool = spoolMap.get(clusterName);
+        return spool == null ? null : spool.stats();
+    }
+
     private RestHighLevelClient getClient(String clusterName) {
         return clientMap.get(clusterName);
     }
 
+    /**
+     * 创建集群级组件前检查：客户端未关闭，集群已配置且初始化成功
+     */
+    private EsClusterConfig requireCluster(String clusterName) {
+        if (closed) {
+            throw new IllegalStateException("es client closed");
+        }
+        EsClusterConfig esConfig = configMap.get(clusterName);
+        if (esConfig == null) {
+            throw new IllegalArgumentException("es cluster not configured,clusterName:" + clusterName);
+        }
+        if (getClient(clusterName) == null) {
+            throw new IllegalArgumentException("es cluster client not initialized,clusterName:" + clusterName);
+        }
+        return esConfig;
+    }
+
+    private void initSpool(EsClusterConfig esConfig) {
+        String clusterName = esConfig.getClusterName();
+        EsIndexInfo replayIndexInfo = new EsIndexInfo();
+        replayIndexInfo.setClusterName(clusterName);
+        replayIndexInfo.setIndexName(ALL_INDICES);
+        try {
+            EsWriteSpool spool = new EsWriteSpool(clusterName, esConfig.getSpool(), new EsWriteSpool.Replayer() {
+                @Override
+                public boolean isAvailable() {
+                    try {
+                        EsActionFuture.await(EsActionFuture.performRequest(getClient(clusterName).getLowLevelClient(), new Request("HEAD", "/")));
+                        return true;
+                    } catch (IOException e) {
+                        return false;
+                    }
+                }
+
+                @Override
+                public EsBulkResult replay(List<DocWriteRequest<?>> requests) {
+                    return executeBulk(replayIndexInfo, requests, "spoolReplay");
+                }
+            });
+            spoolMap.put(clusterName, spool);
+            metrics.bindSpool(clusterName, spool::stats);
+        } catch (IOException e) {
+            log.error("initSpool.exception:{}", e.getMessage(), e);
+        }
+    }
+
+    /**
+     * 获取集群的异步批量写入管道，首次使用时创建
+     * 集群未配置时抛出IllegalArgumentException，客户端关闭后抛出IllegalStateException
+     *
+     * @param clusterName 集群名称
+     * @return 批量写入管道
+     */
+    public EsBulkIngester getBulkIngester(String clusterName) {
+        EsBulkIngester ingester = ingesterMap.computeIfAbsent(clusterName,
+                name -> new EsBulkIngester(getClient(name), requireCluster(name), COMMON_OPTIONS, metrics,
+                        request -> invalidateDoc(name, request.index(), request.id()), getLimiter(name, ALL_INDICES),
+                        requests -> {
+                            EsWriteSpool spool = spoolMap.get(name);
+                            return spool != null && spool.append(requests);
+                        }));
+        if (closed && ingesterMap.remove(clusterName, ingester)) {
+            // 与close并发创建，未被close关闭
+            ingester.close();
+            throw new IllegalStateException("es client closed");
+        }
+        return ingester;
+    }
+
+    /**
+     * 异步批量插入文档
+     * 文档放入所属集群的写入缓冲区后立即返回，按文档数、字节数或刷新间隔批量提交
+     * spool中有待重放的写入时直接追加到spool，提交失败且可重放的文档转入spool
+     *
+     * @param esIndexInfo  索引信息
+     * @param esSourceData 文档数据
+     * @return 是否成功放入缓冲区
+     */
+    public boolean bulkAdd(EsIndexInfo esIndexInfo, EsSourceData esSourceData) {
+        EsWriteSpool spool = pendingSpool(esIndexInfo.getClusterName());
+        if (spool != null && StringUtils.isNotBlank(esSourceData.getDocId())) {
+            return spool.append(Collections.singletonList(buildIndexRequest(esIndexInfo, esSourceData)));
+        }
+        return getBulkIngester(esIndexInfo.getClusterName()).add(esIndexInfo, esSourceData);
+    }
+
+    /**
+     * 异步批量插入已序列化的JSON文档
+     *
+     * @param esIndexInfo   索引信息
+     * @param rawSourceData 文档数据
+     * @return 是否成功放入缓冲区
+     */
+    public boolean bulkAdd(EsIndexInfo esIndexInfo, EsRawSourceData rawSourceData) {
+        EsWriteSpool spool = pendingSpool(esIndexInfo.getClusterName());
+        if (spool != null && StringUtils.isNotBlank(rawSourceData.getDocId()) && rawSourceData.getSource() != null) {
+            return spool.append(buildRawIndexRequests(esIndexInfo, Collections.singletonList(rawSourceData)));
+        }
+        return getBulkIngester(esIndexInfo.getClusterName()).add(esIndexInfo, rawSourceData);
+    }
+
+    /**
+     * 立即提交所有集群写入缓冲区中的文档
+     */
+    public void flushBulk() {
+        for (EsBulkIngester ingester : ingesterMap.values()) {
+            ingester.flush();
+        }
+    }
+
+    /**
+     * 获取集群的搜索合并器，首次使用时创建
+     * 集群未配置时抛出IllegalArgumentException，客户端关闭后抛出IllegalStateException
+     *
+     * @param clusterName 集群名称
+     * @return 搜索合并器
+     */
+    public EsSearchBatcher getSearchBatcher(String clusterName) {
+        EsSearchBatcher batcher = batcherMap.computeIfAbsent(clusterName,
+                name -> new EsSearchBatcher(getClient(name), requireCluster(name), COMMON_OPTIONS));
+        if (closed && batcherMap.remove(clusterName, batcher)) {
+            batcher.close();
+            throw new IllegalStateException("es client closed");
+        }
+        return batcher;
+    }
+
     /**
      * 插入文档
      *
@@ -110,18 +458,17 @@ public class EsRestClient {
                              EsSourceData esSourceData) {
 
         try {
-            IndexRequest indexRequest = new IndexRequest(esIndexInfo.getIndexName());
-            indexRequest.source(esSourceData.getData());
-            indexRequest.index(esSourceData.getDocId());
+            IndexRequest indexRequest = buildIndexRequest(esIndexInfo, esSourceData);
 
             RestHighLevelClient client = getClient(esIndexInfo.getClusterName());
-            client.index(indexRequest, COMMON_OPTIONS);
-            return true;
+            return writeDoc("insertDoc", esIndexInfo, indexRequest, () -> EsActionFuture.<IndexResponse>execute(
+                    listener -> client.indexAsync(indexRequest, COMMON_OPTIONS, listener)));
         } catch (IOException e) {
             log.error("insertDoc.exception:{}", e.getMessage(), e);
         } finally {
-            return false;
+            invalidateDoc(esIndexInfo, esSourceData.getDocId());
         }
+        return false;
 
     }
 
@@ -134,17 +481,16 @@ public class EsRestClient {
      */
     public boolean updateDoc(EsIndexInfo esIndexInfo, EsSourceData esSourceData) {
         try {
-            UpdateRequest updateRequest = new UpdateRequest();
-            updateRequest.index(esIndexInfo.getIndexName());
-            updateRequest.id(esSourceData.getDocId());
-            updateRequest.doc(esSourceData.getData());
-            getClient(esIndexInfo.getClusterName()).update(updateRequest, COMMON_OPTIONS);
-            return true;
+            UpdateRequest updateRequest = buildUpdateRequest(esIndexInfo, esSourceData);
+            RestHighLevelClient client = getClient(esIndexInfo.getClusterName());
+            return writeDoc("updateDoc", esIndexInfo, updateRequest, () -> EsActionFuture.<UpdateResponse>execute(
+                    listener -> client.updateAsync(updateRequest, COMMON_OPTIONS, listener)));
         } catch (Exception e) {
             log.error("updateDoc.exception:{}", e.getMessage(), e);
         } finally {
-            return false;
+            invalidateDoc(esIndexInfo, esSourceData.getDocId());
         }
+        return false;
 
     }
 
@@ -153,43 +499,29 @@ public class EsRestClient {
      *
      * @param esIndexInfo      索引信息
      * @param esSourceDataList 文档数据列表
-     * @return 是否执行成功
+     * @return 是否全部更新成功
      */
     public boolean batchUpdateDoc(EsIndexInfo esIndexInfo,
                                   List<EsSourceData> esSourceDataList) {
-        try {
-            boolean flag = false;
-            BulkRequest bulkRequest = new BulkRequest();
-            for (EsSourceData esSourceData : esSourceDataList) {
-                String docId = esSourceData.getDocId();
-                if (StringUtils.isNotBlank(docId)) {
-                    UpdateRequest updateRequest = new UpdateRequest();
-                    updateRequest.index(esIndexInfo.getIndexName());
-                    updateRequest.id(esSourceData.getDocId());
-                    updateRequest.doc(esSourceData.getData());
-                    bulkRequest.add(updateRequest);
-                    flag = true;
-                }
-            }
-
-            if (flag) {
-                BulkResponse bulk = getClient(esIndexInfo.getClusterName()).bulk(bulkRequest, COMMON_OPTIONS);
-                if (bulk.hasFailures()) {
-                    return false;
-                }
-            }
-
-            return true;
-        } catch (Exception e) {
-            log.error("batchUpdateDoc.exception:{}", e.getMessage(), e);
-        } finally {
-            return false;
-        }
+        return batchUpdateDocWithResult(esIndexInfo, esSourceDataList).isSuccess();
+    }
 
+    /**
+     * 批量更新文档，返回每个文档的执行结果
+     * 被拒绝(429)的文档按退避策略单独重提
+     *
+     * @param esIndexInfo      索引信息
+     * @param esSourceDataList 文档数据列表
+     * @return 批量执行结果
+     */
+    public EsBulkResult batchUpdateDocWithResult(EsIndexInfo esIndexInfo,
+                                                 List<EsSourceData> esSourceDataList) {
+        return executeBulkOrSpool(esIndexInfo, buildUpdateRequests(esIndexInfo, esSourceDataList), "batchUpdateDoc");
     }
 
     /**
      * 删除索引
+     * spool中有待重放的写入时不执行，避免重放恢复已删除的文档
      *
      * @param esIndexInfo 索引信息
      * @return 是否删除成功
@@ -197,19 +529,23 @@ public class EsRestClient {
     public boolean delete(EsIndexInfo esIndexInfo) {
 
         try {
-            DeleteByQueryRequest deleteByQueryRequest = new DeleteByQueryRequest(esIndexInfo.getIndexName());
-            deleteByQueryRequest.setQuery(QueryBuilders.matchAllQuery());
+            checkSpoolDrained(esIndexInfo);
+            DeleteByQueryRequest deleteByQueryRequest = buildDeleteAllRequest(esIndexInfo);
 
             RestHighLevelClient client = getClient(esIndexInfo.getClusterName());
-            BulkByScrollResponse response = client.deleteByQuery(deleteByQueryRequest, COMMON_OPTIONS);
-            long deleted = response.getDeleted();
-            log.info("deleted.size:{}", deleted);
-            return true;
-        } catch (IOException e) {
+            BulkByScrollResponse response = timed("delete", esIndexInfo,
+                    () -> EsActionFuture.<BulkByScrollResponse>execute(
+                            listener -> client.deleteByQueryAsync(deleteByQueryRequest, COMMON_OPTIONS, listener)));
+            if (log.isDebugEnabled()) {
+                log.debug("delete.indexName:{},deleted:{}", esIndexInfo.getIndexName(), response.getDeleted());
+            }
+            return checkByQueryResponse("delete", esIndexInfo, response);
+        } catch (Exception e) {
             log.error("delete.exception:{}", e.getMessage(), e);
         } finally {
-            return false;
+            invalidateIndex(esIndexInfo);
         }
+        return false;
 
     }
 
@@ -224,16 +560,16 @@ public class EsRestClient {
                              String docId) {
 
         try {
-            DeleteRequest deleteRequest = new DeleteRequest(esIndexInfo.getIndexName());
-            deleteRequest.id(docId);
-            DeleteResponse response = getClient(esIndexInfo.getClusterName()).delete(deleteRequest, COMMON_OPTIONS);
-            log.info("deleteDoc.response:{}", JSON.toJSONString(response));
-            return true;
+            DeleteRequest deleteRequest = buildDeleteRequest(esIndexInfo, docId);
+            RestHighLevelClient client = getClient(esIndexInfo.getClusterName());
+            return writeDoc("deleteDoc", esIndexInfo, deleteRequest, () -> EsActionFuture.<DeleteResponse>execute(
+                    listener -> client.deleteAsync(deleteRequest, COMMON_OPTIONS, listener)));
         } catch (IOException e) {
             log.error("delete.exception:{}", e.getMessage(), e);
         } finally {
-            return false;
+            invalidateDoc(esIndexInfo, docId);
         }
+        return false;
 
     }
 
@@ -248,16 +584,18 @@ public class EsRestClient {
                                   String docId) {
 
         try {
-            GetRequest getRequest = new GetRequest(esIndexInfo.getIndexName());
-            getRequest.id(docId);
-            boolean exists = getClient(esIndexInfo.getClusterName()).exists(getRequest, COMMON_OPTIONS);
-            log.info("isExistDocById.response:{}", exists);
-            return exists;
+            EsLocalCache<String, BytesReference> docCache = getDocCache(esIndexInfo);
+            if (docCache != null && docCache.get(docId) != null) {
+                return true;
+            }
+            GetRequest getRequest = buildGetRequest(esIndexInfo, docId, null);
+            RestHighLevelClient client = getClient(esIndexInfo.getClusterName());
+            return timed("isExistDocById", esIndexInfo, () -> EsActionFuture.<Boolean>execute(
+                    listener -> client.existsAsync(getRequest, COMMON_OPTIONS, listener)));
         } catch (IOException e) {
             log.error("isExistDocById.exception:{}", e.getMessage(), e);
-        } finally {
-            return false;
         }
+        return false;
 
     }
 
@@ -273,17 +611,12 @@ public class EsRestClient {
                                           String docId) {
 
         try {
-            GetRequest getRequest = new GetRequest(esIndexInfo.getIndexName());
-            getRequest.id(docId);
-            GetResponse response = getClient(esIndexInfo.getClusterName()).get(getRequest, COMMON_OPTIONS);
-            Map<String, Object> source = response.getSource();
-
-            return source;
+            BytesReference source = getDocSource(esIndexInfo, docId);
+            return source == null ? null : XContentHelper.convertToMap(source, false, XContentType.JSON).v2();
         } catch (IOException e) {
             log.error("getDocById.exception:{}", e.getMessage(), e);
-        } finally {
-            return null;
         }
+        return null;
 
     }
 
@@ -299,19 +632,98 @@ public class EsRestClient {
                                           String docId,
                                           String[] fields) {
         try {
-            GetRequest getRequest = new GetRequest(esIndexInfo.getIndexName());
-            getRequest.id(docId);
-            FetchSourceContext fetchSourceContext = new FetchSourceContext(true, fields, null);
-            getRequest.fetchSourceContext(fetchSourceContext);
-            GetResponse response = getClient(esIndexInfo.getClusterName()).get(getRequest, COMMON_OPTIONS);
+            Map<String, Object> cached = getCachedDoc(esIndexInfo, docId, fields);
+            if (cached != null) {
+                return cached;
+            }
+            GetRequest getRequest = buildGetRequest(esIndexInfo, docId, fields);
+            GetResponse response = executeGet(esIndexInfo, getRequest);
             Map<String, Object> source = response.getSource();
             return source;
         } catch (Exception e) {
             log.error("getDocById.exception:{}", e.getMessage(), e);
-        } finally {
-            return null;
         }
+        return null;
+
+    }
+
+    /**
+     * 批量获取文档
+     *
+     * @param esIndexInfo 索引信息
+     * @param ids         文档ID集合
+     * @param fields      字段数组，为null时返回全部字段
+     * @return 按ID组织的文档内容，不存在的文档不包含在结果中
+     */
+    public Map<String, Map<String, Object>> multiGetDocs(EsIndexInfo esIndexInfo,
+                                                         Collection<String> ids,
+                                                         String[] fields) {
+        return multiGetDocs(esIndexInfo, ids, fields, false);
+    }
+
+    /**
+     * 批量获取文档
+     * ID数量超过mgetChunkSize时拆分为多次_mget，parallel为true时各批并发发送
+     *
+     * @param esIndexInfo 索引信息
+     * @param ids         文档ID集合
+     * @param fields      字段数组，为null时返回全部字段
+     * @param parallel    是否并发发送各批请求
+     * @return 按ID组织的文档内容，不存在的文档不包含在结果中
+     */
+    public Map<String, Map<String, Object>> multiGetDocs(EsIndexInfo esIndexInfo,
+                                                         Collection<String> ids,
+                                                         String[] fields,
+                                                         boolean parallel) {
+        FetchSourceContext fetchSourceContext = fields == null
+                ? FetchSourceContext.FETCH_SOURCE : new FetchSourceContext(true, fields, null);
+        Map<String, Map<String, Object>> result = new LinkedHashMap<>();
+        for (MultiGetItemResponse item : executeMultiGet(esIndexInfo, ids, fetchSourceContext, parallel, "multiGetDocs")) {
+            if (item.getResponse() != null && item.getResponse().isExists()) {
+                result.put(item.getId(), item.getResponse().getSource());
+            }
+        }
+        return result;
+    }
+
+    /**
+     * 批量获取文档并转换为指定类型
+     *
+     * @param esIndexInfo 索引信息
+     * @param ids         文档ID集合
+     * @param clazz       文档类型
+     * @return 按ID组织的文档对象，不存在的文档不包含在结果中
+     */
+    public <T> Map<String, T> multiGetDocs(EsIndexInfo esIndexInfo,
+                                           Collection<String> ids,
+                                           Class<T> clazz) {
+        EsDocumentCodec<T> codec = EsDocumentCodec.of(clazz);
+        Map<String, T> result = new LinkedHashMap<>();
+        for (MultiGetItemResponse item : executeMultiGet(esIndexInfo, ids, FetchSourceContext.FETCH_SOURCE, false, "multiGetDocs")) {
+            if (item.getResponse() != null && item.getResponse().isExists()) {
+                result.put(item.getId(), codec.decode(item.getResponse().getSourceAsBytesRef()));
+            }
+        }
+        return result;
+    }
 
+    /**
+     * 批量判断文档是否存在
+     * 基于_mget且不返回_source
+     *
+     * @param esIndexInfo 索引信息
+     * @param ids         文档ID集合
+     * @return 按ID组织的是否存在，查询失败的ID不包含在结果中
+     */
+    public Map<String, Boolean> isExistDocByIds(EsIndexInfo esIndexInfo,
+                                                Collection<String> ids) {
+        Map<String, Boolean> result = new LinkedHashMap<>();
+        for (MultiGetItemResponse item : executeMultiGet(esIndexInfo, ids, FetchSourceContext.DO_NOT_FETCH_SOURCE, false, "isExistDocByIds")) {
+            if (item.getResponse() != null) {
+                result.put(item.getId(), item.getResponse().isExists());
+            }
+        }
+        return result;
     }
 
     /**
@@ -324,115 +736,2355 @@ public class EsRestClient {
     public SearchResponse searchWithTermQuery(EsIndexInfo esIndexInfo,
                                               EsSearchRequest esSearchRequest) {
         try {
-            BoolQueryBuilder boolQueryBuilder = esSearchRequest.getBoolQueryBuilder();
-            String[] fields = esSearchRequest.getFields();
-            int from = esSearchRequest.getFrom();
-            int size = esSearchRequest.getSize();
-            Long minutes = esSearchRequest.getMinutes();
-            Boolean needScroll = esSearchRequest.getNeedScroll();
-            String sortName = esSearchRequest.getSortName();
-            SortOrder sortOrder = esSearchRequest.getSortOrder();
-
-            SearchSourceBuilder searchSourceBuilder = new SearchSourceBuilder();
-            searchSourceBuilder.query(boolQueryBuilder);
-            searchSourceBuilder.fetchSource(fields, null).from(from).size(size);
-
-            if (Objects.nonNull(esSearchRequest.getHighlightBuilder())) {
-                searchSourceBuilder.highlighter(esSearchRequest.getHighlightBuilder());
-            }
-
-            if (StringUtils.isNotBlank(sortName)) {
-                searchSourceBuilder.sort(sortName);
+            SearchRequest searchRequest = buildSearchRequest(esIndexInfo, esSearchRequest);
+            EsSearchCache searchCache = getSearchCache(esIndexInfo, searchRequest);
+            if (searchCache != null) {
+                String cacheKey = EsSearchCache.cacheKey(searchRequest.source());
+                return block(esIndexInfo.getClusterName(),
+                        () -> searchCache.get(cacheKey, () -> submitSearch(esIndexInfo, searchRequest)));
             }
-
-            searchSourceBuilder.sort(new ScoreSortBuilder().order(sortOrder));
-
-            SearchRequest searchRequest = new SearchRequest();
-            searchRequest.searchType(SearchType.DEFAULT);
-            searchRequest.indices(esIndexInfo.getIndexName());
-            searchRequest.source(searchSourceBuilder);
-            if (needScroll) {
-                Scroll scroll = new Scroll(TimeValue.timeValueMinutes(minutes));
-                searchRequest.scroll(scroll);
+            if (isSearchBatchEnabled(esIndexInfo) || hasReadReplicas(esIndexInfo)) {
+                return block(esIndexInfo.getClusterName(), () -> submitSearch(esIndexInfo, searchRequest));
             }
-            SearchResponse search = getClient(esIndexInfo.getClusterName()).search(searchRequest, COMMON_OPTIONS);
+            RestHighLevelClient client = getClient(esIndexInfo.getClusterName());
+            SearchResponse search = timed("searchWithTermQuery", esIndexInfo, () -> EsActionFuture.<SearchResponse>execute(
+                    listener -> client.searchAsync(searchRequest, COMMON_OPTIONS, listener)));
             return search;
         } catch (Exception e) {
             log.error("searchWithTermQuery.exception:{}", e.getMessage(), e);
-        } finally {
-            return null;
         }
+        return null;
 
     }
 
-    public boolean batchInsertDoc(EsIndexInfo esIndexInfo, List<EsSourceData> esSourceDataList) {
-        if (log.isInfoEnabled()) {
-            log.info("批量新增ES:" + esSourceDataList.size());
-            log.info("indexName:" + esIndexInfo.getIndexName());
-        }
-        try {
-            boolean flag = false;
-            BulkRequest bulkRequest = new BulkRequest();
-
-            for (EsSourceData source : esSourceDataList) {
-                String docId = source.getDocId();
-                if (StringUtils.isNotBlank(docId)) {
-                    IndexRequest indexRequest = new IndexRequest(esIndexInfo.getIndexName());
-                    indexRequest.id(docId);
-                    indexRequest.source(source.getData());
-                    bulkRequest.add(indexRequest);
-                    flag = true;
-                }
+    /**
+     * 精简搜索，通过filter_path只返回ID、_source、docvalue字段、高亮、排序值及命中总数，流式读取响应体，不构建SearchResponse
+     * 适用于只需要少量字段的高并发查询，配合fetchSource、docValueFields及trackTotalHitsUpTo进一步减少响应
+     * 不使用搜索结果缓存及搜索合并，配置了读副本时同样故障转移
+     *
+     * @param esIndexInfo     索引信息
+     * @param esSearchRequest 搜索请求，不支持滚动及聚合
+     * @return 精简搜索结果，失败时返回null
+     */
+    public EsCompactSearchResult searchCompact(EsIndexInfo esIndexInfo, EsSearchRequest esSearchRequest) {
+        try {
+            Request request = buildCompactSearchRequest(esIndexInfo, esSearchRequest);
+            if (hasReadReplicas(esIndexInfo)) {
+                return block(esIndexInfo.getClusterName(), () -> submitCompactSearch(esIndexInfo, request));
             }
+            RestClient lowLevelClient = getClient(esIndexInfo.getClusterName()).getLowLevelClient();
+            Response response = timed("searchCompact", esIndexInfo, () -> EsActionFuture.performRequest(lowLevelClient, request));
+            return EsCompactSearchParser.parse(EntityUtils.toByteArray(response.getEntity()));
+        } catch (Exception e) {
+            log.error("searchCompact.exception:{}", e.getMessage(), e);
+        }
+        return null;
+    }
 
-
-            if (flag) {
-                BulkResponse response = getClient(esIndexInfo.getClusterName()).bulk(bulkRequest, COMMON_OPTIONS);
-                if (response.hasFailures()) {
-                    return false;
-                }
+    /**
+     * 批量搜索
+     * 同一集群的请求合并为一次_msearch，不同集群的请求并发发送
+     *
+     * @param items 索引信息与搜索请求
+     * @return 与items顺序一致的搜索结果，失败项为null
+     */
+    public List<SearchResponse> multiSearch(List<EsMultiSearchItem> items) {
+        try {
+            Set<String> clusterNames = new HashSet<>();
+            for (EsMultiSearchItem item : items) {
+                clusterNames.add(item.getEsIndexInfo().getClusterName());
             }
+            return block(clusterNames, () -> multiSearchAsync(items));
         } catch (Exception e) {
-            log.error("batchInsertDoc.error", e);
+            log.error("multiSearch.exception:{}", e.getMessage(), e);
         }
-
-        return true;
+        return new ArrayList<>(Collections.nCopies(items.size(), null));
     }
 
-    public boolean updateByQuery(EsIndexInfo esIndexInfo, QueryBuilder queryBuilder, Script script, int batchSize) {
-        if (log.isInfoEnabled()) {
-            log.info("updateByQuery.indexName:" + esIndexInfo.getIndexName());
+    /**
+     * 插入文档
+     * 对象按类型缓存的编解码器直接序列化为JSON字节，不经过Map
+     *
+     * @param esIndexInfo 索引信息
+     * @param docId       文档ID
+     * @param doc         文档对象
+     * @return 是否插入成功
+     */
+    public <T> boolean insertDoc(EsIndexInfo esIndexInfo,
+                                 String docId,
+                                 T doc) {
+        try {
+            @SuppressWarnings("unchecked")
+            EsDocumentCodec<T> codec = EsDocumentCodec.of((Class<T>) doc.getClass());
+            IndexRequest indexRequest = new IndexRequest(esIndexInfo.getIndexName());
+            indexRequest.id(docId);
+            indexRequest.source(codec.encode(doc), XContentType.JSON);
+            RestHighLevelClient client = getClient(esIndexInfo.getClusterName());
+            return writeDoc("insertDoc", esIndexInfo, indexRequest, () -> EsActionFuture.<IndexResponse>execute(
+                    listener -> client.indexAsync(indexRequest, COMMON_OPTIONS, listener)));
+        } catch (IOException e) {
+            log.error("insertDoc.exception:{}", e.getMessage(), e);
+        } finally {
+            invalidateDoc(esIndexInfo, docId);
         }
+        return false;
+    }
+
+    /**
+     * 获取文档并转换为指定类型
+     * 直接从_source字节解码，不生成中间Map
+     *
+     * @param esIndexInfo 索引信息
+     * @param docId       文档ID
+     * @param clazz       文档类型
+     * @return 文档对象，不存在时返回null
+     */
+    public <T> T getDocById(EsIndexInfo esIndexInfo,
+                            String docId,
+                            Class<T> clazz) {
         try {
-            UpdateByQueryRequest updateByQueryRequest = new UpdateByQueryRequest(esIndexInfo.getIndexName());
-            updateByQueryRequest.setQuery(queryBuilder);
-            updateByQueryRequest.setScript(script);
-            updateByQueryRequest.setBatchSize(batchSize);
-            updateByQueryRequest.setAbortOnVersionConflict(false);
-            BulkByScrollResponse response = getClient(esIndexInfo.getClusterName()).updateByQuery(updateByQueryRequest, RequestOptions.DEFAULT);
-            List<BulkItemResponse.Failure> failures = response.getBulkFailures();
+            return EsDocumentCodec.of(clazz).decode(getDocSource(esIndexInfo, docId));
         } catch (Exception e) {
-            log.error("updateByQuery.error", e);
+            log.error("getDocById.exception:{}", e.getMessage(), e);
         }
-        return true;
+        return null;
     }
 
     /**
-     * 分词方法
+     * 搜索文档并转换为指定类型
+     * 每个命中直接从_source字节解码，不生成中间Map
+     *
+     * @param esIndexInfo     索引信息
+     * @param esSearchRequest 搜索请求参数
+     * @param clazz           文档类型
+     * @return 文档列表
      */
-    public List<String> getAnalyze(EsIndexInfo esIndexInfo, String text) throws Exception {
-        List<String> list = new ArrayList<String>();
-        Request request = new Request("GET", "_analyze");
-        JSONObject entity = new JSONObject();
-        entity.put("analyzer", "ik_smart");
-        entity.put("text", text);
-        request.setJsonEntity(entity.toJSONString());
-        Response response = getClient(esIndexInfo.getClusterName()).getLowLevelClient().performRequest(request);
-        JSONObject tokens = JSONObject.parseObject(EntityUtils.toString(response.getEntity()));
-        JSONArray arrays = tokens.getJSONArray("tokens");
-        for (int i = 0; i < arrays.size(); i++) {
-            JSONObject obj = JSON.parseObject(arrays.getString(i));
-            list.add(obj.getString("token"));
+    public <T> List<T> search(EsIndexInfo esIndexInfo,
+                              EsSearchRequest esSearchRequest,
+                              Class<T> clazz) {
+        SearchResponse response = searchWithTermQuery(esIndexInfo, esSearchRequest);
+        if (response == null) {
+            return Collections.emptyList();
+        }
+        EsDocumentCodec<T> codec = EsDocumentCodec.of(clazz);
+        SearchHit[] hits = response.getHits().getHits();
+        List<T> list = new ArrayList<>(hits.length);
+        for (SearchHit hit : hits) {
+            T doc = codec.decode(hit.getSourceRef());
+            if (doc != null) {
+                list.add(doc);
+            }
+        }
+        return list;
+    }
+
+    /**
+     * 滚动遍历搜索结果
+     * 适合全量导出，按size分页并预取下一页；未指定排序时按_doc排序
+     * 返回的游标必须关闭，关闭时清理服务端的scroll上下文
+     *
+     * @param esIndexInfo     索引信息
+     * @param esSearchRequest 搜索请求参数，minutes为scroll保持时间，默认1分钟
+     * @return 游标
+     */
+    public EsScrollCursor scroll(EsIndexInfo esIndexInfo,
+                                 EsSearchRequest esSearchRequest) throws IOException {
+        SearchRequest searchRequest = buildScrollRequest(esIndexInfo, esSearchRequest);
+        return new EsScrollCursor(getClient(esIndexInfo.getClusterName()), searchRequest, COMMON_OPTIONS);
+    }
+
+    /**
+     * composite聚合分页遍历，按after_key逐页请求全部桶，消费当前页时预取下一页，最多同时持有两页
+     * 响应通过filter_path只返回after_key及桶，流式解析为EsAggBucket，不构建Aggregations对象树
+     *
+     * @param esIndexInfo  索引信息
+     * @param queryBuilder 查询条件，为空时统计全部文档
+     * @param composite    composite聚合，size为每页桶数，可包含子聚合，设置了aggregateAfter时从该位置开始
+     * @return 桶游标，有分片失败时以IllegalStateException结束
+     */
+    public EsCompositeCursor compositeAggregation(EsIndexInfo esIndexInfo, QueryBuilder queryBuilder,
+                                                  CompositeAggregationBuilder composite) throws IOException {
+        SearchSourceBuilder searchSourceBuilder = new SearchSourceBuilder().size(0).trackTotalHits(false).aggregation(composite);
+        if (queryBuilder != null) {
+            searchSourceBuilder.query(queryBuilder);
+        }
+        String name = composite.getName();
+        String body = Strings.toString(searchSourceBuilder);
+        RestClient lowLevelClient = getClient(esIndexInfo.getClusterName()).getLowLevelClient();
+        Function<Map<String, Object>, CompletableFuture<EsCompositePage>> fetcher = afterKey -> {
+            Request request = new Request("POST", "/" + esIndexInfo.getIndexName() + "/_search");
+            request.addParameter("filter_path", EsCompositeParser.filterPath(name));
+            request.setJsonEntity(afterKey == null ? body : compositeAfter(body, name, afterKey));
+            return timedAsync("compositeAggregation", esIndexInfo, () -> EsActionFuture.performRequest(lowLevelClient, request,
+                    response -> EsCompositeParser.parse(EntityUtils.toByteArray(response.getEntity()), name)));
+        };
+        return new EsCompositeCursor(block(esIndexInfo.getClusterName(), () -> fetcher.apply(null)), fetcher);
+    }
+
+    /**
+     * 按slice并行滚动遍历搜索结果
+     * 每个slice使用独立的scroll在executor上读取，吞吐随分片数扩展
+     *
+     * @param esIndexInfo     索引信息
+     * @param esSearchRequest 搜索请求参数
+     * @param slices          slice数，建议不超过索引主分片数
+     * @param executor        执行slice的线程池
+     * @param consumer        命中回调，会被并发调用
+     * @return 全部slice完成后返回命中总数，任一slice失败时以该异常结束
+     */
+    public CompletableFuture<Long> parallelScroll(EsIndexInfo esIndexInfo,
+                                                  EsSearchRequest esSearchRequest,
+                                                  int slices,
+                                                  Executor executor,
+                                                  Consumer<SearchHit> consumer) {
+        SearchRequest searchRequest = buildScrollRequest(esIndexInfo, esSearchRequest);
+        EsSlicedScroll slicedScroll = new EsSlicedScroll(getClient(esIndexInfo.getClusterName()), searchRequest, slices, COMMON_OPTIONS);
+        return slicedScroll.execute(executor, consumer);
+    }
+
+    /**
+     * 按slice并行滚动遍历搜索结果，每个slice一个线程，阻塞到全部完成
+     *
+     * @param esIndexInfo     索引信息
+     * @param esSearchRequest 搜索请求参数
+     * @param slices          slice数，建议不超过索引主分片数
+     * @param consumer        命中回调，会被并发调用
+     * @return 命中总数
+     */
+    public long parallelScroll(EsIndexInfo esIndexInfo,
+                               EsSearchRequest esSearchRequest,
+                               int slices,
+                               Consumer<SearchHit> consumer) throws IOException {
+        AtomicInteger threadIndex = new AtomicInteger();
+        ExecutorService executor = Executors.newFixedThreadPool(Math.max(1, slices), r -> {
+            Thread thread = new Thread(r, "es-sliced-scroll-" + threadIndex.getAndIncrement());
+            thread.setDaemon(true);
+            return thread;
+        });
+        try {
+            return block(esIndexInfo.getClusterName(),
+                    () -> parallelScroll(esIndexInfo, esSearchRequest, slices, executor, consumer));
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    /**
+     * 批量插入文档
+     *
+     * @param esIndexInfo      索引信息
+     * @param esSourceDataList 文档数据列表
+     * @return 是否全部插入成功
+     */
+    public boolean batchInsertDoc(EsIndexInfo esIndexInfo, List<EsSourceData> esSourceDataList) {
+        return batchInsertDocWithResult(esIndexInfo, esSourceDataList).isSuccess();
+    }
+
+    /**
+     * 批量插入文档，返回每个文档的执行结果
+     * 被拒绝(429)的文档按退避策略单独重提
+     *
+     * @param esIndexInfo      索引信息
+     * @param esSourceDataList 文档数据列表
+     * @return 批量执行结果
+     */
+    public EsBulkResult batchInsertDocWithResult(EsIndexInfo esIndexInfo, List<EsSourceData> esSourceDataList) {
+        if (log.isDebugEnabled()) {
+            log.debug("batchInsertDoc.indexName:{},size:{}", esIndexInfo.getIndexName(), esSourceDataList.size());
+        }
+        return executeBulkOrSpool(esIndexInfo, buildIndexRequests(esIndexInfo, esSourceDataList), "batchInsertDoc");
+    }
+
+    /**
+     * 单文档写入，集群不可用或拒绝写入时转入spool
+     * spool中有待重放的写入时直接追加到spool，避免重放时旧数据覆盖新数据
+     *
+     * @return 是否写入成功或已暂存
+     */
+    private <T> boolean writeDoc(String operation, EsIndexInfo esIndexInfo, DocWriteRequest<?> request,
+                                 Supplier<? extends CompletableFuture<T>> call) throws IOException {
+        EsWriteSpool spool = spoolMap.get(esIndexInfo.getClusterName());
+        if (spool != null && spool.hasPending()) {
+            return spool.append(Collections.singletonList(request));
+        }
+        try {
+            timed(operation, esIndexInfo, call);
+            return true;
+        } catch (IOException | ElasticsearchStatusException e) {
+            if (spool == null || !EsWriteSpool.isRetryable(EsBulkRetryPolicy.failureStatus(e))
+                    || !spool.append(Collections.singletonList(request))) {
+                throw e;
+            }
+            log.warn("{}.spooled,indexName:{},docId:{},message:{}", operation, esIndexInfo.getIndexName(),
+                    request.id(), e.getMessage());
+            return true;
+        }
+    }
+
+    /**
+     * 批量写入，集群不可用或拒绝写入的文档转入spool，结果中标记为spooled
+     */
+    private EsBulkResult executeBulkOrSpool(EsIndexInfo esIndexInfo, List<DocWriteRequest<?>> requests, String operation) {
+        EsWriteSpool spool = spoolMap.get(esIndexInfo.getClusterName());
+        if (spool == null) {
+            return executeBulk(esIndexInfo, requests, operation);
+        }
+        EsBulkResult result;
+        if (spool.hasPending()) {
+            result = failedResult(requests, "spool pending", 0);
+        } else {
+            result = executeBulk(esIndexInfo, requests, operation);
+        }
+        return spoolFailed(operation, esIndexInfo, spool, requests, result);
+    }
+
+    private EsBulkResult spoolFailed(String operation, EsIndexInfo esIndexInfo, EsWriteSpool spool,
+                                     List<DocWriteRequest<?>> requests, EsBulkResult result) {
+        List<DocWriteRequest<?>> spoolable = new ArrayList<>();
+        List<EsBulkItemResult> spooledItems = new ArrayList<>();
+        for (int i = 0; i < requests.size(); i++) {
+            EsBulkItemResult item = result.getItems().get(i);
+            if (!item.isSuccess() && EsWriteSpool.isRetryable(item.getStatus())) {
+                spoolable.add(requests.get(i));
+                spooledItems.add(item);
+            }
+        }
+        if (!spoolable.isEmpty() && spool.append(spoolable)) {
+            for (EsBulkItemResult item : spooledItems) {
+                item.setSuccess(true);
+                item.setSpooled(true);
+            }
+            log.warn("{}.spooled,indexName:{},docs:{}", operation, esIndexInfo.getIndexName(), spoolable.size());
+        }
+        return result;
+    }
+
+    /**
+     * 集群中有待重放写入的spool，没有时返回null
+     */
+    private EsWriteSpool pendingSpool(String clusterName) {
+        EsWriteSpool spool = spoolMap.get(clusterName);
+        return spool != null && spool.hasPending() ? spool : null;
+    }
+
+    /**
+     * spool中有待重放的写入时拒绝按查询更新、删除，否则重放时旧写入会覆盖其结果或恢复已删除的文档
+     */
+    private void checkSpoolDrained(EsIndexInfo esIndexInfo) {
+        if (pendingSpool(esIndexInfo.getClusterName()) != null) {
+            throw spoolPendingException(esIndexInfo);
+        }
+    }
+
+    private static IllegalStateException spoolPendingException(EsIndexInfo esIndexInfo) {
+        return new IllegalStateException("write spool pending replay, clusterName:" + esIndexInfo.getClusterName());
+    }
+
+    private static <T> CompletableFuture<T> failedFuture(Throwable e) {
+        CompletableFuture<T> failed = new CompletableFuture<>();
+        failed.completeExceptionally(e);
+        return failed;
+    }
+
+    /**
+     * 异步单文档写入，与writeDoc一致：spool中有待重放的写入时直接追加到spool，集群不可用或拒绝写入时转入spool
+     *
+     * @return 是否写入成功或已暂存
+     */
+    private CompletableFuture<Boolean> writeDocAsync(String operation, EsIndexInfo esIndexInfo, DocWriteRequest<?> request,
+                                                     Supplier<? extends CompletableFuture<Boolean>> call) {
+        EsWriteSpool spool = spoolMap.get(esIndexInfo.getClusterName());
+        if (spool != null && spool.hasPending()) {
+            invalidateDoc(esIndexInfo, request.id());
+            return CompletableFuture.completedFuture(spool.append(Collections.singletonList(request)));
+        }
+        CompletableFuture<Boolean> write = timedAsync(operation, esIndexInfo, call);
+        if (spool == null) {
+            return write;
+        }
+        CompletableFuture<Boolean> result = new CompletableFuture<>();
+        write.whenComplete((written, failure) -> {
+            if (failure == null) {
+                result.complete(written);
+                return;
+            }
+            Throwable cause = EsReadRouter.unwrap(failure);
+            if ((cause instanceof IOException || cause instanceof ElasticsearchStatusException)
+                    && EsWriteSpool.isRetryable(EsBulkRetryPolicy.failureStatus((Exception) cause))
+                    && spool.append(Collections.singletonList(request))) {
+                log.warn("{}.spooled,indexName:{},docId:{},message:{}", operation, esIndexInfo.getIndexName(),
+                        request.id(), cause.getMessage());
+                result.complete(true);
+            } else {
+                result.completeExceptionally(failure);
+            }
+        });
+        return result;
+    }
+
+    /**
+     * 异步批量写入，与executeBulkOrSpool一致：集群不可用或拒绝写入的文档转入spool，结果中标记为spooled
+     */
+    private CompletableFuture<EsBulkResult> bulkOrSpoolAsync(String operation, EsIndexInfo esIndexInfo,
+                                                             List<DocWriteRequest<?>> requests,
+                                                             Supplier<CompletableFuture<EsBulkResult>> bulk) {
+        EsWriteSpool spool = spoolMap.get(esIndexInfo.getClusterName());
+        if (spool == null) {
+            return bulk.get();
+        }
+        if (spool.hasPending()) {
+            return CompletableFuture.completedFuture(spoolFailed(operation, esIndexInfo, spool, requests,
+                    failedResult(requests, "spool pending", 0)));
+        }
+        return bulk.get().handle((result, failure) -> {
+            if (failure != null) {
+                Throwable cause = EsReadRouter.unwrap(failure);
+                int status = cause instanceof Exception ? EsBulkRetryPolicy.failureStatus((Exception) cause) : 0;
+                result = failedResult(requests, cause.getMessage(), status);
+            }
+            return spoolFailed(operation, esIndexInfo, spool, requests, result);
+        });
+    }
+
+    private static EsBulkItemResult describeRequest(DocWriteRequest<?> request) {
+        EsBulkItemResult itemResult = new EsBulkItemResult();
+        itemResult.setDocId(request.id());
+        itemResult.setIndexName(request.index());
+        itemResult.setOpType(request.opType().getLowercase());
+        return itemResult;
+    }
+
+    private static EsBulkItemResult describeRawDoc(EsIndexInfo esIndexInfo, EsRawSourceData doc) {
+        EsBulkItemResult itemResult = new EsBulkItemResult();
+        itemResult.setDocId(doc.getDocId());
+        itemResult.setIndexName(esIndexInfo.getIndexName());
+        itemResult.setOpType(DocWriteRequest.OpType.INDEX.getLowercase());
+        return itemResult;
+    }
+
+    private static EsBulkResult failedResult(List<DocWriteRequest<?>> requests, String failureMessage, int status) {
+        EsBulkResult result = new EsBulkResult();
+        for (DocWriteRequest<?> request : requests) {
+            EsBulkItemResult itemResult = describeRequest(request);
+            itemResult.setSuccess(false);
+            itemResult.setStatus(status);
+            itemResult.setFailureMessage(failureMessage);
+            itemResult.setAttempts(1);
+            result.getItems().add(itemResult);
+        }
+        return result;
+    }
+
+    private EsBulkResult executeBulk(EsIndexInfo esIndexInfo, List<DocWriteRequest<?>> requests, String operation) {
+        if (requests.isEmpty()) {
+            return new EsBulkResult();
+        }
+        RestHighLevelClient client = getClient(esIndexInfo.getClusterName());
+        EsBulkRetryPolicy retryPolicy = new EsBulkRetryPolicy(configMap.get(esIndexInfo.getClusterName()));
+        try {
+            EsBulkResult result = retryPolicy.execute(requests, EsRestClient::describeRequest, batch -> {
+                BulkRequest bulkRequest = new BulkRequest();
+                batch.forEach(bulkRequest::add);
+                metrics.recordBulk(esIndexInfo.getClusterName(), esIndexInfo.getIndexName(),
+                        bulkRequest.numberOfActions(), bulkRequest.estimatedSizeInBytes());
+                return timed(operation, esIndexInfo, () -> EsActionFuture.<BulkResponse>execute(
+                        listener -> client.bulkAsync(bulkRequest, COMMON_OPTIONS, listener)));
+            });
+            if (result.getRetries() > 0) {
+                metrics.recordBulkRetries(esIndexInfo.getClusterName(), esIndexInfo.getIndexName(), result.getRetries());
+            }
+            if (!result.isSuccess()) {
+                log.error("{}.failures,indexName:{},failed:{},retries:{}", operation,
+                        esIndexInfo.getIndexName(), result.getFailedItems().size(), result.getRetries());
+            }
+            return result;
+        } catch (Exception e) {
+            log.error("{}.exception:{}", operation, e.getMessage(), e);
+            return failedResult(requests, e.getMessage(), EsBulkRetryPolicy.failureStatus(e));
+        } finally {
+            requests.forEach(request -> invalidateDoc(esIndexInfo.getClusterName(), request.index(), request.id()));
+        }
+    }
+
+    /**
+     * 批量插入已序列化的JSON文档
+     * 文档字节直接拼入_bulk请求体并经低级客户端发送，不经过Map解析与重新序列化
+     *
+     * @param esIndexInfo 索引信息
+     * @param rawDataList 文档数据列表
+     * @return 是否全部插入成功
+     */
+    public boolean batchInsertRawDoc(EsIndexInfo esIndexInfo, List<EsRawSourceData> rawDataList) {
+        return batchInsertRawDocWithResult(esIndexInfo, rawDataList).isSuccess();
+    }
+
+    /**
+     * 批量插入已序列化的JSON文档，返回每个文档的执行结果
+     * 被拒绝(429)的文档按退避策略单独重提
+     *
+     * @param esIndexInfo 索引信息
+     * @param rawDataList 文档数据列表
+     * @return 批量执行结果
+     */
+    public EsBulkResult batchInsertRawDocWithResult(EsIndexInfo esIndexInfo, List<EsRawSourceData> rawDataList) {
+        if (log.isDebugEnabled()) {
+            log.debug("batchInsertRawDoc.indexName:{},size:{}", esIndexInfo.getIndexName(), rawDataList.size());
+        }
+        List<EsRawSourceData> docs = filterRawDocs(rawDataList);
+        if (docs.isEmpty()) {
+            return new EsBulkResult();
+        }
+        EsWriteSpool spool = spoolMap.get(esIndexInfo.getClusterName());
+        if (spool == null) {
+            return executeRawBulk(esIndexInfo, docs);
+        }
+        List<DocWriteRequest<?>> requests = buildRawIndexRequests(esIndexInfo, docs);
+        EsBulkResult result = spool.hasPending()
+                ? failedResult(requests, "spool pending", 0) : executeRawBulk(esIndexInfo, docs);
+        return spoolFailed("batchInsertRawDoc", esIndexInfo, spool, requests, result);
+    }
+
+    private EsBulkResult executeRawBulk(EsIndexInfo esIndexInfo, List<EsRawSourceData> docs) {
+        RestClient lowLevelClient = getClient(esIndexInfo.getClusterName()).getLowLevelClient();
+        EsBulkRetryPolicy retryPolicy = new EsBulkRetryPolicy(configMap.get(esIndexInfo.getClusterName()));
+        try {
+            EsBulkResult result = retryPolicy.execute(docs, doc -> describeRawDoc(esIndexInfo, doc), batch -> {
+                Request request = buildRawBulkRequest(esIndexInfo, batch);
+                try {
+                    return timed("batchInsertRawDoc", esIndexInfo, () -> EsActionFuture.performRequest(lowLevelClient, request,
+                            response -> parseBulkResponse(response.getEntity())));
+                } catch (ResponseException e) {
+                    throw toStatusException(e);
+                }
+            });
+            if (result.getRetries() > 0) {
+                metrics.recordBulkRetries(esIndexInfo.getClusterName(), esIndexInfo.getIndexName(), result.getRetries());
+            }
+            if (!result.isSuccess()) {
+                log.error("batchInsertRawDoc.failures,indexName:{},failed:{},retries:{}",
+                        esIndexInfo.getIndexName(), result.getFailedItems().size(), result.getRetries());
+            }
+            return result;
+        } catch (Exception e) {
+            log.error("batchInsertRawDoc.exception:{}", e.getMessage(), e);
+            EsBulkResult result = new EsBulkResult();
+            for (EsRawSourceData doc : docs) {
+                EsBulkItemResult itemResult = describeRawDoc(esIndexInfo, doc);
+                itemResult.setSuccess(false);
+                itemResult.setStatus(EsBulkRetryPolicy.failureStatus(e));
+                itemResult.setFailureMessage(e.getMessage());
+                itemResult.setAttempts(1);
+                result.getItems().add(itemResult);
+            }
+            return result;
+        } finally {
+            docs.forEach(doc -> invalidateDoc(esIndexInfo, doc.getDocId()));
+        }
+    }
+
+    /**
+     * 按查询更新，同步等待完成，耗时较长时应使用submitUpdateByQuery
+     * spool中有待重放的写入时不执行并返回false
+     *
+     * @return 是否全部成功，存在写入失败、读取失败或超时时返回false，版本冲突的文档跳过且不视为失败
+     */
+    public boolean updateByQuery(EsIndexInfo esIndexInfo, QueryBuilder queryBuilder, Script script, int batchSize) {
+        if (log.isDebugEnabled()) {
+            log.debug("updateByQuery.indexName:{}", esIndexInfo.getIndexName());
+        }
+        try {
+            checkSpoolDrained(esIndexInfo);
+            UpdateByQueryRequest updateByQueryRequest = buildUpdateByQueryRequest(esIndexInfo, queryBuilder, script, batchSize);
+            RestHighLevelClient client = getClient(esIndexInfo.getClusterName());
+            BulkByScrollResponse response = timed("updateByQuery", esIndexInfo,
+                    () -> EsActionFuture.<BulkByScrollResponse>execute(
+                            listener -> client.updateByQueryAsync(updateByQueryRequest, COMMON_OPTIONS, listener)));
+            return checkByQueryResponse("updateByQuery", esIndexInfo, response);
+        } catch (Exception e) {
+            log.error("updateByQuery.exception:{}", e.getMessage(), e);
+        } finally {
+            invalidateIndex(esIndexInfo);
+        }
+        return false;
+    }
+
+    /**
+     * 以后台任务方式按查询更新(wait_for_completion=false)，提交后立即返回，不受socket超时限制
+     *
+     * @param esIndexInfo  索引信息
+     * @param queryBuilder 查询条件
+     * @param script       更新脚本
+     * @param options      批次大小、切片、限速及冲突处理
+     * @return 任务句柄，提交失败时返回null
+     */
+    public EsTaskHandle submitUpdateByQuery(EsIndexInfo esIndexInfo, QueryBuilder queryBuilder, Script script,
+                                            EsByQueryOptions options) {
+        return submitTask(esIndexInfo, "submitUpdateByQuery", UPDATE_BY_QUERY, queryBuilder, script, options);
+    }
+
+    /**
+     * 以后台任务方式按查询删除(wait_for_completion=false)，提交后立即返回
+     * 清空整个索引时recreateIndex开销更小
+     *
+     * @param esIndexInfo  索引信息
+     * @param queryBuilder 查询条件
+     * @param options      批次大小、切片、限速及冲突处理
+     * @return 任务句柄，提交失败时返回null
+     */
+    public EsTaskHandle submitDeleteByQuery(EsIndexInfo esIndexInfo, QueryBuilder queryBuilder, EsByQueryOptions options) {
+        return submitTask(esIndexInfo, "submitDeleteByQuery", DELETE_BY_QUERY, queryBuilder, null, options);
+    }
+
+    /**
+     * 查询任务进度，任务结束后包含最终结果及失败明细
+     *
+     * @param taskHandle 任务句柄
+     * @return 任务状态，查询失败时返回null
+     */
+    public EsTaskStatus getTaskStatus(EsTaskHandle taskHandle) {
+        try {
+            RestClient lowLevelClient = getClient(taskHandle.getClusterName()).getLowLevelClient();
+            Response response = timed("getTaskStatus", taskIndexInfo(taskHandle),
+                    () -> EsActionFuture.performRequest(lowLevelClient, new Request("GET", "/_tasks/" + taskHandle.getTaskId())));
+            EsTaskStatus status = parseTaskStatus(response.getEntity());
+            if (status.isCompleted()) {
+                onTaskCompleted(taskHandle, status);
+            }
+            return status;
+        } catch (Exception e) {
+            log.error("getTaskStatus.exception:{}", e.getMessage(), e);
+            return null;
+        }
+    }
+
+    /**
+     * 调整执行中任务的限速
+     *
+     * @param taskHandle        任务句柄
+     * @param requestsPerSecond 每秒处理的文档数上限，小于等于0时取消限速
+     * @return 是否调整成功
+     */
+    public boolean rethrottleTask(EsTaskHandle taskHandle, float requestsPerSecond) {
+        try {
+            Request request = new Request("POST", "/_" + taskHandle.getAction() + "/" + taskHandle.getTaskId() + "/_rethrottle");
+            request.addParameter("requests_per_second", requestsPerSecond > 0 ? String.valueOf(requestsPerSecond) : "-1");
+            RestClient lowLevelClient = getClient(taskHandle.getClusterName()).getLowLevelClient();
+            timed("rethrottleTask", taskIndexInfo(taskHandle), () -> EsActionFuture.performRequest(lowLevelClient, request));
+            return true;
+        } catch (Exception e) {
+            log.error("rethrottleTask.exception:{}", e.getMessage(), e);
+            return false;
+        }
+    }
+
+    /**
+     * 取消执行中的任务，已处理的文档不会回滚
+     *
+     * @param taskHandle 任务句柄
+     * @return 是否取消成功
+     */
+    public boolean cancelTask(EsTaskHandle taskHandle) {
+        try {
+            Request request = new Request("POST", "/_tasks/" + taskHandle.getTaskId() + "/_cancel");
+            RestClient lowLevelClient = getClient(taskHandle.getClusterName()).getLowLevelClient();
+            timed("cancelTask", taskIndexInfo(taskHandle), () -> EsActionFuture.performRequest(lowLevelClient, request));
+            return true;
+        } catch (Exception e) {
+            log.error("cancelTask.exception:{}", e.getMessage(), e);
+            return false;
+        } finally {
+            invalidateIndex(taskIndexInfo(taskHandle));
+        }
+    }
+
+    /**
+     * 删除并按原有设置、映射及别名重建索引，用于清空全部文档，比按查询删除快得多且立即释放磁盘
+     * 删除与重建之间写入该索引的请求可能按动态映射自动创建索引，调用前需停止写入
+     *
+     * @param esIndexInfo 索引信息，可以是只指向一个索引的别名
+     * @return 是否重建成功
+     */
+    public boolean recreateIndex(EsIndexInfo esIndexInfo) {
+        RestClient lowLevelClient = getClient(esIndexInfo.getClusterName()).getLowLevelClient();
+        try {
+            Response response = timed("recreateIndex", esIndexInfo,
+                    () -> EsActionFuture.performRequest(lowLevelClient, new Request("GET", "/" + esIndexInfo.getIndexName())));
+            JSONObject indices = JSONObject.parseObject(EntityUtils.toString(response.getEntity()));
+            if (indices.size() != 1) {
+                log.error("recreateIndex.ambiguous,indexName:{},indices:{}", esIndexInfo.getIndexName(), indices.keySet());
+                return false;
+            }
+            String concreteIndex = indices.keySet().iterator().next();
+            Request createRequest = new Request("PUT", "/" + concreteIndex);
+            createRequest.setJsonEntity(buildRecreateIndexBody(indices.getJSONObject(concreteIndex)).toJSONString());
+            timed("recreateIndex", esIndexInfo, () -> EsActionFuture.performRequest(lowLevelClient, new Request("DELETE", "/" + concreteIndex)));
+            timed("recreateIndex", esIndexInfo, () -> EsActionFuture.performRequest(lowLevelClient, createRequest));
+            log.info("recreateIndex,indexName:{},concreteIndex:{}", esIndexInfo.getIndexName(), concreteIndex);
+            return true;
+        } catch (Exception e) {
+            log.error("recreateIndex.exception:{}", e.getMessage(), e);
+            return false;
+        } finally {
+            invalidateIndex(esIndexInfo);
+        }
+    }
+
+    /**
+     * 通过新索引重建：创建新索引，由loader导入数据，完成后切换别名并删除原索引
+     * 导入期间读请求仍访问原索引，切换是原子的；loader返回false或抛出异常时删除新索引，别名不变
+     *
+     * @param esIndexInfo 索引信息，indexName为读写使用的别名
+     * @param options     重建参数
+     * @param loader      导入数据，参数为新索引的索引信息，返回是否导入成功
+     * @return 是否重建成功
+     */
+    public boolean rebuildIndex(EsIndexInfo esIndexInfo, EsRebuildOptions options, Predicate<EsIndexInfo> loader) {
+        EsIndexRebuild rebuild = beginRebuild(esIndexInfo, options);
+        if (rebuild == null) {
+            return false;
+        }
+        boolean loaded;
+        try {
+            loaded = loader.test(rebuild.toIndexInfo());
+        } catch (RuntimeException e) {
+            log.error("rebuildIndex.load.exception:{}", e.getMessage(), e);
+            loaded = false;
+        }
+        if (loaded && completeRebuild(rebuild)) {
+            return true;
+        }
+        abortRebuild(rebuild);
+        return false;
+    }
+
+    /**
+     * 开始重建：创建名为别名加版本号的新索引，导入期间不刷新且不分配副本
+     * 别名可以是已有的索引名称(尚未使用别名)，切换时原索引被删除并由同名别名代替
+     *
+     * @param esIndexInfo 索引信息，indexName为读写使用的别名
+     * @param options     重建参数
+     * @return 重建状态，通过toIndexInfo()获取导入使用的索引信息；创建失败时返回null
+     */
+    public EsIndexRebuild beginRebuild(EsIndexInfo esIndexInfo, EsRebuildOptions options) {
+        RestClient lowLevelClient = getClient(esIndexInfo.getClusterName()).getLowLevelClient();
+        String alias = esIndexInfo.getIndexName();
+        try {
+            JSONObject current = getIndexDefinitions(lowLevelClient, esIndexInfo, "beginRebuild");
+            JSONObject body;
+            if (StringUtils.isNotBlank(options.getIndexBody())) {
+                body = JSONObject.parseObject(options.getIndexBody());
+            } else if (!current.isEmpty()) {
+                body = buildRecreateIndexBody(current.getJSONObject(current.keySet().iterator().next()));
+                body.remove("aliases");
+            } else {
+                body = new JSONObject();
+            }
+            JSONObject settings = body.getJSONObject("settings");
+            if (settings == null) {
+                settings = new JSONObject();
+                body.put("settings", settings);
+            }
+            EsIndexRebuild rebuild = new EsIndexRebuild();
+            rebuild.setClusterName(esIndexInfo.getClusterName());
+            rebuild.setAlias(alias);
+            rebuild.setIndexName(alias + "_v" + LocalDateTime.now().format(REBUILD_VERSION_FORMAT));
+            rebuild.getPreviousIndices().addAll(current.keySet());
+            rebuild.setRefreshInterval(takeIndexSetting(settings, "refresh_interval"));
+            rebuild.setNumberOfReplicas(takeIndexSetting(settings, "number_of_replicas"));
+            rebuild.setOptions(options);
+            settings.put("index.refresh_interval", options.getBulkRefreshInterval());
+            settings.put("index.number_of_replicas", options.getBulkReplicas());
+            Request createRequest = new Request("PUT", "/" + rebuild.getIndexName());
+            createRequest.setJsonEntity(body.toJSONString());
+            timed("beginRebuild", esIndexInfo, () -> EsActionFuture.performRequest(lowLevelClient, createRequest));
+            log.info("beginRebuild,alias:{},indexName:{},previous:{}", alias, rebuild.getIndexName(), rebuild.getPreviousIndices());
+            return rebuild;
+        } catch (Exception e) {
+            log.error("beginRebuild.exception:{}", e.getMessage(), e);
+            return null;
+        }
+    }
+
+    /**
+     * 完成重建：刷新并合并段，恢复刷新间隔及副本数，等待副本分配后原子切换别名，再删除原索引
+     * 先合并段再恢复副本，副本直接复制合并后的段
+     *
+     * @param rebuild beginRebuild返回的重建状态
+     * @return 别名是否已切换到新索引，删除原索引失败只记录日志
+     */
+    public boolean completeRebuild(EsIndexRebuild rebuild) {
+        EsIndexInfo target = rebuild.toIndexInfo();
+        EsRebuildOptions options = rebuild.getOptions();
+        RestClient lowLevelClient = getClient(rebuild.getClusterName()).getLowLevelClient();
+        try {
+            timed("completeRebuild", target,
+                    () -> EsActionFuture.performRequest(lowLevelClient, new Request("POST", "/" + rebuild.getIndexName() + "/_refresh")));
+            if (options.getForceMergeSegments() > 0) {
+                forceMerge(lowLevelClient, rebuild);
+            }
+            JSONObject indexSettings = new JSONObject();
+            indexSettings.put("refresh_interval", rebuild.getRefreshInterval());
+            indexSettings.put("number_of_replicas", rebuild.getNumberOfReplicas());
+            Request settingsRequest = new Request("PUT", "/" + rebuild.getIndexName() + "/_settings");
+            settingsRequest.setJsonEntity(JSONObject.of("index", indexSettings).toJSONString(JSONWriter.Feature.WriteMapNullValue));
+            timed("completeRebuild", target, () -> EsActionFuture.performRequest(lowLevelClient, settingsRequest));
+            if (!waitForGreen(lowLevelClient, rebuild)) {
+                log.warn("completeRebuild.notGreen,indexName:{},timeoutMillis:{}", rebuild.getIndexName(), options.getGreenTimeoutMillis());
+            }
+            List<String> oldIndices = swapAlias(lowLevelClient, rebuild);
+            rebuild.setSwapped(true);
+            log.info("completeRebuild.swapped,alias:{},indexName:{},previous:{}", rebuild.getAlias(), rebuild.getIndexName(), oldIndices);
+            if (options.isDeleteOldIndex() && !oldIndices.isEmpty()) {
+                try {
+                    timed("completeRebuild", target,
+                            () -> EsActionFuture.performRequest(lowLevelClient, new Request("DELETE", "/" + String.join(",", oldIndices))));
+                } catch (Exception e) {
+                    log.error("completeRebuild.deleteOld.exception,indices:{},message:{}", oldIndices, e.getMessage(), e);
+                }
+            }
+            return true;
+        } catch (Exception e) {
+            log.error("completeRebuild.exception:{}", e.getMessage(), e);
+            return rebuild.isSwapped();
+        } finally {
+            EsIndexInfo aliasInfo = new EsIndexInfo();
+            aliasInfo.setClusterName(rebuild.getClusterName());
+            aliasInfo.setIndexName(rebuild.getAlias());
+            invalidateIndex(aliasInfo);
+        }
+    }
+
+    /**
+     * 放弃重建并删除新索引，别名已切换时不执行
+     *
+     * @param rebuild beginRebuild返回的重建状态
+     * @return 是否已删除新索引
+     */
+    public boolean abortRebuild(EsIndexRebuild rebuild) {
+        if (rebuild.isSwapped()) {
+            log.warn("abortRebuild.swapped,alias:{},indexName:{}", rebuild.getAlias(), rebuild.getIndexName());
+            return false;
+        }
+        try {
+            RestClient lowLevelClient = getClient(rebuild.getClusterName()).getLowLevelClient();
+            timed("abortRebuild", rebuild.toIndexInfo(),
+                    () -> EsActionFuture.performRequest(lowLevelClient, new Request("DELETE", "/" + rebuild.getIndexName())));
+            log.info("abortRebuild,alias:{},indexName:{}", rebuild.getAlias(), rebuild.getIndexName());
+            return true;
+        } catch (Exception e) {
+            log.error("abortRebuild.exception:{}", e.getMessage(), e);
+            return false;
+        }
+    }
+
+    /**
+     * 分词方法
+     */
+    public List<String> getAnalyze(EsIndexInfo esIndexInfo, String text) throws Exception {
+        return getAnalyze(esIndexInfo, text, new EsAnalyzeOptions());
+    }
+
+    /**
+     * 按指定分词器分词
+     *
+     * @param esIndexInfo 索引信息，indexScoped或指定field时在该索引上执行
+     * @param text        文本
+     * @param options     分词参数
+     * @return 分词结果
+     */
+    public List<String> getAnalyze(EsIndexInfo esIndexInfo, String text, EsAnalyzeOptions options) throws Exception {
+        EsLocalCache<String, List<String>> analyzeCache = getAnalyzeCache(esIndexInfo.getClusterName());
+        String cacheKey = analyzeCacheKey(esIndexInfo, options, text);
+        List<String> cached = analyzeCache == null ? null : analyzeCache.get(cacheKey);
+        if (cached != null) {
+            return new ArrayList<>(cached);
+        }
+        Request request = buildAnalyzeRequest(esIndexInfo, Collections.singletonList(text), options);
+        RestClient lowLevelClient = getClient(esIndexInfo.getClusterName()).getLowLevelClient();
+        Response response = timed("getAnalyze", esIndexInfo, () -> EsActionFuture.performRequest(lowLevelClient, request));
+        List<String> tokens = parseAnalyzeTokens(response.getEntity());
+        if (analyzeCache != null) {
+            analyzeCache.put(cacheKey, Collections.unmodifiableList(new ArrayList<>(tokens)));
+        }
+        return tokens;
+    }
+
+    /**
+     * 批量分词，多个文本合并到一次_analyze请求，超过analyzeBatchSize时拆分为多个请求并发发送
+     * 重复的文本只分词一次，空文本返回空列表
+     *
+     * @param esIndexInfo 索引信息，indexScoped或指定field时在该索引上执行
+     * @param texts       文本
+     * @param options     分词参数
+     * @return 与texts一一对应的分词结果，偏移为文本内的偏移
+     */
+    public List<List<EsAnalyzeToken>> batchAnalyze(EsIndexInfo esIndexInfo, List<String> texts,
+                                                   EsAnalyzeOptions options) throws IOException {
+        return block(esIndexInfo.getClusterName(), () -> batchAnalyzeAsync(esIndexInfo, texts, options));
+    }
+
+    /**
+     * 搜索结果缓存统计
+     *
+     * @param esIndexInfo 索引信息
+     * @return 统计信息，未配置缓存时返回null
+     */
+    public EsCacheStats getSearchCacheStats(EsIndexInfo esIndexInfo) {
+        EsSearchCache searchCache = getSearchCache(esIndexInfo);
+        return searchCache == null ? null : searchCache.stats();
+    }
+
+    /**
+     * 文档缓存统计
+     *
+     * @param esIndexInfo 索引信息
+     * @return 统计信息，未配置缓存时返回null
+     */
+    public EsCacheStats getDocCacheStats(EsIndexInfo esIndexInfo) {
+        EsLocalCache<String, BytesReference> docCache = getDocCache(esIndexInfo);
+        return docCache == null ? null : docCache.stats();
+    }
+
+    /**
+     * 分词缓存统计
+     *
+     * @param clusterName 集群名称
+     * @return 统计信息，未配置缓存时返回null
+     */
+    public EsCacheStats getAnalyzeCacheStats(String clusterName) {
+        EsLocalCache<String, List<String>> analyzeCache = getAnalyzeCache(clusterName);
+        return analyzeCache == null ? null : analyzeCache.stats();
+    }
+
+    /**
+     * 异步插入文档
+     *
+     * @param esIndexInfo  索引信息
+     * @param esSourceData 文档数据
+     * @return 是否插入成功
+     */
+    public CompletableFuture<Boolean> insertDocAsync(EsIndexInfo esIndexInfo, EsSourceData esSourceData) {
+        IndexRequest indexRequest = buildIndexRequest(esIndexInfo, esSourceData);
+        RestHighLevelClient client = getClient(esIndexInfo.getClusterName());
+        return writeDocAsync("insertDoc", esIndexInfo, indexRequest, () -> executeWrite(
+                listener -> client.indexAsync(indexRequest, COMMON_OPTIONS, listener),
+                (IndexResponse response) -> true, () -> invalidateDoc(esIndexInfo, esSourceData.getDocId())));
+    }
+
+    /**
+     * 异步更新文档
+     *
+     * @param esIndexInfo  索引信息
+     * @param esSourceData 文档数据
+     * @return 是否更新成功
+     */
+    public CompletableFuture<Boolean> updateDocAsync(EsIndexInfo esIndexInfo, EsSourceData esSourceData) {
+        UpdateRequest updateRequest = buildUpdateRequest(esIndexInfo, esSourceData);
+        RestHighLevelClient client = getClient(esIndexInfo.getClusterName());
+        return writeDocAsync("updateDoc", esIndexInfo, updateRequest, () -> executeWrite(
+                listener -> client.updateAsync(updateRequest, COMMON_OPTIONS, listener),
+                (UpdateResponse response) -> true, () -> invalidateDoc(esIndexInfo, esSourceData.getDocId())));
+    }
+
+    /**
+     * 异步批量插入文档
+     *
+     * @param esIndexInfo      索引信息
+     * @param esSourceDataList 文档数据列表
+     * @return 批量执行结果
+     */
+    public CompletableFuture<EsBulkResult> batchInsertDocAsync(EsIndexInfo esIndexInfo, List<EsSourceData> esSourceDataList) {
+        return executeBulkAsync(esIndexInfo, buildIndexRequests(esIndexInfo, esSourceDataList), "batchInsertDoc");
+    }
+
+    /**
+     * 异步批量插入已序列化的JSON文档
+     *
+     * @param esIndexInfo 索引信息
+     * @param rawDataList 文档数据列表
+     * @return 批量执行结果
+     */
+    public CompletableFuture<EsBulkResult> batchInsertRawDocAsync(EsIndexInfo esIndexInfo, List<EsRawSourceData> rawDataList) {
+        List<EsRawSourceData> docs = filterRawDocs(rawDataList);
+        RestClient lowLevelClient = getClient(esIndexInfo.getClusterName()).getLowLevelClient();
+        EsBulkRetryPolicy retryPolicy = new EsBulkRetryPolicy(configMap.get(esIndexInfo.getClusterName()));
+        return bulkOrSpoolAsync("batchInsertRawDoc", esIndexInfo, buildRawIndexRequests(esIndexInfo, docs),
+                () -> retryPolicy.executeAsync(docs, doc -> describeRawDoc(esIndexInfo, doc), batch -> {
+                    Request request;
+                    try {
+                        request = buildRawBulkRequest(esIndexInfo, batch);
+                    } catch (IOException e) {
+                        CompletableFuture<BulkResponse> failed = new CompletableFuture<>();
+                        failed.completeExceptionally(e);
+                        return failed;
+                    }
+                    return timedAsync("batchInsertRawDoc", esIndexInfo, () -> executeWrite(
+                            listener -> lowLevelClient.performRequestAsync(request, new ResponseListener() {
+                                @Override
+                                public void onSuccess(Response response) {
+                                    try {
+                                        listener.onResponse(parseBulkResponse(response.getEntity()));
+                                    } catch (Exception e) {
+                                        listener.onFailure(e);
+                                    }
+                                }
+
+                                @Override
+                                public void onFailure(Exception e) {
+                                    listener.onFailure(e instanceof ResponseException ? toStatusException((ResponseException) e) : e);
+                                }
+                            }),
+                            (BulkResponse response) -> response,
+                            () -> batch.forEach(doc -> invalidateDoc(esIndexInfo, doc.getDocId()))));
+                }).whenComplete((result, failure) -> {
+                    if (result != null && result.getRetries() > 0) {
+                        metrics.recordBulkRetries(esIndexInfo.getClusterName(), esIndexInfo.getIndexName(), result.getRetries());
+                    }
+                }));
+    }
+
+    /**
+     * 异步批量更新文档
+     *
+     * @param esIndexInfo      索引信息
+     * @param esSourceDataList 文档数据列表
+     * @return 批量执行结果
+     */
+    public CompletableFuture<EsBulkResult> batchUpdateDocAsync(EsIndexInfo esIndexInfo, List<EsSourceData> esSourceDataList) {
+        return executeBulkAsync(esIndexInfo, buildUpdateRequests(esIndexInfo, esSourceDataList), "batchUpdateDoc");
+    }
+
+    /**
+     * 异步删除索引下全部文档
+     *
+     * @param esIndexInfo 索引信息
+     * @return 删除的文档数
+     */
+    public CompletableFuture<Long> deleteAsync(EsIndexInfo esIndexInfo) {
+        if (pendingSpool(esIndexInfo.getClusterName()) != null) {
+            return failedFuture(spoolPendingException(esIndexInfo));
+        }
+        DeleteByQueryRequest deleteByQueryRequest = buildDeleteAllRequest(esIndexInfo);
+        RestHighLevelClient client = getClient(esIndexInfo.getClusterName());
+        return timedAsync("delete", esIndexInfo, () -> executeWrite(
+                listener -> client.deleteByQueryAsync(deleteByQueryRequest, COMMON_OPTIONS, listener),
+                BulkByScrollResponse::getDeleted, () -> invalidateIndex(esIndexInfo)));
+    }
+
+    /**
+     * 异步删除文档
+     *
+     * @param esIndexInfo 索引信息
+     * @param docId       文档ID
+     * @return 是否删除成功
+     */
+    public CompletableFuture<Boolean> deleteDocAsync(EsIndexInfo esIndexInfo, String docId) {
+        DeleteRequest deleteRequest = buildDeleteRequest(esIndexInfo, docId);
+        RestHighLevelClient client = getClient(esIndexInfo.getClusterName());
+        return writeDocAsync("deleteDoc", esIndexInfo, deleteRequest, () -> executeWrite(
+                listener -> client.deleteAsync(deleteRequest, COMMON_OPTIONS, listener),
+                (DeleteResponse response) -> true, () -> invalidateDoc(esIndexInfo, docId)));
+    }
+
+    /**
+     * 异步判断文档是否存在
+     *
+     * @param esIndexInfo 索引信息
+     * @param docId       文档ID
+     * @return 是否存在
+     */
+    public CompletableFuture<Boolean> isExistDocByIdAsync(EsIndexInfo esIndexInfo, String docId) {
+        EsLocalCache<String, BytesReference> docCache = getDocCache(esIndexInfo);
+        if (docCache != null && docCache.get(docId) != null) {
+            return CompletableFuture.completedFuture(true);
+        }
+        GetRequest getRequest = buildGetRequest(esIndexInfo, docId, null);
+        RestHighLevelClient client = getClient(esIndexInfo.getClusterName());
+        return timedAsync("isExistDocById", esIndexInfo, () -> EsActionFuture.execute(
+                listener -> client.existsAsync(getRequest, COMMON_OPTIONS, listener), (Boolean exists) -> exists));
+    }
+
+    /**
+     * 异步获取文档
+     *
+     * @param esIndexInfo 索引信息
+     * @param docId       文档ID
+     * @return 文档内容
+     */
+    public CompletableFuture<Map<String, Object>> getDocByIdAsync(EsIndexInfo esIndexInfo, String docId) {
+        return getDocByIdAsync(esIndexInfo, docId, null);
+    }
+
+    /**
+     * 异步获取文档
+     *
+     * @param esIndexInfo 索引信息
+     * @param docId       文档ID
+     * @param fields      字段数组
+     * @return 文档内容
+     */
+    public CompletableFuture<Map<String, Object>> getDocByIdAsync(EsIndexInfo esIndexInfo, String docId, String[] fields) {
+        Map<String, Object> cached = getCachedDoc(esIndexInfo, docId, fields);
+        if (cached != null) {
+            return CompletableFuture.completedFuture(cached);
+        }
+        GetRequest getRequest = buildGetRequest(esIndexInfo, docId, fields);
+        EsLocalCache<String, BytesReference> docCache = fields == null ? getDocCache(esIndexInfo) : null;
+        long generation = docCache == null ? 0 : docCache.generation();
+        return executeGetAsync(esIndexInfo, getRequest, response -> {
+            if (docCache != null && response.isExists()) {
+                docCache.putIfCurrent(docId, response.getSourceAsBytesRef(), generation);
+            }
+            return response.getSource();
+        });
+    }
+
+    /**
+     * 异步搜索文档
+     *
+     * @param esIndexInfo     索引信息
+     * @param esSearchRequest 搜索请求参数
+     * @return 搜索结果
+     */
+    public CompletableFuture<SearchResponse> searchWithTermQueryAsync(EsIndexInfo esIndexInfo,
+                                                                      EsSearchRequest esSearchRequest) {
+        SearchRequest searchRequest = buildSearchRequest(esIndexInfo, esSearchRequest);
+        EsSearchCache searchCache = getSearchCache(esIndexInfo, searchRequest);
+        if (searchCache != null) {
+            return searchCache.get(EsSearchCache.cacheKey(searchRequest.source()),
+                    () -> submitSearch(esIndexInfo, searchRequest));
+        }
+        return submitSearch(esIndexInfo, searchRequest);
+    }
+
+    /**
+     * 异步精简搜索
+     *
+     * @param esIndexInfo     索引信息
+     * @param esSearchRequest 搜索请求
+     * @return 精简搜索结果
+     */
+    public CompletableFuture<EsCompactSearchResult> searchCompactAsync(EsIndexInfo esIndexInfo, EsSearchRequest esSearchRequest) {
+        return submitCompactSearch(esIndexInfo, buildCompactSearchRequest(esIndexInfo, esSearchRequest));
+    }
+
+    /**
+     * 异步批量搜索
+     * 同一集群的请求合并为一次_msearch，不同集群的请求并发发送
+     *
+     * @param items 索引信息与搜索请求
+     * @return 与items顺序一致的搜索结果，失败项为null
+     */
+    public CompletableFuture<List<SearchResponse>> multiSearchAsync(List<EsMultiSearchItem> items) {
+        SearchResponse[] responses = new SearchResponse[items.size()];
+        Map<String, List<Integer>> clusterItems = new LinkedHashMap<>();
+        for (int i = 0; i < items.size(); i++) {
+            clusterItems.computeIfAbsent(items.get(i).getEsIndexInfo().getClusterName(), name -> new ArrayList<>()).add(i);
+        }
+        List<CompletableFuture<Void>> futures = new ArrayList<>(clusterItems.size());
+        for (Map.Entry<String, List<Integer>> entry : clusterItems.entrySet()) {
+            List<Integer> indices = entry.getValue();
+            MultiSearchRequest multiSearchRequest = new MultiSearchRequest();
+            for (Integer index : indices) {
+                EsMultiSearchItem item = items.get(index);
+                multiSearchRequest.add(buildSearchRequest(item.getEsIndexInfo(), item.getEsSearchRequest()));
+            }
+            RestHighLevelClient client = getClient(entry.getKey());
+            futures.add(timedAsync("multiSearch", entry.getKey(), ALL_INDICES, () -> EsActionFuture.<MultiSearchResponse>execute(
+                    listener -> client.msearchAsync(multiSearchRequest, COMMON_OPTIONS, listener)))
+                    .handle((response, failure) -> {
+                        if (failure != null) {
+                            log.error("multiSearch.exception,clusterName:{},message:{}", entry.getKey(), failure.getMessage(), failure);
+                            return null;
+                        }
+                        MultiSearchResponse.Item[] responseItems = response.getResponses();
+                        for (int i = 0; i < responseItems.length; i++) {
+                            if (responseItems[i].isFailure()) {
+                                log.error("multiSearch.failure,clusterName:{},message:{}", entry.getKey(), responseItems[i].getFailureMessage());
+                            } else {
+                                responses[indices.get(i)] = responseItems[i].getResponse();
+                            }
+                        }
+                        return null;
+                    }));
+        }
+        return CompletableFuture.allOf(futures.toArray(new CompletableFuture<?>[0]))
+                .thenApply(ignored -> new ArrayList<>(Arrays.asList(responses)));
+    }
+
+    /**
+     * 异步按条件更新文档
+     *
+     * @param esIndexInfo  索引信息
+     * @param queryBuilder 查询条件
+     * @param script       更新脚本
+     * @param batchSize    每批处理的文档数
+     * @return 更新结果
+     */
+    public CompletableFuture<BulkByScrollResponse> updateByQueryAsync(EsIndexInfo esIndexInfo, QueryBuilder queryBuilder,
+                                                                      Script script, int batchSize) {
+        if (pendingSpool(esIndexInfo.getClusterName()) != null) {
+            return failedFuture(spoolPendingException(esIndexInfo));
+        }
+        UpdateByQueryRequest updateByQueryRequest = buildUpdateByQueryRequest(esIndexInfo, queryBuilder, script, batchSize);
+        RestHighLevelClient client = getClient(esIndexInfo.getClusterName());
+        return timedAsync("updateByQuery", esIndexInfo, () -> executeWrite(
+                listener -> client.updateByQueryAsync(updateByQueryRequest, COMMON_OPTIONS, listener),
+                (BulkByScrollResponse response) -> response, () -> invalidateIndex(esIndexInfo)));
+    }
+
+    /**
+     * 异步查询任务进度
+     *
+     * @param taskHandle 任务句柄
+     * @return 任务状态
+     */
+    public CompletableFuture<EsTaskStatus> getTaskStatusAsync(EsTaskHandle taskHandle) {
+        RestClient lowLevelClient = getClient(taskHandle.getClusterName()).getLowLevelClient();
+        Request request = new Request("GET", "/_tasks/" + taskHandle.getTaskId());
+        return timedAsync("getTaskStatus", taskIndexInfo(taskHandle), () -> EsActionFuture.performRequest(lowLevelClient, request, response -> {
+            EsTaskStatus status = parseTaskStatus(response.getEntity());
+            if (status.isCompleted()) {
+                onTaskCompleted(taskHandle, status);
+            }
+            return status;
+        }));
+    }
+
+    /**
+     * 按间隔轮询任务进度直到任务结束，进度打印在DEBUG日志
+     * 取消返回的future只停止轮询，不取消任务，取消任务使用cancelTask
+     *
+     * @param taskHandle         任务句柄
+     * @param pollIntervalMillis 轮询间隔(毫秒)
+     * @return 任务结束时的状态，需通过isSuccess判断是否全部成功
+     */
+    public CompletableFuture<EsTaskStatus> awaitTask(EsTaskHandle taskHandle, long pollIntervalMillis) {
+        CompletableFuture<EsTaskStatus> result = new CompletableFuture<>();
+        pollTask(taskHandle, Math.max(MIN_TASK_POLL_INTERVAL_MILLIS, pollIntervalMillis), 0, result);
+        return result;
+    }
+
+    /**
+     * 异步分词
+     *
+     * @param esIndexInfo 索引信息
+     * @param text        文本
+     * @return 分词结果
+     */
+    public CompletableFuture<List<String>> getAnalyzeAsync(EsIndexInfo esIndexInfo, String text) {
+        return getAnalyzeAsync(esIndexInfo, text, new EsAnalyzeOptions());
+    }
+
+    public CompletableFuture<List<String>> getAnalyzeAsync(EsIndexInfo esIndexInfo, String text, EsAnalyzeOptions options) {
+        EsLocalCache<String, List<String>> analyzeCache = getAnalyzeCache(esIndexInfo.getClusterName());
+        String cacheKey = analyzeCacheKey(esIndexInfo, options, text);
+        List<String> cached = analyzeCache == null ? null : analyzeCache.get(cacheKey);
+        if (cached != null) {
+            return CompletableFuture.completedFuture(new ArrayList<>(cached));
+        }
+        Request request = buildAnalyzeRequest(esIndexInfo, Collections.singletonList(text), options);
+        RestClient lowLevelClient = getClient(esIndexInfo.getClusterName()).getLowLevelClient();
+        return timedAsync("getAnalyze", esIndexInfo, () -> EsActionFuture.performRequest(lowLevelClient, request, response -> {
+            List<String> tokens = parseAnalyzeTokens(response.getEntity());
+            if (analyzeCache != null) {
+                analyzeCache.put(cacheKey, Collections.unmodifiableList(new ArrayList<>(tokens)));
+            }
+            return tokens;
+        }));
+    }
+
+    /**
+     * 异步批量分词
+     *
+     * @see #batchAnalyze(EsIndexInfo, List, EsAnalyzeOptions)
+     */
+    public CompletableFuture<List<List<EsAnalyzeToken>>> batchAnalyzeAsync(EsIndexInfo esIndexInfo, List<String> texts,
+                                                                          EsAnalyzeOptions options) {
+        List<String> distinct = new ArrayList<>();
+        Map<String, Integer> slots = new HashMap<>();
+        for (String text : texts) {
+            if (StringUtils.isNotEmpty(text) && !slots.containsKey(text)) {
+                slots.put(text, distinct.size());
+                distinct.add(text);
+            }
+        }
+        int batchSize = Math.max(1, configMap.get(esIndexInfo.getClusterName()).getAnalyzeBatchSize());
+        List<CompletableFuture<List<List<EsAnalyzeToken>>>> chunks = new ArrayList<>();
+        for (int from = 0; from < distinct.size(); from += batchSize) {
+            chunks.add(analyzeChunk(esIndexInfo, distinct.subList(from, Math.min(from + batchSize, distinct.size())), options));
+        }
+        return CompletableFuture.allOf(chunks.toArray(new CompletableFuture<?>[0])).thenApply(ignored -> {
+            List<List<EsAnalyzeToken>> analyzed = new ArrayList<>(distinct.size());
+            chunks.forEach(chunk -> analyzed.addAll(chunk.join()));
+            List<List<EsAnalyzeToken>> result = new ArrayList<>(texts.size());
+            for (String text : texts) {
+                Integer slot = StringUtils.isEmpty(text) ? null : slots.get(text);
+                result.add(slot == null ? new ArrayList<>() : new ArrayList<>(analyzed.get(slot)));
+            }
+            return result;
+        });
+    }
+
+    private CompletableFuture<EsBulkResult> executeBulkAsync(EsIndexInfo esIndexInfo, List<DocWriteRequest<?>> requests,
+                                                             String operation) {
+        RestHighLevelClient client = getClient(esIndexInfo.getClusterName());
+        EsBulkRetryPolicy retryPolicy = new EsBulkRetryPolicy(configMap.get(esIndexInfo.getClusterName()));
+        return bulkOrSpoolAsync(operation, esIndexInfo, requests, () -> retryPolicy.executeAsync(requests,
+                EsRestClient::describeRequest, batch -> {
+                    BulkRequest bulkRequest = new BulkRequest();
+                    batch.forEach(bulkRequest::add);
+                    metrics.recordBulk(esIndexInfo.getClusterName(), esIndexInfo.getIndexName(),
+                            bulkRequest.numberOfActions(), bulkRequest.estimatedSizeInBytes());
+                    return timedAsync(operation, esIndexInfo, () -> executeWrite(
+                            listener -> client.bulkAsync(bulkRequest, COMMON_OPTIONS, listener),
+                            (BulkResponse response) -> response,
+                            () -> batch.forEach(request -> invalidateDoc(esIndexInfo, request.id()))));
+                }).whenComplete((result, failure) -> {
+                    if (result != null && result.getRetries() > 0) {
+                        metrics.recordBulkRetries(esIndexInfo.getClusterName(), esIndexInfo.getIndexName(), result.getRetries());
+                    }
+                }));
+    }
+
+    /**
+     * 执行同步请求并记录耗时，超过慢查询阈值时打印日志
+     * 请求以异步方式发出后等待结果，不在客户端的synchronized中阻塞
+     */
+    private <T> T timed(String operation, EsIndexInfo esIndexInfo, Supplier<? extends CompletableFuture<T>> call) throws IOException {
+        return block(esIndexInfo.getClusterName(), () -> timedAsync(operation, esIndexInfo, call));
+    }
+
+    /**
+     * 同步等待异步请求的结果，配置了maxBlockingRequests时先获取集群的信号量许可
+     * 调用方线程(包括虚拟线程)在信号量或future上等待时不占用连接及IO线程
+     */
+    private <T> T block(String clusterName, Supplier<? extends CompletableFuture<T>> call) throws IOException {
+        return block(Collections.singleton(clusterName), call);
+    }
+
+    /**
+     * 同步等待跨多个集群的异步请求，按集群名称顺序获取各集群的信号量许可，避免相互等待
+     */
+    private <T> T block(Collection<String> clusterNames, Supplier<? extends CompletableFuture<T>> call) throws IOException {
+        List<Semaphore> acquired = new ArrayList<>();
+        try {
+            for (String clusterName : new TreeSet<>(clusterNames)) {
+                Semaphore permits = blockingPermitMap.get(clusterName);
+                if (permits == null) {
+                    continue;
+                }
+                long timeoutMillis = configMap.get(clusterName).getBlockingAcquireTimeoutMillis();
+                if (!permits.tryAcquire(timeoutMillis, TimeUnit.MILLISECONDS)) {
+                    throw new ElasticsearchStatusException("blocking requests exceeded,clusterName:{},waitMillis:{}",
+                            RestStatus.TOO_MANY_REQUESTS, clusterName, timeoutMillis);
+                }
+                acquired.add(permits);
+            }
+            return EsActionFuture.await(call.get());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("request interrupted");
+        } finally {
+            acquired.forEach(Semaphore::release);
+        }
+    }
+
+    /**
+     * 执行异步请求并在完成时记录耗时，未超过并发上限时返回原future以保留取消能力
+     * 需要排队时返回新的future，取消时移出队列或取消已发出的请求
+     */
+    private <T> CompletableFuture<T> timedAsync(String operation, EsIndexInfo esIndexInfo,
+                                                Supplier<? extends CompletableFuture<T>> call) {
+        return timedAsync(operation, esIndexInfo.getClusterName(), esIndexInfo.getIndexName(), call);
+    }
+
+    private <T> CompletableFuture<T> timedAsync(String operation, String clusterName, String indexName,
+                                                Supplier<? extends CompletableFuture<T>> call) {
+        CompletableFuture<EsConcurrencyLimiter.Permit> permit = acquirePermit(operation, clusterName, indexName);
+        if (permit.isDone() && !permit.isCompletedExceptionally()) {
+            return timedCall(operation, clusterName, indexName, permit.join(), call);
+        }
+        CompletableFuture<T> result = new CompletableFuture<>();
+        permit.whenComplete((granted, failure) -> {
+            if (failure != null) {
+                result.completeExceptionally(failure);
+                return;
+            }
+            if (result.isDone()) {
+                granted.release();
+                return;
+            }
+            CompletableFuture<T> future = timedCall(operation, clusterName, indexName, granted, call);
+            future.whenComplete((value, error) -> {
+                if (error == null) {
+                    result.complete(value);
+                } else {
+                    result.completeExceptionally(error);
+                }
+            });
+            result.whenComplete((value, error) -> {
+                if (result.isCancelled()) {
+                    future.cancel(true);
+                }
+            });
+        });
+        result.whenComplete((value, error) -> {
+            if (result.isCancelled()) {
+                permit.cancel(true);
+            }
+        });
+        return result;
+    }
+
+    private <T> CompletableFuture<T> timedCall(String operation, String clusterName, String indexName,
+                                               EsConcurrencyLimiter.Permit permit,
+                                               Supplier<? extends CompletableFuture<T>> call) {
+        long startNanos = System.nanoTime();
+        CompletableFuture<T> future;
+        try {
+            future = call.get();
+        } catch (RuntimeException e) {
+            permit.release();
+            throw e;
+        }
+        future.whenComplete((result, failure) -> {
+            // 被取消的请求(如对冲中落后的一方)没有有效耗时，不计入指标
+            if (!(failure instanceof CancellationException)) {
+                record(operation, clusterName, indexName, startNanos, result, failure == null);
+            }
+            releasePermit(permit, operation, result, failure, System.nanoTime() - startNanos);
+        });
+        return future;
+    }
+
+    private CompletableFuture<EsConcurrencyLimiter.Permit> acquirePermit(String operation, String clusterName, String indexName) {
+        EsConcurrencyLimiter.Lane lane = BULK_OPERATIONS.contains(operation)
+                ? EsConcurrencyLimiter.Lane.BULK : EsConcurrencyLimiter.Lane.INTERACTIVE;
+        return getLimiter(clusterName, indexName).acquire(lane);
+    }
+
+    /**
+     * 按请求结果归还并发许可：429拒绝缩小上限，成功时以耗时调整上限，其余失败只归还
+     */
+    private void releasePermit(EsConcurrencyLimiter.Permit permit, String operation, Object result,
+                               Throwable failure, long durationNanos) {
+        if (permit == EsConcurrencyLimiter.NOOP_PERMIT) {
+            return;
+        }
+        if (EsConcurrencyLimiter.isRejected(result, failure)) {
+            permit.onRejected();
+        } else if (failure == null) {
+            permit.onSuccess(UNSAMPLED_OPERATIONS.contains(operation) ? -1 : durationNanos);
+        } else {
+            permit.release();
+        }
+    }
+
+    /**
+     * 获取并发限制，开启limiterPerIndex时按索引创建，否则集群内共享
+     */
+    private EsConcurrencyLimiter getLimiter(String clusterName, String indexName) {
+        EsClusterConfig esConfig = configMap.get(clusterName);
+        String scope = esConfig.isLimiterPerIndex() ? indexName : ALL_INDICES;
+        return limiterMap.computeIfAbsent(clusterName + "/" + scope, key -> new EsConcurrencyLimiter(clusterName, scope,
+                esConfig.getInteractiveLimiter(), esConfig.getBulkLimiter(), metrics));
+    }
+
+    private void record(String operation, String clusterName, String indexName, long startNanos,
+                        Object result, boolean success) {
+        long durationNanos = System.nanoTime() - startNanos;
+        metrics.recordRequest(operation, clusterName, indexName, durationNanos, success);
+        long tookMillis = -1;
+        if (result instanceof SearchResponse) {
+            tookMillis = ((SearchResponse) result).getTook().millis();
+        } else if (result instanceof MultiSearchResponse) {
+            tookMillis = ((MultiSearchResponse) result).getTook().millis();
+        } else if (result instanceof BulkResponse) {
+            tookMillis = ((BulkResponse) result).getTook().millis();
+        } else if (result instanceof BulkByScrollResponse) {
+            tookMillis = ((BulkByScrollResponse) result).getTook().millis();
+        }
+        if (tookMillis >= 0) {
+            metrics.recordTook(operation, clusterName, indexName, tookMillis, durationNanos);
+        }
+        long thresholdMillis = configMap.get(clusterName).getSlowQueryThresholdMillis();
+        long costMillis = TimeUnit.NANOSECONDS.toMillis(durationNanos);
+        if (thresholdMillis >= 0 && costMillis >= thresholdMillis) {
+            log.warn("slowQuery,operation:{},clusterName:{},indexName:{},costMillis:{},tookMillis:{}",
+                    operation, clusterName, indexName, costMillis, tookMillis);
+        }
+    }
+
+    /**
+     * 执行异步写操作，完成后先失效本地缓存再通知调用方
+     */
+    private <R, T> EsActionFuture<T> executeWrite(Function<ActionListener<R>, Cancellable> call,
+                                                  CheckedFunction<R, T, Exception> mapper,
+                                                  Runnable invalidation) {
+        EsActionFuture<T> future = EsActionFuture.execute(call, response -> {
+            invalidation.run();
+            return mapper.apply(response);
+        });
+        future.whenComplete((result, failure) -> {
+            if (failure != null) {
+                invalidation.run();
+            }
+        });
+        return future;
+    }
+
+    private EsLocalCache<String, BytesReference> getDocCache(EsIndexInfo esIndexInfo) {
+        EsCacheConfig cacheConfig = configMap.get(esIndexInfo.getClusterName()).getDocCaches().get(esIndexInfo.getIndexName());
+        if (cacheConfig == null) {
+            return null;
+        }
+        return docCacheMap.computeIfAbsent(cacheKey(esIndexInfo), key -> {
+            EsLocalCache<String, BytesReference> docCache = new EsLocalCache<>(cacheConfig);
+            metrics.bindCache("doc", esIndexInfo.getClusterName(), esIndexInfo.getIndexName(), docCache::stats);
+            return docCache;
+        });
+    }
+
+    private EsLocalCache<String, List<String>> getAnalyzeCache(String clusterName) {
+        EsCacheConfig cacheConfig = configMap.get(clusterName).getAnalyzeCache();
+        if (cacheConfig == null) {
+            return null;
+        }
+        return analyzeCacheMap.computeIfAbsent(clusterName, key -> {
+            EsLocalCache<String, List<String>> analyzeCache = new EsLocalCache<>(cacheConfig);
+            metrics.bindCache("analyze", clusterName, "", analyzeCache::stats);
+            return analyzeCache;
+        });
+    }
+
+    /**
+     * 读取文档_source，配置了文档缓存时先查缓存，未命中则加载并写入缓存
+     */
+    private BytesReference getDocSource(EsIndexInfo esIndexInfo, String docId) throws IOException {
+        EsLocalCache<String, BytesReference> docCache = getDocCache(esIndexInfo);
+        BytesReference cached = docCache == null ? null : docCache.get(docId);
+        if (cached != null) {
+            return cached;
+        }
+        long generation = docCache == null ? 0 : docCache.generation();
+        GetRequest getRequest = buildGetRequest(esIndexInfo, docId, null);
+        GetResponse response = executeGet(esIndexInfo, getRequest);
+        if (!response.isExists()) {
+            return null;
+        }
+        if (docCache != null) {
+            docCache.putIfCurrent(docId, response.getSourceAsBytesRef(), generation);
+        }
+        return response.getSourceAsBytesRef();
+    }
+
+    /**
+     * 从文档缓存中读取并按字段过滤，未配置缓存或未命中时返回null
+     */
+    private Map<String, Object> getCachedDoc(EsIndexInfo esIndexInfo, String docId, String[] fields) {
+        EsLocalCache<String, BytesReference> docCache = getDocCache(esIndexInfo);
+        BytesReference cached = docCache == null ? null : docCache.get(docId);
+        if (cached == null) {
+            return null;
+        }
+        Map<String, Object> source = XContentHelper.convertToMap(cached, false, XContentType.JSON).v2();
+        return fields == null ? source : XContentMapValues.filter(source, fields, null);
+    }
+
+    private void invalidateDoc(EsIndexInfo esIndexInfo, String docId) {
+        invalidateDoc(esIndexInfo.getClusterName(), esIndexInfo.getIndexName(), docId);
+    }
+
+    private void invalidateDoc(String clusterName, String indexName, String docId) {
+        String key = cacheKey(clusterName, indexName);
+        EsLocalCache<String, BytesReference> docCache = docCacheMap.get(key);
+        if (docCache != null && docId != null) {
+            docCache.invalidate(docId);
+        }
+        EsSearchCache searchCache = searchCacheMap.get(key);
+        if (searchCache != null) {
+            searchCache.invalidateAll();
+        }
+    }
+
+    private void invalidateIndex(EsIndexInfo esIndexInfo) {
+        String key = cacheKey(esIndexInfo);
+        EsLocalCache<String, BytesReference> docCache = docCacheMap.get(key);
+        if (docCache != null) {
+            docCache.invalidateAll();
+        }
+        EsSearchCache searchCache = searchCacheMap.get(key);
+        if (searchCache != null) {
+            searchCache.invalidateAll();
+        }
+    }
+
+    private static String cacheKey(EsIndexInfo esIndexInfo) {
+        return cacheKey(esIndexInfo.getClusterName(), esIndexInfo.getIndexName());
+    }
+
+    private static String cacheKey(String clusterName, String indexName) {
+        return clusterName + "/" + indexName;
+    }
+
+    private IndexRequest buildIndexRequest(EsIndexInfo esIndexInfo, EsSourceData esSourceData) {
+        IndexRequest indexRequest = new IndexRequest(esIndexInfo.getIndexName());
+        indexRequest.id(esSourceData.getDocId());
+        indexRequest.source(esSourceData.getData());
+        return indexRequest;
+    }
+
+    private UpdateRequest buildUpdateRequest(EsIndexInfo esIndexInfo, EsSourceData esSourceData) {
+        UpdateRequest updateRequest = new UpdateRequest();
+        updateRequest.index(esIndexInfo.getIndexName());
+        updateRequest.id(esSourceData.getDocId());
+        updateRequest.doc(esSourceData.getData());
+        return updateRequest;
+    }
+
+    List<DocWriteRequest<?>> buildIndexRequests(EsIndexInfo esIndexInfo, List<EsSourceData> esSourceDataList) {
+        List<DocWriteRequest<?>> requests = new ArrayList<>(esSourceDataList.size());
+        for (EsSourceData source : esSourceDataList) {
+            if (StringUtils.isNotBlank(source.getDocId())) {
+                requests.add(buildIndexRequest(esIndexInfo, source));
+            }
+        }
+        return requests;
+    }
+
+    private List<DocWriteRequest<?>> buildRawIndexRequests(EsIndexInfo esIndexInfo, List<EsRawSourceData> docs) {
+        List<DocWriteRequest<?>> requests = new ArrayList<>(docs.size());
+        for (EsRawSourceData doc : docs) {
+            requests.add(new IndexRequest(esIndexInfo.getIndexName()).id(doc.getDocId()).source(doc.getSource(), XContentType.JSON));
+        }
+        return requests;
+    }
+
+    private List<EsRawSourceData> filterRawDocs(List<EsRawSourceData> rawDataList) {
+        List<EsRawSourceData> docs = new ArrayList<>(rawDataList.size());
+        for (EsRawSourceData doc : rawDataList) {
+            if (StringUtils.isNotBlank(doc.getDocId()) && doc.getSource() != null) {
+                docs.add(doc);
+            }
+        }
+        return docs;
+    }
+
+    /**
+     * 构建原始文档的_bulk请求，索引名放在路径中
+     */
+    Request buildRawBulkRequest(EsIndexInfo esIndexInfo, List<EsRawSourceData> docs) throws IOException {
+        EsNdjsonBulkEntity entity = new EsNdjsonBulkEntity(docs);
+        metrics.recordBulk(esIndexInfo.getClusterName(), esIndexInfo.getIndexName(), docs.size(), entity.getContentLength());
+        Request request = new Request("POST", "/" + esIndexInfo.getIndexName() + "/_bulk");
+        request.setEntity(entity);
+        return request;
+    }
+
+    BulkResponse parseBulkResponse(HttpEntity entity) throws IOException {
+        try (InputStream content = entity.getContent();
+             XContentParser parser = XContentType.JSON.xContent().createParser(NamedXContentRegistry.EMPTY,
+                     DeprecationHandler.THROW_UNSUPPORTED_OPERATION, content)) {
+            return BulkResponse.fromXContent(parser);
+        }
+    }
+
+    /**
+     * 转换为带状态码的异常，以便重试策略识别整批被拒绝(429)
+     */
+    private static ElasticsearchStatusException toStatusException(ResponseException e) {
+        RestStatus status = RestStatus.fromCode(e.getResponse().getStatusLine().getStatusCode());
+        return new ElasticsearchStatusException(e.getMessage(), status == null ? RestStatus.INTERNAL_SERVER_ERROR : status, e);
+    }
+
+    private List<DocWriteRequest<?>> buildUpdateRequests(EsIndexInfo esIndexInfo, List<EsSourceData> esSourceDataList) {
+        List<DocWriteRequest<?>> requests = new ArrayList<>(esSourceDataList.size());
+        for (EsSourceData source : esSourceDataList) {
+            if (StringUtils.isNotBlank(source.getDocId())) {
+                requests.add(buildUpdateRequest(esIndexInfo, source));
+            }
+        }
+        return requests;
+    }
+
+    private DeleteRequest buildDeleteRequest(EsIndexInfo esIndexInfo, String docId) {
+        DeleteRequest deleteRequest = new DeleteRequest(esIndexInfo.getIndexName());
+        deleteRequest.id(docId);
+        return deleteRequest;
+    }
+
+    private DeleteByQueryRequest buildDeleteAllRequest(EsIndexInfo esIndexInfo) {
+        DeleteByQueryRequest deleteByQueryRequest = new DeleteByQueryRequest(esIndexInfo.getIndexName());
+        deleteByQueryRequest.setQuery(QueryBuilders.matchAllQuery());
+        return deleteByQueryRequest;
+    }
+
+    private EsTaskHandle submitTask(EsIndexInfo esIndexInfo, String operation, String action,
+                                    QueryBuilder queryBuilder, Script script, EsByQueryOptions options) {
+        try {
+            checkSpoolDrained(esIndexInfo);
+            Request request = buildByQueryTaskRequest(esIndexInfo, action, queryBuilder, script, options);
+            RestClient lowLevelClient = getClient(esIndexInfo.getClusterName()).getLowLevelClient();
+            Response response = timed(operation, esIndexInfo, () -> EsActionFuture.performRequest(lowLevelClient, request));
+            EsTaskHandle taskHandle = new EsTaskHandle();
+            taskHandle.setClusterName(esIndexInfo.getClusterName());
+            taskHandle.setIndexName(esIndexInfo.getIndexName());
+            taskHandle.setAction(action);
+            taskHandle.setTaskId(JSONObject.parseObject(EntityUtils.toString(response.getEntity())).getString("task"));
+            log.info("{}.submitted,indexName:{},taskId:{}", operation, esIndexInfo.getIndexName(), taskHandle.getTaskId());
+            return taskHandle;
+        } catch (Exception e) {
+            log.error("{}.exception:{}", operation, e.getMessage(), e);
+            return null;
+        } finally {
+            invalidateIndex(esIndexInfo);
+        }
+    }
+
+    /**
+     * 构建后台执行的按查询更新、删除请求，批次大小通过scroll_size传递，请求体中的size在7.x表示最多处理的文档数，不使用
+     */
+    Request buildByQueryTaskRequest(EsIndexInfo esIndexInfo, String action, QueryBuilder queryBuilder, Script script,
+                                    EsByQueryOptions options) throws IOException {
+        Request request = new Request("POST", "/" + esIndexInfo.getIndexName() + "/_" + action);
+        request.addParameter("wait_for_completion", "false");
+        request.addParameter("conflicts", options.isAbortOnVersionConflict() ? "abort" : "proceed");
+        request.addParameter("scroll_size", String.valueOf(options.getBatchSize()));
+        request.addParameter("slices", options.getSlices() == EsByQueryOptions.AUTO_SLICES
+                ? "auto" : String.valueOf(options.getSlices()));
+        if (options.getRequestsPerSecond() > 0) {
+            request.addParameter("requests_per_second", String.valueOf(options.getRequestsPerSecond()));
+        }
+        if (options.isRefresh()) {
+            request.addParameter("refresh", "true");
+        }
+        XContentBuilder body = XContentFactory.jsonBuilder().startObject().field("query", queryBuilder);
+        if (script != null) {
+            body.field("script", script);
+        }
+        request.setJsonEntity(Strings.toString(body.endObject()));
+        return request;
+    }
+
+    private void pollTask(EsTaskHandle taskHandle, long pollIntervalMillis, int errors, CompletableFuture<EsTaskStatus> result) {
+        if (result.isDone()) {
+            return;
+        }
+        getTaskStatusAsync(taskHandle).whenComplete((status, failure) -> {
+            if (failure != null) {
+                if (errors + 1 < MAX_TASK_POLL_ERRORS && EsReadRouter.isFailoverable(failure)) {
+                    log.warn("awaitTask.pollFailed,taskId:{},message:{}", taskHandle.getTaskId(), failure.getMessage());
+                    TASK_POLL_SCHEDULER.schedule(() -> pollTask(taskHandle, pollIntervalMillis, errors + 1, result),
+                            pollIntervalMillis, TimeUnit.MILLISECONDS);
+                } else {
+                    result.completeExceptionally(EsReadRouter.unwrap(failure));
+                }
+                return;
+            }
+            if (status.isCompleted()) {
+                result.complete(status);
+                return;
+            }
+            if (log.isDebugEnabled()) {
+                log.debug("awaitTask.progress,taskId:{},processed:{},total:{},throughput:{}", taskHandle.getTaskId(),
+                        status.getProcessed(), status.getTotal(), (long) status.getThroughput());
+            }
+            TASK_POLL_SCHEDULER.schedule(() -> pollTask(taskHandle, pollIntervalMillis, 0, result),
+                    pollIntervalMillis, TimeUnit.MILLISECONDS);
+        });
+    }
+
+    private void onTaskCompleted(EsTaskHandle taskHandle, EsTaskStatus status) {
+        invalidateIndex(taskIndexInfo(taskHandle));
+        if (status.getVersionConflicts() > 0) {
+            log.warn("task.versionConflicts,taskId:{},conflicts:{}", taskHandle.getTaskId(), status.getVersionConflicts());
+        }
+        if (!status.isSuccess()) {
+            log.error("task.failures,taskId:{},error:{},canceled:{},timedOut:{},failures:{}", taskHandle.getTaskId(),
+                    status.getError(), status.getCanceled(), status.isTimedOut(), status.getFailures());
+        }
+    }
+
+    /**
+     * 记录按查询更新、删除的冲突及失败，存在写入失败、读取失败或超时时返回false
+     */
+    private boolean checkByQueryResponse(String operation, EsIndexInfo esIndexInfo, BulkByScrollResponse response) {
+        if (response.getVersionConflicts() > 0) {
+            log.warn("{}.versionConflicts,indexName:{},conflicts:{}", operation, esIndexInfo.getIndexName(),
+                    response.getVersionConflicts());
+        }
+        if (response.getBulkFailures().isEmpty() && response.getSearchFailures().isEmpty() && !response.isTimedOut()) {
+            return true;
+        }
+        log.error("{}.failures,indexName:{},bulkFailures:{},searchFailures:{},timedOut:{}", operation,
+                esIndexInfo.getIndexName(), response.getBulkFailures(), response.getSearchFailures(), response.isTimedOut());
+        return false;
+    }
+
+    /**
+     * 解析_tasks接口的响应，任务结束后计数取自最终结果
+     */
+    EsTaskStatus parseTaskStatus(HttpEntity entity) throws IOException {
+        JSONObject root = JSONObject.parseObject(EntityUtils.toString(entity));
+        EsTaskStatus status = new EsTaskStatus();
+        status.setCompleted(root.getBooleanValue("completed"));
+        JSONObject task = root.getJSONObject("task");
+        JSONObject counts = root.getJSONObject("response");
+        if (task != null) {
+            status.setTaskId(task.getString("node") + ":" + task.getLongValue("id"));
+            status.setRunningTimeMillis(TimeUnit.NANOSECONDS.toMillis(task.getLongValue("running_time_in_nanos")));
+            if (counts == null) {
+                counts = task.getJSONObject("status");
+            }
+        }
+        if (counts != null) {
+            status.setTotal(counts.getLongValue("total"));
+            status.setUpdated(counts.getLongValue("updated"));
+            status.setCreated(counts.getLongValue("created"));
+            status.setDeleted(counts.getLongValue("deleted"));
+            status.setNoops(counts.getLongValue("noops"));
+            status.setVersionConflicts(counts.getLongValue("version_conflicts"));
+            status.setBatches(counts.getLongValue("batches"));
+            status.setThrottledMillis(counts.getLongValue("throttled_millis"));
+            status.setRequestsPerSecond(counts.getFloatValue("requests_per_second"));
+            status.setTimedOut(counts.getBooleanValue("timed_out"));
+            status.setCanceled(counts.getString("canceled"));
+            JSONArray failures = counts.getJSONArray("failures");
+            for (int i = 0; failures != null && i < failures.size(); i++) {
+                JSONObject failure = failures.getJSONObject(i);
+                JSONObject cause = failure.containsKey("cause") ? failure.getJSONObject("cause") : failure.getJSONObject("reason");
+                String message = cause == null ? failure.toJSONString() : cause.getString("type") + ":" + cause.getString("reason");
+                String docId = failure.getString("id");
+                status.getFailures().add(docId == null ? message : docId + "," + message);
+            }
+        }
+        JSONObject error = root.getJSONObject("error");
+        if (error != null) {
+            status.setError(error.getString("type") + ":" + error.getString("reason"));
+        }
+        return status;
+    }
+
+    /**
+     * 去掉ES生成的索引设置，保留原有设置、映射及别名
+     */
+    private static JSONObject buildRecreateIndexBody(JSONObject index) {
+        JSONObject settings = index.getJSONObject("settings");
+        JSONObject indexSettings = settings == null ? null : settings.getJSONObject("index");
+        if (indexSettings != null) {
+            GENERATED_INDEX_SETTINGS.forEach(indexSettings::remove);
+        }
+        JSONObject body = new JSONObject();
+        body.put("settings", settings);
+        body.put("mappings", index.getJSONObject("mappings"));
+        body.put("aliases", index.getJSONObject("aliases"));
+        return body;
+    }
+
+    /**
+     * 获取索引或别名指向的各索引的设置、映射及别名，不存在时返回空对象
+     */
+    private JSONObject getIndexDefinitions(RestClient lowLevelClient, EsIndexInfo esIndexInfo, String operation) throws IOException {
+        try {
+            Response response = timed(operation, esIndexInfo,
+                    () -> EsActionFuture.performRequest(lowLevelClient, new Request("GET", "/" + esIndexInfo.getIndexName())));
+            return JSONObject.parseObject(EntityUtils.toString(response.getEntity()));
+        } catch (ResponseException e) {
+            if (e.getResponse().getStatusLine().getStatusCode() == RestStatus.NOT_FOUND.getStatus()) {
+                return new JSONObject();
+            }
+            throw e;
+        }
+    }
+
+    /**
+     * 取出并移除索引设置，兼容settings中的"name"、"index.name"及{"index":{"name"}}三种写法
+     */
+    private static String takeIndexSetting(JSONObject settings, String name) {
+        Object value = settings.remove(name);
+        Object flatValue = settings.remove("index." + name);
+        JSONObject index = settings.getJSONObject("index");
+        Object nestedValue = index == null ? null : index.remove(name);
+        Object result = nestedValue != null ? nestedValue : flatValue != null ? flatValue : value;
+        return result == null ? null : result.toString();
+    }
+
+    /**
+     * 合并段，请求超过读取超时后改为轮询合并任务直到完成或超过forceMergeTimeoutMillis
+     */
+    private void forceMerge(RestClient lowLevelClient, EsIndexRebuild rebuild) throws IOException {
+        EsIndexInfo target = rebuild.toIndexInfo();
+        Request request = new Request("POST", "/" + rebuild.getIndexName() + "/_forcemerge");
+        request.addParameter("max_num_segments", String.valueOf(rebuild.getOptions().getForceMergeSegments()));
+        long deadline = System.currentTimeMillis() + rebuild.getOptions().getForceMergeTimeoutMillis();
+        try {
+            timed("completeRebuild", target, () -> EsActionFuture.performRequest(lowLevelClient, request));
+            return;
+        } catch (SocketTimeoutException e) {
+            log.info("completeRebuild.forceMerge.running,indexName:{}", rebuild.getIndexName());
+        }
+        Request tasksRequest = new Request("GET", "/_tasks");
+        tasksRequest.addParameter("actions", "indices:admin/forcemerge*");
+        tasksRequest.addParameter("detailed", "true");
+        String marker = "[" + rebuild.getIndexName() + "]";
+        while (System.currentTimeMillis() < deadline) {
+            sleepForRebuild();
+            Response response = timed("completeRebuild", target, () -> EsActionFuture.performRequest(lowLevelClient, tasksRequest));
+            if (!EntityUtils.toString(response.getEntity()).contains(marker)) {
+                return;
+            }
+        }
+        log.warn("completeRebuild.forceMerge.timeout,indexName:{}", rebuild.getIndexName());
+    }
+
+    /**
+     * 等待索引变为green，每次等待不超过读取超时的一半
+     */
+    private boolean waitForGreen(RestClient lowLevelClient, EsIndexRebuild rebuild) throws IOException {
+        EsIndexInfo target = rebuild.toIndexInfo();
+        long slice = Math.max(1000, Math.min(REBUILD_POLL_INTERVAL_MILLIS * 2,
+                configMap.get(rebuild.getClusterName()).getSocketTimeoutMillis() / 2));
+        long deadline = System.currentTimeMillis() + rebuild.getOptions().getGreenTimeoutMillis();
+        while (true) {
+            long wait = Math.max(0, Math.min(slice, deadline - System.currentTimeMillis()));
+            Request request = new Request("GET", "/_cluster/health/" + rebuild.getIndexName());
+            request.addParameter("wait_for_status", "green");
+            request.addParameter("timeout", wait + "ms");
+            try {
+                timed("completeRebuild", target, () -> EsActionFuture.performRequest(lowLevelClient, request));
+                return true;
+            } catch (ResponseException e) {
+                if (e.getResponse().getStatusLine().getStatusCode() != RestStatus.REQUEST_TIMEOUT.getStatus()) {
+                    throw e;
+                }
+            }
+            if (System.currentTimeMillis() >= deadline) {
+                return false;
+            }
+        }
+    }
+
+    /**
+     * 在一次_aliases请求中把别名加到新索引并从原索引移除，别名原为索引名称时删除该索引
+     *
+     * @return 需要删除的原索引
+     */
+    private List<String> swapAlias(RestClient lowLevelClient, EsIndexRebuild rebuild) throws IOException {
+        EsIndexInfo target = rebuild.toIndexInfo();
+        String alias = rebuild.getAlias();
+        List<String> oldIndices = new ArrayList<>();
+        JSONArray actions = new JSONArray();
+        actions.add(JSONObject.of("add", JSONObject.of("index", rebuild.getIndexName(), "alias", alias)));
+        try {
+            Response response = timed("completeRebuild", target,
+                    () -> EsActionFuture.performRequest(lowLevelClient, new Request("GET", "/" + alias + "/_alias")));
+            for (String index : JSONObject.parseObject(EntityUtils.toString(response.getEntity())).keySet()) {
+                if (index.equals(alias)) {
+                    actions.add(JSONObject.of("remove_index", JSONObject.of("index", index)));
+                } else if (!index.equals(rebuild.getIndexName())) {
+                    actions.add(JSONObject.of("remove", JSONObject.of("index", index, "alias", alias)));
+                    oldIndices.add(index);
+                }
+            }
+        } catch (ResponseException e) {
+            if (e.getResponse().getStatusLine().getStatusCode() != RestStatus.NOT_FOUND.getStatus()) {
+                throw e;
+            }
+        }
+        Request request = new Request("POST", "/_aliases");
+        request.setJsonEntity(JSONObject.of("actions", actions).toJSONString());
+        timed("completeRebuild", target, () -> EsActionFuture.performRequest(lowLevelClient, request));
+        return oldIndices;
+    }
+
+    private static void sleepForRebuild() throws InterruptedIOException {
+        try {
+            Thread.sleep(REBUILD_POLL_INTERVAL_MILLIS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("rebuild interrupted");
+        }
+    }
+
+    private static EsIndexInfo taskIndexInfo(EsTaskHandle taskHandle) {
+        EsIndexInfo esIndexInfo = new EsIndexInfo();
+        esIndexInfo.setClusterName(taskHandle.getClusterName());
+        esIndexInfo.setIndexName(taskHandle.getIndexName());
+        return esIndexInfo;
+    }
+
+    private GetRequest buildGetRequest(EsIndexInfo esIndexInfo, String docId, String[] fields) {
+        GetRequest getRequest = new GetRequest(esIndexInfo.getIndexName());
+        getRequest.id(docId);
+        if (fields != null) {
+            getRequest.fetchSourceContext(new FetchSourceContext(true, fields, null));
+        }
+        return getRequest;
+    }
+
+    private UpdateByQueryRequest buildUpdateByQueryRequest(EsIndexInfo esIndexInfo, QueryBuilder queryBuilder,
+                                                           Script script, int batchSize) {
+        UpdateByQueryRequest updateByQueryRequest = new UpdateByQueryRequest(esIndexInfo.getIndexName());
+        updateByQueryRequest.setQuery(queryBuilder);
+        updateByQueryRequest.setScript(script);
+        updateByQueryRequest.setBatchSize(batchSize);
+        updateByQueryRequest.setAbortOnVersionConflict(false);
+        return updateByQueryRequest;
+    }
+
+    private CompletableFuture<SearchResponse> submitSearch(EsIndexInfo esIndexInfo, SearchRequest searchRequest) {
+        return routeRead("searchWithTermQuery", esIndexInfo, target -> {
+            if (isSearchBatchEnabled(target)) {
+                return timedAsync("searchWithTermQuery", target,
+                        () -> getSearchBatcher(target.getClusterName()).submit(searchRequest));
+            }
+            RestHighLevelClient client = getClient(target.getClusterName());
+            return timedAsync("searchWithTermQuery", target, () -> EsActionFuture.<SearchResponse>execute(
+                    listener -> client.searchAsync(searchRequest, COMMON_OPTIONS, listener)));
+        });
+    }
+
+    private CompletableFuture<EsCompactSearchResult> submitCompactSearch(EsIndexInfo esIndexInfo, Request request) {
+        return routeRead("searchCompact", esIndexInfo, target -> {
+            RestClient lowLevelClient = getClient(target.getClusterName()).getLowLevelClient();
+            return timedAsync("searchCompact", target, () -> EsActionFuture.performRequest(lowLevelClient, request,
+                    response -> EsCompactSearchParser.parse(EntityUtils.toByteArray(response.getEntity()))));
+        });
+    }
+
+    Request buildCompactSearchRequest(EsIndexInfo esIndexInfo, EsSearchRequest esSearchRequest) {
+        SearchRequest searchRequest = buildSearchRequest(esIndexInfo, esSearchRequest);
+        Request request = new Request("POST", "/" + esIndexInfo.getIndexName() + "/_search");
+        request.addParameter("filter_path", EsCompactSearchParser.FILTER_PATH);
+        request.setJsonEntity(Strings.toString(searchRequest.source()));
+        return request;
+    }
+
+    /**
+     * 按ID获取文档，配置了读副本时经由routeRead执行
+     */
+    private GetResponse executeGet(EsIndexInfo esIndexInfo, GetRequest getRequest) throws IOException {
+        if (hasReadReplicas(esIndexInfo)) {
+            return block(esIndexInfo.getClusterName(), () -> executeGetAsync(esIndexInfo, getRequest, response -> response));
+        }
+        RestHighLevelClient client = getClient(esIndexInfo.getClusterName());
+        return timed("getDocById", esIndexInfo, () -> EsActionFuture.<GetResponse>execute(
+                listener -> client.getAsync(getRequest, COMMON_OPTIONS, listener)));
+    }
+
+    private <T> CompletableFuture<T> executeGetAsync(EsIndexInfo esIndexInfo, GetRequest getRequest,
+                                                     CheckedFunction<GetResponse, T, Exception> mapper) {
+        return routeRead("getDocById", esIndexInfo, target -> {
+            RestHighLevelClient client = getClient(target.getClusterName());
+            return timedAsync("getDocById", target, () -> EsActionFuture.execute(
+                    listener -> client.getAsync(getRequest, COMMON_OPTIONS, listener), mapper));
+        });
+    }
+
+    /**
+     * 执行读请求，索引配置了读副本集群时失败后依次转向副本，开启对冲时主集群超过延迟分位数未返回即同时请求副本
+     * 读副本使用相同的索引名称
+     */
+    private <T> CompletableFuture<T> routeRead(String operation, EsIndexInfo esIndexInfo,
+                                               Function<EsIndexInfo, CompletableFuture<T>> call) {
+        List<String> replicas = readReplicas(esIndexInfo);
+        if (replicas.isEmpty()) {
+            return call.apply(esIndexInfo);
+        }
+        List<EsReadRouter.Attempt<T>> attempts = new ArrayList<>(replicas.size() + 1);
+        attempts.add(EsReadRouter.attempt(readKey(operation, esIndexInfo), () -> call.apply(esIndexInfo)));
+        for (String replica : replicas) {
+            EsIndexInfo target = new EsIndexInfo();
+            target.setClusterName(replica);
+            target.setIndexName(esIndexInfo.getIndexName());
+            attempts.add(EsReadRouter.attempt(readKey(operation, target), () -> call.apply(target)));
+        }
+        return readRouter.execute(attempts, hedgeDelayMillis(operation, esIndexInfo));
+    }
+
+    private boolean hasReadReplicas(EsIndexInfo esIndexInfo) {
+        return !readReplicas(esIndexInfo).isEmpty();
+    }
+
+    /**
+     * 索引的读副本集群，忽略未初始化的集群
+     */
+    private List<String> readReplicas(EsIndexInfo esIndexInfo) {
+        List<String> replicas = configMap.get(esIndexInfo.getClusterName()).getReadReplicas().get(esIndexInfo.getIndexName());
+        if (replicas == null || replicas.isEmpty()) {
+            return Collections.emptyList();
+        }
+        List<String> available = new ArrayList<>(replicas.size());
+        for (String replica : replicas) {
+            if (getClient(replica) != null && !replica.equals(esIndexInfo.getClusterName())) {
+                available.add(replica);
+            }
+        }
+        return available;
+    }
+
+    /**
+     * 对冲等待时间，未开启对冲或主集群延迟样本不足时返回-1
+     */
+    private long hedgeDelayMillis(String operation, EsIndexInfo esIndexInfo) {
+        EsClusterConfig esConfig = configMap.get(esIndexInfo.getClusterName());
+        if (!esConfig.isHedgeEnabled()) {
+            return -1;
+        }
+        long percentileMillis = readRouter.percentileMillis(readKey(operation, esIndexInfo), esConfig.getHedgePercentile());
+        return percentileMillis < 0 ? -1 : Math.max(percentileMillis, esConfig.getHedgeMinDelayMillis());
+    }
+
+    private static String readKey(String operation, EsIndexInfo esIndexInfo) {
+        return cacheKey(esIndexInfo) + "/" + operation;
+    }
+
+    /**
+     * 获取索引的搜索结果缓存，未配置或为scroll请求时返回null
+     */
+    private EsSearchCache getSearchCache(EsIndexInfo esIndexInfo, SearchRequest searchRequest) {
+        return searchRequest.scroll() != null ? null : getSearchCache(esIndexInfo);
+    }
+
+    private EsSearchCache getSearchCache(EsIndexInfo esIndexInfo) {
+        EsSearchCacheConfig cacheConfig = configMap.get(esIndexInfo.getClusterName()).getSearchCaches().get(esIndexInfo.getIndexName());
+        if (cacheConfig == null) {
+            return null;
+        }
+        return searchCacheMap.computeIfAbsent(cacheKey(esIndexInfo), key -> {
+            EsSearchCache searchCache = new EsSearchCache(cacheConfig);
+            metrics.bindCache("search", esIndexInfo.getClusterName(), esIndexInfo.getIndexName(), searchCache::stats);
+            return searchCache;
+        });
+    }
+
+    private boolean isSearchBatchEnabled(EsIndexInfo esIndexInfo) {
+        return configMap.get(esIndexInfo.getClusterName()).isMsearchBatchEnabled();
+    }
+
+    private List<MultiGetItemResponse> executeMultiGet(EsIndexInfo esIndexInfo,
+                                                       Collection<String> ids,
+                                                       FetchSourceContext fetchSourceContext,
+                                                       boolean parallel,
+                                                       String operation) {
+        List<MultiGetItemResponse> items = new ArrayList<>(ids.size());
+        if (ids.isEmpty()) {
+            return items;
+        }
+        RestHighLevelClient client = getClient(esIndexInfo.getClusterName());
+        int chunkSize = Math.max(1, configMap.get(esIndexInfo.getClusterName()).getMgetChunkSize());
+        List<String> distinctIds = new ArrayList<>(new LinkedHashSet<>(ids));
+        List<CompletableFuture<MultiGetResponse>> futures = new ArrayList<>();
+        try {
+            for (int from = 0; from < distinctIds.size(); from += chunkSize) {
+                MultiGetRequest multiGetRequest = new MultiGetRequest();
+                for (String docId : distinctIds.subList(from, Math.min(from + chunkSize, distinctIds.size()))) {
+                    multiGetRequest.add(new MultiGetRequest.Item(esIndexInfo.getIndexName(), docId)
+                            .fetchSourceContext(fetchSourceContext));
+                }
+                CompletableFuture<MultiGetResponse> future = timedAsync(operation, esIndexInfo,
+                        () -> EsActionFuture.<MultiGetResponse>execute(listener -> client.mgetAsync(multiGetRequest, COMMON_OPTIONS, listener)));
+                if (!parallel) {
+                    future.get();
+                }
+                futures.add(future);
+            }
+            for (CompletableFuture<MultiGetResponse> future : futures) {
+                for (MultiGetItemResponse item : future.get().getResponses()) {
+                    if (item.isFailed()) {
+                        log.error("{}.failure,id:{},message:{}", operation, item.getId(), item.getFailure().getMessage());
+                    } else {
+                        items.add(item);
+                    }
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            futures.forEach(future -> future.cancel(true));
+        } catch (Exception e) {
+            log.error("{}.exception:{}", operation, e.getMessage(), e);
+            futures.forEach(future -> future.cancel(true));
+        }
+        return items;
+    }
+
+    SearchRequest buildSearchRequest(EsIndexInfo esIndexInfo, EsSearchRequest esSearchRequest) {
+        BoolQueryBuilder boolQueryBuilder = esSearchRequest.getBoolQueryBuilder();
+        String[] fields = esSearchRequest.getFields();
+        int from = esSearchRequest.getFrom();
+        int size = esSearchRequest.getSize();
+        Long minutes = esSearchRequest.getMinutes();
+        Boolean needScroll = esSearchRequest.getNeedScroll();
+        String sortName = esSearchRequest.getSortName();
+        SortOrder sortOrder = esSearchRequest.getSortOrder();
+
+        SearchSourceBuilder searchSourceBuilder = new SearchSourceBuilder();
+        searchSourceBuilder.query(boolQueryBuilder);
+        if (Boolean.FALSE.equals(esSearchRequest.getFetchSource())) {
+            searchSourceBuilder.fetchSource(false);
+        } else {
+            searchSourceBuilder.fetchSource(fields, esSearchRequest.getExcludeFields());
+        }
+        searchSourceBuilder.from(from).size(size);
+        if (esSearchRequest.getDocValueFields() != null) {
+            for (String docValueField : esSearchRequest.getDocValueFields()) {
+                searchSourceBuilder.docValueField(docValueField);
+            }
+        }
+        Integer trackTotalHitsUpTo = esSearchRequest.getTrackTotalHitsUpTo();
+        if (trackTotalHitsUpTo != null) {
+            if (trackTotalHitsUpTo > 0) {
+                searchSourceBuilder.trackTotalHitsUpTo(trackTotalHitsUpTo);
+            } else {
+                searchSourceBuilder.trackTotalHits(false);
+            }
+        }
+
+        if (Objects.nonNull(esSearchRequest.getHighlightBuilder())) {
+            searchSourceBuilder.highlighter(esSearchRequest.getHighlightBuilder());
+        }
+        if (esSearchRequest.getAggregations() != null) {
+            esSearchRequest.getAggregations().forEach(searchSourceBuilder::aggregation);
+        }
+
+        List<SortBuilder<?>> sorts = esSearchRequest.getSorts();
+        if (sorts != null && !sorts.isEmpty()) {
+            sorts.forEach(searchSourceBuilder::sort);
+        } else {
+            if (StringUtils.isNotBlank(sortName)) {
+                searchSourceBuilder.sort(sortName);
+            }
+            searchSourceBuilder.sort(new ScoreSortBuilder().order(sortOrder));
+        }
+        if (esSearchRequest.isCursorPaging() || esSearchRequest.getSearchAfter() != null) {
+            applySearchAfter(searchSourceBuilder, esSearchRequest);
+        }
+
+        SearchRequest searchRequest = new SearchRequest();
+        searchRequest.searchType(SearchType.DEFAULT);
+        searchRequest.indices(esIndexInfo.getIndexName());
+        searchRequest.source(searchSourceBuilder);
+        if (Boolean.TRUE.equals(needScroll)) {
+            Scroll scroll = new Scroll(TimeValue.timeValueMinutes(minutes));
+            searchRequest.scroll(scroll);
+        }
+        return searchRequest;
+    }
+
+    /**
+     * 在composite聚合的请求体中设置after
+     */
+    private static String compositeAfter(String body, String name, Map<String, Object> afterKey) {
+        JSONObject source = JSONObject.parseObject(body);
+        source.getJSONObject("aggregations").getJSONObject(name).getJSONObject("composite").put("after", afterKey);
+        return source.toJSONString();
+    }
+
+    /**
+     * 追加唯一性排序字段并设置search_after，游标中的排序值个数须与排序字段一致
+     */
+    private static void applySearchAfter(SearchSourceBuilder source, EsSearchRequest esSearchRequest) {
+        String tieBreaker = esSearchRequest.getTieBreaker();
+        boolean hasTieBreaker = source.sorts().stream().anyMatch(sort -> sort instanceof FieldSortBuilder
+                && ((FieldSortBuilder) sort).getFieldName().equals(tieBreaker));
+        if (StringUtils.isNotBlank(tieBreaker) && !hasTieBreaker) {
+            source.sort(tieBreaker, SortOrder.ASC);
+        }
+        source.from(0);
+        if (esSearchRequest.getSearchAfter() != null) {
+            Object[] sortValues = EsSearchCursor.decode(esSearchRequest.getSearchAfter());
+            if (sortValues.length != source.sorts().size()) {
+                throw new IllegalArgumentException("search cursor does not match sorts,expected:" + source.sorts().size()
+                        + ",actual:" + sortValues.length);
+            }
+            source.searchAfter(sortValues);
+        }
+    }
+
+    private SearchRequest buildScrollRequest(EsIndexInfo esIndexInfo, EsSearchRequest esSearchRequest) {
+        SearchRequest searchRequest = buildSearchRequest(esIndexInfo, esSearchRequest);
+        SearchSourceBuilder source = searchRequest.source();
+        source.from(0).size(esSearchRequest.getSize() > 0 ? esSearchRequest.getSize() : DEFAULT_SCROLL_SIZE);
+        if (StringUtils.isBlank(esSearchRequest.getSortName())
+                && (esSearchRequest.getSorts() == null || esSearchRequest.getSorts().isEmpty())) {
+            // 全量遍历不需要打分排序，按_doc顺序读取开销最小
+            source.sorts().clear();
+            source.sort(FieldSortBuilder.DOC_FIELD_NAME);
+        }
+        Long minutes = esSearchRequest.getMinutes();
+        searchRequest.scroll(TimeValue.timeValueMinutes(minutes != null && minutes > 0 ? minutes : 1));
+        return searchRequest;
+    }
+
+    /**
+     * 一个_analyze请求的分词，偏移与文本长度不符时改为逐个文本请求，位置无法确定的文本单独请求
+     */
+    private CompletableFuture<List<List<EsAnalyzeToken>>> analyzeChunk(EsIndexInfo esIndexInfo, List<String> texts,
+                                                                      EsAnalyzeOptions options) {
+        Request request = buildAnalyzeRequest(esIndexInfo, texts, options);
+        RestClient lowLevelClient = getClient(esIndexInfo.getClusterName()).getLowLevelClient();
+        CompletableFuture<List<EsAnalyzeToken>> tokens = timedAsync("batchAnalyze", esIndexInfo,
+                () -> EsActionFuture.performRequest(lowLevelClient, request,
+                        response -> EsAnalyzeParser.parse(EntityUtils.toByteArray(response.getEntity()))));
+        int positionIncrementGap = options.getPositionIncrementGap() != null ? options.getPositionIncrementGap()
+                : StringUtils.isBlank(options.getField()) && StringUtils.isNotBlank(options.getTokenizer()) ? 0 : 100;
+        return tokens.thenCompose(list -> {
+            List<List<EsAnalyzeToken>> split = EsAnalyzeParser.split(list, texts, positionIncrementGap);
+            if (split == null) {
+                log.warn("batchAnalyze.offsetMismatch,clusterName:{},texts:{}", esIndexInfo.getClusterName(), texts.size());
+                split = new ArrayList<>(Collections.nCopies(texts.size(), null));
+            }
+            List<List<EsAnalyzeToken>> result = split;
+            Map<Integer, CompletableFuture<List<List<EsAnalyzeToken>>>> singles = new HashMap<>();
+            for (int i = 0; i < texts.size(); i++) {
+                if (result.get(i) == null) {
+                    singles.put(i, analyzeChunk(esIndexInfo, Collections.singletonList(texts.get(i)), options));
+                }
+            }
+            if (singles.isEmpty()) {
+                return CompletableFuture.completedFuture(result);
+            }
+            return CompletableFuture.allOf(singles.values().toArray(new CompletableFuture<?>[0])).thenApply(ignored -> {
+                singles.forEach((i, single) -> result.set(i, single.join().get(0)));
+                return result;
+            });
+        });
+    }
+
+    private Request buildAnalyzeRequest(EsIndexInfo esIndexInfo, List<String> texts, EsAnalyzeOptions options) {
+        boolean indexScoped = options.isIndexScoped() || StringUtils.isNotBlank(options.getField());
+        Request request = new Request("GET", indexScoped ? "/" + esIndexInfo.getIndexName() + "/_analyze" : "/_analyze");
+        JSONObject entity = new JSONObject();
+        if (StringUtils.isNotBlank(options.getField())) {
+            entity.put("field", options.getField());
+        } else if (StringUtils.isNotBlank(options.getTokenizer())) {
+            entity.put("tokenizer", options.getTokenizer());
+        } else {
+            entity.put("analyzer", options.getAnalyzer());
+        }
+        if (options.getTokenFilters() != null && !options.getTokenFilters().isEmpty()) {
+            entity.put("filter", options.getTokenFilters());
+        }
+        if (options.getCharFilters() != null && !options.getCharFilters().isEmpty()) {
+            entity.put("char_filter", options.getCharFilters());
+        }
+        entity.put("text", texts.size() == 1 ? texts.get(0) : texts);
+        request.setJsonEntity(entity.toJSONString());
+        return request;
+    }
+
+    private static String analyzeCacheKey(EsIndexInfo esIndexInfo, EsAnalyzeOptions options, String text) {
+        boolean indexScoped = options.isIndexScoped() || StringUtils.isNotBlank(options.getField());
+        return (indexScoped ? esIndexInfo.getIndexName() : "") + '|' + options.getField() + '|' + options.getAnalyzer()
+                + '|' + options.getTokenizer() + '|' + options.getTokenFilters() + '|' + options.getCharFilters() + '|' + text;
+    }
+
+    List<String> parseAnalyzeTokens(HttpEntity entity) throws IOException {
+        List<EsAnalyzeToken> tokens = EsAnalyzeParser.parse(EntityUtils.toByteArray(entity));
+        List<String> list = new ArrayList<String>(tokens.size());
+        for (EsAnalyzeToken token : tokens) {
+            list.add(token.getToken());
         }
         return list;
     }
@@ -0,0 +1,187 @@
+package com.easy.es.config;
+
+import lombok.extern.slf4j.Slf4j;
+import org.apache.lucene.search.TotalHits;
+import org.elasticsearch.action.search.ClearScrollRequest;
+import org.elasticsearch.action.search.ClearScrollResponse;
+import org.elasticsearch.action.search.SearchRequest;
+import org.elasticsearch.action.search.SearchResponse;
+import org.elasticsearch.action.search.SearchScrollRequest;
+import org.elasticsearch.client.RequestOptions;
+import org.elasticsearch.client.RestHighLevelClient;
+import org.elasticsearch.common.unit.TimeValue;
+import org.elasticsearch.search.SearchHit;
+import org.elasticsearch.search.SearchHits;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.NoSuchElementException;
+import java.util.Set;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * @author agent
+ * @ClassName EsScrollCursor
+ * @create 2026年10月17日 18:02
+ * @Description 基于scroll的流式游标，消费当前页时预取下一页，最多同时持有两页数据
+ * @Version V1.0
+ */
+@Slf4j
+public class EsScrollCursor implements Iterator<SearchHit>, Closeable {
+
+    private final RestHighLevelClient client;
+
+    private final RequestOptions options;
+
+    private final TimeValue keepAlive;
+
+    /**
+     * 使用过的scroll id，关闭时统一清理
+     */
+    private final Set<String> scrollIds = new LinkedHashSet<>();
+
+    private String scrollId;
+
+    private SearchHit[] page = new SearchHit[0];
+
+    private int position;
+
+    private CompletableFuture<SearchResponse> prefetch;
+
+    private long fetched;
+
+    private long totalHits = -1;
+
+    private boolean exhausted;
+
+    private boolean closed;
+
+    public EsScrollCursor(RestHighLevelClient client, SearchRequest searchRequest, RequestOptions options) throws IOException {
+        this.client = client;
+        this.options = options;
+        this.keepAlive = searchRequest.scroll().keepAlive();
+        accept(EsActionFuture.await(EsActionFuture.<SearchResponse>execute(
+                listener -> client.searchAsync(searchRequest, options, listener))));
+    }
+
+    /**
+     * 命中总数，服务端未精确统计时返回-1
+     */
+    public long getTotalHits() {
+        return totalHits;
+    }
+
+    @Override
+    public boolean hasNext() {
+        while (!closed && position >= page.length) {
+            if (exhausted) {
+                return false;
+            }
+            accept(awaitPrefetch());
+        }
+        return !closed;
+    }
+
+    @Override
+    public SearchHit next() {
+        if (!hasNext()) {
+            throw new NoSuchElementException();
+        }
+        SearchHit hit = page[position];
+        page[position++] = null;
+        return hit;
+    }
+
+    /**
+     * 转换为Stream，Stream关闭时关闭游标
+     */
+    public Stream<SearchHit> stream() {
+        return StreamSupport.stream(Spliterators.spliteratorUnknownSize(this,
+                Spliterator.ORDERED | Spliterator.NONNULL), false).onClose(this::close);
+    }
+
+    @Override
+    public void close() {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        page = new SearchHit[0];
+        if (prefetch != null && !prefetch.isDone()) {
+            prefetch.cancel(true);
+        }
+        prefetch = null;
+        clearScroll();
+    }
+
+    private void accept(SearchResponse response) {
+        scrollId = response.getScrollId();
+        if (scrollId != null) {
+            scrollIds.add(scrollId);
+        }
+        SearchHits hits = response.getHits();
+        TotalHits total = hits.getTotalHits();
+        if (total != null && total.relation == TotalHits.Relation.EQUAL_TO) {
+            totalHits = total.value;
+        }
+        page = hits.getHits();
+        position = 0;
+        fetched += page.length;
+
+        // 已取完全部命中时不再多发一次空的scroll请求
+        boolean lastPage = page.length == 0 || (totalHits >= 0 && fetched >= totalHits);
+        if (lastPage || scrollId == null) {
+            exhausted = true;
+            prefetch = null;
+            clearScroll();
+        } else {
+            SearchScrollRequest scrollRequest = new SearchScrollRequest(scrollId).scroll(keepAlive);
+            prefetch = EsActionFuture.execute(listener -> client.scrollAsync(scrollRequest, options, listener));
+        }
+    }
+
+    private SearchResponse awaitPrefetch() {
+        try {
+            return prefetch.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            close();
+            throw new IllegalStateException("scroll interrupted", e);
+        } catch (ExecutionException e) {
+            close();
+            Throwable cause = e.getCause();
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            if (cause instanceof IOException) {
+                throw new UncheckedIOException((IOException) cause);
+            }
+            throw new IllegalStateException(cause);
+        }
+    }
+
+    private void clearScroll() {
+        if (scrollIds.isEmpty()) {
+            return;
+        }
+        ClearScrollRequest clearScrollRequest = new ClearScrollRequest();
+        clearScrollRequest.setScrollIds(new ArrayList<>(scrollIds));
+        scrollIds.clear();
+        // 异步清理，关闭游标时不等待响应
+        EsActionFuture.<ClearScrollResponse>execute(listener -> client.clearScrollAsync(clearScrollRequest, options, listener))
+                .whenComplete((response, failure) -> {
+                    if (failure != null) {
+                        log.warn("clearScroll.exception:{}", failure.getMessage());
+                    }
+                });
+    }
+}
@@ -0,0 +1,172 @@
+package com.easy.es.config;
+
+import lombok.extern.slf4j.Slf4j;
+import org.elasticsearch.action.search.MultiSearchRequest;
+import org.elasticsearch.action.search.MultiSearchResponse;
+import org.elasticsearch.action.search.SearchRequest;
+import org.elasticsearch.action.search.SearchResponse;
+import org.elasticsearch.client.RequestOptions;
+import org.elasticsearch.client.RestHighLevelClient;
+
+import java.io.Closeable;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * @author agent
+ * @ClassName EsSearchBatcher
+ * @create 2026年10月17日 18:08
+ * @Description 将时间窗口内并发到达的搜索合并为一次_msearch，按集群创建
+ * @Version V1.0
+ */
+@Slf4j
+public class EsSearchBatcher implements Closeable {
+
+    private static final ScheduledExecutorService FLUSH_SCHEDULER = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread thread = new Thread(r, "es-msearch-batch");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private final RestHighLevelClient client;
+
+    private final RequestOptions options;
+
+    private final long windowMillis;
+
+    private final int maxBatchSize;
+
+    private final ReentrantLock lock = new ReentrantLock();
+
+    private List<PendingSearch> pending = new ArrayList<>();
+
+    private ScheduledFuture<?> scheduledFlush;
+
+    private boolean closed;
+
+    public EsSearchBatcher(RestHighLevelClient client, EsClusterConfig esConfig, RequestOptions options) {
+        this.client = client;
+        this.options = options;
+        this.windowMillis = Math.max(0, esConfig.getMsearchBatchWindowMillis());
+        this.maxBatchSize = Math.max(1, esConfig.getMsearchMaxBatchSize());
+    }
+
+    /**
+     * 提交一次搜索
+     * 窗口内首个请求开始计时，窗口结束或攒满maxBatchSize时一并发送
+     *
+     * @param searchRequest 搜索请求
+     * @return 该请求对应的搜索结果
+     */
+    public CompletableFuture<SearchResponse> submit(SearchRequest searchRequest) {
+        PendingSearch search = new PendingSearch(searchRequest);
+        List<PendingSearch> ready = null;
+        lock.lock();
+        try {
+            if (closed) {
+                search.future.completeExceptionally(new IllegalStateException("search batcher closed"));
+                return search.future;
+            }
+            pending.add(search);
+            if (pending.size() >= maxBatchSize) {
+                ready = drain();
+            } else if (pending.size() == 1) {
+                scheduledFlush = FLUSH_SCHEDULER.schedule(this::flush, windowMillis, TimeUnit.MILLISECONDS);
+            }
+        } finally {
+            lock.unlock();
+        }
+        if (ready != null) {
+            dispatch(ready);
+        }
+        return search.future;
+    }
+
+    /**
+     * 立即发送已攒下的请求
+     */
+    public void flush() {
+        List<PendingSearch> ready;
+        lock.lock();
+        try {
+            ready = drain();
+        } finally {
+            lock.unlock();
+        }
+        dispatch(ready);
+    }
+
+    @Override
+    public void close() {
+        lock.lock();
+        try {
+            closed = true;
+        } finally {
+            lock.unlock();
+        }
+        flush();
+    }
+
+    private List<PendingSearch> drain() {
+        List<PendingSearch> ready = pending;
+        pending = new ArrayList<>();
+        if (scheduledFlush != null) {
+            scheduledFlush.cancel(false);
+            scheduledFlush = null;
+        }
+        return ready;
+    }
+
+    private void dispatch(List<PendingSearch> batch) {
+        if (batch.isEmpty()) {
+            return;
+        }
+        if (batch.size() == 1) {
+            PendingSearch search = batch.get(0);
+            EsActionFuture.<SearchResponse>execute(listener -> client.searchAsync(search.request, options, listener))
+                    .whenComplete((response, failure) -> search.complete(response, failure));
+            return;
+        }
+        if (log.isDebugEnabled()) {
+            log.debug("searchBatcher.dispatch,searches:{}", batch.size());
+        }
+        MultiSearchRequest multiSearchRequest = new MultiSearchRequest();
+        batch.forEach(search -> multiSearchRequest.add(search.request));
+        EsActionFuture.<MultiSearchResponse>execute(listener -> client.msearchAsync(multiSearchRequest, options, listener))
+                .whenComplete((response, failure) -> {
+                    for (int i = 0; i < batch.size(); i++) {
+                        if (failure != null) {
+                            batch.get(i).complete(null, failure);
+                        } else {
+                            MultiSearchResponse.Item item = response.getResponses()[i];
+                            batch.get(i).complete(item.getResponse(), item.getFailure());
+                        }
+                    }
+                });
+    }
+
+    private static class PendingSearch {
+
+        private final SearchRequest request;
+
+        private final CompletableFuture<SearchResponse> future = new CompletableFuture<>();
+
+        PendingSearch(SearchRequest request) {
+            this.request = request;
+        }
+
+        void complete(SearchResponse response, Throwable failure) {
+            if (failure != null) {
+                future.completeExceptionally(failure);
+            } else {
+                future.complete(response);
+            }
+        }
+    }
+}
@@ -0,0 +1,179 @@
+package com.easy.es.config;
+
+import com.alibaba.fastjson2.JSON;
+import com.alibaba.fastjson2.JSONWriter;
+import lombok.extern.slf4j.Slf4j;
+import org.elasticsearch.action.search.SearchResponse;
+import org.elasticsearch.common.bytes.BytesReference;
+import org.elasticsearch.search.SearchHit;
+import org.elasticsearch.search.builder.SearchSourceBuilder;
+
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * @author agent
+ * @ClassName EsSearchCache
+ * @create 2026年10月17日 18:16
+ * @Description 单个索引的搜索结果缓存，按规范化后的查询缓存，过期后可返回旧结果并在后台刷新
+ * @Version V1.0
+ */
+@Slf4j
+public class EsSearchCache {
+
+    /**
+     * 每个命中及每个结果的固定开销估算(字节)
+     */
+    private static final long HIT_OVERHEAD_BYTES = 128;
+
+    private static final long RESPONSE_OVERHEAD_BYTES = 512;
+
+    private final EsLocalCache<String, CachedSearch> cache;
+
+    private final long ttlNanos;
+
+    private final long refreshIntervalNanos;
+
+    /**
+     * 最近一次写入失效的时间
+     */
+    private volatile long invalidatedAtNanos;
+
+    /**
+     * 加载中的查询，相同查询只发起一次请求
+     */
+    private final Map<String, Loading> loading = new ConcurrentHashMap<>();
+
+    public EsSearchCache(EsSearchCacheConfig cacheConfig) {
+        this.ttlNanos = TimeUnit.MILLISECONDS.toNanos(Math.max(1, cacheConfig.getTtlMillis()));
+        this.refreshIntervalNanos = TimeUnit.MILLISECONDS.toNanos(Math.max(0, cacheConfig.getRefreshIntervalMillis()));
+        this.invalidatedAtNanos = System.nanoTime() - refreshIntervalNanos;
+        long retainMillis = cacheConfig.getTtlMillis() + Math.max(0, cacheConfig.getStaleWhileRevalidateMillis());
+        this.cache = new EsLocalCache<>(cacheConfig.getPolicy(), cacheConfig.getMaxBytes(), retainMillis,
+                CachedSearch::getWeight);
+    }
+
+    /**
+     * 规范化的缓存key，查询JSON按字段名排序，与构建顺序无关
+     *
+     * @param sourceBuilder 查询
+     * @return 缓存key
+     */
+    public static String cacheKey(SearchSourceBuilder sourceBuilder) {
+        return JSON.toJSONString(JSON.parse(sourceBuilder.toString()), JSONWriter.Feature.MapSortField);
+    }
+
+    /**
+     * 读取缓存
+     * 新鲜时直接返回；过期但在stale窗口内时返回旧结果并触发一次后台刷新；未命中时加载，并发的相同查询共享一次加载
+     *
+     * @param key    缓存key
+     * @param loader 加载方法
+     * @return 搜索结果，多个调用方共享同一对象，不可修改
+     */
+    public CompletableFuture<SearchResponse> get(String key, Supplier<CompletableFuture<SearchResponse>> loader) {
+        CachedSearch cached = cache.get(key);
+        if (cached == null) {
+            return load(key, loader);
+        }
+        if (System.nanoTime() - cached.loadedAtNanos >= ttlNanos) {
+            load(key, loader);
+        }
+        return CompletableFuture.completedFuture(cached.response);
+    }
+
+    /**
+     * 写入后清空缓存，其后一个刷新间隔内开始的加载不放入缓存
+     */
+    public void invalidateAll() {
+        invalidatedAtNanos = System.nanoTime();
+        cache.invalidateAll();
+    }
+
+    public EsCacheStats stats() {
+        return cache.stats();
+    }
+
+    private CompletableFuture<SearchResponse> load(String key, Supplier<CompletableFuture<SearchResponse>> loader) {
+        long generation = cache.generation();
+        Loading current = loading.get(key);
+        if (current != null && current.generation == generation) {
+            return current.future;
+        }
+        CompletableFuture<SearchResponse> future = new CompletableFuture<>();
+        Loading next = new Loading(future, generation);
+        boolean started = current == null ? loading.putIfAbsent(key, next) == null : loading.replace(key, current, next);
+        if (!started) {
+            Loading winner = loading.get(key);
+            return winner != null ? winner.future : load(key, loader);
+        }
+        // 写入响应早于刷新，刷新前开始的搜索可能返回写入前的结果
+        boolean cacheable = System.nanoTime() - invalidatedAtNanos >= refreshIntervalNanos;
+        CompletableFuture<SearchResponse> response;
+        try {
+            response = loader.get();
+        } catch (RuntimeException e) {
+            response = new CompletableFuture<>();
+            response.completeExceptionally(e);
+        }
+        response.whenComplete((result, failure) -> {
+            if (failure == null && result != null && cacheable) {
+                cache.putIfCurrent(key, new CachedSearch(result, estimateBytes(key, result)), generation);
+            } else if (failure != null) {
+                log.warn("searchCache.load.exception:{}", failure.getMessage());
+            }
+            loading.remove(key, next);
+            if (failure != null) {
+                future.completeExceptionally(failure);
+            } else {
+                future.complete(result);
+            }
+        });
+        return future;
+    }
+
+    private static long estimateBytes(String key, SearchResponse response) {
+        long bytes = RESPONSE_OVERHEAD_BYTES + key.length() * 2L;
+        for (SearchHit hit : response.getHits().getHits()) {
+            bytes += HIT_OVERHEAD_BYTES;
+            BytesReference source = hit.getSourceRef();
+            if (source != null) {
+                bytes += source.length();
+            }
+        }
+        return bytes;
+    }
+
+    private static class CachedSearch {
+
+        private final SearchResponse response;
+
+        private final long weight;
+
+        private final long loadedAtNanos = System.nanoTime();
+
+        CachedSearch(SearchResponse response, long weight) {
+            this.response = response;
+            this.weight = weight;
+        }
+
+        long getWeight() {
+            return weight;
+        }
+    }
+
+    private static class Loading {
+
+        private final CompletableFuture<SearchResponse> future;
+
+        private final long generation;
+
+        Loading(CompletableFuture<SearchResponse> future, long generation) {
+            this.future = future;
+            this.generation = generation;
+        }
+    }
+}
@@ -0,0 +1,42 @@
+package com.easy.es.config;
+
+import lombok.Data;
+
+import java.io.Serializable;
+
+/**
+ * @author agent
+ * @ClassName EsSearchCacheConfig
+ * @create 2026年10月17日 18:16
+ * @Description 搜索结果缓存配置
+ * @Version V1.0
+ */
+@Data
+public class EsSearchCacheConfig implements Serializable {
+
+    /**
+     * 淘汰策略
+     */
+    private EsLocalCache.EvictionPolicy policy = EsLocalCache.EvictionPolicy.LRU;
+
+    /**
+     * 缓存结果的估算总字节数上限
+     */
+    private long maxBytes = 32L * 1024 * 1024;
+
+    /**
+     * 结果保持新鲜的时间(毫秒)
+     */
+    private long ttlMillis = 10000;
+
+    /**
+     * 过期后仍可返回旧结果的时间(毫秒)，期间只发起一次后台刷新，0表示不返回旧结果
+     */
+    private long staleWhileRevalidateMillis = 0;
+
+    /**
+     * 索引的刷新间隔(毫秒)，应与索引的refresh_interval一致
+     * 写入后这段时间内开始的加载可能读不到该写入，结果不放入缓存
+     */
+    private long refreshIntervalMillis = 1000;
+}
@@ -0,0 +1,81 @@
+package com.easy.es.config;
+
+import com.alibaba.fastjson2.JSON;
+import com.alibaba.fastjson2.JSONArray;
+import org.elasticsearch.action.search.SearchResponse;
+import org.elasticsearch.search.SearchHit;
+
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.List;
+
+/**
+ * @author agent
+ * @ClassName EsSearchCursor
+ * @create 2026年10月17日 19:02
+ * @Description search_after分页游标，将最后一条命中的排序值编码为不透明的字符串返回调用方
+ * @Version V1.0
+ */
+public final class EsSearchCursor {
+
+    private EsSearchCursor() {
+    }
+
+    /**
+     * 下一页的游标，当前页没有命中时返回null
+     *
+     * @param response 使用cursorPaging或searchAfter的搜索结果
+     * @return 游标，设置到EsSearchRequest.searchAfter获取下一页
+     */
+    public static String next(SearchResponse response) {
+        SearchHit[] hits = response.getHits().getHits();
+        if (hits.length == 0) {
+            return null;
+        }
+        return encode(hits[hits.length - 1].getSortValues());
+    }
+
+    /**
+     * 精简搜索结果的下一页游标，当前页没有命中时返回null
+     */
+    public static String next(EsCompactSearchResult result) {
+        List<EsCompactHit> hits = result.getHits();
+        if (hits.isEmpty()) {
+            return null;
+        }
+        List<Object> sortValues = hits.get(hits.size() - 1).getSortValues();
+        return sortValues == null ? null : encode(sortValues.toArray());
+    }
+
+    public static String encode(Object[] sortValues) {
+        if (sortValues == null || sortValues.length == 0) {
+            return null;
+        }
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(JSON.toJSONBytes(sortValues));
+    }
+
+    /**
+     * 解码为search_after的排序值，小数统一转换为Double
+     *
+     * @throws IllegalArgumentException 游标格式错误
+     */
+    public static Object[] decode(String cursor) {
+        JSONArray values;
+        try {
+            values = JSON.parseArray(new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8));
+        } catch (RuntimeException e) {
+            throw new IllegalArgumentException("invalid search cursor:" + cursor, e);
+        }
+        if (values == null || values.isEmpty()) {
+            throw new IllegalArgumentException("invalid search cursor:" + cursor);
+        }
+        Object[] sortValues = values.toArray();
+        for (int i = 0; i < sortValues.length; i++) {
+            if (sortValues[i] instanceof BigDecimal) {
+                sortValues[i] = ((BigDecimal) sortValues[i]).doubleValue();
+            }
+        }
+        return sortValues;
+    }
+}
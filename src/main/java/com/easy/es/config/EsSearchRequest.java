@@ -2,9 +2,13 @@ package com.easy.es.config;
 
 import lombok.Data;
 import org.elasticsearch.index.query.BoolQueryBuilder;
+import org.elasticsearch.search.aggregations.AggregationBuilder;
 import org.elasticsearch.search.fetch.subphase.highlight.HighlightBuilder;
+import org.elasticsearch.search.sort.SortBuilder;
 import org.elasticsearch.search.sort.SortOrder;
 
+import java.util.List;
+
 /**
  * @author 王青玄
  * @Contact 1121586359@qq.com
@@ -55,8 +59,56 @@ public class EsSearchRequest {
      */
     private SortOrder sortOrder = SortOrder.DESC;
 
+    /**
+     * 多字段排序，按顺序生效，设置后忽略sortName及sortOrder
+     */
+    private List<SortBuilder<?>> sorts;
+
+    /**
+     * 是否使用search_after游标分页，开启后忽略from，每页开销与翻页深度无关
+     * 第一页不设置searchAfter，之后每页设置为EsSearchCursor.next返回的游标
+     */
+    private boolean cursorPaging;
+
+    /**
+     * 上一页返回的游标，不为空时视为开启cursorPaging
+     */
+    private String searchAfter;
+
+    /**
+     * 游标分页的排序唯一性字段，排序中不包含时按升序追加到最后，保证排序值相同的文档不会跨页重复或遗漏
+     * 默认_id，数据量大时建议使用有doc values的唯一keyword字段
+     */
+    private String tieBreaker = "_id";
+
     /**
      * 高亮条件
      */
     private HighlightBuilder highlightBuilder;
+
+    /**
+     * 是否返回_source，为false时只返回ID等元数据，为空时按fields及excludeFields过滤
+     */
+    private Boolean fetchSource;
+
+    /**
+     * _source中排除的字段
+     */
+    private String[] excludeFields;
+
+    /**
+     * 从doc values读取的字段，不需要解析_source
+     */
+    private String[] docValueFields;
+
+    /**
+     * 精确统计命中总数的上限，超过后总数为下限，小于等于0时不统计，为空时使用ES默认值10000
+     */
+    private Integer trackTotalHitsUpTo;
+
+    /**
+     * 聚合，结果在SearchResponse.getAggregations()中；只需聚合结果时将size设为0
+     * 高基数的terms聚合建议改用compositeAggregation分页遍历
+     */
+    private List<AggregationBuilder> aggregations;
 }
@@ -0,0 +1,106 @@
+package com.easy.es.config;
+
+import lombok.extern.slf4j.Slf4j;
+import org.elasticsearch.action.search.SearchRequest;
+import org.elasticsearch.client.RequestOptions;
+import org.elasticsearch.client.RestHighLevelClient;
+import org.elasticsearch.search.SearchHit;
+import org.elasticsearch.search.slice.SliceBuilder;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+
+/**
+ * @author agent
+ * @ClassName EsSlicedScroll
+ * @create 2026年10月17日 18:03
+ * @Description 将一个查询拆分为多个slice并行滚动读取
+ * @Version V1.0
+ */
+@Slf4j
+public class EsSlicedScroll {
+
+    private final RestHighLevelClient client;
+
+    private final RequestOptions options;
+
+    private final SearchRequest searchRequest;
+
+    private final int slices;
+
+    public EsSlicedScroll(RestHighLevelClient client, SearchRequest searchRequest, int slices, RequestOptions options) {
+        this.client = client;
+        this.options = options;
+        this.searchRequest = searchRequest;
+        this.slices = Math.max(1, slices);
+    }
+
+    /**
+     * 在executor上并行读取各slice
+     * consumer会被多个slice线程并发调用，需保证线程安全；同一slice内的命中按顺序回调
+     * 任一slice失败时其余slice停止读取，返回结果以第一个异常结束
+     *
+     * @param executor 执行slice的线程池，其大小决定并行度
+     * @param consumer 命中回调
+     * @return 全部slice完成后返回读取的命中总数
+     */
+    public CompletableFuture<Long> execute(Executor executor, Consumer<SearchHit> consumer) {
+        CompletableFuture<Long> result = new CompletableFuture<>();
+        AtomicLong total = new AtomicLong();
+        AtomicInteger remaining = new AtomicInteger(slices);
+        for (int sliceId = 0; sliceId < slices; sliceId++) {
+            SearchRequest sliceRequest = sliceRequest(sliceId);
+            int id = sliceId;
+            try {
+                executor.execute(() -> {
+                    try {
+                        long count = readSlice(sliceRequest, consumer, result);
+                        total.addAndGet(count);
+                        if (log.isDebugEnabled()) {
+                            log.debug("slicedScroll.sliceComplete,slice:{}/{},hits:{}", id, slices, count);
+                        }
+                        if (remaining.decrementAndGet() == 0) {
+                            result.complete(total.get());
+                        }
+                    } catch (Throwable e) {
+                        log.error("slicedScroll.exception,slice:{}/{},message:{}", id, slices, e.getMessage(), e);
+                        result.completeExceptionally(e);
+                    }
+                });
+            } catch (RuntimeException e) {
+                result.completeExceptionally(e);
+                break;
+            }
+        }
+        return result;
+    }
+
+    private long readSlice(SearchRequest sliceRequest, Consumer<SearchHit> consumer,
+                           CompletableFuture<Long> result) throws Exception {
+        if (result.isDone()) {
+            return 0;
+        }
+        long count = 0;
+        try (EsScrollCursor cursor = new EsScrollCursor(client, sliceRequest, options)) {
+            while (!result.isDone() && cursor.hasNext()) {
+                consumer.accept(cursor.next());
+                count++;
+            }
+        }
+        return count;
+    }
+
+    private SearchRequest sliceRequest(int sliceId) {
+        if (slices == 1) {
+            return searchRequest;
+        }
+        SearchRequest sliceRequest = new SearchRequest(searchRequest.indices());
+        sliceRequest.searchType(searchRequest.searchType());
+        sliceRequest.scroll(searchRequest.scroll());
+        sliceRequest.source(searchRequest.source().copyWithNewSlice(new SliceBuilder(sliceId, slices)));
+        return sliceRequest;
+    }
+}
@@ -0,0 +1,46 @@
+package com.easy.es.config;
+
+import lombok.Data;
+
+import java.io.Serializable;
+
+/**
+ * @author agent
+ * @ClassName EsSpoolConfig
+ * @create 2026年10月17日 19:17
+ * @Description 写入本地暂存(spool)配置，集群不可用时写入落盘，恢复后批量重放
+ * @Version V1.0
+ */
+@Data
+public class EsSpoolConfig implements Serializable {
+
+    /**
+     * 暂存目录，每个集群使用其下以集群名称命名的子目录
+     */
+    private String directory = "es-spool";
+
+    /**
+     * 单个分段文件的大小上限(MB)，写满后切换到新分段
+     */
+    private int segmentSizeMb = 64;
+
+    /**
+     * 暂存占用磁盘的上限(MB)，超过后新的写入不再暂存，按失败返回
+     */
+    private int maxDiskMb = 1024;
+
+    /**
+     * 每次重放提交的最大文档数
+     */
+    private int drainBatchSize = 500;
+
+    /**
+     * 检查集群可用性并重放的间隔(毫秒)
+     */
+    private long drainIntervalMillis = 5000;
+
+    /**
+     * 每次写入后是否强制刷盘，否则只保证进程崩溃时不丢失，操作系统崩溃时可能丢失最近的写入
+     */
+    private boolean syncOnWrite = false;
+}
@@ -0,0 +1,56 @@
+package com.easy.es.config;
+
+import lombok.Data;
+
+import java.io.Serializable;
+
+/**
+ * @author agent
+ * @ClassName EsSpoolStats
+ * @create 2026年10月17日 19:17
+ * @Description 写入本地暂存统计信息
+ * @Version V1.0
+ */
+@Data
+public class EsSpoolStats implements Serializable {
+
+    /**
+     * 待重放的文档数
+     */
+    private long pendingRecords;
+
+    /**
+     * 待重放的字节数
+     */
+    private long pendingBytes;
+
+    /**
+     * 分段文件占用的字节数，包含已重放但所在分段尚未删除的部分
+     */
+    private long diskBytes;
+
+    /**
+     * 分段文件数
+     */
+    private int segments;
+
+    /**
+     * 累计暂存的文档数
+     */
+    private long appendedCount;
+
+    /**
+     * 累计重放成功的文档数
+     */
+    private long drainedCount;
+
+    /**
+     * 重放时因请求本身错误(如mapping冲突)被丢弃的文档数
+     */
+    private long droppedCount;
+
+    /**
+     * 磁盘占用达到上限而未能暂存的文档数
+     */
+    private long rejectedCount;
+}
@@ -0,0 +1,30 @@
+package com.easy.es.config;
+
+import lombok.Data;
+
+import java.io.Serializable;
+
+/**
+ * @author agent
+ * @ClassName EsTaskHandle
+ * @create 2026年10月17日 18:56
+ * @Description 提交到ES后台执行的任务，可用于查询进度、调整限速及取消
+ * @Version V1.0
+ */
+@Data
+public class EsTaskHandle implements Serializable {
+
+    private String clusterName;
+
+    private String indexName;
+
+    /**
+     * 任务ID，格式为 节点ID:任务序号
+     */
+    private String taskId;
+
+    /**
+     * 任务类型 update_by_query/delete_by_query
+     */
+    private String action;
+}
@@ -0,0 +1,117 @@
+package com.easy.es.config;
+
+import lombok.Data;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * @author agent
+ * @ClassName EsTaskStatus
+ * @create 2026年10月17日 18:56
+ * @Description 按查询更新、删除任务的进度及结果，切片任务为各切片之和
+ * @Version V1.0
+ */
+@Data
+public class EsTaskStatus implements Serializable {
+
+    private String taskId;
+
+    /**
+     * 是否已结束，包括成功、失败及被取消
+     */
+    private boolean completed;
+
+    /**
+     * 需要处理的文档总数
+     */
+    private long total;
+
+    private long updated;
+
+    private long created;
+
+    private long deleted;
+
+    /**
+     * 脚本未修改的文档数
+     */
+    private long noops;
+
+    /**
+     * 版本冲突的文档数
+     */
+    private long versionConflicts;
+
+    /**
+     * 已处理的批次数
+     */
+    private long batches;
+
+    /**
+     * 因限速等待的总时长(毫秒)
+     */
+    private long throttledMillis;
+
+    /**
+     * 当前限速，-1表示不限制
+     */
+    private float requestsPerSecond;
+
+    /**
+     * 已运行时长(毫秒)
+     */
+    private long runningTimeMillis;
+
+    /**
+     * 是否超时
+     */
+    private boolean timedOut;
+
+    /**
+     * 取消原因，未取消时为空
+     */
+    private String canceled;
+
+    /**
+     * 写入或读取失败的明细
+     */
+    private List<String> failures = new ArrayList<>();
+
+    /**
+     * 任务自身的错误，如索引不存在
+     */
+    private String error;
+
+    /**
+     * 已处理的文档数
+     */
+    public long getProcessed() {
+        return updated + created + deleted + noops + versionConflicts;
+    }
+
+    /**
+     * 进度，0到1之间
+     */
+    public double getProgress() {
+        if (total == 0) {
+            return completed ? 1 : 0;
+        }
+        return Math.min(1, (double) getProcessed() / total);
+    }
+
+    /**
+     * 平均每秒处理的文档数
+     */
+    public double getThroughput() {
+        return runningTimeMillis == 0 ? 0 : getProcessed() * 1000.0 / runningTimeMillis;
+    }
+
+    /**
+     * 是否已结束且没有失败、超时及取消，版本冲突不视为失败
+     */
+    public boolean isSuccess() {
+        return completed && error == null && canceled == null && !timedOut && failures.isEmpty();
+    }
+}
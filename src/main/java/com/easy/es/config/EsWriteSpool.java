@@ -0,0 +1,617 @@
+package com.easy.es.config;
+
+import lombok.extern.slf4j.Slf4j;
+import org.elasticsearch.action.DocWriteRequest;
+import org.elasticsearch.action.delete.DeleteRequest;
+import org.elasticsearch.action.index.IndexRequest;
+import org.elasticsearch.action.update.UpdateRequest;
+import org.elasticsearch.common.bytes.BytesReference;
+import org.elasticsearch.common.xcontent.XContentHelper;
+import org.elasticsearch.common.xcontent.XContentType;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.zip.CRC32;
+
+/**
+ * @author agent
+ * @ClassName EsWriteSpool
+ * @create 2026年10月17日 19:17
+ * @Description 单个集群的写入本地暂存，追加写入分段文件，集群可用后按顺序批量重放，重放进度记录在checkpoint文件中
+ * @Version V1.0
+ */
+@Slf4j
+public class EsWriteSpool implements Closeable {
+
+    private static final String SEGMENT_SUFFIX = ".seg";
+
+    private static final String CHECKPOINT_FILE = "checkpoint";
+
+    /**
+     * 记录头：记录体长度及其CRC32
+     */
+    private static final int HEADER_BYTES = 8;
+
+    private static final byte OP_INDEX = 0;
+
+    private static final byte OP_UPDATE = 1;
+
+    private static final byte OP_DELETE = 2;
+
+    /**
+     * 重放回调
+     */
+    public interface Replayer {
+
+        /**
+         * 集群是否可写，不可写时本轮不重放
+         */
+        boolean isAvailable();
+
+        /**
+         * 批量提交，返回结果中的第i项对应第i个请求
+         */
+        EsBulkResult replay(List<DocWriteRequest<?>> requests);
+    }
+
+    private final String clusterName;
+
+    private final Path directory;
+
+    private final long segmentBytes;
+
+    private final long maxDiskBytes;
+
+    private final int drainBatchSize;
+
+    private final boolean syncOnWrite;
+
+    private final Replayer replayer;
+
+    private final ReentrantLock writeLock = new ReentrantLock();
+
+    /**
+     * 各分段已写入的字节数，key为分段序号
+     */
+    private final ConcurrentSkipListMap<Long, Long> segments = new ConcurrentSkipListMap<>();
+
+    private final AtomicLong diskBytes = new AtomicLong();
+
+    private final AtomicLong pendingRecords = new AtomicLong();
+
+    private final AtomicLong appendedCount = new AtomicLong();
+
+    private final AtomicLong drainedCount = new AtomicLong();
+
+    private final AtomicLong droppedCount = new AtomicLong();
+
+    private final AtomicLong rejectedCount = new AtomicLong();
+
+    private final ScheduledExecutorService drainer;
+
+    private FileChannel writeChannel;
+
+    private long writeSeq;
+
+    /**
+     * 重放位置，只在重放线程中读写
+     */
+    private volatile long readSeq;
+
+    private volatile long readPosition;
+
+    private FileChannel readChannel;
+
+    private long readChannelSeq = -1;
+
+    private volatile boolean closed;
+
+    /**
+     * 打开集群的暂存目录，恢复未重放的记录并启动后台重放
+     * 最后一个分段末尾不完整或校验失败的记录(写入时进程退出)被截断
+     */
+    public EsWriteSpool(String clusterName, EsSpoolConfig config, Replayer replayer) throws IOException {
+        this.clusterName = clusterName;
+        this.directory = Paths.get(config.getDirectory(), clusterName);
+        this.segmentBytes = Math.max(1, config.getSegmentSizeMb()) * 1024L * 1024L;
+        this.maxDiskBytes = Math.max(1, config.getMaxDiskMb()) * 1024L * 1024L;
+        this.drainBatchSize = Math.max(1, config.getDrainBatchSize());
+        this.syncOnWrite = config.isSyncOnWrite();
+        this.replayer = replayer;
+        recover();
+        long interval = Math.max(1, config.getDrainIntervalMillis());
+        this.drainer = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "es-spool-" + clusterName);
+            thread.setDaemon(true);
+            return thread;
+        });
+        drainer.scheduleWithFixedDelay(this::drain, interval, interval, TimeUnit.MILLISECONDS);
+        if (pendingRecords.get() > 0) {
+            log.warn("spool.recovered,clusterName:{},pendingRecords:{},segments:{}", clusterName, pendingRecords.get(), segments.size());
+        }
+    }
+
+    /**
+     * 是否有待重放的记录，有时新的写入应直接暂存，避免重放时旧数据覆盖新数据
+     */
+    public boolean hasPending() {
+        return pendingRecords.get() > 0;
+    }
+
+    /**
+     * 追加写入请求，支持index、update(doc)及delete
+     *
+     * @param requests 写入请求
+     * @return 是否全部写入，磁盘占用达到上限或写入失败时一条也不写入
+     */
+    public boolean append(List<DocWriteRequest<?>> requests) {
+        if (requests.isEmpty()) {
+            return true;
+        }
+        byte[] data;
+        try {
+            data = encode(requests);
+        } catch (IOException | RuntimeException e) {
+            log.error("spool.encode.exception:{}", e.getMessage(), e);
+            return false;
+        }
+        writeLock.lock();
+        try {
+            if (closed) {
+                return false;
+            }
+            if (diskBytes.get() + data.length > maxDiskBytes) {
+                rejectedCount.addAndGet(requests.size());
+                log.error("spool.full,clusterName:{},diskBytes:{},rejected:{}", clusterName, diskBytes.get(), requests.size());
+                return false;
+            }
+            long position = segments.get(writeSeq);
+            if (position > 0 && position + data.length > segmentBytes) {
+                roll();
+                position = 0;
+            }
+            try {
+                ByteBuffer buffer = ByteBuffer.wrap(data);
+                while (buffer.hasRemaining()) {
+                    writeChannel.write(buffer, position + buffer.position());
+                }
+                if (syncOnWrite) {
+                    writeChannel.force(false);
+                }
+            } catch (IOException e) {
+                // 去掉写了一部分的记录，保证后续记录可读
+                writeChannel.truncate(position);
+                throw e;
+            }
+            segments.put(writeSeq, position + data.length);
+            diskBytes.addAndGet(data.length);
+            pendingRecords.addAndGet(requests.size());
+            appendedCount.addAndGet(requests.size());
+            return true;
+        } catch (IOException e) {
+            log.error("spool.append.exception:{}", e.getMessage(), e);
+            return false;
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    public EsSpoolStats stats() {
+        EsSpoolStats stats = new EsSpoolStats();
+        long disk = diskBytes.get();
+        long consumed = readPosition;
+        for (Long size : segments.headMap(readSeq).values()) {
+            consumed += size;
+        }
+        stats.setPendingRecords(pendingRecords.get());
+        stats.setPendingBytes(Math.max(0, disk - consumed));
+        stats.setDiskBytes(disk);
+        stats.setSegments(segments.size());
+        stats.setAppendedCount(appendedCount.get());
+        stats.setDrainedCount(drainedCount.get());
+        stats.setDroppedCount(droppedCount.get());
+        stats.setRejectedCount(rejectedCount.get());
+        return stats;
+    }
+
+    /**
+     * 停止重放并关闭文件，未重放的记录在下次启动时继续重放
+     */
+    @Override
+    public void close() {
+        closed = true;
+        drainer.shutdown();
+        try {
+            drainer.awaitTermination(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        writeLock.lock();
+        try {
+            writeChannel.force(false);
+            writeChannel.close();
+            closeReadChannel();
+        } catch (IOException e) {
+            log.error("spool.close.exception:{}", e.getMessage(), e);
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    /**
+     * 无响应、被拒绝(429)或服务端错误时可暂存后重放，其余为请求本身的错误
+     */
+    public static boolean isRetryable(int status) {
+        return status == 0 || status == 429 || status >= 500;
+    }
+
+    private void drain() {
+        if (closed || pendingRecords.get() <= 0 || !replayer.isAvailable()) {
+            return;
+        }
+        try {
+            while (!closed && pendingRecords.get() > 0) {
+                Batch batch = readBatch();
+                if (batch.records > 0) {
+                    List<DocWriteRequest<?>> requests = dedupe(batch.requests);
+                    EsBulkResult result = replayer.replay(requests);
+                    int dropped = 0;
+                    for (EsBulkItemResult item : result.getItems()) {
+                        if (item.isSuccess()) {
+                            continue;
+                        }
+                        if (isRetryable(item.getStatus())) {
+                            log.warn("spool.replay.retryLater,clusterName:{},status:{},message:{}",
+                                    clusterName, item.getStatus(), item.getFailureMessage());
+                            return;
+                        }
+                        dropped++;
+                        log.error("spool.replay.dropped,clusterName:{},indexName:{},docId:{},message:{}",
+                                clusterName, item.getIndexName(), item.getDocId(), item.getFailureMessage());
+                    }
+                    droppedCount.addAndGet(dropped);
+                    drainedCount.addAndGet(batch.records - dropped);
+                }
+                commit(batch);
+                if (batch.records == 0) {
+                    break;
+                }
+            }
+        } catch (Exception e) {
+            log.error("spool.drain.exception:{}", e.getMessage(), e);
+        }
+    }
+
+    /**
+     * 从重放位置读取一批记录，可跨分段
+     */
+    private Batch readBatch() throws IOException {
+        Batch batch = new Batch(readSeq, readPosition);
+        while (batch.records < drainBatchSize) {
+            Long end = segments.get(batch.seq);
+            if (end == null || batch.position >= end) {
+                Long next = segments.higherKey(batch.seq);
+                if (next == null) {
+                    break;
+                }
+                batch.seq = next;
+                batch.position = 0;
+                continue;
+            }
+            FileChannel channel = readChannel(batch.seq);
+            while (batch.records < drainBatchSize && batch.position < end) {
+                byte[] body = readRecord(channel, batch.position, end);
+                if (body == null) {
+                    log.error("spool.corrupted,clusterName:{},segment:{},position:{}", clusterName, batch.seq, batch.position);
+                    batch.position = end;
+                    break;
+                }
+                batch.requests.add(decode(body));
+                batch.records++;
+                batch.position += HEADER_BYTES + body.length;
+            }
+        }
+        return batch;
+    }
+
+    /**
+     * 记录重放位置并删除已重放完的分段，全部重放完时切换到新分段以释放磁盘
+     * 全部重放完时待重放数归零，跳过的损坏记录不会使其一直大于0
+     */
+    private void commit(Batch batch) throws IOException {
+        writeCheckpoint(batch.seq, batch.position);
+        readSeq = batch.seq;
+        readPosition = batch.position;
+        pendingRecords.addAndGet(-batch.records);
+        deleteSegmentsBefore(readSeq);
+        writeLock.lock();
+        try {
+            if (readSeq == writeSeq && readPosition == segments.get(writeSeq)) {
+                pendingRecords.set(0);
+            }
+            if (readSeq == writeSeq && readPosition > 0 && readPosition == segments.get(writeSeq)) {
+                roll();
+                writeCheckpoint(writeSeq, 0);
+                readSeq = writeSeq;
+                readPosition = 0;
+                deleteSegmentsBefore(readSeq);
+            }
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    /**
+     * 同一文档后面有index或delete时，前面的写入被覆盖，不再提交
+     */
+    private static List<DocWriteRequest<?>> dedupe(List<DocWriteRequest<?>> requests) {
+        Set<String> overwritten = new HashSet<>();
+        List<DocWriteRequest<?>> result = new ArrayList<>(requests.size());
+        for (int i = requests.size() - 1; i >= 0; i--) {
+            DocWriteRequest<?> request = requests.get(i);
+            String key = request.index() + "/" + request.id();
+            if (overwritten.contains(key)) {
+                continue;
+            }
+            if (!(request instanceof UpdateRequest)) {
+                overwritten.add(key);
+            }
+            result.add(request);
+        }
+        Collections.reverse(result);
+        return result;
+    }
+
+    private void recover() throws IOException {
+        Files.createDirectories(directory);
+        List<Long> seqs = new ArrayList<>();
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(directory, "*" + SEGMENT_SUFFIX)) {
+            for (Path path : stream) {
+                String name = path.getFileName().toString();
+                seqs.add(Long.parseLong(name.substring(0, name.length() - SEGMENT_SUFFIX.length())));
+            }
+        }
+        Collections.sort(seqs);
+        long checkpointSeq = seqs.isEmpty() ? 1 : seqs.get(0);
+        long checkpointPosition = 0;
+        Path checkpoint = directory.resolve(CHECKPOINT_FILE);
+        if (Files.exists(checkpoint)) {
+            ByteBuffer buffer = ByteBuffer.wrap(Files.readAllBytes(checkpoint));
+            if (buffer.remaining() == 16) {
+                checkpointSeq = buffer.getLong();
+                checkpointPosition = buffer.getLong();
+            }
+        }
+        for (Long seq : seqs) {
+            if (seq < checkpointSeq) {
+                Files.deleteIfExists(segmentPath(seq));
+                continue;
+            }
+            long start = seq == checkpointSeq ? checkpointPosition : 0;
+            long valid = scanSegment(seq, start);
+            segments.put(seq, valid);
+            diskBytes.addAndGet(valid);
+        }
+        if (segments.isEmpty() || !segments.containsKey(checkpointSeq)) {
+            checkpointSeq = segments.isEmpty() ? Math.max(1, checkpointSeq) : segments.firstKey();
+            checkpointPosition = 0;
+        }
+        readSeq = checkpointSeq;
+        readPosition = checkpointPosition;
+        writeSeq = segments.isEmpty() ? checkpointSeq : segments.lastKey();
+        writeChannel = FileChannel.open(segmentPath(writeSeq), StandardOpenOption.CREATE, StandardOpenOption.WRITE);
+        segments.putIfAbsent(writeSeq, 0L);
+    }
+
+    /**
+     * 统计分段中start之后的有效记录数，从第一条无效记录处截断
+     *
+     * @return 有效数据的结束位置
+     */
+    private long scanSegment(long seq, long start) throws IOException {
+        try (FileChannel channel = FileChannel.open(segmentPath(seq), StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            long size = channel.size();
+            long position = Math.min(start, size);
+            while (position < size) {
+                byte[] body = readRecord(channel, position, size);
+                if (body == null) {
+                    log.warn("spool.truncate,clusterName:{},segment:{},position:{},size:{}", clusterName, seq, position, size);
+                    channel.truncate(position);
+                    break;
+                }
+                pendingRecords.incrementAndGet();
+                position += HEADER_BYTES + body.length;
+            }
+            return position;
+        }
+    }
+
+    /**
+     * 读取position处的记录体，记录不完整或校验失败时返回null
+     */
+    private static byte[] readRecord(FileChannel channel, long position, long end) throws IOException {
+        if (position + HEADER_BYTES > end) {
+            return null;
+        }
+        ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES);
+        readFully(channel, header, position);
+        int length = header.getInt(0);
+        if (length <= 0 || position + HEADER_BYTES + length > end) {
+            return null;
+        }
+        ByteBuffer body = ByteBuffer.allocate(length);
+        readFully(channel, body, position + HEADER_BYTES);
+        CRC32 crc = new CRC32();
+        crc.update(body.array(), 0, length);
+        return (int) crc.getValue() == header.getInt(4) ? body.array() : null;
+    }
+
+    private static void readFully(FileChannel channel, ByteBuffer buffer, long position) throws IOException {
+        while (buffer.hasRemaining()) {
+            if (channel.read(buffer, position + buffer.position()) < 0) {
+                throw new IOException("unexpected end of spool segment");
+            }
+        }
+    }
+
+    private static byte[] encode(List<DocWriteRequest<?>> requests) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(requests.size() * 256);
+        ByteArrayOutputStream body = new ByteArrayOutputStream(256);
+        DataOutputStream bodyOut = new DataOutputStream(body);
+        DataOutputStream recordOut = new DataOutputStream(out);
+        CRC32 crc = new CRC32();
+        for (DocWriteRequest<?> request : requests) {
+            body.reset();
+            byte[] source;
+            if (request instanceof IndexRequest) {
+                bodyOut.writeByte(OP_INDEX);
+                source = toJson(((IndexRequest) request).source(), ((IndexRequest) request).getContentType());
+            } else if (request instanceof UpdateRequest && ((UpdateRequest) request).doc() != null) {
+                IndexRequest doc = ((UpdateRequest) request).doc();
+                bodyOut.writeByte(OP_UPDATE);
+                source = toJson(doc.source(), doc.getContentType());
+            } else if (request instanceof DeleteRequest) {
+                bodyOut.writeByte(OP_DELETE);
+                source = new byte[0];
+            } else {
+                throw new IllegalArgumentException("unsupported spool request:" + request.opType());
+            }
+            bodyOut.writeUTF(request.index());
+            bodyOut.writeUTF(request.id());
+            bodyOut.writeInt(source.length);
+            bodyOut.write(source);
+            bodyOut.flush();
+            crc.reset();
+            crc.update(body.toByteArray(), 0, body.size());
+            recordOut.writeInt(body.size());
+            recordOut.writeInt((int) crc.getValue());
+            body.writeTo(recordOut);
+        }
+        recordOut.flush();
+        return out.toByteArray();
+    }
+
+    private static byte[] toJson(BytesReference source, XContentType contentType) throws IOException {
+        if (contentType == null || contentType == XContentType.JSON) {
+            return BytesReference.toBytes(source);
+        }
+        return XContentHelper.convertToJson(source, false, contentType).getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static DocWriteRequest<?> decode(byte[] body) throws IOException {
+        DataInputStream in = new DataInputStream(new ByteArrayInputStream(body));
+        byte op = in.readByte();
+        String index = in.readUTF();
+        String id = in.readUTF();
+        byte[] source = new byte[in.readInt()];
+        in.readFully(source);
+        if (op == OP_INDEX) {
+            return new IndexRequest(index).id(id).source(source, XContentType.JSON);
+        }
+        if (op == OP_UPDATE) {
+            return new UpdateRequest(index, id).doc(source, XContentType.JSON);
+        }
+        return new DeleteRequest(index, id);
+    }
+
+    /**
+     * 切换到新分段，调用方持有writeLock
+     */
+    private void roll() throws IOException {
+        writeChannel.force(false);
+        writeChannel.close();
+        writeSeq++;
+        writeChannel = FileChannel.open(segmentPath(writeSeq), StandardOpenOption.CREATE, StandardOpenOption.WRITE);
+        segments.put(writeSeq, 0L);
+    }
+
+    private void deleteSegmentsBefore(long seq) throws IOException {
+        for (Map.Entry<Long, Long> entry : segments.headMap(seq).entrySet()) {
+            if (readChannelSeq == entry.getKey()) {
+                closeReadChannel();
+            }
+            Files.deleteIfExists(segmentPath(entry.getKey()));
+            segments.remove(entry.getKey());
+            diskBytes.addAndGet(-entry.getValue());
+        }
+    }
+
+    private void writeCheckpoint(long seq, long position) throws IOException {
+        Path temp = directory.resolve(CHECKPOINT_FILE + ".tmp");
+        ByteBuffer buffer = ByteBuffer.allocate(16);
+        buffer.putLong(seq).putLong(position).flip();
+        try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING)) {
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+            channel.force(false);
+        }
+        Files.move(temp, directory.resolve(CHECKPOINT_FILE), StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    private FileChannel readChannel(long seq) throws IOException {
+        if (readChannelSeq != seq) {
+            closeReadChannel();
+            readChannel = FileChannel.open(segmentPath(seq), StandardOpenOption.READ);
+            readChannelSeq = seq;
+        }
+        return readChannel;
+    }
+
+    private void closeReadChannel() throws IOException {
+        if (readChannel != null) {
+            readChannel.close();
+            readChannel = null;
+            readChannelSeq = -1;
+        }
+    }
+
+    private Path segmentPath(long seq) {
+        return directory.resolve(String.format("%020d", seq) + SEGMENT_SUFFIX);
+    }
+
+    /**
+     * 一批待重放的记录及其结束位置
+     */
+    private static class Batch {
+
+        private final List<DocWriteRequest<?>> requests = new ArrayList<>();
+
+        private long seq;
+
+        private long position;
+
+        private int records;
+
+        Batch(long seq, long position) {
+            this.seq = seq;
+            this.position = position;
+        }
+    }
+}
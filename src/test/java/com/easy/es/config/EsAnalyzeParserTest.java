@@ -0,0 +1,112 @@
+package com.easy.es.config;
+
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * @author agent
+ * @ClassName EsAnalyzeParserTest
+ * @create 2026年10月17日 20:11
+ * @Description _analyze响应解析，以及合并分词结果按文本拆分时的偏移和位置换算
+ * @Version V1.0
+ */
+class EsAnalyzeParserTest {
+
+    private static final int GAP = 100;
+
+    @Test
+    void parsesTokens() {
+        String body = "{\"tokens\":[{\"token\":\"hello\",\"start_offset\":0,\"end_offset\":5,\"type\":\"<ALPHANUM>\","
+                + "\"position\":0},{\"token\":\"world\",\"start_offset\":6,\"end_offset\":11,\"type\":\"<ALPHANUM>\","
+                + "\"position\":1,\"positionLength\":1}]}";
+        List<EsAnalyzeToken> tokens = EsAnalyzeParser.parse(body.getBytes(StandardCharsets.UTF_8));
+
+        assertEquals(2, tokens.size());
+        assertToken(tokens.get(1), "world", 6, 11, 1);
+        assertEquals("<ALPHANUM>", tokens.get(1).getType());
+    }
+
+    @Test
+    void rebasesOffsetsAndPositionsPerText() {
+        List<List<EsAnalyzeToken>> split = EsAnalyzeParser.split(new ArrayList<>(Arrays.asList(
+                token("hello", 0, 5, 0), token("world", 6, 11, 1),
+                token("foo", 12, 15, 102), token("bar", 16, 19, 103))),
+                Arrays.asList("hello world", "foo bar"), GAP);
+
+        assertEquals(2, split.size());
+        assertToken(split.get(0).get(1), "world", 6, 11, 1);
+        assertToken(split.get(1).get(0), "foo", 0, 3, 0);
+        assertToken(split.get(1).get(1), "bar", 4, 7, 1);
+    }
+
+    @Test
+    void skipsEmptyTexts() {
+        // 空文本同样占用一个偏移间隔及一个位置间隔
+        List<List<EsAnalyzeToken>> split = EsAnalyzeParser.split(new ArrayList<>(Arrays.asList(
+                token("a", 0, 1, 0), token("b", 2, 3, 1), token("c", 5, 6, 202))),
+                Arrays.asList("a b", "", "c"), GAP);
+
+        assertEquals(2, split.get(0).size());
+        assertTrue(split.get(1).isEmpty());
+        assertToken(split.get(2).get(0), "c", 0, 1, 0);
+    }
+
+    @Test
+    void usesTokenizerGap() {
+        List<List<EsAnalyzeToken>> split = EsAnalyzeParser.split(new ArrayList<>(Arrays.asList(
+                token("x", 0, 1, 0), token("y", 2, 3, 1))), Arrays.asList("x", "y"), 0);
+
+        assertToken(split.get(1).get(0), "y", 0, 1, 0);
+    }
+
+    @Test
+    void leavesTextWithFilteredLeadingTokenUnresolved() {
+        // 停用词the被过滤，dog的位置无法区分是前一文本末尾还是本文本开头的过滤造成的
+        List<List<EsAnalyzeToken>> split = EsAnalyzeParser.split(new ArrayList<>(Arrays.asList(
+                token("cat", 4, 7, 1), token("dog", 12, 15, 103))),
+                Arrays.asList("the cat", "the dog"), GAP);
+
+        assertToken(split.get(0).get(0), "cat", 4, 7, 1);
+        assertNull(split.get(1));
+    }
+
+    @Test
+    void rejectsOffsetsBeyondText() {
+        // char filter改变了文本长度，偏移无法对应到文本
+        assertNull(EsAnalyzeParser.split(new ArrayList<>(Arrays.asList(
+                token("abcd", 0, 4, 0), token("cd", 5, 7, 101))), Arrays.asList("ab", "cd"), GAP));
+    }
+
+    @Test
+    void returnsSingleTextUnchanged() {
+        List<EsAnalyzeToken> tokens = Collections.singletonList(token("the", 4, 7, 1));
+        List<List<EsAnalyzeToken>> split = EsAnalyzeParser.split(tokens, Collections.singletonList("and the"), GAP);
+
+        assertEquals(Collections.singletonList(tokens), split);
+    }
+
+    private static EsAnalyzeToken token(String text, int startOffset, int endOffset, int position) {
+        EsAnalyzeToken token = new EsAnalyzeToken();
+        token.setToken(text);
+        token.setStartOffset(startOffset);
+        token.setEndOffset(endOffset);
+        token.setPosition(position);
+        return token;
+    }
+
+    private static void assertToken(EsAnalyzeToken token, String text, int startOffset, int endOffset, int position) {
+        assertEquals(text, token.getToken());
+        assertEquals(startOffset, token.getStartOffset());
+        assertEquals(endOffset, token.getEndOffset());
+        assertEquals(position, token.getPosition());
+    }
+}
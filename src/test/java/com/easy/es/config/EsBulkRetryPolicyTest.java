@@ -0,0 +1,181 @@
+package com.easy.es.config;
+
+import org.elasticsearch.ElasticsearchStatusException;
+import org.elasticsearch.action.DocWriteRequest;
+import org.elasticsearch.action.bulk.BulkItemResponse;
+import org.elasticsearch.action.bulk.BulkResponse;
+import org.elasticsearch.action.index.IndexResponse;
+import org.elasticsearch.index.shard.ShardId;
+import org.elasticsearch.rest.RestStatus;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.net.ConnectException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * @author agent
+ * @ClassName EsBulkRetryPolicyTest
+ * @create 2026年10月17日 20:09
+ * @Description 批量写入重试只重提被拒绝的文档，各轮次结果按请求顺序汇总
+ * @Version V1.0
+ */
+class EsBulkRetryPolicyTest {
+
+    private static final String INDEX_NAME = "idx";
+
+    private final EsBulkRetryPolicy policy = new EsBulkRetryPolicy(2, 1, 2);
+
+    private final List<List<String>> batches = new ArrayList<>();
+
+    @Test
+    void retriesOnlyRejectedItems() throws IOException {
+        EsBulkResult result = policy.execute(Arrays.asList("a", "b", "c"), EsBulkRetryPolicyTest::describe,
+                batch -> respond(batch, batches.isEmpty() ? Collections.singleton("b") : Collections.emptySet()));
+
+        assertEquals(Arrays.asList(Arrays.asList("a", "b", "c"), Collections.singletonList("b")), batches);
+        assertTrue(result.isSuccess());
+        assertEquals(1, result.getRetries());
+        assertEquals(Arrays.asList("a", "b", "c"), docIds(result));
+        assertEquals(Arrays.asList(1, 2, 1), attempts(result));
+    }
+
+    @Test
+    void keepsEarlierResultsWhenRetryRoundFails() throws IOException {
+        EsBulkResult result = policy.execute(Arrays.asList("a", "b", "c"), EsBulkRetryPolicyTest::describe, batch -> {
+            if (!batches.isEmpty()) {
+                batches.add(batch);
+                throw new ConnectException("Connection refused");
+            }
+            return respond(batch, Collections.singleton("b"));
+        });
+
+        assertFalse(result.isSuccess());
+        List<EsBulkItemResult> items = result.getItems();
+        assertTrue(items.get(0).isSuccess());
+        assertTrue(items.get(2).isSuccess());
+        EsBulkItemResult failed = items.get(1);
+        assertFalse(failed.isSuccess());
+        assertEquals("b", failed.getDocId());
+        assertEquals(0, failed.getStatus());
+        assertEquals(2, failed.getAttempts());
+        assertEquals("Connection refused", failed.getFailureMessage());
+    }
+
+    @Test
+    void stopsRetryingAfterMaxRetries() throws IOException {
+        EsBulkResult result = policy.execute(Arrays.asList("a", "b"), EsBulkRetryPolicyTest::describe,
+                batch -> respond(batch, Collections.singleton("b")));
+
+        assertEquals(3, batches.size());
+        assertEquals(2, result.getRetries());
+        EsBulkItemResult rejected = result.getItems().get(1);
+        assertFalse(rejected.isSuccess());
+        assertEquals(RestStatus.TOO_MANY_REQUESTS.getStatus(), rejected.getStatus());
+        assertEquals(3, rejected.getAttempts());
+        assertEquals(1, result.getItems().get(0).getAttempts());
+    }
+
+    @Test
+    void throwsWhenFirstRoundFails() {
+        assertThrows(ConnectException.class, () -> policy.execute(Arrays.asList("a", "b"),
+                EsBulkRetryPolicyTest::describe, batch -> {
+                    throw new ConnectException("Connection refused");
+                }));
+    }
+
+    @Test
+    void retriesWholeBatchRejectedInFirstRound() throws IOException {
+        EsBulkResult result = policy.execute(Arrays.asList("a", "b"), EsBulkRetryPolicyTest::describe, batch -> {
+            if (batches.isEmpty()) {
+                batches.add(batch);
+                throw new ElasticsearchStatusException("rejected", RestStatus.TOO_MANY_REQUESTS);
+            }
+            return respond(batch, Collections.emptySet());
+        });
+
+        assertEquals(Arrays.asList(Arrays.asList("a", "b"), Arrays.asList("a", "b")), batches);
+        assertTrue(result.isSuccess());
+        assertEquals(Arrays.asList(2, 2), attempts(result));
+    }
+
+    @Test
+    void retriesRejectedItemsAsync() throws Exception {
+        EsBulkResult result = policy.<String>executeAsync(Arrays.asList("a", "b", "c"), EsBulkRetryPolicyTest::describe,
+                batch -> {
+                    Set<String> rejected = batches.isEmpty() ? Collections.singleton("c") : Collections.emptySet();
+                    return CompletableFuture.supplyAsync(() -> respond(batch, rejected));
+                }).get(10, TimeUnit.SECONDS);
+
+        assertEquals(Arrays.asList(Arrays.asList("a", "b", "c"), Collections.singletonList("c")), batches);
+        assertTrue(result.isSuccess());
+        assertEquals(Arrays.asList(1, 1, 2), attempts(result));
+    }
+
+    @Test
+    void backoffStaysWithinCap() {
+        EsBulkRetryPolicy backoff = new EsBulkRetryPolicy(10, 100, 1000);
+        for (int attempt = 0; attempt < 40; attempt++) {
+            long cap = Math.min(100L << Math.min(attempt, 30), 1000);
+            long delay = backoff.backoffMillis(attempt);
+            assertTrue(delay >= cap / 2 && delay <= cap, "attempt:" + attempt + ",delay:" + delay);
+        }
+    }
+
+    /**
+     * 记录提交的批次，rejected中的文档以429失败，其余写入成功
+     */
+    private BulkResponse respond(List<String> batch, Set<String> rejected) {
+        synchronized (batches) {
+            batches.add(batch);
+        }
+        BulkItemResponse[] items = new BulkItemResponse[batch.size()];
+        for (int i = 0; i < batch.size(); i++) {
+            String docId = batch.get(i);
+            if (rejected.contains(docId)) {
+                items[i] = new BulkItemResponse(i, DocWriteRequest.OpType.INDEX, new BulkItemResponse.Failure(INDEX_NAME,
+                        "_doc", docId, new IllegalStateException("es_rejected_execution_exception"),
+                        RestStatus.TOO_MANY_REQUESTS));
+            } else {
+                items[i] = new BulkItemResponse(i, DocWriteRequest.OpType.INDEX,
+                        new IndexResponse(new ShardId(INDEX_NAME, "_na_", 0), "_doc", docId, 1, 1, 1, true));
+            }
+        }
+        return new BulkResponse(items, 1);
+    }
+
+    private static EsBulkItemResult describe(String docId) {
+        EsBulkItemResult itemResult = new EsBulkItemResult();
+        itemResult.setDocId(docId);
+        itemResult.setIndexName(INDEX_NAME);
+        itemResult.setOpType("index");
+        return itemResult;
+    }
+
+    private static List<String> docIds(EsBulkResult result) {
+        List<String> docIds = new ArrayList<>();
+        for (EsBulkItemResult item : result.getItems()) {
+            docIds.add(item.getDocId());
+        }
+        return docIds;
+    }
+
+    private static List<Integer> attempts(EsBulkResult result) {
+        List<Integer> attempts = new ArrayList<>();
+        for (EsBulkItemResult item : result.getItems()) {
+            attempts.add(item.getAttempts());
+        }
+        return attempts;
+    }
+}
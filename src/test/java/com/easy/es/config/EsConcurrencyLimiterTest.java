@@ -0,0 +1,166 @@
+package com.easy.es.config;
+
+import org.elasticsearch.ElasticsearchStatusException;
+import org.elasticsearch.rest.RestStatus;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * @author agent
+ * @ClassName EsConcurrencyLimiterTest
+ * @create 2026年10月17日 20:12
+ * @Description 自适应并发限制的排队、拒绝、超时及AIMD上限调整
+ * @Version V1.0
+ */
+class EsConcurrencyLimiterTest {
+
+    private static final EsConcurrencyLimiter.Lane INTERACTIVE = EsConcurrencyLimiter.Lane.INTERACTIVE;
+
+    @Test
+    void queuesBeyondLimitAndGrantsOnRelease() {
+        EsConcurrencyLimiter limiter = limiter(config(2), null);
+        EsConcurrencyLimiter.Permit first = limiter.acquire(INTERACTIVE).join();
+        limiter.acquire(INTERACTIVE).join();
+        CompletableFuture<EsConcurrencyLimiter.Permit> queued = limiter.acquire(INTERACTIVE);
+        assertFalse(queued.isDone());
+        assertEquals(1, limiter.stats(INTERACTIVE).getQueued());
+
+        first.release();
+        assertTrue(queued.isDone());
+        EsLimiterStats stats = limiter.stats(INTERACTIVE);
+        assertEquals(2, stats.getInFlight());
+        assertEquals(0, stats.getQueued());
+
+        // 重复归还无效
+        first.release();
+        assertEquals(2, limiter.stats(INTERACTIVE).getInFlight());
+    }
+
+    @Test
+    void rejectsWhenQueueFull() {
+        EsLimiterConfig config = config(1);
+        config.setMaxQueueSize(1);
+        EsConcurrencyLimiter limiter = limiter(config, null);
+        limiter.acquire(INTERACTIVE).join();
+        limiter.acquire(INTERACTIVE);
+
+        assertRejected(limiter.acquire(INTERACTIVE));
+        assertEquals(1, limiter.stats(INTERACTIVE).getRejectedCount());
+    }
+
+    @Test
+    void rejectsAfterWaitTimeout() {
+        EsLimiterConfig config = config(1);
+        config.setMaxWaitMillis(20);
+        EsConcurrencyLimiter limiter = limiter(config, null);
+        limiter.acquire(INTERACTIVE).join();
+
+        assertRejected(limiter.acquire(INTERACTIVE));
+        EsLimiterStats stats = limiter.stats(INTERACTIVE);
+        assertEquals(1, stats.getInFlight());
+        assertEquals(0, stats.getQueued());
+        assertEquals(1, stats.getRejectedCount());
+    }
+
+    @Test
+    void removesCancelledWaiter() {
+        EsConcurrencyLimiter limiter = limiter(config(1), null);
+        EsConcurrencyLimiter.Permit permit = limiter.acquire(INTERACTIVE).join();
+        limiter.acquire(INTERACTIVE).cancel(false);
+        assertEquals(0, limiter.stats(INTERACTIVE).getQueued());
+
+        permit.release();
+        assertEquals(0, limiter.stats(INTERACTIVE).getInFlight());
+    }
+
+    @Test
+    void halvesLimitOnceOnRejection() {
+        EsConcurrencyLimiter limiter = limiter(config(10), null);
+        EsConcurrencyLimiter.Permit first = limiter.acquire(INTERACTIVE).join();
+        EsConcurrencyLimiter.Permit second = limiter.acquire(INTERACTIVE).join();
+        first.onRejected();
+        // 同一往返内的拒绝只缩小一次
+        second.onRejected();
+
+        EsLimiterStats stats = limiter.stats(INTERACTIVE);
+        assertEquals(5, stats.getLimit());
+        assertEquals(1, stats.getBackoffCount());
+    }
+
+    @Test
+    void backsOffOnSlowResponse() {
+        EsLimiterConfig config = config(10);
+        config.setLatencyThresholdMillis(10);
+        config.setBackoffRatio(0.5);
+        EsConcurrencyLimiter limiter = limiter(config, null);
+        limiter.acquire(INTERACTIVE).join().onSuccess(TimeUnit.MILLISECONDS.toNanos(20));
+
+        assertEquals(5, limiter.stats(INTERACTIVE).getLimit());
+    }
+
+    @Test
+    void growsOnlyWhenSaturated() {
+        EsLimiterConfig config = config(2);
+        config.setMaxLimit(4);
+        EsConcurrencyLimiter limiter = limiter(config, null);
+        for (int i = 0; i < 50; i++) {
+            limiter.acquire(INTERACTIVE).join().onSuccess(TimeUnit.MILLISECONDS.toNanos(1));
+        }
+        assertEquals(2, limiter.stats(INTERACTIVE).getLimit());
+
+        for (int round = 0; round < 20; round++) {
+            List<EsConcurrencyLimiter.Permit> permits = new ArrayList<>();
+            int limit = limiter.stats(INTERACTIVE).getLimit();
+            for (int i = 0; i < limit; i++) {
+                permits.add(limiter.acquire(INTERACTIVE).join());
+            }
+            permits.forEach(permit -> permit.onSuccess(TimeUnit.MILLISECONDS.toNanos(1)));
+        }
+        assertEquals(4, limiter.stats(INTERACTIVE).getLimit());
+    }
+
+    @Test
+    void bulkLaneYieldsToInteractiveCongestion() {
+        EsConcurrencyLimiter limiter = limiter(config(10), config(8));
+        limiter.acquire(INTERACTIVE).join().onRejected();
+
+        assertEquals(5, limiter.stats(INTERACTIVE).getLimit());
+        assertEquals(4, limiter.stats(EsConcurrencyLimiter.Lane.BULK).getLimit());
+    }
+
+    @Test
+    void leavesUnconfiguredLaneUnlimited() {
+        EsConcurrencyLimiter limiter = limiter(config(1), null);
+
+        assertSame(EsConcurrencyLimiter.NOOP_PERMIT, limiter.acquire(EsConcurrencyLimiter.Lane.BULK).join());
+        assertNull(limiter.stats(EsConcurrencyLimiter.Lane.BULK));
+    }
+
+    private static EsConcurrencyLimiter limiter(EsLimiterConfig interactiveConfig, EsLimiterConfig bulkConfig) {
+        return new EsConcurrencyLimiter("test", "*", interactiveConfig, bulkConfig, EsClientMetrics.NOOP);
+    }
+
+    private static EsLimiterConfig config(int initialLimit) {
+        EsLimiterConfig config = new EsLimiterConfig();
+        config.setInitialLimit(initialLimit);
+        return config;
+    }
+
+    private static void assertRejected(CompletableFuture<EsConcurrencyLimiter.Permit> future) {
+        ExecutionException e = assertThrows(ExecutionException.class, () -> future.get(10, TimeUnit.SECONDS));
+        assertTrue(e.getCause() instanceof ElasticsearchStatusException);
+        assertEquals(RestStatus.TOO_MANY_REQUESTS, ((ElasticsearchStatusException) e.getCause()).status());
+    }
+}
@@ -0,0 +1,105 @@
+package com.easy.es.config;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * @author agent
+ * @ClassName EsLocalCacheTest
+ * @create 2026年10月17日 20:09
+ * @Description 本地缓存的淘汰、过期、权重及失效代数
+ * @Version V1.0
+ */
+class EsLocalCacheTest {
+
+    @Test
+    void evictsLeastRecentlyUsed() {
+        EsLocalCache<String, String> cache = cache(EsLocalCache.EvictionPolicy.LRU, 2, 60000);
+        cache.put("a", "a");
+        cache.put("b", "b");
+        assertEquals("a", cache.get("a"));
+        cache.put("c", "c");
+
+        assertNull(cache.get("b"));
+        assertEquals("a", cache.get("a"));
+        assertEquals("c", cache.get("c"));
+        assertEquals(1, cache.stats().getEvictionCount());
+    }
+
+    @Test
+    void evictsLeastFrequentlyUsedButKeepsNewEntry() {
+        EsLocalCache<String, String> cache = cache(EsLocalCache.EvictionPolicy.LFU, 2, 60000);
+        cache.put("a", "a");
+        cache.put("b", "b");
+        cache.get("a");
+        cache.get("a");
+        cache.get("b");
+        cache.put("c", "c");
+        assertNull(cache.get("b"));
+
+        // c只访问过一次，放入d时淘汰c而不是刚放入的d
+        cache.put("d", "d");
+        assertNull(cache.get("c"));
+        assertEquals("a", cache.get("a"));
+        assertEquals("d", cache.get("d"));
+    }
+
+    @Test
+    void expiresAfterTtl() throws InterruptedException {
+        EsLocalCache<String, String> cache = cache(EsLocalCache.EvictionPolicy.LRU, 10, 20);
+        cache.put("a", "a");
+        Thread.sleep(40);
+
+        assertNull(cache.get("a"));
+        EsCacheStats stats = cache.stats();
+        assertEquals(0, stats.getSize());
+        assertEquals(1, stats.getMissCount());
+    }
+
+    @Test
+    void limitsByWeight() {
+        EsLocalCache<String, String> cache = new EsLocalCache<>(EsLocalCache.EvictionPolicy.LRU, 10, 60000,
+                String::length);
+        cache.put("a", "12345");
+        cache.put("b", "1234");
+        assertEquals(9, cache.stats().getWeight());
+
+        cache.put("c", "123");
+        assertNull(cache.get("a"));
+        assertEquals(7, cache.stats().getWeight());
+
+        // 超过上限的值不放入，同时移除该key的旧值
+        cache.put("b", "12345678901");
+        assertNull(cache.get("b"));
+        assertEquals(3, cache.stats().getWeight());
+    }
+
+    @Test
+    void skipsPutAfterInvalidation() {
+        EsLocalCache<String, String> cache = cache(EsLocalCache.EvictionPolicy.LRU, 10, 60000);
+        long generation = cache.generation();
+        cache.invalidate("other");
+
+        assertFalse(cache.putIfCurrent("a", "stale", generation));
+        assertNull(cache.get("a"));
+        assertTrue(cache.putIfCurrent("a", "fresh", cache.generation()));
+        assertEquals("fresh", cache.get("a"));
+
+        generation = cache.generation();
+        cache.invalidateAll();
+        assertFalse(cache.putIfCurrent("b", "stale", generation));
+        assertNull(cache.get("a"));
+    }
+
+    private static EsLocalCache<String, String> cache(EsLocalCache.EvictionPolicy policy, long maxSize, long ttlMillis) {
+        EsCacheConfig cacheConfig = new EsCacheConfig();
+        cacheConfig.setPolicy(policy);
+        cacheConfig.setMaxSize(maxSize);
+        cacheConfig.setTtlMillis(ttlMillis);
+        return new EsLocalCache<>(cacheConfig);
+    }
+}
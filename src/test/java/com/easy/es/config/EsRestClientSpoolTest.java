@@ -0,0 +1,110 @@
+package com.easy.es.config;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.net.ServerSocket;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * @author agent
+ * @ClassName EsRestClientSpoolTest
+ * @create 2026年10月17日 20:03
+ * @Description 集群不可用时异步写入及批量写入管道的失败写入转入spool
+ * @Version V1.0
+ */
+class EsRestClientSpoolTest {
+
+    @TempDir
+    Path directory;
+
+    private EsRestClient esRestClient;
+
+    private EsIndexInfo esIndexInfo;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        EsClusterConfig esConfig = new EsClusterConfig();
+        esConfig.setClusterName("spool-" + System.nanoTime());
+        esConfig.setNodes("127.0.0.1:" + closedPort());
+        esConfig.setBulkRetryMaxRetries(0);
+        EsSpoolConfig spoolConfig = new EsSpoolConfig();
+        spoolConfig.setDirectory(directory.toString());
+        spoolConfig.setDrainIntervalMillis(TimeUnit.HOURS.toMillis(1));
+        esConfig.setSpool(spoolConfig);
+        EsConfigProperties esConfigProperties = new EsConfigProperties();
+        esConfigProperties.getEsConfigs().add(esConfig);
+        esRestClient = new EsRestClient(esConfigProperties);
+        esRestClient.init();
+        esIndexInfo = new EsIndexInfo();
+        esIndexInfo.setClusterName(esConfig.getClusterName());
+        esIndexInfo.setIndexName("idx");
+    }
+
+    @AfterEach
+    void tearDown() {
+        esRestClient.close();
+    }
+
+    @Test
+    void spoolsAsyncWriteWhenClusterDown() throws Exception {
+        assertTrue(esRestClient.insertDocAsync(esIndexInfo, source("d1")).get(10, TimeUnit.SECONDS));
+        assertEquals(1, pendingRecords());
+    }
+
+    @Test
+    void spoolsAsyncBatchWhenClusterDown() throws Exception {
+        EsBulkResult result = esRestClient.batchInsertDocAsync(esIndexInfo, Arrays.asList(source("d1"), source("d2")))
+                .get(10, TimeUnit.SECONDS);
+        assertTrue(result.isSuccess());
+        assertTrue(result.getItems().stream().allMatch(EsBulkItemResult::isSpooled));
+        assertEquals(2, pendingRecords());
+    }
+
+    @Test
+    void spoolsIngesterBatchWhenClusterDown() throws Exception {
+        assertTrue(esRestClient.bulkAdd(esIndexInfo, source("d1")));
+        assertTrue(esRestClient.bulkAdd(esIndexInfo, source("d2")));
+        esRestClient.flushBulk();
+        EsBulkIngester ingester = esRestClient.getBulkIngester(esIndexInfo.getClusterName());
+        long deadline = System.currentTimeMillis() + 10_000;
+        while (ingester.getPendingDocs() > 0 && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+        assertEquals(2, ingester.getSpooledDocs());
+        assertEquals(0, ingester.getFailedDocs());
+        assertEquals(2, pendingRecords());
+    }
+
+    private long pendingRecords() {
+        return esRestClient.getSpoolStats(esIndexInfo.getClusterName()).getPendingRecords();
+    }
+
+    private static EsSourceData source(String docId) {
+        Map<String, Object> data = new HashMap<>();
+        data.put("name", docId);
+        EsSourceData esSourceData = new EsSourceData();
+        esSourceData.setDocId(docId);
+        esSourceData.setData(data);
+        return esSourceData;
+    }
+
+    /**
+     * 取一个空闲端口后关闭，连接时被拒绝
+     */
+    private static int closedPort() throws IOException {
+        try (ServerSocket socket = new ServerSocket(0)) {
+            return socket.getLocalPort();
+        }
+    }
+}
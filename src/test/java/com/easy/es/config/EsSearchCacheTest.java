@@ -0,0 +1,140 @@
+package com.easy.es.config;
+
+import org.elasticsearch.action.search.SearchResponse;
+import org.elasticsearch.action.search.ShardSearchFailure;
+import org.elasticsearch.search.internal.InternalSearchResponse;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+/**
+ * @author agent
+ * @ClassName EsSearchCacheTest
+ * @create 2026年10月17日 20:10
+ * @Description 搜索结果缓存的合并加载、过期后返回旧结果及写入后的不缓存窗口
+ * @Version V1.0
+ */
+class EsSearchCacheTest {
+
+    private static final String KEY = "{\"query\":{\"match_all\":{}}}";
+
+    @Test
+    void sharesConcurrentLoad() {
+        EsSearchCache cache = new EsSearchCache(config(60000, 0, 0));
+        Loader loader = new Loader();
+        CompletableFuture<SearchResponse> first = cache.get(KEY, loader);
+        CompletableFuture<SearchResponse> second = cache.get(KEY, loader);
+        assertEquals(1, loader.calls.get());
+
+        SearchResponse response = response();
+        loader.complete(response);
+        assertSame(response, first.join());
+        assertSame(response, second.join());
+        assertSame(response, cache.get(KEY, loader).join());
+        assertEquals(1, loader.calls.get());
+    }
+
+    @Test
+    void servesStaleWhileRevalidating() throws InterruptedException {
+        EsSearchCache cache = new EsSearchCache(config(20, 60000, 0));
+        Loader loader = new Loader();
+        cache.get(KEY, loader);
+        SearchResponse stale = response();
+        loader.complete(stale);
+        Thread.sleep(40);
+
+        // 过期后立即返回旧结果，只发起一次后台刷新
+        assertSame(stale, cache.get(KEY, loader).join());
+        assertSame(stale, cache.get(KEY, loader).join());
+        assertEquals(2, loader.calls.get());
+
+        SearchResponse fresh = response();
+        loader.complete(fresh);
+        assertSame(fresh, cache.get(KEY, loader).join());
+        assertEquals(2, loader.calls.get());
+    }
+
+    @Test
+    void skipsCachingWithinRefreshIntervalOfWrite() {
+        EsSearchCache cache = new EsSearchCache(config(60000, 0, 60000));
+        Loader loader = new Loader();
+        cache.get(KEY, loader);
+        loader.complete(response());
+        cache.get(KEY, loader);
+        assertEquals(1, loader.calls.get());
+
+        cache.invalidateAll();
+        cache.get(KEY, loader);
+        loader.complete(response());
+        cache.get(KEY, loader);
+        assertEquals(3, loader.calls.get());
+    }
+
+    @Test
+    void skipsCachingLoadStartedBeforeWrite() {
+        EsSearchCache cache = new EsSearchCache(config(60000, 0, 0));
+        Loader loader = new Loader();
+        CompletableFuture<SearchResponse> beforeWrite = cache.get(KEY, loader);
+        cache.invalidateAll();
+
+        // 写入后的请求不复用写入前开始的加载
+        CompletableFuture<SearchResponse> afterWrite = cache.get(KEY, loader);
+        assertEquals(2, loader.calls.get());
+        SearchResponse stale = response();
+        loader.pending.get(0).complete(stale);
+        assertSame(stale, beforeWrite.join());
+        assertFalse(afterWrite.isDone());
+
+        SearchResponse fresh = response();
+        loader.complete(fresh);
+        assertSame(fresh, afterWrite.join());
+        assertSame(fresh, cache.get(KEY, loader).join());
+        assertEquals(2, loader.calls.get());
+    }
+
+    private static EsSearchCacheConfig config(long ttlMillis, long staleMillis, long refreshIntervalMillis) {
+        EsSearchCacheConfig cacheConfig = new EsSearchCacheConfig();
+        cacheConfig.setTtlMillis(ttlMillis);
+        cacheConfig.setStaleWhileRevalidateMillis(staleMillis);
+        cacheConfig.setRefreshIntervalMillis(refreshIntervalMillis);
+        return cacheConfig;
+    }
+
+    private static SearchResponse response() {
+        return new SearchResponse(InternalSearchResponse.empty(), null, 1, 1, 0, 1,
+                ShardSearchFailure.EMPTY_ARRAY, SearchResponse.Clusters.EMPTY);
+    }
+
+    /**
+     * 记录加载次数，由测试控制加载完成的时机
+     */
+    private static class Loader implements Supplier<CompletableFuture<SearchResponse>> {
+
+        private final AtomicInteger calls = new AtomicInteger();
+
+        private final List<CompletableFuture<SearchResponse>> pending = new CopyOnWriteArrayList<>();
+
+        @Override
+        public CompletableFuture<SearchResponse> get() {
+            CompletableFuture<SearchResponse> future = new CompletableFuture<>();
+            pending.add(future);
+            calls.incrementAndGet();
+            return future;
+        }
+
+        /**
+         * 完成最近一次加载
+         */
+        void complete(SearchResponse response) {
+            pending.get(pending.size() - 1).complete(response);
+        }
+    }
+}
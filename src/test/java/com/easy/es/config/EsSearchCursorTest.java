@@ -0,0 +1,70 @@
+package com.easy.es.config;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/**
+ * @author agent
+ * @ClassName EsSearchCursorTest
+ * @create 2026年10月17日 20:12
+ * @Description search_after游标的编码、解码及下一页游标
+ * @Version V1.0
+ */
+class EsSearchCursorTest {
+
+    @Test
+    void roundTripsSortValues() {
+        String cursor = EsSearchCursor.encode(new Object[]{1700000000000L, "doc-1", 1.5, true});
+
+        assertFalse(cursor.contains("=") || cursor.contains("+") || cursor.contains("/"));
+        assertArrayEquals(new Object[]{1700000000000L, "doc-1", 1.5, true}, EsSearchCursor.decode(cursor));
+    }
+
+    @Test
+    void decodesDecimalsAsDouble() {
+        Object[] sortValues = EsSearchCursor.decode(EsSearchCursor.encode(new Object[]{0.1f, 3}));
+
+        assertEquals(Double.class, sortValues[0].getClass());
+        assertEquals(3, ((Number) sortValues[1]).intValue());
+    }
+
+    @Test
+    void rejectsInvalidCursor() {
+        assertThrows(IllegalArgumentException.class, () -> EsSearchCursor.decode("not a cursor"));
+        assertThrows(IllegalArgumentException.class, () -> EsSearchCursor.decode("e30"));
+        assertThrows(IllegalArgumentException.class, () -> EsSearchCursor.decode("W10"));
+    }
+
+    @Test
+    void encodesNothingForMissingSortValues() {
+        assertNull(EsSearchCursor.encode(null));
+        assertNull(EsSearchCursor.encode(new Object[0]));
+    }
+
+    @Test
+    void nextUsesLastCompactHit() {
+        EsCompactSearchResult result = new EsCompactSearchResult();
+        assertNull(EsSearchCursor.next(result));
+
+        result.getHits().add(hit("a", 1L));
+        result.getHits().add(hit("b", 2L));
+        Object[] sortValues = EsSearchCursor.decode(EsSearchCursor.next(result));
+        // 较小的整数解码为Integer，作为search_after的值与Long等价
+        assertEquals(2L, ((Number) sortValues[0]).longValue());
+        assertEquals("b", sortValues[1]);
+    }
+
+    private static EsCompactHit hit(String id, long sortValue) {
+        EsCompactHit hit = new EsCompactHit();
+        hit.setId(id);
+        hit.setSortValues(Arrays.asList(sortValue, id));
+        return hit;
+    }
+}
@@ -0,0 +1,226 @@
+package com.easy.es.config;
+
+import org.elasticsearch.action.DocWriteRequest;
+import org.elasticsearch.action.delete.DeleteRequest;
+import org.elasticsearch.action.index.IndexRequest;
+import org.elasticsearch.action.update.UpdateRequest;
+import org.elasticsearch.common.xcontent.XContentType;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BooleanSupplier;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * @author agent
+ * @ClassName EsWriteSpoolTest
+ * @create 2026年10月17日 19:45
+ * @Description 写入本地暂存的恢复、重放及容量上限，不需要集群
+ * @Version V1.0
+ */
+class EsWriteSpoolTest {
+
+    private static final String CLUSTER_NAME = "test";
+
+    private static final String INDEX_NAME = "idx";
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void truncatesTornTailOnOpen() throws IOException {
+        RecordingReplayer replayer = new RecordingReplayer();
+        EsWriteSpool spool = new EsWriteSpool(CLUSTER_NAME, config(500), replayer);
+        assertTrue(spool.append(Arrays.asList(index("d1", 1), index("d2", 1))));
+        spool.close();
+        Path segment = segment();
+        long validBytes = Files.size(segment);
+        // 模拟写入记录时进程退出：只有记录头及部分记录体
+        try (FileChannel channel = FileChannel.open(segment, StandardOpenOption.WRITE, StandardOpenOption.APPEND)) {
+            ByteBuffer torn = ByteBuffer.allocate(12);
+            torn.putInt(100).putInt(0).putInt(7).flip();
+            channel.write(torn);
+        }
+
+        EsWriteSpool reopened = new EsWriteSpool(CLUSTER_NAME, config(500), replayer);
+        try {
+            assertEquals(validBytes, Files.size(segment));
+            assertEquals(2, reopened.stats().getPendingRecords());
+            assertTrue(reopened.append(Collections.singletonList(index("d3", 1))));
+            replayer.available.set(true);
+            awaitTrue(() -> !reopened.hasPending());
+            assertEquals(Arrays.asList("d1", "d2", "d3"), replayer.ids());
+        } finally {
+            reopened.close();
+        }
+    }
+
+    @Test
+    void resumesFromCheckpointAfterRestart() throws IOException {
+        RecordingReplayer replayer = new RecordingReplayer();
+        replayer.successfulBatches.set(1);
+        EsWriteSpool spool = new EsWriteSpool(CLUSTER_NAME, config(1), replayer);
+        assertTrue(spool.append(Arrays.asList(index("d1", 1), index("d2", 1), index("d3", 1))));
+        replayer.available.set(true);
+        awaitTrue(() -> spool.stats().getDrainedCount() == 1 && replayer.failedBatches.get() > 0);
+        spool.close();
+
+        RecordingReplayer restarted = new RecordingReplayer();
+        restarted.available.set(true);
+        EsWriteSpool reopened = new EsWriteSpool(CLUSTER_NAME, config(1), restarted);
+        try {
+            awaitTrue(() -> !reopened.hasPending());
+            assertEquals(Collections.singletonList("d1"), replayer.ids());
+            assertEquals(Arrays.asList("d2", "d3"), restarted.ids());
+        } finally {
+            reopened.close();
+        }
+    }
+
+    @Test
+    void dedupesOverwrittenWritesInReplayBatch() throws IOException {
+        RecordingReplayer replayer = new RecordingReplayer();
+        EsWriteSpool spool = new EsWriteSpool(CLUSTER_NAME, config(500), replayer);
+        try {
+            assertTrue(spool.append(Arrays.asList(index("d1", 1), update("d1"), index("d1", 2),
+                    update("d1"), index("d2", 1), new DeleteRequest(INDEX_NAME, "d2"))));
+            replayer.available.set(true);
+            awaitTrue(() -> !spool.hasPending());
+            List<DocWriteRequest<?>> replayed = replayer.requests;
+            assertEquals(3, replayed.size());
+            assertEquals("{\"version\":2}", ((IndexRequest) replayed.get(0)).source().utf8ToString());
+            assertTrue(replayed.get(1) instanceof UpdateRequest);
+            assertTrue(replayed.get(2) instanceof DeleteRequest);
+            assertEquals(6, spool.stats().getDrainedCount());
+        } finally {
+            spool.close();
+        }
+    }
+
+    @Test
+    void rejectsAppendBeyondMaxDisk() throws IOException {
+        EsSpoolConfig config = config(500);
+        config.setMaxDiskMb(1);
+        EsWriteSpool spool = new EsWriteSpool(CLUSTER_NAME, config, new RecordingReplayer());
+        try {
+            char[] padding = new char[600 * 1024];
+            Arrays.fill(padding, 'x');
+            String source = "{\"padding\":\"" + new String(padding) + "\"}";
+            assertTrue(spool.append(Collections.singletonList(raw("d1", source))));
+            assertFalse(spool.append(Arrays.asList(raw("d2", source), raw("d3", source))));
+            EsSpoolStats stats = spool.stats();
+            assertEquals(1, stats.getPendingRecords());
+            assertEquals(2, stats.getRejectedCount());
+            assertTrue(stats.getDiskBytes() <= 1024 * 1024);
+        } finally {
+            spool.close();
+        }
+    }
+
+    private EsSpoolConfig config(int drainBatchSize) {
+        EsSpoolConfig config = new EsSpoolConfig();
+        config.setDirectory(directory.toString());
+        config.setDrainBatchSize(drainBatchSize);
+        config.setDrainIntervalMillis(10);
+        return config;
+    }
+
+    private Path segment() throws IOException {
+        try (Stream<Path> files = Files.list(directory.resolve(CLUSTER_NAME))) {
+            List<Path> segments = files.filter(path -> path.toString().endsWith(".seg")).collect(Collectors.toList());
+            assertEquals(1, segments.size());
+            return segments.get(0);
+        }
+    }
+
+    private static IndexRequest index(String docId, int version) {
+        return raw(docId, "{\"version\":" + version + "}");
+    }
+
+    private static IndexRequest raw(String docId, String source) {
+        return new IndexRequest(INDEX_NAME).id(docId).source(source.getBytes(StandardCharsets.UTF_8), XContentType.JSON);
+    }
+
+    private static UpdateRequest update(String docId) {
+        return new UpdateRequest(INDEX_NAME, docId).doc("{\"updated\":true}", XContentType.JSON);
+    }
+
+    private static void awaitTrue(BooleanSupplier condition) {
+        long deadline = System.currentTimeMillis() + 10_000;
+        while (!condition.getAsBoolean()) {
+            assertTrue(System.currentTimeMillis() < deadline, "condition not met within 10s");
+            try {
+                Thread.sleep(10);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException(e);
+            }
+        }
+    }
+
+    /**
+     * 记录重放的请求，successfulBatches用完后以503拒绝
+     */
+    private static class RecordingReplayer implements EsWriteSpool.Replayer {
+
+        private final AtomicBoolean available = new AtomicBoolean();
+
+        private final AtomicInteger successfulBatches = new AtomicInteger(Integer.MAX_VALUE);
+
+        private final AtomicInteger failedBatches = new AtomicInteger();
+
+        private final List<DocWriteRequest<?>> requests = new CopyOnWriteArrayList<>();
+
+        @Override
+        public boolean isAvailable() {
+            return available.get();
+        }
+
+        @Override
+        public EsBulkResult replay(List<DocWriteRequest<?>> batch) {
+            boolean success = successfulBatches.getAndDecrement() > 0;
+            if (success) {
+                requests.addAll(batch);
+            } else {
+                failedBatches.incrementAndGet();
+            }
+            EsBulkResult result = new EsBulkResult();
+            for (DocWriteRequest<?> request : batch) {
+                EsBulkItemResult item = new EsBulkItemResult();
+                item.setDocId(request.id());
+                item.setIndexName(request.index());
+                item.setSuccess(success);
+                item.setStatus(success ? 200 : 503);
+                result.getItems().add(item);
+            }
+            return result;
+        }
+
+        List<String> ids() {
+            List<String> ids = new ArrayList<>(requests.size());
+            for (DocWriteRequest<?> request : requests) {
+                ids.add(request.id());
+            }
+            return ids;
+        }
+    }
+}